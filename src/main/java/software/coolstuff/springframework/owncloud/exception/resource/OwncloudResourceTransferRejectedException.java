@@ -0,0 +1,46 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.exception.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudPipedStreamExecutor;
+
+import java.net.URI;
+
+/**
+ * Thrown when the Transfer of a File Resource has been rejected because
+ * all Workers and the Queue of the {@link OwncloudPipedStreamExecutor} are exhausted
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OwncloudResourceTransferRejectedException extends OwncloudResourceException {
+
+  private static final long serialVersionUID = 3816383155722624497L;
+
+  public OwncloudResourceTransferRejectedException(URI uri, String username, Throwable throwable) {
+    super("Transfer of Resource " + uri.getPath() + " of User " + username + " has been rejected", throwable);
+  }
+
+}
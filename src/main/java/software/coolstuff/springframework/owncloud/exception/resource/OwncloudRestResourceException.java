@@ -34,6 +34,10 @@ public class OwncloudRestResourceException extends OwncloudResourceException {
 
   private static final long serialVersionUID = -4576256215966606734L;
 
+  public OwncloudRestResourceException(String message) {
+    super(message);
+  }
+
   public OwncloudRestResourceException(String message, Throwable throwable) {
     super(message, throwable);
   }
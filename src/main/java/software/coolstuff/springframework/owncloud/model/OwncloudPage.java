@@ -0,0 +1,160 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * One Page of the paginated Enumeration of Users or Groups
+ * (<code>OwncloudUserService#findAll(String, int, int)</code> and <code>OwncloudGroupService#findAll(String, int, int)</code>).
+ * <p/>
+ * The next Page can be requested with the Continuation Token {@link #getNextOffset()} as Offset.
+ *
+ * @param <T> Type of the Elements
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Getter
+@Builder
+@ToString
+public class OwncloudPage<T> {
+
+  /**
+   * Elements of this Page
+   *
+   * @return Elements of this Page
+   */
+  private final List<T> content;
+
+  /**
+   * Offset of this Page
+   *
+   * @return Offset of this Page
+   */
+  private final int offset;
+
+  private final Integer nextOffset;
+
+  /**
+   * Elements of this Page
+   *
+   * @return Elements of this Page (empty List if the Page doesn&apos;t contain any Elements)
+   */
+  public List<T> getContent() {
+    return content == null ? Collections.emptyList() : Collections.unmodifiableList(content);
+  }
+
+  /**
+   * Continuation Token (Offset of the next Page)
+   *
+   * @return Offset of the next Page (empty if this is the last Page)
+   */
+  public Optional<Integer> getNextOffset() {
+    return Optional.ofNullable(nextOffset);
+  }
+
+  /**
+   * Is there another Page after this Page
+   *
+   * @return <code>true</code> if there is another Page
+   */
+  public boolean hasNext() {
+    return nextOffset != null;
+  }
+
+  /**
+   * Page of a List of all Elements (i.e. of the local Resource or of the Directory Replica).
+   * The last Page has no next Page.
+   *
+   * @param elements all Elements
+   * @param offset Offset of the Page
+   * @param limit maximum Number of Elements of the Page
+   * @param <T> Type of the Elements
+   * @return Page of the Elements
+   */
+  public static <T> OwncloudPage<T> of(List<T> elements, int offset, int limit) {
+    Validate.isTrue(offset >= 0, "Offset must not be negative");
+    Validate.isTrue(limit > 0, "Limit must be positive");
+    int fromIndex = Math.min(offset, elements.size());
+    int toIndex = (int) Math.min((long) offset + limit, elements.size());
+    return OwncloudPage.<T>builder()
+        .content(new ArrayList<>(elements.subList(fromIndex, toIndex)))
+        .offset(offset)
+        .nextOffset(toIndex < elements.size() ? toIndex : null)
+        .build();
+  }
+
+  /**
+   * Lazy Stream of the Elements of all Pages. The next Page will be loaded
+   * when all Elements of the current Page have been consumed.
+   *
+   * @param pageLoader loads the Page of the given Offset
+   * @param <T> Type of the Elements
+   * @return lazy Stream of the Elements of all Pages
+   */
+  public static <T> Stream<T> stream(IntFunction<OwncloudPage<T>> pageLoader) {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new PageIterator<>(pageLoader), Spliterator.ORDERED), false);
+  }
+
+  private static class PageIterator<T> implements Iterator<T> {
+    private final IntFunction<OwncloudPage<T>> pageLoader;
+    private Iterator<T> elements = Collections.emptyIterator();
+    private Optional<Integer> nextOffset = Optional.of(0);
+
+    private PageIterator(IntFunction<OwncloudPage<T>> pageLoader) {
+      this.pageLoader = pageLoader;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!elements.hasNext() && nextOffset.isPresent()) {
+        OwncloudPage<T> page = pageLoader.apply(nextOffset.get());
+        elements = page.getContent().iterator();
+        nextOffset = page.getNextOffset();
+      }
+      return elements.hasNext();
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return elements.next();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Optional;
+
+/**
+ * Result of the Save Operation of one single User by the Batch Method
+ * <code>OwncloudUserService#saveAll</code>
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Getter
+@Builder
+@ToString
+public class OwncloudSaveResult {
+
+  /**
+   * Name of the User
+   *
+   * @return Name of the User
+   */
+  private final String username;
+
+  private final OwncloudUserDetails user;
+
+  /**
+   * Has the User been created or modified
+   *
+   * @return <code>false</code> if the User has already been up to date
+   */
+  private final boolean modified;
+
+  private final RuntimeException failure;
+
+  /**
+   * Details of the saved User
+   *
+   * @return Details of the saved User (empty if the User couldn&apos;t be saved)
+   */
+  public Optional<OwncloudUserDetails> getUser() {
+    return Optional.ofNullable(user);
+  }
+
+  /**
+   * Has the User been saved successfully
+   *
+   * @return <code>true</code> if the User has been saved successfully
+   */
+  public boolean isSuccessful() {
+    return failure == null;
+  }
+
+  /**
+   * Exception of a failed Save Operation
+   *
+   * @return Exception of a failed Save Operation (empty if the User has been saved successfully)
+   */
+  public Optional<RuntimeException> getFailure() {
+    return Optional.ofNullable(failure);
+  }
+}
@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Result of the Transfer of one single File by the Batch Transfer Methods of
+ * <code>OwncloudResourceService</code> (<code>uploadAll</code> and <code>downloadAll</code>)
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Getter
+@Builder
+@ToString
+public class OwncloudTransferResult {
+
+  /**
+   * Path of the File Resource relative to the User Root Directory
+   *
+   * @return Path of the File Resource
+   */
+  private final URI href;
+
+  /**
+   * Path of the local File
+   *
+   * @return Path of the local File
+   */
+  private final Path path;
+
+  /**
+   * Number of transferred Bytes
+   *
+   * @return Number of transferred Bytes
+   */
+  private final long transferredBytes;
+
+  private final RuntimeException failure;
+
+  /**
+   * Has the File been transferred successfully
+   *
+   * @return <code>true</code> if the File has been transferred successfully
+   */
+  public boolean isSuccessful() {
+    return failure == null;
+  }
+
+  /**
+   * Exception of a failed Transfer
+   *
+   * @return Exception of a failed Transfer (empty if the File has been transferred successfully)
+   */
+  public Optional<RuntimeException> getFailure() {
+    return Optional.ofNullable(failure);
+  }
+}
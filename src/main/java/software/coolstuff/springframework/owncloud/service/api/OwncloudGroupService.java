@@ -25,8 +25,10 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupAlreadyExistsException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Get and modify Information of Groups on the Owncloud Server.
@@ -54,6 +56,48 @@ public interface OwncloudGroupService {
    */
   List<String> findAll(String filter);
 
+  /**
+   * Find one Page of all Groups whose Name confirm to the Filter Criterion.
+   * @param filter Filter Criterion for the Name
+   * @param offset Offset of the first Group (<code>0</code> for the first Page or the Continuation Token {@link OwncloudPage#getNextOffset()} of the previous Page)
+   * @param limit maximum Number of Groups of the Page
+   * @return Page of the Groups whose Name confirm to the Filter Criterion
+   * @throws AccessDeniedException Not an Administrator
+   * @since 1.5.0
+   */
+  OwncloudPage<String> findAll(String filter, int offset, int limit);
+
+  /**
+   * Stream of all Groups whose Name confirm to the Filter Criterion.
+   * <p/>
+   * Implementations may read the Groups incrementally while the Stream is being consumed
+   * (i.e. the REST Implementation reads them one by one from the Response) or materialize
+   * the whole List of Groups first. The Default Implementation as well as the LOCAL Implementation
+   * and the REST Implementation with a loaded Directory Replica simply stream the Result of {@link #findAll(String)}.
+   * The Stream may hold the underlying Connection and must be closed after Usage (i.e. by a try-with-resources Block).
+   * @param filter Filter Criterion for Name
+   * @return Stream of all Groups whose Name confirm to the Filter Criterion
+   * @throws AccessDeniedException Not an Administrator
+   * @since 1.5.0
+   */
+  default Stream<String> streamAll(String filter) {
+    return findAll(filter).stream();
+  }
+
+  /**
+   * Lazy Stream of all Groups whose Name confirm to the Filter Criterion.
+   * The Groups will be requested Page by Page while the Stream is consumed.
+   * @param filter Filter Criterion for the Name
+   * @param pageSize maximum Number of Groups requested at once
+   * @return lazy Stream of all Groups whose Name confirm to the Filter Criterion
+   * @throws AccessDeniedException Not an Administrator
+   * @see #findAll(String, int, int)
+   * @since 1.5.0
+   */
+  default Stream<String> streamAll(String filter, int pageSize) {
+    return OwncloudPage.stream(offset -> findAll(filter, offset, pageSize));
+  }
+
   /**
    * Find all Users that are members of a Group
    * @param groupname Name of the Group
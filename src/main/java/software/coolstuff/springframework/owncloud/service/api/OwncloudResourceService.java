@@ -25,13 +25,19 @@ import org.springframework.http.MediaType;
 import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
 import software.coolstuff.springframework.owncloud.model.OwncloudQuota;
 import software.coolstuff.springframework.owncloud.model.OwncloudResource;
+import software.coolstuff.springframework.owncloud.model.OwncloudTransferResult;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudUtils;
 
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Access Files and Directories on the Owncloud.
@@ -59,6 +65,34 @@ public interface OwncloudResourceService {
    */
   List<OwncloudResource> list(URI relativeTo);
 
+  /**
+   * Walk the whole Tree of Files and Directories starting at the given Path
+   * @param start Path relative to the User Root Directory where the Walk starts
+   * @return lazy Stream of all Resources of the Tree
+   * @see #walk(URI, int)
+   * @since 1.5.0
+   */
+  default Stream<OwncloudResource> walk(URI start) {
+    return walk(start, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Walk the Tree of Files and Directories starting at the given Path.
+   * <p/>
+   * The returned Stream is lazy and contains the Resource of the given Path itself (Depth 0)
+   * and all Resources below up to the given maximum Depth. Unlike {@link #list(URI)} no Resource
+   * will be renamed to &quot;.&quot; or &quot;..&quot;. The Order of the Resources is not guaranteed.
+   * <p/>
+   * The Stream should be closed after Usage (i.e. by a try-with-resources Block)
+   * to release all allocated Resources.
+   * @param start Path relative to the User Root Directory where the Walk starts
+   * @param maxDepth maximum Number of Directory Levels to visit (<code>0</code> means only the Resource of the given Path)
+   * @return lazy Stream of all visited Resources
+   * @throws software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceNotFoundException Resource of the given Path doesn&apos;t exist
+   * @since 1.5.0
+   */
+  Stream<OwncloudResource> walk(URI start, int maxDepth);
+
   /**
    * Find a specific {@link OwncloudResource} specified by the Path of the URI
    * @param path Path to a specific Resource (File or Directory)
@@ -96,6 +130,46 @@ public interface OwncloudResourceService {
    */
   InputStream getInputStream(OwncloudFileResource resource);
 
+  /**
+   * Get random Access to the Content of a File Resource.
+   * <p/>
+   * The returned Channel is read-only and should be used to read small Regions of large Files
+   * (i.e. the Central Directory of a ZIP-File) without transferring the whole Content.
+   * The Channel should be closed after Usage.
+   * @param resource File Resource returned by {@link #listRoot()}, {@link #list(URI)} or {@link #find(URI)}
+   * @return read-only Channel of the Content of the File Resource
+   * @throws software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceNotFoundException File Resource doesn&apos;t exist
+   * @see #getInputStream(OwncloudFileResource)
+   * @since 1.5.0
+   */
+  SeekableByteChannel openChannel(OwncloudFileResource resource);
+
+  /**
+   * Upload many Files in parallel.
+   * <p/>
+   * The Number of parallel Transfers will be configured by <code>owncloud.resource-service.batch-transfer-parallelism</code>.
+   * A failed Upload doesn&apos;t abort the other Uploads but will be reported by its Result.
+   * @param files local Files (Values) to be uploaded to the Path (Keys) relative to the User Root Directory
+   * @return Results of all Uploads
+   * @see #getOutputStream(URI, MediaType)
+   * @since 1.5.0
+   */
+  List<OwncloudTransferResult> uploadAll(Map<URI, Path> files);
+
+  /**
+   * Download many File Resources in parallel.
+   * <p/>
+   * Every File Resource will be saved by its Path (relative to the User Root Directory) below the Target Directory.
+   * The Number of parallel Transfers will be configured by <code>owncloud.resource-service.batch-transfer-parallelism</code>.
+   * A failed Download doesn&apos;t abort the other Downloads but will be reported by its Result.
+   * @param resources File Resources returned by {@link #listRoot()}, {@link #list(URI)} or {@link #find(URI)}
+   * @param targetDirectory local Directory where the File Resources will be saved
+   * @return Results of all Downloads
+   * @see #getInputStream(OwncloudFileResource)
+   * @since 1.5.0
+   */
+  List<OwncloudTransferResult> downloadAll(Collection<OwncloudFileResource> resources, Path targetDirectory);
+
   /**
    * Overwrite the Content of an existing File Resource
    * @param resource existing File Resource returned by {@link #listRoot()}, {@link #list(URI)} or {@link #find(URI)}
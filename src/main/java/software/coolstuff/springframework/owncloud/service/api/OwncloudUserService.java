@@ -23,6 +23,7 @@ package software.coolstuff.springframework.owncloud.service.api;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -30,6 +31,8 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudUsernameAlreadyExistsException;
 import software.coolstuff.springframework.owncloud.model.OwncloudModificationUser;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
+import software.coolstuff.springframework.owncloud.model.OwncloudSaveResult;
 import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 
 /**
@@ -67,6 +70,72 @@ public interface OwncloudUserService {
    */
   List<String> findAll(String filter);
 
+  /**
+   * Find one Page of all Users whose Display Name confirm to the Filter Criterion.
+   * @param filter Filter Criterion for Display Name
+   * @param offset Offset of the first User (<code>0</code> for the first Page or the Continuation Token {@link OwncloudPage#getNextOffset()} of the previous Page)
+   * @param limit maximum Number of Users of the Page
+   * @return Page of the Users whose Display Name confirm to the Filter Criterion
+   * @throws AccessDeniedException Not an Administrator
+   * @since 1.5.0
+   */
+  OwncloudPage<String> findAll(String filter, int offset, int limit);
+
+  /**
+   * Stream of all Users whose Display Name confirm to the Filter Criterion.
+   * <p/>
+   * Implementations may read the Users incrementally while the Stream is being consumed
+   * (i.e. the REST Implementation reads them one by one from the Response) or materialize
+   * the whole List of Users first. The Default Implementation as well as the LOCAL Implementation
+   * and the REST Implementation with a loaded Directory Replica simply stream the Result of {@link #findAll(String)}.
+   * The Stream may hold the underlying Connection and must be closed after Usage (i.e. by a try-with-resources Block).
+   * @param filter Filter Criterion for Display Name
+   * @return Stream of all Users whose Display Name confirm to the Filter Criterion
+   * @throws AccessDeniedException Not an Administrator
+   * @since 1.5.0
+   */
+  default Stream<String> streamAll(String filter) {
+    return findAll(filter).stream();
+  }
+
+  /**
+   * Lazy Stream of all Users whose Display Name confirm to the Filter Criterion.
+   * The Users will be requested Page by Page while the Stream is consumed.
+   * @param filter Filter Criterion for Display Name
+   * @param pageSize maximum Number of Users requested at once
+   * @return lazy Stream of all Users whose Display Name confirm to the Filter Criterion
+   * @throws AccessDeniedException Not an Administrator
+   * @see #findAll(String, int, int)
+   * @since 1.5.0
+   */
+  default Stream<String> streamAll(String filter, int pageSize) {
+    return OwncloudPage.stream(offset -> findAll(filter, offset, pageSize));
+  }
+
+  /**
+   * Get the Details of all Users.
+   * @return Stream of the Details of all Users
+   * @throws AccessDeniedException Not an Administrator
+   * @see #findAllDetails(String)
+   * @since 1.5.0
+   */
+  default Stream<OwncloudUserDetails> findAllDetails() {
+    return findAllDetails(null);
+  }
+
+  /**
+   * Get the Details of all Users whose Display Name confirm to the Filter Criterion.
+   * <p/>
+   * The Details will be returned in the same Order as the Names returned by {@link #findAll(String)}.
+   * Users removed in the Meantime will be skipped. The Stream should be closed after Usage
+   * (i.e. by a try-with-resources Block) to cancel all outstanding Requests.
+   * @param filter Filter Criterion for Display Name
+   * @return Stream of the Details of all Users whose Display Name confirm to the Filter Criterion
+   * @throws AccessDeniedException Not an Administrator
+   * @since 1.5.0
+   */
+  Stream<OwncloudUserDetails> findAllDetails(String filter);
+
   /**
    * Create or update a User.
    *
@@ -82,6 +151,23 @@ public interface OwncloudUserService {
    */
   OwncloudUserDetails save(OwncloudModificationUser user);
 
+  /**
+   * Create or update many Users.
+   * <p/>
+   * Users which are already up to date won&apos;t be modified. A failed Save Operation doesn&apos;t abort
+   * the other Save Operations but will be reported by its Result. The Number of parallel Save Operations of the
+   * REST Implementation will be configured by <code>owncloud.parallel-ocs-requests.batch-save-parallelism</code>.
+   *
+   * @param users
+   *          User Details to be saved
+   * @return Results of all Save Operations (in the Order of the given User Details)
+   * @throws AccessDeniedException
+   *           either Modifications are not allowed <code>OwncloudProperties.isEnableModifications()</code> or not an Administrator
+   * @see #save(OwncloudModificationUser)
+   * @since 1.5.0
+   */
+  List<OwncloudSaveResult> saveAll(Stream<OwncloudModificationUser> users);
+
   /**
    * Remove a User.
    *
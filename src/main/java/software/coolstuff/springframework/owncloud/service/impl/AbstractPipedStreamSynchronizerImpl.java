@@ -27,13 +27,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.logging.LogLevel;
 import org.springframework.security.core.Authentication;
 import software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourcePipeSynchronizationException;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceTransferRejectedException;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudResourceService;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudProperties.PipedStreamExecutorProperties;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudProperties.ResourceServiceProperties;
 
 import java.io.*;
 import java.net.URI;
 import java.util.Optional;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Abstract Class of the PipedStream Synchronizer Implementations.
@@ -42,15 +47,21 @@ import java.util.concurrent.CyclicBarrier;
  * the PipedStream Synchronizer Implementations.
  * <p/>
  * A PipedStream Synchronizer handles the Synchronization between
- * {@link PipedInputStream} and {@link PipedOutputStream} and acts
+ * {@link RingBufferPipedInputStream} and {@link RingBufferPipedOutputStream} and acts
  * as a Proxy between the Application which uses the Owncloud API
  * and the Implementation in the Background (either local or REST based).
  * <p/>
  * In fact, the Method {@link OwncloudResourceService#getInputStream(software.coolstuff.springframework.owncloud.model.OwncloudFileResource)}
- * will return a {@link PipedInputStream} whereas the Methods {@link OwncloudResourceService#getOutputStream(software.coolstuff.springframework.owncloud.model.OwncloudFileResource)}
- * and {@link OwncloudResourceService#getOutputStream(URI, org.springframework.http.MediaType)} will return a {@link PipedOutputStream}.
+ * will return a {@link RingBufferPipedInputStream} whereas the Methods {@link OwncloudResourceService#getOutputStream(software.coolstuff.springframework.owncloud.model.OwncloudFileResource)}
+ * and {@link OwncloudResourceService#getOutputStream(URI, org.springframework.http.MediaType)} will return a {@link RingBufferPipedOutputStream}.
  * <p/>
  * The reverse Part of the returned Stream will be handled by a PipedStream Synchronizer Implementation
+ * within a Background Worker. Since 1.5.0 the Background Worker will be executed by an {@link Executor}
+ * (normally the {@link OwncloudPipedStreamExecutor}). Without an Executor a new Thread will be started.
+ * <p/>
+ * When the Background Worker has not been started within
+ * {@link PipedStreamExecutorProperties#getStartTimeout()} (i.e. because it is still waiting
+ * in the Queue of the Executor) the Transfer will be rejected by an {@link OwncloudResourceTransferRejectedException}.
  *
  * @author mufasa1976
  * @since 1.2.0
@@ -64,8 +75,11 @@ public abstract class AbstractPipedStreamSynchronizerImpl {
   private final Authentication authentication;
   private final OwncloudProperties owncloudProperties;
   private final URI uri;
+  private final Optional<Executor> executor;
 
-  private Thread thread;
+  private volatile Thread thread;
+  private volatile boolean running;
+  private volatile boolean abandoned;
   @Getter(AccessLevel.PROTECTED)
   private boolean interrupted;
   private final CyclicBarrier pipeSync = new CyclicBarrier(2);
@@ -74,17 +88,26 @@ public abstract class AbstractPipedStreamSynchronizerImpl {
       final Authentication authentication,
       final OwncloudProperties owncloudProperties,
       final URI uri) {
+    this(authentication, owncloudProperties, uri, null);
+  }
+
+  protected AbstractPipedStreamSynchronizerImpl(
+      final Authentication authentication,
+      final OwncloudProperties owncloudProperties,
+      final URI uri,
+      final Executor executor) {
     this.authentication = authentication;
     this.owncloudProperties = owncloudProperties;
     this.uri = uri;
+    this.executor = Optional.ofNullable(executor);
   }
 
   @Override
   protected void finalize() throws Throwable {
-    if (thread != null && thread.isAlive()) {
-      log.debug("Stop Thread {}", thread.getName());
-      interrupt(thread);
-      thread.join();
+    Thread runningThread = thread;
+    if (running && runningThread != null) {
+      log.debug("Stop Thread {}", runningThread.getName());
+      interrupt(runningThread);
     }
   }
 
@@ -109,20 +132,54 @@ public abstract class AbstractPipedStreamSynchronizerImpl {
       return;
     }
     startBackgroundThread();
-    waitForPipeReady();
+    waitForStartedBackgroundWorker();
   }
 
   private boolean isThreadExistsAndIsAlive() {
-    return thread != null && thread.isAlive();
+    return running;
   }
 
   private void startBackgroundThread() {
     interrupted = false;
-    thread = new Thread(this::createPipedStream);
-    thread.setName(getThreadName());
-    thread.setUncaughtExceptionHandler(this::handleUncaughtException);
-    log.debug("Start the Background Thread {}", thread.getName());
-    thread.start();
+    abandoned = false;
+    running = true;
+    if (!executor.isPresent()) {
+      Thread backgroundThread = new Thread(this::runBackgroundWorker);
+      backgroundThread.setName(getThreadName());
+      log.debug("Start the Background Thread {}", backgroundThread.getName());
+      backgroundThread.start();
+      return;
+    }
+    try {
+      log.debug("Submit the Background Worker {} to the Executor", getThreadName());
+      executor.get().execute(this::runBackgroundWorker);
+    } catch (RejectedExecutionException e) {
+      running = false;
+      log.error("Background Worker {} has been rejected by the Executor", getThreadName());
+      throw new OwncloudResourceTransferRejectedException(uri, getUsername(), e);
+    }
+  }
+
+  private void runBackgroundWorker() {
+    if (abandoned) {
+      log.debug("Background Worker {} has been abandoned before its Start", getThreadName());
+      return;
+    }
+    Thread currentThread = Thread.currentThread();
+    String originalThreadName = currentThread.getName();
+    thread = currentThread;
+    try {
+      currentThread.setName(getThreadName());
+      createPipedStream();
+    } catch (Throwable cause) {
+      handleUncaughtException(currentThread, cause);
+    } finally {
+      currentThread.setName(originalThreadName);
+      thread = null;
+      running = false;
+      // clear a pending Interrupt so that a pooled Worker will not be affected by it
+      Thread.interrupted();
+    }
   }
 
   protected abstract void createPipedStream();
@@ -158,6 +215,30 @@ public abstract class AbstractPipedStreamSynchronizerImpl {
     return resourceProperties.getPipedStreamUncaughtExceptionLogLevel();
   }
 
+  private void waitForStartedBackgroundWorker() {
+    PipedStreamExecutorProperties executorProperties = getPipedStreamExecutorProperties();
+    try {
+      log.debug("Thread {} waits for the Start of the Background Worker {}", Thread.currentThread(), getThreadName());
+      pipeSync.await(executorProperties.getStartTimeout(), executorProperties.getStartTimeoutTimeUnit());
+    } catch (TimeoutException e) {
+      abandoned = true;
+      running = false;
+      log.error("Background Worker {} has not been started within {} {}",
+          getThreadName(), executorProperties.getStartTimeout(), executorProperties.getStartTimeoutTimeUnit());
+      throw new OwncloudResourceTransferRejectedException(uri, getUsername(), e);
+    } catch (Exception e) {
+      log.error("Error while waiting for PipedStream-Barrier", e);
+      throw new OwncloudResourcePipeSynchronizationException(e);
+    }
+  }
+
+  private PipedStreamExecutorProperties getPipedStreamExecutorProperties() {
+    return Optional.ofNullable(owncloudProperties)
+                   .map(OwncloudProperties::getResourceService)
+                   .map(ResourceServiceProperties::getPipedStreamExecutor)
+                   .orElseGet(PipedStreamExecutorProperties::new);
+  }
+
   protected void waitForPipeReady() {
     try {
       log.debug("Thread {} waits for the Background Thread of the synchronized piped Stream", Thread.currentThread());
@@ -203,4 +284,11 @@ public abstract class AbstractPipedStreamSynchronizerImpl {
     return resourceProperties.getPipedStreamBufferSize();
   }
 
+  protected int getPipeCapacity() {
+    return Optional.ofNullable(owncloudProperties)
+                   .map(OwncloudProperties::getResourceService)
+                   .map(ResourceServiceProperties::getPipedStreamCapacity)
+                   .orElse(OwncloudProperties.DEFAULT_PIPE_CAPACITY);
+  }
+
 }
@@ -51,4 +51,10 @@ public class OwncloudAutoConfiguration {
       @Autowired(required = false) GrantedAuthoritiesMapper grantedAuthoritiesMapper) {
     return new OwncloudGrantedAuthoritiesMappingServiceImpl(owncloudGrantedAuthoritiesMapper, grantedAuthoritiesMapper);
   }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudPipedStreamExecutor.class)
+  public OwncloudPipedStreamExecutor owncloudPipedStreamExecutor() {
+    return new OwncloudPipedStreamExecutor(owncloudProperties);
+  }
 }
@@ -0,0 +1,181 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudProperties.PipedStreamExecutorProperties;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor of the Background Workers of the PipedStream-Synchronizer.
+ * <p/>
+ * Every Transfer of <code>getInputStream</code> and <code>getOutputStream</code> will be executed
+ * by a Worker of this Executor. Depending on {@link PipedStreamExecutorProperties#getType()} the Workers
+ * will be managed by a bounded Thread Pool (with a Queue), an unbounded Thread Pool or one virtual Thread per Transfer.
+ * <p/>
+ * The Number of active, queued, rejected and completed Transfers can be monitored by this Bean
+ * (either one by one or as a Snapshot by {@link #getStats()}).
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudPipedStreamExecutor implements Executor, DisposableBean {
+
+  private static final String THREAD_NAME_FORMAT = "owncloud-piped-stream-%d";
+  private static final String VIRTUAL_THREAD_EXECUTOR_METHOD = "newVirtualThreadPerTaskExecutor";
+
+  private final ExecutorService executorService;
+  private final Optional<ThreadPoolExecutor> threadPoolExecutor;
+
+  private final AtomicInteger activeTransfers = new AtomicInteger();
+  private final AtomicLong rejectedTransfers = new AtomicLong();
+  private final AtomicLong completedTransfers = new AtomicLong();
+
+  public OwncloudPipedStreamExecutor(OwncloudProperties properties) {
+    PipedStreamExecutorProperties executorProperties = properties.getResourceService().getPipedStreamExecutor();
+    switch (executorProperties.getType()) {
+      case VIRTUAL_THREADS:
+        log.debug("Execute every Transfer by its own virtual Thread");
+        this.executorService = createVirtualThreadPerTaskExecutor();
+        this.threadPoolExecutor = Optional.empty();
+        break;
+      case UNBOUNDED:
+        log.debug("Execute the Transfers by an unbounded Thread Pool");
+        this.threadPoolExecutor = Optional.of(new ThreadPoolExecutor(
+            0,
+            Integer.MAX_VALUE,
+            executorProperties.getKeepAlive(),
+            executorProperties.getKeepAliveTimeUnit(),
+            new SynchronousQueue<>(),
+            createThreadFactory()));
+        this.executorService = threadPoolExecutor.get();
+        break;
+      default:
+        log.debug("Execute the Transfers by a bounded Thread Pool with {} Workers and a Queue Capacity of {}",
+            executorProperties.getMaximumPoolSize(), executorProperties.getQueueCapacity());
+        ThreadPoolExecutor boundedThreadPoolExecutor = new ThreadPoolExecutor(
+            executorProperties.getMaximumPoolSize(),
+            executorProperties.getMaximumPoolSize(),
+            executorProperties.getKeepAlive(),
+            executorProperties.getKeepAliveTimeUnit(),
+            createQueue(executorProperties.getQueueCapacity()),
+            createThreadFactory());
+        boundedThreadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.threadPoolExecutor = Optional.of(boundedThreadPoolExecutor);
+        this.executorService = boundedThreadPoolExecutor;
+    }
+  }
+
+  private static ExecutorService createVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_METHOD).invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual Threads are not supported by this JVM (JDK 21 or higher is required)", e);
+    }
+  }
+
+  private static BlockingQueue<Runnable> createQueue(int queueCapacity) {
+    if (queueCapacity == 0) {
+      return new SynchronousQueue<>();
+    }
+    return new LinkedBlockingQueue<>(queueCapacity);
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    return new ThreadFactoryBuilder().setNameFormat(THREAD_NAME_FORMAT)
+                                     .setDaemon(true)
+                                     .build();
+  }
+
+  /**
+   * Execute a Transfer
+   * @param transfer Transfer to be executed
+   * @throws RejectedExecutionException all Workers and the Queue are exhausted
+   */
+  @Override
+  public void execute(Runnable transfer) {
+    try {
+      executorService.execute(() -> {
+        activeTransfers.incrementAndGet();
+        try {
+          transfer.run();
+        } finally {
+          activeTransfers.decrementAndGet();
+          completedTransfers.incrementAndGet();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejectedTransfers.incrementAndGet();
+      log.warn("Transfer has been rejected (active Transfers: {}, queued Transfers: {})", getActiveTransfers(), getQueuedTransfers());
+      throw e;
+    }
+  }
+
+  /** Number of currently running Transfers */
+  public int getActiveTransfers() {
+    return activeTransfers.get();
+  }
+
+  /** Number of Transfers waiting for a free Worker */
+  public int getQueuedTransfers() {
+    return threadPoolExecutor
+        .map(executor -> executor.getQueue().size())
+        .orElse(0);
+  }
+
+  /** Number of rejected Transfers since the Start of the Application */
+  public long getRejectedTransfers() {
+    return rejectedTransfers.get();
+  }
+
+  /** Number of completed Transfers since the Start of the Application */
+  public long getCompletedTransfers() {
+    return completedTransfers.get();
+  }
+
+  /**
+   * Snapshot of the Statistics of this Executor
+   *
+   * @return immutable Snapshot of the Statistics
+   */
+  public OwncloudPipedStreamExecutorStats getStats() {
+    return OwncloudPipedStreamExecutorStats.builder()
+                                           .activeTransfers(getActiveTransfers())
+                                           .queuedTransfers(getQueuedTransfers())
+                                           .rejectedTransfers(getRejectedTransfers())
+                                           .completedTransfers(getCompletedTransfers())
+                                           .build();
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    log.debug("Shutdown the Executor of the Background Workers of the PipedStream-Synchronizer");
+    executorService.shutdownNow();
+  }
+}
@@ -0,0 +1,69 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Statistics of the {@link OwncloudPipedStreamExecutor}.
+ * <p/>
+ * Instances are immutable Snapshots taken by {@link OwncloudPipedStreamExecutor#getStats()}.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Getter
+@Builder
+@ToString
+public class OwncloudPipedStreamExecutorStats {
+
+  /**
+   * Number of Transfers running at the Time of the Snapshot
+   *
+   * @return Number of running Transfers
+   */
+  private final int activeTransfers;
+
+  /**
+   * Number of Transfers waiting for a free Worker at the Time of the Snapshot
+   *
+   * @return Number of queued Transfers
+   */
+  private final int queuedTransfers;
+
+  /**
+   * Number of rejected Transfers since the Start of the Application
+   *
+   * @return Number of rejected Transfers
+   */
+  private final long rejectedTransfers;
+
+  /**
+   * Number of completed Transfers since the Start of the Application
+   *
+   * @return Number of completed Transfers
+   */
+  private final long completedTransfers;
+
+}
@@ -29,6 +29,7 @@ import software.coolstuff.springframework.owncloud.service.api.OwncloudUserServi
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Owncloud Configuration Properties.
@@ -59,6 +60,12 @@ public abstract class OwncloudProperties {
    */
   public static final int DEFAULT_BUFFER_SIZE = 8192;
 
+  /**
+   * Default Capacity of the Pipe of the PipedStream-Synchronizer
+   * @since 1.5.0
+   */
+  public static final int DEFAULT_PIPE_CAPACITY = 65536;
+
   /**
    * Common Properties for the UserService
    *
@@ -78,6 +85,57 @@ public abstract class OwncloudProperties {
 
   }
 
+  /**
+   * Type of the Executor of the Background Workers of the PipedStream-Synchronizer
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  public enum PipedStreamExecutorType {
+    /** bounded Thread Pool with a Queue. Transfers will be rejected when the Pool and the Queue are exhausted */
+    BOUNDED,
+    /** unbounded Thread Pool (idle Threads will be reused) */
+    UNBOUNDED,
+    /** one virtual Thread per Transfer (requires JDK 21 or higher) */
+    VIRTUAL_THREADS
+  }
+
+  /**
+   * Properties of the Executor of the Background Workers of the PipedStream-Synchronizer
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Validated
+  @Getter
+  @Setter
+  public static class PipedStreamExecutorProperties {
+    /** Type of the Executor. Default: <code>BOUNDED</code> */
+    @NotNull
+    private PipedStreamExecutorType type = PipedStreamExecutorType.BOUNDED;
+    /** maximum Number of parallel Workers (only for <code>BOUNDED</code>). Default: <code>200</code> */
+    @Min(1)
+    private int maximumPoolSize = 200;
+    /** maximum Number of queued Transfers when all Workers are busy (only for <code>BOUNDED</code>). Default: <code>1000</code> */
+    @Min(0)
+    private int queueCapacity = 1000;
+    /** idle Workers will be terminated after this Time. Default: <code>60</code> */
+    @Min(1)
+    private long keepAlive = 60;
+    /** Time Unit for {@link #keepAlive}. Default: <code>SECONDS</code> */
+    @NotNull
+    private TimeUnit keepAliveTimeUnit = TimeUnit.SECONDS;
+    /**
+     * maximum Time to wait for the Start of the Background Worker of a Transfer.
+     * After this Time the Transfer will be rejected. Default: <code>30</code>
+     */
+    @Min(1)
+    private long startTimeout = 30;
+    /** Time Unit for {@link #startTimeout}. Default: <code>SECONDS</code> */
+    @NotNull
+    private TimeUnit startTimeoutTimeUnit = TimeUnit.SECONDS;
+  }
+
   /**
    * Common Resource Service Properties
    *
@@ -102,12 +160,33 @@ public abstract class OwncloudProperties {
     @Min(1)
     private int pipedStreamBufferSize = DEFAULT_BUFFER_SIZE;
 
+    /**
+     * Capacity of the Pipe between the Application and the Background Worker
+     * @since 1.5.0
+     */
+    @Min(1)
+    private int pipedStreamCapacity = DEFAULT_PIPE_CAPACITY;
+
     /**
      * Log-Level of any uncaught Exception while running the Background-Thread of the PipedStream-Synchronizer.
      * @since 1.2.0
      */
     @NotNull
     private LogLevel pipedStreamUncaughtExceptionLogLevel = LogLevel.ERROR;
+
+    /**
+     * maximum Number of parallel Transfers of the Batch Transfer Methods
+     * (<code>uploadAll</code> and <code>downloadAll</code>)
+     * @since 1.5.0
+     */
+    @Min(1)
+    private int batchTransferParallelism = 4;
+
+    /**
+     * Executor of the Background Workers of the PipedStream-Synchronizer
+     * @since 1.5.0
+     */
+    private PipedStreamExecutorProperties pipedStreamExecutor = new PipedStreamExecutorProperties();
   }
 
   /**
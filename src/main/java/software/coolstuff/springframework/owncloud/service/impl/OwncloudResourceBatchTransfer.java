@@ -0,0 +1,274 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
+import software.coolstuff.springframework.owncloud.model.OwncloudTransferResult;
+import software.coolstuff.springframework.owncloud.service.api.OwncloudResourceService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Transfers many Files in parallel by the Stream Methods of a {@link OwncloudResourceService}
+ * (used by <code>uploadAll</code> and <code>downloadAll</code>).
+ * <p/>
+ * Every Transfer will be executed with the Security Context of the calling Thread.
+ * A failed Transfer doesn&apos;t abort the other Transfers but will be reported by its {@link OwncloudTransferResult}.
+ * <p/>
+ * The Transfers will be executed by their own bounded Thread Pool with
+ * {@link OwncloudProperties.ResourceServiceProperties#getBatchTransferParallelism()} Workers which will be
+ * shut down after the Batch. They must not be executed by the {@link OwncloudPipedStreamExecutor} because every Transfer
+ * itself needs a Background Worker of this Executor (i.e. <code>getOutputStream</code>). A bounded Pool would be exhausted
+ * by the Transfers and the Background Workers would never be started.
+ * A Transfer which hasn&apos;t been started by the Executor (or which has been rejected) will be executed by the calling Thread.
+ * <p/>
+ * Downloaded Files will be written to a temporary File within the Target Directory first. The temporary File
+ * will be moved to the Target only when the Download has been successful and removed on any Failure.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudResourceBatchTransfer {
+
+  private static final String SLASH = "/";
+  private static final String PARTIAL_FILE_SUFFIX = ".part";
+  private static final String THREAD_NAME_FORMAT = "owncloud-batch-transfer-%d";
+
+  private final OwncloudResourceService resourceService;
+  private final int parallelism;
+  private final int bufferSize;
+  private final Optional<Executor> executor;
+  private final Function<OwncloudFileResource, InputStream> downloader;
+
+  /**
+   * @param resourceService Resource Service
+   * @param properties Resource Service Properties
+   * @param executor Executor of the Transfers (Default: a bounded Thread Pool of this Batch).
+   *                 Must not be the Executor of the Background Workers of the PipedStream-Synchronizer
+   * @param downloader opens the Content of a File Resource (Default: {@link OwncloudResourceService#getInputStream(OwncloudFileResource)})
+   */
+  @Builder
+  private OwncloudResourceBatchTransfer(
+      final OwncloudResourceService resourceService,
+      final OwncloudProperties.ResourceServiceProperties properties,
+      final Executor executor,
+      final Function<OwncloudFileResource, InputStream> downloader) {
+    this.resourceService = resourceService;
+    this.parallelism = properties.getBatchTransferParallelism();
+    this.bufferSize = properties.getPipedStreamBufferSize();
+    this.executor = Optional.ofNullable(executor);
+    this.downloader = Optional.ofNullable(downloader).orElse(resourceService::getInputStream);
+  }
+
+  public List<OwncloudTransferResult> uploadAll(Map<URI, Path> files) {
+    Validate.notNull(files);
+    List<Callable<OwncloudTransferResult>> transfers = new ArrayList<>();
+    files.forEach((href, path) -> transfers.add(() -> upload(href, path)));
+    return execute(transfers);
+  }
+
+  private OwncloudTransferResult upload(URI href, Path path) {
+    OwncloudTransferResult.OwncloudTransferResultBuilder result = OwncloudTransferResult.builder()
+                                                                                       .href(href)
+                                                                                       .path(path);
+    try {
+      MediaType mediaType = MediaTypeFactory.getMediaType(path.getFileName().toString())
+                                            .orElse(MediaType.APPLICATION_OCTET_STREAM);
+      log.debug("Upload File {} to {}", path, href);
+      try (InputStream input = Files.newInputStream(path);
+           OutputStream output = resourceService.getOutputStream(href, mediaType)) {
+        result.transferredBytes(copy(input, output));
+      }
+    } catch (IOException e) {
+      log.warn("Error while uploading File {} to {}", path, href, e);
+      result.failure(new UncheckedIOException(e));
+    } catch (RuntimeException e) {
+      log.warn("Error while uploading File {} to {}", path, href, e);
+      result.failure(e);
+    }
+    return result.build();
+  }
+
+  public List<OwncloudTransferResult> downloadAll(Collection<OwncloudFileResource> resources, Path targetDirectory) {
+    Validate.notNull(resources);
+    Validate.notNull(targetDirectory);
+    Path normalizedTargetDirectory = targetDirectory.toAbsolutePath().normalize();
+    List<Callable<OwncloudTransferResult>> transfers = new ArrayList<>();
+    resources.forEach(resource -> transfers.add(() -> download(resource, normalizedTargetDirectory)));
+    return execute(transfers);
+  }
+
+  private OwncloudTransferResult download(OwncloudFileResource resource, Path targetDirectory) {
+    Path path = targetDirectory.resolve(StringUtils.stripStart(resource.getHref().getPath(), SLASH)).normalize();
+    OwncloudTransferResult.OwncloudTransferResultBuilder result = OwncloudTransferResult.builder()
+                                                                                       .href(resource.getHref())
+                                                                                       .path(path);
+    Path temporaryFile = null;
+    try {
+      Validate.isTrue(path.startsWith(targetDirectory), "Resource %s is outside of the Target Directory", resource.getHref());
+      Files.createDirectories(path.getParent());
+      // not Files.createTempFile: the downloaded File should get the default Permissions
+      temporaryFile = path.resolveSibling("." + path.getFileName() + "." + UUID.randomUUID() + PARTIAL_FILE_SUFFIX);
+      log.debug("Download {} to File {} (temporary File: {})", resource.getHref(), path, temporaryFile);
+      try (InputStream input = downloader.apply(resource)) {
+        result.transferredBytes(Files.copy(input, temporaryFile));
+      }
+      moveToTarget(temporaryFile, path);
+      temporaryFile = null;
+    } catch (IOException e) {
+      log.warn("Error while downloading {} to File {}", resource.getHref(), path, e);
+      result.failure(new UncheckedIOException(e));
+    } catch (RuntimeException e) {
+      log.warn("Error while downloading {} to File {}", resource.getHref(), path, e);
+      result.failure(e);
+    } finally {
+      deleteQuietly(temporaryFile);
+    }
+    return result.build();
+  }
+
+  private void moveToTarget(Path temporaryFile, Path path) throws IOException {
+    try {
+      Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private void deleteQuietly(Path temporaryFile) {
+    if (temporaryFile == null) {
+      return;
+    }
+    try {
+      log.debug("Remove the temporary File {} of the failed Download", temporaryFile);
+      Files.deleteIfExists(temporaryFile);
+    } catch (IOException e) {
+      log.warn("Error while removing the temporary File {}", temporaryFile, e);
+    }
+  }
+
+  private long copy(InputStream input, OutputStream output) throws IOException {
+    byte[] buffer = new byte[bufferSize];
+    long transferredBytes = 0;
+    int length;
+    while ((length = input.read(buffer)) >= 0) {
+      output.write(buffer, 0, length);
+      transferredBytes += length;
+    }
+    return transferredBytes;
+  }
+
+  private List<OwncloudTransferResult> execute(List<Callable<OwncloudTransferResult>> transfers) {
+    if (transfers.isEmpty()) {
+      return new ArrayList<>();
+    }
+    if (executor.isPresent()) {
+      return execute(transfers, executor.get());
+    }
+    ExecutorService batchExecutor = new ThreadPoolExecutor(
+        parallelism,
+        parallelism,
+        0,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        new ThreadFactoryBuilder().setNameFormat(THREAD_NAME_FORMAT)
+                                  .setDaemon(true)
+                                  .build());
+    try {
+      return execute(transfers, batchExecutor);
+    } finally {
+      batchExecutor.shutdown();
+    }
+  }
+
+  private List<OwncloudTransferResult> execute(List<Callable<OwncloudTransferResult>> transfers, Executor executor) {
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    log.debug("Execute {} Transfers with a Parallelism of {}", transfers.size(), parallelism);
+    List<FutureTask<OwncloudTransferResult>> futures = new ArrayList<>();
+    Deque<FutureTask<OwncloudTransferResult>> runningTransfers = new ArrayDeque<>();
+    try {
+      for (Callable<OwncloudTransferResult> transfer : transfers) {
+        while (runningTransfers.size() >= parallelism) {
+          waitFor(runningTransfers.poll());
+        }
+        FutureTask<OwncloudTransferResult> future = new FutureTask<>(transfer);
+        futures.add(future);
+        runningTransfers.add(future);
+        submit(executor, future, securityContext);
+      }
+      List<OwncloudTransferResult> results = new ArrayList<>();
+      for (FutureTask<OwncloudTransferResult> future : futures) {
+        results.add(waitFor(future));
+      }
+      return results;
+    } catch (RuntimeException e) {
+      futures.forEach(future -> future.cancel(true));
+      throw e;
+    }
+  }
+
+  private void submit(Executor executor, FutureTask<OwncloudTransferResult> future, SecurityContext securityContext) {
+    try {
+      executor.execute(new DelegatingSecurityContextRunnable(future, securityContext));
+    } catch (RejectedExecutionException e) {
+      log.debug("Transfer has been rejected by the Executor. Execute it by the calling Thread");
+    }
+  }
+
+  /**
+   * Wait for the Result of the Transfer. A Transfer which hasn&apos;t been started by the Executor
+   * will be executed by the calling Thread (the queued Task won&apos;t do anything afterwards).
+   */
+  private OwncloudTransferResult waitFor(FutureTask<OwncloudTransferResult> future) {
+    future.run();
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Batch Transfer has been interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("unexpected Exception while executing the Batch Transfer", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-Producer/Single-Consumer Ring Buffer shared by
+ * {@link RingBufferPipedInputStream} and {@link RingBufferPipedOutputStream}.
+ * <p/>
+ * Exactly one Thread writes and exactly one Thread reads. Both Sides work without Locks:
+ * the Positions are published by volatile Fields and a waiting Side will be parked
+ * until the other Side has published new Data (or free Space) or has closed the Pipe.
+ * <p/>
+ * Like {@link java.io.PipedInputStream} the Pipe will be treated as broken when the
+ * Thread of the other Side has terminated without closing the Pipe. A waiting Side
+ * notices this within {@link #MAXIMUM_PARK_NANOS} instead of waiting forever.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+class RingBufferPipe {
+
+  private static final int EOF = -1;
+  /** Safety Net: a parked Side checks the Pipe at least in this Interval */
+  private static final long MAXIMUM_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final byte[] buffer;
+
+  private volatile long writePosition;
+  private volatile long readPosition;
+
+  private volatile boolean writerClosed;
+  private volatile boolean readerClosed;
+
+  private volatile Thread waitingWriter;
+  private volatile Thread waitingReader;
+
+  private volatile Thread writerThread;
+  private volatile Thread readerThread;
+
+  RingBufferPipe(int capacity) {
+    Validate.isTrue(capacity > 0, "Capacity of the Pipe must be greater than 0");
+    buffer = new byte[capacity];
+  }
+
+  int getCapacity() {
+    return buffer.length;
+  }
+
+  int available() throws IOException {
+    checkReaderNotClosed();
+    return (int) (writePosition - readPosition);
+  }
+
+  void write(byte[] source, int offset, int length) throws IOException {
+    Thread currentThread = Thread.currentThread();
+    if (writerThread != currentThread) {
+      writerThread = currentThread;
+    }
+    int remaining = length;
+    int sourceOffset = offset;
+    while (remaining > 0) {
+      int free = waitForFreeSpace();
+      int chunk = Math.min(free, remaining);
+      long position = writePosition;
+      int index = (int) (position % buffer.length);
+      int firstPart = Math.min(chunk, buffer.length - index);
+      System.arraycopy(source, sourceOffset, buffer, index, firstPart);
+      if (firstPart < chunk) {
+        System.arraycopy(source, sourceOffset + firstPart, buffer, 0, chunk - firstPart);
+      }
+      writePosition = position + chunk;
+      unpark(waitingReader);
+      sourceOffset += chunk;
+      remaining -= chunk;
+    }
+  }
+
+  private int waitForFreeSpace() throws IOException {
+    while (true) {
+      checkWriterNotClosed();
+      if (readerClosed) {
+        throw new IOException("Pipe closed by the Reader");
+      }
+      int free = buffer.length - (int) (writePosition - readPosition);
+      if (free > 0) {
+        return free;
+      }
+      if (isTerminated(readerThread) && writePosition - readPosition == buffer.length) {
+        throw new IOException("Pipe broken: the Reader has terminated without closing the Pipe");
+      }
+      waitingWriter = Thread.currentThread();
+      try {
+        if (buffer.length - (int) (writePosition - readPosition) == 0 && !readerClosed) {
+          park();
+        }
+      } finally {
+        waitingWriter = null;
+      }
+    }
+  }
+
+  int read(byte[] target, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    Thread currentThread = Thread.currentThread();
+    if (readerThread != currentThread) {
+      readerThread = currentThread;
+    }
+    int filled = waitForData();
+    if (filled == EOF) {
+      return EOF;
+    }
+    int chunk = Math.min(filled, length);
+    long position = readPosition;
+    int index = (int) (position % buffer.length);
+    int firstPart = Math.min(chunk, buffer.length - index);
+    System.arraycopy(buffer, index, target, offset, firstPart);
+    if (firstPart < chunk) {
+      System.arraycopy(buffer, 0, target, offset + firstPart, chunk - firstPart);
+    }
+    readPosition = position + chunk;
+    unpark(waitingWriter);
+    return chunk;
+  }
+
+  private int waitForData() throws IOException {
+    while (true) {
+      checkReaderNotClosed();
+      int filled = (int) (writePosition - readPosition);
+      if (filled > 0) {
+        return filled;
+      }
+      if (writerClosed) {
+        // re-read the Position: the Writer may have published Data just before closing
+        return writePosition - readPosition > 0 ? (int) (writePosition - readPosition) : EOF;
+      }
+      // re-read the Position: the Writer may have published Data just before its Termination
+      if (isTerminated(writerThread) && writePosition == readPosition) {
+        throw new IOException("Pipe broken: the Writer has terminated without closing the Pipe");
+      }
+      waitingReader = Thread.currentThread();
+      try {
+        if (writePosition == readPosition && !writerClosed) {
+          park();
+        }
+      } finally {
+        waitingReader = null;
+      }
+    }
+  }
+
+  private void park() throws InterruptedIOException {
+    LockSupport.parkNanos(this, MAXIMUM_PARK_NANOS);
+    if (Thread.interrupted()) {
+      throw new InterruptedIOException("Interrupted while waiting on the Pipe");
+    }
+  }
+
+  private static boolean isTerminated(Thread thread) {
+    return thread != null && !thread.isAlive();
+  }
+
+  private static void unpark(Thread thread) {
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  private void checkWriterNotClosed() throws IOException {
+    if (writerClosed) {
+      throw new IOException("Pipe has already been closed by the Writer");
+    }
+  }
+
+  private void checkReaderNotClosed() throws IOException {
+    if (readerClosed) {
+      throw new IOException("Pipe has already been closed by the Reader");
+    }
+  }
+
+  void closeWriter() {
+    writerClosed = true;
+    unpark(waitingReader);
+  }
+
+  void closeReader() {
+    readerClosed = true;
+    unpark(waitingWriter);
+  }
+}
@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reading Side of a Ring Buffer Pipe.
+ * <p/>
+ * Replacement of {@link java.io.PipedInputStream} with a configurable Capacity,
+ * bulk Array Transfer and without any Locks. Only one Thread may read from this Stream
+ * and only one Thread may write to the connected {@link RingBufferPipedOutputStream}.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+public class RingBufferPipedInputStream extends InputStream {
+
+  private final RingBufferPipe pipe;
+  private final byte[] singleByte = new byte[1];
+
+  /**
+   * Create a new Pipe with the given Capacity
+   * @param capacity Capacity (in Bytes) of the Pipe
+   */
+  public RingBufferPipedInputStream(int capacity) {
+    this.pipe = new RingBufferPipe(capacity);
+  }
+
+  /**
+   * Connect to the Pipe of an existing {@link RingBufferPipedOutputStream}
+   * @param source writing Side of the Pipe
+   */
+  public RingBufferPipedInputStream(RingBufferPipedOutputStream source) {
+    Validate.notNull(source);
+    this.pipe = source.getPipe();
+  }
+
+  RingBufferPipe getPipe() {
+    return pipe;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int length = pipe.read(singleByte, 0, 1);
+    return length < 0 ? length : singleByte[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    Validate.notNull(b);
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    return pipe.read(b, off, len);
+  }
+
+  @Override
+  public int available() throws IOException {
+    return pipe.available();
+  }
+
+  @Override
+  public void close() throws IOException {
+    pipe.closeReader();
+  }
+}
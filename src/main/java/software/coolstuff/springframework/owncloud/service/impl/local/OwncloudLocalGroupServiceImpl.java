@@ -27,6 +27,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupAlreadyExistsException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudGroupService;
 import software.coolstuff.springframework.owncloud.service.impl.CheckOwncloudModification;
 
@@ -58,6 +59,12 @@ public class OwncloudLocalGroupServiceImpl extends AbstractOwncloudLocalUserAndG
     return filteredGroups;
   }
 
+  @Override
+  public OwncloudPage<String> findAll(String filter, int offset, int limit) {
+    log.debug("Get {} Groups like {} starting at Offset {}", limit, filter, offset);
+    return OwncloudPage.of(findAll(filter), offset, limit);
+  }
+
   @Override
   public List<String> findAllUsers(String groupname) {
     Validate.notBlank(groupname);
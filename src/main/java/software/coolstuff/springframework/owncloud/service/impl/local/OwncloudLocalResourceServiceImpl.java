@@ -38,7 +38,10 @@ import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRe
 import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
 import software.coolstuff.springframework.owncloud.model.OwncloudQuota;
 import software.coolstuff.springframework.owncloud.model.OwncloudResource;
+import software.coolstuff.springframework.owncloud.model.OwncloudTransferResult;
 import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudPipedStreamExecutor;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudResourceBatchTransfer;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudUtils;
 import software.coolstuff.springframework.owncloud.service.impl.local.OwncloudLocalProperties.ResourceServiceProperties;
 
@@ -49,6 +52,8 @@ import java.io.OutputStream;
 import java.net.FileNameMap;
 import java.net.URI;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
@@ -73,6 +78,9 @@ class OwncloudLocalResourceServiceImpl implements OwncloudLocalResourceService {
   @Autowired
   private OwncloudLocalUserServiceExtension userService;
 
+  @Autowired(required = false)
+  private OwncloudPipedStreamExecutor pipedStreamExecutor;
+
   private Map<String, OwncloudLocalQuotaImpl> quotas = new HashMap<>();
 
   @PostConstruct
@@ -247,7 +255,10 @@ class OwncloudLocalResourceServiceImpl implements OwncloudLocalResourceService {
   }
 
   private OwncloudLocalResourceExtension createOwncloudResourceOf(Path path) {
-    Path rootPath = getRootLocationOfAuthenticatedUser();
+    return createOwncloudResourceOf(path, getRootLocationOfAuthenticatedUser());
+  }
+
+  private OwncloudLocalResourceExtension createOwncloudResourceOf(Path path, Path rootPath) {
     Path relativePath = rootPath.toAbsolutePath().relativize(path.toAbsolutePath());
     URI href = URI.create(
         UriComponentsBuilder
@@ -329,6 +340,25 @@ class OwncloudLocalResourceServiceImpl implements OwncloudLocalResourceService {
     }
   }
 
+  @Override
+  public Stream<OwncloudResource> walk(URI start, int maxDepth) {
+    Validate.isTrue(maxDepth >= 0, "maxDepth must not be negative");
+    Path location = resolveLocation(start);
+    if (Files.notExists(location)) {
+      throw new OwncloudResourceNotFoundException(start, getUsername());
+    }
+    Path rootPath = getRootLocationOfAuthenticatedUser();
+    try {
+      log.debug("Walk the Tree of Location {} up to a Depth of {}", location, maxDepth);
+      return Files.walk(location, maxDepth)
+                  .map(path -> createOwncloudResourceOf(path, rootPath));
+    } catch (IOException e) {
+      val logMessage = String.format("Cannot walk the Tree of Location %s", location);
+      log.error(logMessage, e);
+      throw new OwncloudLocalResourceException(logMessage, e);
+    }
+  }
+
   @Override
   public Optional<OwncloudResource> find(URI path) {
     Path location = resolveLocation(path);
@@ -433,6 +463,22 @@ class OwncloudLocalResourceServiceImpl implements OwncloudLocalResourceService {
     }
   }
 
+  @Override
+  public SeekableByteChannel openChannel(OwncloudFileResource resource) {
+    Path location = resolveLocation(resource.getHref());
+    try {
+      log.debug("Return Channel of File {}", location.toAbsolutePath().normalize());
+      return FileChannel.open(location, StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      log.warn("File {} not found", location.toAbsolutePath().normalize());
+      throw new OwncloudResourceNotFoundException(resource.getHref(), getUsername());
+    } catch (IOException e) {
+      val logMessage = String.format("Cannot get Channel of File %s", location.toAbsolutePath().normalize());
+      log.error(logMessage, e);
+      throw new OwncloudLocalResourceException(logMessage, e);
+    }
+  }
+
   @Override
   public OutputStream getOutputStream(OwncloudFileResource resource) {
     return getOutputStream(resource.getHref(), resource.getMediaType());
@@ -448,6 +494,7 @@ class OwncloudLocalResourceServiceImpl implements OwncloudLocalResourceService {
                                                                                                    .owncloudLocalProperties(properties)
                                                                                                    .uri(path)
                                                                                                    .uriResolver(this::resolveLocation)
+                                                                                                   .executor(pipedStreamExecutor)
                                                                                                    .build();
     return pipedStreamSynchronizer.getOutputStream();
   }
@@ -487,6 +534,23 @@ class OwncloudLocalResourceServiceImpl implements OwncloudLocalResourceService {
     }
   }
 
+  @Override
+  public List<OwncloudTransferResult> uploadAll(Map<URI, Path> files) {
+    return createBatchTransfer().uploadAll(files);
+  }
+
+  @Override
+  public List<OwncloudTransferResult> downloadAll(Collection<OwncloudFileResource> resources, Path targetDirectory) {
+    return createBatchTransfer().downloadAll(resources, targetDirectory);
+  }
+
+  private OwncloudResourceBatchTransfer createBatchTransfer() {
+    return OwncloudResourceBatchTransfer.builder()
+                                        .resourceService(this)
+                                        .properties(properties.getResourceService())
+                                        .build();
+  }
+
   @Override
   public OwncloudQuota getQuota() {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -23,6 +23,8 @@ package software.coolstuff.springframework.owncloud.service.impl.local;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -32,6 +34,8 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
 import software.coolstuff.springframework.owncloud.model.OwncloudModificationUser;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
+import software.coolstuff.springframework.owncloud.model.OwncloudSaveResult;
 import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 import software.coolstuff.springframework.owncloud.service.impl.CheckOwncloudModification;
 
@@ -63,6 +67,20 @@ public class OwncloudLocalUserServiceImpl extends AbstractOwncloudLocalUserAndGr
     return filteredUsers;
   }
 
+  @Override
+  public OwncloudPage<String> findAll(String filter, int offset, int limit) {
+    log.debug("Get {} Users with a DisplayName like {} starting at Offset {}", limit, filter, offset);
+    return OwncloudPage.of(findAll(filter), offset, limit);
+  }
+
+  @Override
+  public Stream<OwncloudUserDetails> findAllDetails(String filter) {
+    log.debug("Get the Details of all Users with a DisplayName like {}", filter);
+    return new ArrayList<>(getLocalUserDataService().getUsers()).stream()
+        .filter(user -> StringUtils.isBlank(filter) || StringUtils.contains(user.getDisplayname(), filter))
+        .map(user -> getLocalUserDataService().convert(user, false));
+  }
+
   @Override
   public Optional<OwncloudUserDetails> findOne(String username) {
     try {
@@ -79,8 +97,19 @@ public class OwncloudLocalUserServiceImpl extends AbstractOwncloudLocalUserAndGr
     Validate.notNull(modificationUser);
     Validate.notBlank(modificationUser.getUsername());
 
+    OwncloudUserDetails changedUserDetails;
+    synchronized (getLocalUserDataService()) {
+      changedUserDetails = saveUser(modificationUser).getUser().get();
+    }
+    log.debug("Notify registered Listeners about changed UserDetails {}", changedUserDetails);
+    saveUserListeners.forEach(listener -> listener.accept(changedUserDetails));
+    return changedUserDetails;
+  }
+
+  private OwncloudSaveResult saveUser(OwncloudModificationUser modificationUser) {
     log.debug("Try to get User Information of User {} from the Resource Service", modificationUser.getUsername());
     OwncloudLocalUserData.User existingUser = getLocalUserDataService().getUser(modificationUser.getUsername());
+    Set<String> groups = getCheckedGroups(modificationUser);
 
     if (existingUser == null) {
       Validate.notBlank(modificationUser.getPassword());
@@ -91,6 +120,13 @@ public class OwncloudLocalUserServiceImpl extends AbstractOwncloudLocalUserAndGr
       existingUser.setPassword(modificationUser.getPassword());
       getLocalUserDataService().addUser(existingUser);
       log.info("User {} successfully created", existingUser.getUsername());
+    } else if (isUnchanged(existingUser, modificationUser, groups)) {
+      log.debug("User {} is already up to date", existingUser.getUsername());
+      return OwncloudSaveResult.builder()
+          .username(existingUser.getUsername())
+          .user(getLocalUserDataService().convert(existingUser, false))
+          .modified(false)
+          .build();
     }
 
     log.debug("Modify Information of User {}", existingUser.getUsername());
@@ -98,30 +134,73 @@ public class OwncloudLocalUserServiceImpl extends AbstractOwncloudLocalUserAndGr
     existingUser.setEmail(modificationUser.getEmail());
     existingUser.setQuota(modificationUser.getQuota());
     existingUser.setEnabled(modificationUser.isEnabled());
-
-    manageGroups(existingUser, modificationUser);
+    existingUser.setGroups(groups);
 
     OwncloudUserDetails changedUserDetails = getLocalUserDataService().convert(existingUser, false);
-    log.debug("Notify registered Listeners about changed UserDetails {}", changedUserDetails);
-    saveUserListeners.forEach(listener -> listener.accept(changedUserDetails));
     log.info("User {} successfully modified", changedUserDetails.getUsername());
-    return changedUserDetails;
+    return OwncloudSaveResult.builder()
+        .username(changedUserDetails.getUsername())
+        .user(changedUserDetails)
+        .modified(true)
+        .build();
   }
 
-  private void manageGroups(OwncloudLocalUserData.User existingUser, OwncloudModificationUser newUser) {
+  private Set<String> getCheckedGroups(OwncloudModificationUser newUser) {
     Set<String> groups = new HashSet<>();
     if (CollectionUtils.isNotEmpty(newUser.getGroups())) {
-      log.debug("Modify the Group Memberships of User {}", existingUser.getUsername());
+      log.debug("Check the Group Memberships of User {}", newUser.getUsername());
       for (String groupname : newUser.getGroups()) {
         if (getLocalUserDataService().groupNotExists(groupname)) {
-          log.error("Group {} doesn't exist. Can't assign the User {} to this non-existing Group", groupname, existingUser.getUsername());
+          log.error("Group {} doesn't exist. Can't assign the User {} to this non-existing Group", groupname, newUser.getUsername());
           throw new OwncloudGroupNotFoundException(groupname);
         }
-        log.trace("Assign Group {} to User {}", groupname, existingUser.getUsername());
+        log.trace("Assign Group {} to User {}", groupname, newUser.getUsername());
         groups.add(groupname);
       }
     }
-    existingUser.setGroups(groups);
+    return groups;
+  }
+
+  private boolean isUnchanged(OwncloudLocalUserData.User existingUser, OwncloudModificationUser modificationUser, Set<String> groups) {
+    return StringUtils.equals(existingUser.getDisplayname(), modificationUser.getDisplayname())
+        && StringUtils.equals(existingUser.getEmail(), modificationUser.getEmail())
+        && Objects.equals(existingUser.getQuota(), modificationUser.getQuota())
+        && existingUser.isEnabled() == modificationUser.isEnabled()
+        && Objects.equals(existingUser.getGroups() != null ? existingUser.getGroups() : Collections.emptySet(), groups);
+  }
+
+  @Override
+  @CheckOwncloudModification
+  public List<OwncloudSaveResult> saveAll(Stream<OwncloudModificationUser> modificationUsers) {
+    Validate.notNull(modificationUsers);
+
+    List<OwncloudSaveResult> results = new ArrayList<>();
+    synchronized (getLocalUserDataService()) {
+      modificationUsers.forEach(modificationUser -> results.add(saveUserOfBatch(modificationUser)));
+    }
+
+    List<OwncloudUserDetails> changedUsers = results.stream()
+                                                    .filter(OwncloudSaveResult::isModified)
+                                                    .map(result -> result.getUser().get())
+                                                    .collect(Collectors.toList());
+    log.debug("Notify registered Listeners about {} changed Users", changedUsers.size());
+    changedUsers.forEach(changedUserDetails -> saveUserListeners.forEach(listener -> listener.accept(changedUserDetails)));
+    return results;
+  }
+
+  private OwncloudSaveResult saveUserOfBatch(OwncloudModificationUser modificationUser) {
+    String username = modificationUser != null ? modificationUser.getUsername() : null;
+    try {
+      Validate.notNull(modificationUser);
+      Validate.notBlank(username);
+      return saveUser(modificationUser);
+    } catch (RuntimeException e) {
+      log.error("Error while saving User {}", username, e);
+      return OwncloudSaveResult.builder()
+          .username(username)
+          .failure(e)
+          .build();
+    }
   }
 
   @Override
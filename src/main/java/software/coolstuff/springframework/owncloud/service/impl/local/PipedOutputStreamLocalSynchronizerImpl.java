@@ -22,7 +22,6 @@
 package software.coolstuff.springframework.owncloud.service.impl.local;
 
 import lombok.Builder;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -31,6 +30,8 @@ import software.coolstuff.springframework.owncloud.exception.resource.OwncloudLo
 import software.coolstuff.springframework.owncloud.exception.resource.OwncloudNoFileResourceException;
 import software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceException;
 import software.coolstuff.springframework.owncloud.service.impl.AbstractPipedStreamSynchronizerImpl;
+import software.coolstuff.springframework.owncloud.service.impl.RingBufferPipedInputStream;
+import software.coolstuff.springframework.owncloud.service.impl.RingBufferPipedOutputStream;
 import software.coolstuff.springframework.owncloud.service.impl.local.OwncloudLocalProperties.ResourceServiceProperties;
 
 import java.io.*;
@@ -39,6 +40,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -59,8 +61,9 @@ class PipedOutputStreamLocalSynchronizerImpl extends AbstractPipedStreamSynchron
       final URI uri,
       final Function<URI, Path> uriResolver,
       final OwncloudLocalProperties owncloudLocalProperties,
-      final Consumer<PipedOutputStreamAfterCopyEnvironment> afterCopyCallback) {
-    super(authentication, owncloudLocalProperties, uri);
+      final Consumer<PipedOutputStreamAfterCopyEnvironment> afterCopyCallback,
+      final Executor executor) {
+    super(authentication, owncloudLocalProperties, uri, executor);
     this.outputFile = getOutputFile(uri, uriResolver);
     this.owncloudLocalProperties = owncloudLocalProperties;
     this.afterCopyCallback = Optional.ofNullable(afterCopyCallback);
@@ -92,13 +95,15 @@ class PipedOutputStreamLocalSynchronizerImpl extends AbstractPipedStreamSynchron
       final URI uri,
       final Function<URI, Path> uriResolver,
       final OwncloudLocalProperties owncloudLocalProperties,
-      final Consumer<PipedOutputStreamAfterCopyEnvironment> afterCopyCallback) {
+      final Consumer<PipedOutputStreamAfterCopyEnvironment> afterCopyCallback,
+      final Executor executor) {
     return new PipedOutputStreamLocalSynchronizerImpl(
         authentication,
         uri,
         uriResolver,
         owncloudLocalProperties,
-        afterCopyCallback);
+        afterCopyCallback,
+        executor);
   }
 
   @Override
@@ -133,7 +138,7 @@ class PipedOutputStreamLocalSynchronizerImpl extends AbstractPipedStreamSynchron
 
   @Override
   protected void createPipedStream() {
-    try (InputStream input = new PipedInputStream(pipedOutputStream);
+    try (InputStream input = new RingBufferPipedInputStream(pipedOutputStream);
         OutputStream output = Files.newOutputStream(temporaryFile)) {
       setPipeReady();
       long contentLength = copy(input, output);
@@ -196,8 +201,7 @@ class PipedOutputStreamLocalSynchronizerImpl extends AbstractPipedStreamSynchron
   }
 
   @Setter
-  @RequiredArgsConstructor
-  private class SynchronizedPipedOutputStream extends PipedOutputStream {
+  private class SynchronizedPipedOutputStream extends RingBufferPipedOutputStream {
 
     private final Path outputPath;
 
@@ -206,6 +210,11 @@ class PipedOutputStreamLocalSynchronizerImpl extends AbstractPipedStreamSynchron
 
     private boolean alreadyClosed = false;
 
+    private SynchronizedPipedOutputStream(Path outputPath) {
+      super(getPipeCapacity());
+      this.outputPath = outputPath;
+    }
+
     boolean isExceptionAvailable() {
       return iOException != null || owncloudResourceException != null;
     }
@@ -21,6 +21,7 @@
  */
 package software.coolstuff.springframework.owncloud.service.impl.rest;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +31,8 @@ import org.apache.commons.lang3.Validate;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.support.MessageSourceAccessor;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.converter.FormHttpMessageConverter;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -41,6 +44,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 import software.coolstuff.springframework.owncloud.exception.OwncloudStatusException;
@@ -49,12 +53,19 @@ import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static lombok.AccessLevel.PROTECTED;
 
@@ -63,6 +74,8 @@ import static lombok.AccessLevel.PROTECTED;
 abstract class AbstractOwncloudRestServiceImpl implements OwncloudRestService {
 
   private static final String DEFAULT_PATH = "/ocs/v1.php";
+  private static final String JSON_PATH = "/ocs/v2.php";
+  private static final String OCS_API_REQUEST_HEADER = "OCS-APIRequest";
   private static final String AUTHORIZATION_METHOD_PREFIX = "Basic ";
 
   private final RestTemplateBuilder restTemplateBuilder;
@@ -84,27 +97,35 @@ abstract class AbstractOwncloudRestServiceImpl implements OwncloudRestService {
   }
 
   private void configureRestTemplate(URL locationURL) throws MalformedURLException {
-    String rootUri = OwncloudRestUtils.appendDefaultPath(locationURL, DEFAULT_PATH);
+    String rootUri = OwncloudRestUtils.appendDefaultPath(locationURL, isJsonEnabled() ? JSON_PATH : DEFAULT_PATH);
     log.info("Create the REST-Template to URI {} to be used with the authenticated User", rootUri);
     restTemplate = restTemplateBuilder
         .additionalMessageConverters(new FormHttpMessageConverter())
-        .errorHandler(responseErrorHandler)
+        .errorHandler(isJsonEnabled() ? new OcsJsonResponseErrorHandler(responseErrorHandler) : responseErrorHandler)
         .rootUri(rootUri)
         .build();
     Validate.notNull(restTemplate);
   }
 
+  private boolean isJsonEnabled() {
+    return properties.getOcsJson().isEnabled();
+  }
+
   @Override
   public RestTemplate getRestTemplate() {
     return restTemplate;
   }
 
   protected HttpHeaders prepareHeadersWithBasicAuthorization() {
+    return OwncloudRestUtils.addAuthorizationHeader(getAuthentication());
+  }
+
+  protected Authentication getAuthentication() {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     if (OwncloudUtils.isAuthenticationClassNotSupported(authentication.getClass())) {
       throw new OwncloudInvalidAuthenticationObjectException(authentication, UsernamePasswordAuthenticationToken.class);
     }
-    return OwncloudRestUtils.addAuthorizationHeader(authentication);
+    return authentication;
   }
 
   protected String getLocation() {
@@ -143,6 +164,11 @@ abstract class AbstractOwncloudRestServiceImpl implements OwncloudRestService {
       Class<T> clazz,
       OwncloudResponseStatusChecker statusChecker,
       Object... urlVariables) {
+    if (isJsonEnabled()) {
+      OcsJson.Body<?> ocs = exchangeJson(url, method, httpEntity, OcsJson.getDataClass(clazz), statusChecker, urlVariables);
+      return OcsJson.toOcs(clazz, ocs);
+    }
+
     log.trace("Exchange Data by a {} Request with URL {}. Requested Class of returned Data is {}", method, url, clazz);
     ResponseEntity<T> response = restTemplate.exchange(url, method, httpEntity, clazz, urlVariables);
     T result = response.getBody();
@@ -153,6 +179,143 @@ abstract class AbstractOwncloudRestServiceImpl implements OwncloudRestService {
     return result;
   }
 
+  /**
+   * Exchange Data with Version 2 of the OCS API in JSON Format.
+   * The Response will be deserialized directly from the Response Stream into the lean DTOs of {@link OcsJson}.
+   */
+  private <D, E> OcsJson.Body<D> exchangeJson(
+      String url,
+      HttpMethod method,
+      HttpEntity<E> httpEntity,
+      Class<D> dataClass,
+      OwncloudResponseStatusChecker statusChecker,
+      Object... urlVariables) {
+    log.trace("Exchange JSON Data by a {} Request with URL {}. Requested Class of returned Data is {}", method, url, dataClass);
+    HttpHeaders headers = new HttpHeaders();
+    headers.putAll(httpEntity.getHeaders());
+    addJsonHeaders(headers);
+    ObjectReader reader = OcsJson.readerFor(dataClass);
+    OcsJson.Body<D> result = restTemplate.execute(
+        appendJsonFormat(url),
+        method,
+        restTemplate.httpEntityCallback(new HttpEntity<>(httpEntity.getBody(), headers)),
+        response -> OcsJson.read(reader, response.getBody()),
+        urlVariables);
+    log.trace("Returned Meta-Data: {}", result.getMeta());
+    log.debug("Check the returned Meta-Data for Errors");
+    String authorizationUser = getAuthorizationUserFromHeaders(httpEntity.getHeaders());
+    statusChecker.checkForFailure(authorizationUser, url, result.getMeta());
+    return result;
+  }
+
+  private static void addJsonHeaders(HttpHeaders headers) {
+    headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+    headers.set(OCS_API_REQUEST_HEADER, "true");
+  }
+
+  private static String appendJsonFormat(String url) {
+    return url + (StringUtils.contains(url, '?') ? "&" : "?") + OcsJson.FORMAT_PARAMETER;
+  }
+
+  /**
+   * Exchange a List of Users. With the JSON Format the Users will be read without any Wrapper Objects.
+   */
+  protected <E> List<String> exchangeUsers(String url, HttpMethod method, HttpEntity<E> httpEntity, Object... urlVariables) {
+    return exchangeUsers(url, method, httpEntity, this::checkFailure, urlVariables);
+  }
+
+  protected <E> List<String> exchangeUsers(
+      String url,
+      HttpMethod method,
+      HttpEntity<E> httpEntity,
+      OwncloudResponseStatusChecker statusChecker,
+      Object... urlVariables) {
+    if (isJsonEnabled()) {
+      return OcsJson.getUsers(exchangeJson(url, method, httpEntity, OcsJson.Users.class, statusChecker, urlVariables));
+    }
+    return OwncloudRestUtils.convertUsers(exchange(url, method, httpEntity, Ocs.Users.class, statusChecker, urlVariables));
+  }
+
+  /**
+   * Exchange a List of Groups. With the JSON Format the Groups will be read without any Wrapper Objects.
+   */
+  protected <E> List<String> exchangeGroups(String url, HttpMethod method, HttpEntity<E> httpEntity, Object... urlVariables) {
+    if (isJsonEnabled()) {
+      return OcsJson.getGroups(exchangeJson(url, method, httpEntity, OcsJson.Groups.class, this::checkFailure, urlVariables));
+    }
+    return OwncloudRestUtils.convertGroups(exchange(url, method, httpEntity, Ocs.Groups.class, urlVariables));
+  }
+
+  /**
+   * Stream a List of Users by a GET Request. The Users will be parsed incrementally while the Stream is being consumed.
+   * <p/>
+   * The returned Stream holds the HTTP Connection and must be closed (i.e. by <code>try-with-resources</code>).
+   */
+  protected Stream<String> streamUsers(String url, Object... urlVariables) {
+    return streamUsers(url, this::checkFailure, urlVariables);
+  }
+
+  protected Stream<String> streamUsers(String url, OwncloudResponseStatusChecker statusChecker, Object... urlVariables) {
+    return stream(url, "users", statusChecker, urlVariables);
+  }
+
+  /**
+   * Stream a List of Groups by a GET Request. The Groups will be parsed incrementally while the Stream is being consumed.
+   * <p/>
+   * The returned Stream holds the HTTP Connection and must be closed (i.e. by <code>try-with-resources</code>).
+   */
+  protected Stream<String> streamGroups(String url, Object... urlVariables) {
+    return stream(url, "groups", this::checkFailure, urlVariables);
+  }
+
+  private Stream<String> stream(String url, String listName, OwncloudResponseStatusChecker statusChecker, Object... urlVariables) {
+    URI uri = restTemplate.getUriTemplateHandler().expand(isJsonEnabled() ? appendJsonFormat(url) : url, urlVariables);
+    log.trace("Stream Data by a GET Request with URI {}", uri);
+    HttpHeaders headers = prepareHeadersWithBasicAuthorization();
+    ClientHttpResponse response = null;
+    OcsNameReader reader = null;
+    try {
+      ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, HttpMethod.GET);
+      request.getHeaders().putAll(headers);
+      if (isJsonEnabled()) {
+        addJsonHeaders(request.getHeaders());
+      }
+      response = request.execute();
+      ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+      if (errorHandler.hasError(response)) {
+        errorHandler.handleError(uri, HttpMethod.GET, response);
+      }
+      reader = isJsonEnabled() ? OcsNameReader.json(response.getBody(), listName) : OcsNameReader.xml(response.getBody(), listName);
+      Ocs.Meta meta = reader.readMeta();
+      log.trace("Returned Meta-Data: {}", meta);
+      log.debug("Check the returned Meta-Data for Errors");
+      statusChecker.checkForFailure(getAuthorizationUserFromHeaders(headers), url, meta);
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                          .onClose(closeQuietly(reader, response));
+    } catch (IOException e) {
+      closeQuietly(reader, response).run();
+      throw new ResourceAccessException(String.format("I/O Error on GET Request for %s: %s", uri, e.getMessage()), e);
+    } catch (RuntimeException e) {
+      closeQuietly(reader, response).run();
+      throw e;
+    }
+  }
+
+  private static Runnable closeQuietly(OcsNameReader reader, ClientHttpResponse response) {
+    return () -> {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          log.warn("Error while closing the Reader of the OCS Response", e);
+        }
+      }
+      if (response != null) {
+        response.close();
+      }
+    };
+  }
+
   protected String getAuthorizationUserFromHeaders(HttpHeaders headers) {
     Validate.notNull(headers);
 
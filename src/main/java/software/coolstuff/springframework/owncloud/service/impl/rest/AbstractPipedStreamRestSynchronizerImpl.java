@@ -40,6 +40,7 @@ import software.coolstuff.springframework.owncloud.service.impl.OwncloudProperti
 import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
@@ -64,8 +65,9 @@ abstract class AbstractPipedStreamRestSynchronizerImpl extends AbstractPipedStre
       final URI uri,
       final OwncloudProperties owncloudProperties,
       final RestOperations restOperations,
-      final BiFunction<URI, String, URI> uriResolver) {
-    super(authentication, owncloudProperties, uri);
+      final BiFunction<URI, String, URI> uriResolver,
+      final Executor executor) {
+    super(authentication, owncloudProperties, uri, executor);
     this.restOperations = restOperations;
     this.uriResolver = Optional.ofNullable(uriResolver);
   }
@@ -0,0 +1,193 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * lean Data Transfer Objects of the JSON Format of the OCS API Version 2 (<code>/ocs/v2.php</code> with <code>format=json</code>).
+ * <p/>
+ * Lists of Users and Groups will be deserialized directly as Lists of Strings (without any Wrapper Objects).
+ * The Status Codes of Version 2 will be mapped to the Status Codes of Version 1,
+ * so the same {@link OwncloudResponseStatusChecker} can be used for both Formats.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@NoArgsConstructor
+@lombok.Data
+class OcsJson<D> {
+
+  static final String FORMAT_PARAMETER = "format=json";
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .enable(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+
+  private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+  private Body<D> ocs;
+
+  @NoArgsConstructor
+  @lombok.Data
+  static class Body<D> {
+    private Ocs.Meta meta;
+    private D data;
+  }
+
+  @NoArgsConstructor
+  @lombok.Data
+  static class Users {
+    private List<String> users;
+  }
+
+  @NoArgsConstructor
+  @lombok.Data
+  static class Groups {
+    private List<String> groups;
+  }
+
+  static ObjectReader readerFor(Class<?> dataClass) {
+    return READERS.computeIfAbsent(dataClass, clazz -> {
+      TypeFactory typeFactory = OBJECT_MAPPER.getTypeFactory();
+      JavaType type = typeFactory.constructParametricType(OcsJson.class, clazz);
+      return OBJECT_MAPPER.readerFor(type);
+    });
+  }
+
+  static JsonParser createParser(InputStream body) throws IOException {
+    return OBJECT_MAPPER.getFactory().createParser(body);
+  }
+
+  static <D> Body<D> read(ObjectReader reader, InputStream body) throws IOException {
+    OcsJson<D> ocsJson = reader.readValue(body);
+    Body<D> ocs = ocsJson.getOcs();
+    ocs.setMeta(toVersion1(ocs.getMeta()));
+    return ocs;
+  }
+
+  /**
+   * Version 2 of the OCS API returns <code>200</code> instead of <code>100</code>
+   * and the HTTP Status Codes instead of <code>997</code> and <code>998</code>.
+   * <p/>
+   * The Method specific Failures <code>101</code> to <code>105</code> (i.e. <code>102</code> for
+   * an already existing User on Creation or for an unknown Group on Assignment) will be returned
+   * with the HTTP Status <code>400 Bad Request</code> but with the same Status Code as in Version 1
+   * within the Meta-Data. {@link OcsJsonResponseErrorHandler} hands these Responses over
+   * to the {@link OwncloudResponseStatusChecker}, so they will be kept as they are.
+   * All other Status Codes are the same as in Version 1.
+   */
+  static Ocs.Meta toVersion1(Ocs.Meta meta) {
+    switch (meta.getStatuscode()) {
+      case 200:
+        meta.setStatuscode(100);
+        break;
+      case 401:
+      case 403:
+        meta.setStatuscode(997);
+        break;
+      case 404:
+        meta.setStatuscode(998);
+        break;
+      case 101:
+      case 102:
+      case 103:
+      case 104:
+      case 105:
+        // same Status Code as in Version 1
+        break;
+      default:
+    }
+    return meta;
+  }
+
+  static List<String> getUsers(Body<Users> ocs) {
+    if (ocs.getData() == null || ocs.getData().getUsers() == null) {
+      return new ArrayList<>();
+    }
+    return ocs.getData().getUsers();
+  }
+
+  static List<String> getGroups(Body<Groups> ocs) {
+    if (ocs.getData() == null || ocs.getData().getGroups() == null) {
+      return new ArrayList<>();
+    }
+    return ocs.getData().getGroups();
+  }
+
+  static Class<?> getDataClass(Class<? extends Ocs> ocsClass) {
+    if (Ocs.User.class.equals(ocsClass)) {
+      return Ocs.User.Data.class;
+    }
+    if (Ocs.Users.class.equals(ocsClass)) {
+      return Users.class;
+    }
+    if (Ocs.Groups.class.equals(ocsClass)) {
+      return Groups.class;
+    }
+    if (Ocs.Void.class.equals(ocsClass)) {
+      return Object.class;
+    }
+    throw new IllegalArgumentException("Unsupported OCS Class " + ocsClass);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T extends Ocs> T toOcs(Class<T> ocsClass, Body<?> ocs) {
+    if (Ocs.User.class.equals(ocsClass)) {
+      return (T) Ocs.User.builder()
+                         .meta(ocs.getMeta())
+                         .data((Ocs.User.Data) ocs.getData())
+                         .build();
+    }
+    if (Ocs.Users.class.equals(ocsClass)) {
+      return (T) Ocs.Users.builder()
+                          .meta(ocs.getMeta())
+                          .users(getUsers((Body<Users>) ocs))
+                          .build();
+    }
+    if (Ocs.Groups.class.equals(ocsClass)) {
+      return (T) Ocs.Groups.builder()
+                           .meta(ocs.getMeta())
+                           .groups(getGroups((Body<Groups>) ocs))
+                           .build();
+    }
+    if (Ocs.Void.class.equals(ocsClass)) {
+      return (T) Ocs.Void.builder()
+                         .meta(ocs.getMeta())
+                         .build();
+    }
+    throw new IllegalArgumentException("Unsupported OCS Class " + ocsClass);
+  }
+}
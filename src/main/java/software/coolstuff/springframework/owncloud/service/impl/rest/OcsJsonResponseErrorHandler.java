@@ -0,0 +1,71 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseErrorHandler;
+
+import java.io.IOException;
+
+/**
+ * Version 2 of the OCS API signals a failed Request by a HTTP Client Error (i.e. <code>404</code>)
+ * together with the OCS Meta-Data. These Responses will be handed over to the
+ * {@link OwncloudResponseStatusChecker}, so they will be mapped to the same Exceptions as with Version 1.
+ * <code>401 Unauthorized</code> and all other Errors will be handled by the delegated {@link ResponseErrorHandler}.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@RequiredArgsConstructor
+@Slf4j
+class OcsJsonResponseErrorHandler implements ResponseErrorHandler {
+
+  private final ResponseErrorHandler delegate;
+
+  @Override
+  public boolean hasError(ClientHttpResponse response) throws IOException {
+    if (isOcsFailure(response)) {
+      log.debug("HTTP Status {} with OCS Meta-Data will be checked by the OCS Status Checker", response.getRawStatusCode());
+      return false;
+    }
+    return delegate.hasError(response);
+  }
+
+  private boolean isOcsFailure(ClientHttpResponse response) throws IOException {
+    HttpStatus statusCode = HttpStatus.resolve(response.getRawStatusCode());
+    MediaType contentType = response.getHeaders().getContentType();
+    return statusCode != null
+        && statusCode.is4xxClientError()
+        && statusCode != HttpStatus.UNAUTHORIZED
+        && contentType != null
+        && MediaType.APPLICATION_JSON.isCompatibleWith(contentType);
+  }
+
+  @Override
+  public void handleError(ClientHttpResponse response) throws IOException {
+    delegate.handleError(response);
+  }
+}
@@ -0,0 +1,292 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.client.RestClientException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Incremental Reader of a List of Names (Users or Groups) from the Body of an OCS Response.
+ * <p/>
+ * {@link #readMeta()} reads the Meta-Data and positions the Reader in front of the first Name.
+ * After that every Name will be parsed just when it is requested by {@link #next()},
+ * so the Response will never be held in Memory at once.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+abstract class OcsNameReader implements Iterator<String>, Closeable {
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  private final String listName;
+  private String nextName;
+  private boolean finished;
+
+  private OcsNameReader(String listName) {
+    this.listName = listName;
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return xmlInputFactory;
+  }
+
+  /**
+   * Reader of the XML Format of the OCS API Version 1 (<code>&lt;users&gt;&lt;element&gt;user1&lt;/element&gt;&lt;/users&gt;</code>)
+   * @param body Body of the Response
+   * @param listName Name of the XML Element containing the Names (<code>users</code> or <code>groups</code>)
+   * @return Reader of the Names
+   */
+  static OcsNameReader xml(InputStream body, String listName) {
+    try {
+      return new XmlReader(XML_INPUT_FACTORY.createXMLStreamReader(body), listName);
+    } catch (XMLStreamException e) {
+      throw new RestClientException("Error while reading the OCS Response", e);
+    }
+  }
+
+  /**
+   * Reader of the JSON Format of the OCS API Version 2 (<code>{"users":["user1"]}</code>)
+   * @param body Body of the Response
+   * @param listName Name of the JSON Field containing the Names (<code>users</code> or <code>groups</code>)
+   * @return Reader of the Names
+   */
+  static OcsNameReader json(InputStream body, String listName) {
+    try {
+      return new JsonReader(OcsJson.createParser(body), listName);
+    } catch (IOException e) {
+      throw new RestClientException("Error while reading the OCS Response", e);
+    }
+  }
+
+  /**
+   * Read the Meta-Data of the Response and position the Reader in front of the first Name.
+   * @return Meta-Data of the Response
+   */
+  Ocs.Meta readMeta() {
+    try {
+      Ocs.Meta meta = readMetaAndPositionAtList(listName);
+      if (meta == null) {
+        throw new RestClientException("OCS Response doesn't contain any Meta-Data");
+      }
+      return meta;
+    } catch (IOException | XMLStreamException e) {
+      throw new RestClientException("Error while reading the OCS Response", e);
+    }
+  }
+
+  protected abstract Ocs.Meta readMetaAndPositionAtList(String listName) throws IOException, XMLStreamException;
+
+  /**
+   * Read the next Name
+   * @return next Name or <code>null</code> if there are no further Names
+   */
+  protected abstract String readName() throws IOException, XMLStreamException;
+
+  @Override
+  public boolean hasNext() {
+    if (nextName != null) {
+      return true;
+    }
+    if (finished) {
+      return false;
+    }
+    try {
+      nextName = readName();
+    } catch (IOException | XMLStreamException e) {
+      throw new RestClientException("Error while reading the OCS Response", e);
+    }
+    finished = nextName == null;
+    return !finished;
+  }
+
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    String name = nextName;
+    nextName = null;
+    return name;
+  }
+
+  private static class XmlReader extends OcsNameReader {
+
+    private final XMLStreamReader reader;
+    private boolean listAvailable;
+
+    private XmlReader(XMLStreamReader reader, String listName) {
+      super(listName);
+      this.reader = reader;
+    }
+
+    @Override
+    protected Ocs.Meta readMetaAndPositionAtList(String listName) throws XMLStreamException {
+      Ocs.Meta meta = null;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event != XMLStreamConstants.START_ELEMENT) {
+          continue;
+        }
+        if ("meta".equals(reader.getLocalName())) {
+          meta = readMeta(reader);
+        } else if (listName.equals(reader.getLocalName())) {
+          listAvailable = true;
+          return meta;
+        }
+      }
+      return meta;
+    }
+
+    private static Ocs.Meta readMeta(XMLStreamReader reader) throws XMLStreamException {
+      Ocs.Meta meta = new Ocs.Meta();
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+        String elementName = reader.getLocalName();
+        String value = reader.getElementText();
+        switch (elementName) {
+          case "status":
+            meta.setStatus(value);
+            break;
+          case "statuscode":
+            meta.setStatuscode(Integer.parseInt(StringUtils.trim(value)));
+            break;
+          case "message":
+            meta.setMessage(value);
+            break;
+          default:
+            log.trace("Ignore Meta-Data {}", elementName);
+        }
+      }
+      return meta;
+    }
+
+    @Override
+    protected String readName() throws XMLStreamException {
+      if (!listAvailable) {
+        return null;
+      }
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          return reader.getElementText();
+        }
+        if (event == XMLStreamConstants.END_ELEMENT) {
+          // end of the List
+          listAvailable = false;
+          return null;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  private static class JsonReader extends OcsNameReader {
+
+    private final JsonParser parser;
+    private boolean listAvailable;
+
+    private JsonReader(JsonParser parser, String listName) {
+      super(listName);
+      this.parser = parser;
+    }
+
+    @Override
+    protected Ocs.Meta readMetaAndPositionAtList(String listName) throws IOException {
+      if (parser.nextToken() != JsonToken.START_OBJECT || !"ocs".equals(parser.nextFieldName())) {
+        return null;
+      }
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      Ocs.Meta meta = null;
+      for (String fieldName = parser.nextFieldName(); fieldName != null; fieldName = parser.nextFieldName()) {
+        JsonToken token = parser.nextToken();
+        if ("meta".equals(fieldName)) {
+          meta = OcsJson.toVersion1(parser.readValueAs(Ocs.Meta.class));
+        } else if ("data".equals(fieldName) && token == JsonToken.START_OBJECT) {
+          listAvailable = positionAtList(listName);
+          // the Meta-Data precedes the Data
+          return meta;
+        } else {
+          parser.skipChildren();
+        }
+      }
+      return meta;
+    }
+
+    private boolean positionAtList(String listName) throws IOException {
+      for (String fieldName = parser.nextFieldName(); fieldName != null; fieldName = parser.nextFieldName()) {
+        JsonToken token = parser.nextToken();
+        if (listName.equals(fieldName) && token == JsonToken.START_ARRAY) {
+          return true;
+        }
+        parser.skipChildren();
+      }
+      return false;
+    }
+
+    @Override
+    protected String readName() throws IOException {
+      if (!listAvailable) {
+        return null;
+      }
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.VALUE_STRING) {
+        return parser.getText();
+      }
+      // end of the List
+      listAvailable = false;
+      return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      parser.close();
+    }
+  }
+}
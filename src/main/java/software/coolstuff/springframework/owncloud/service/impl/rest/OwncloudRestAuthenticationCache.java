@@ -0,0 +1,221 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.Hashing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.AuthenticationCacheProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of successful Authentications of the REST Authentication Provider.
+ * <p/>
+ * Entries are keyed by the Username and hold a salted Hash of the Password (never the Password itself),
+ * the User Details (without Password) and the mapped Authorities. Failed Authentications will never be cached.
+ * Concurrent Authentications of the same User with the same Password will be coalesced into one Backend Round-Trip.
+ * If the Cache has been disabled every Authentication will be delegated to the Backend.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudRestAuthenticationCache {
+
+  private static final int SALT_LENGTH = 16;
+
+  private final boolean enabled;
+  private final Cache<String, CachedAuthentication> authentications;
+  private final ConcurrentMap<String, CompletableFuture<Authentication>> runningAuthentications = new ConcurrentHashMap<>();
+  private final StatsCounter statsCounter = new SimpleStatsCounter();
+  private final AtomicLong generation = new AtomicLong();
+  private final SecureRandom secureRandom = new SecureRandom();
+  private final byte[] coalescingSalt = new byte[SALT_LENGTH];
+
+  public OwncloudRestAuthenticationCache(OwncloudRestProperties properties) {
+    AuthenticationCacheProperties authenticationCacheProperties = properties.getAuthenticationCache();
+    enabled = authenticationCacheProperties.isEnabled();
+    authentications = CacheBuilder.newBuilder()
+                                  .<String, CachedAuthentication>removalListener(this::onRemoval)
+                                  .expireAfterWrite(authenticationCacheProperties.getTimeToLive(), authenticationCacheProperties.getTimeToLiveTimeUnit())
+                                  .maximumSize(authenticationCacheProperties.getMaximumSize())
+                                  .build();
+    secureRandom.nextBytes(coalescingSalt);
+  }
+
+  private void onRemoval(RemovalNotification<String, CachedAuthentication> notification) {
+    if (notification.wasEvicted()) {
+      statsCounter.recordEviction();
+    }
+  }
+
+  /**
+   * Get the cached Authentication of the User or authenticate the User by the Backend
+   * @param username Username
+   * @param password Password
+   * @param authenticator Authentication by the Backend (the Principal must be {@link OwncloudUserDetails})
+   * @return Authentication with the User Details (including the Password) and the mapped Authorities
+   */
+  Authentication authenticate(String username, String password, Supplier<Authentication> authenticator) {
+    if (!enabled) {
+      return authenticator.get();
+    }
+
+    CachedAuthentication cachedAuthentication = authentications.getIfPresent(username);
+    if (cachedAuthentication != null && cachedAuthentication.matches(password)) {
+      log.debug("Found the successful Authentication of User {} within the Cache", username);
+      statsCounter.recordHits(1);
+      return cachedAuthentication.toAuthentication(password);
+    }
+    statsCounter.recordMisses(1);
+
+    String runningAuthenticationKey = username + ':' + hash(coalescingSalt, password);
+    CompletableFuture<Authentication> runningAuthentication = new CompletableFuture<>();
+    CompletableFuture<Authentication> existingAuthentication = runningAuthentications.putIfAbsent(runningAuthenticationKey, runningAuthentication);
+    if (existingAuthentication != null) {
+      log.debug("Wait for the running Authentication of User {}", username);
+      return join(existingAuthentication, password);
+    }
+
+    try {
+      long generationBeforeAuthentication = generation.get();
+      Authentication authentication = authenticator.get();
+      cachedAuthentication = new CachedAuthentication(
+          salt(password),
+          OwncloudRestUtils.copyWithoutPassword((OwncloudUserDetails) authentication.getPrincipal()),
+          new ArrayList<>(authentication.getAuthorities()));
+      if (generationBeforeAuthentication == generation.get()) {
+        log.debug("Put the successful Authentication of User {} into the Cache", username);
+        authentications.put(username, cachedAuthentication);
+      }
+      runningAuthentication.complete(authentication);
+      return authentication;
+    } catch (RuntimeException e) {
+      runningAuthentication.completeExceptionally(e);
+      throw e;
+    } finally {
+      runningAuthentications.remove(runningAuthenticationKey, runningAuthentication);
+    }
+  }
+
+  private Authentication join(CompletableFuture<Authentication> runningAuthentication, String password) {
+    try {
+      Authentication authentication = runningAuthentication.join();
+      OwncloudUserDetails userDetails = OwncloudRestUtils.copyWithoutPassword((OwncloudUserDetails) authentication.getPrincipal());
+      userDetails.setPassword(password);
+      return new UsernamePasswordAuthenticationToken(userDetails, password, authentication.getAuthorities());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private SaltedHash salt(String password) {
+    byte[] salt = new byte[SALT_LENGTH];
+    secureRandom.nextBytes(salt);
+    return new SaltedHash(salt, hash(salt, password));
+  }
+
+  private static String hash(byte[] salt, String password) {
+    return Hashing.sha256()
+                  .newHasher()
+                  .putBytes(salt)
+                  .putString(password, StandardCharsets.UTF_8)
+                  .hash()
+                  .toString();
+  }
+
+  /**
+   * Remove the cached Authentication of the User (i.e. after the User has been changed or removed)
+   * @param username Username
+   */
+  public void invalidate(String username) {
+    log.debug("Remove the cached Authentication of User {}", username);
+    generation.incrementAndGet();
+    authentications.invalidate(username);
+  }
+
+  /**
+   * Remove all cached Authentications (i.e. after a Group has been removed)
+   */
+  public void invalidateAll() {
+    log.debug("Remove all cached Authentications");
+    generation.incrementAndGet();
+    authentications.invalidateAll();
+  }
+
+  /**
+   * Statistics (Hits, Misses and Evictions) of the Cache
+   * @return Statistics of the Cache
+   */
+  public CacheStats getStats() {
+    return statsCounter.snapshot();
+  }
+
+  @RequiredArgsConstructor
+  private static class SaltedHash {
+    private final byte[] salt;
+    private final String hash;
+  }
+
+  @RequiredArgsConstructor
+  private static class CachedAuthentication {
+    private final SaltedHash password;
+    private final OwncloudUserDetails userDetails;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    boolean matches(String password) {
+      return MessageDigest.isEqual(
+          this.password.hash.getBytes(StandardCharsets.US_ASCII),
+          hash(this.password.salt, password).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    Authentication toAuthentication(String password) {
+      OwncloudUserDetails owncloudUserDetails = OwncloudRestUtils.copyWithoutPassword(userDetails);
+      owncloudUserDetails.setPassword(password);
+      return new UsernamePasswordAuthenticationToken(owncloudUserDetails, password, authorities);
+    }
+  }
+}
@@ -37,20 +37,48 @@ import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudGrantedAuthoritiesMappingService;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudUtils;
 
+import java.util.concurrent.CompletableFuture;
+
+import static software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestOcsRequestExecutor.join;
+import static software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestOcsRequestExecutor.throwIfFailed;
+
 @Slf4j
 public class OwncloudRestAuthenticationProviderImpl extends AbstractOwncloudRestServiceImpl implements AuthenticationProvider {
 
   private final OwncloudRestUserDetailsService userDetailsService;
   private final OwncloudGrantedAuthoritiesMappingService grantedAuthoritiesMappingService;
+  private final OwncloudRestAuthenticationCache authenticationCache;
+  private final OwncloudRestOcsRequestExecutor ocsRequestExecutor;
 
   public OwncloudRestAuthenticationProviderImpl(
       RestTemplateBuilder builder,
       OwncloudRestProperties properties,
       OwncloudRestUserDetailsService userDetailsService,
       OwncloudGrantedAuthoritiesMappingService grantedAuthoritiesMappingService) {
+    this(builder, properties, userDetailsService, grantedAuthoritiesMappingService, new OwncloudRestAuthenticationCache(properties));
+  }
+
+  public OwncloudRestAuthenticationProviderImpl(
+      RestTemplateBuilder builder,
+      OwncloudRestProperties properties,
+      OwncloudRestUserDetailsService userDetailsService,
+      OwncloudGrantedAuthoritiesMappingService grantedAuthoritiesMappingService,
+      OwncloudRestAuthenticationCache authenticationCache) {
+    this(builder, properties, userDetailsService, grantedAuthoritiesMappingService, authenticationCache, new OwncloudRestOcsRequestExecutor(properties));
+  }
+
+  public OwncloudRestAuthenticationProviderImpl(
+      RestTemplateBuilder builder,
+      OwncloudRestProperties properties,
+      OwncloudRestUserDetailsService userDetailsService,
+      OwncloudGrantedAuthoritiesMappingService grantedAuthoritiesMappingService,
+      OwncloudRestAuthenticationCache authenticationCache,
+      OwncloudRestOcsRequestExecutor ocsRequestExecutor) {
     super(builder, properties);
     this.userDetailsService = userDetailsService;
     this.grantedAuthoritiesMappingService = grantedAuthoritiesMappingService;
+    this.authenticationCache = authenticationCache;
+    this.ocsRequestExecutor = ocsRequestExecutor;
   }
 
   @Override
@@ -67,24 +95,48 @@ public class OwncloudRestAuthenticationProviderImpl extends AbstractOwncloudRest
       throw new BadCredentialsException(messages.getMessage("AbstractUserDetailsAuthenticationProvider.badCredentials", "Bad Credentials"));
     }
 
+    return authenticationCache.authenticate(username, password, () -> authenticateByBackend(username, password));
+  }
+
+  private Authentication authenticateByBackend(String username, String password) {
     log.debug("Try to get Information about User {} from Location {}", username, getLocation());
-    Ocs.User user = exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(username, password), Ocs.User.class, username);
-    if (!user.getData().isEnabled()) {
-      log.error("User {} is disabled", username);
-      throw new DisabledException(messages.getMessage("AbstractUserDetailsAuthenticationProvider.disabled", "Disabled"));
-    }
+    CompletableFuture<Ocs.User> userRequest = throwIfFailed(
+        ocsRequestExecutor.submit(() -> exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(username, password), Ocs.User.class, username))
+                          .thenApply(user -> checkEnabled(username, user)));
+    UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username, password);
+    CompletableFuture<Ocs.Groups> groupsRequest = ocsRequestExecutor.submit(() -> userDetailsService.loadGroupsByUsername(username), authenticationToken);
+    Ocs.User user = joinUserRequest(username, userRequest, groupsRequest);
 
     log.debug("Set a new UsernamePasswordAuthenticationToken with User {} to the SecurityContextHolder", username);
-    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, password));
+    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
 
     log.info("User {} has been successfully authenticated. Get Information from UserDetailsService", username);
-    OwncloudUserDetails owncloudUserDetails = userDetailsService.loadPreloadedUserByUsername(username, user);
+    OwncloudUserDetails owncloudUserDetails = userDetailsService.loadPreloadedUserByUsername(username, user, join(groupsRequest));
     log.trace("Set the Password of User {} to the Authentication Object", username);
     owncloudUserDetails.setPassword(password);
 
     return new UsernamePasswordAuthenticationToken(owncloudUserDetails, password, grantedAuthoritiesMappingService.mapGrantedAuthorities(owncloudUserDetails));
   }
 
+  private Ocs.User joinUserRequest(String username, CompletableFuture<Ocs.User> userRequest, CompletableFuture<Ocs.Groups> groupsRequest) {
+    try {
+      return join(userRequest);
+    } catch (RuntimeException e) {
+      // the Credentials haven't been verified: discard the Group Memberships (and also their Failure)
+      log.debug("Discard the Group Memberships of User {} because the Authentication has failed", username);
+      groupsRequest.cancel(false);
+      throw e;
+    }
+  }
+
+  private Ocs.User checkEnabled(String username, Ocs.User user) {
+    if (!user.getData().isEnabled()) {
+      log.error("User {} is disabled", username);
+      throw new DisabledException(messages.getMessage("AbstractUserDetailsAuthenticationProvider.disabled", "Disabled"));
+    }
+    return user;
+  }
+
   @Override
   protected void checkFailure(String username, String uri, Ocs.Meta metaInformation) throws OwncloudStatusException {
     if ("ok".equals(metaInformation.getStatus())) {
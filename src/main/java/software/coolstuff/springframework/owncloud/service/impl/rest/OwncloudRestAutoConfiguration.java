@@ -32,8 +32,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.xml.MappingJackson2XmlHttpMessageConverter;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudGroupService;
-import software.coolstuff.springframework.owncloud.service.api.OwncloudResourceService;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudGrantedAuthoritiesMappingService;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudPipedStreamExecutor;
 
 import java.net.MalformedURLException;
 
@@ -50,39 +50,118 @@ public class OwncloudRestAutoConfiguration {
   private final RestTemplateBuilder restTemplateBuilder;
   private final OwncloudRestProperties owncloudRestProperties;
   private final OwncloudGrantedAuthoritiesMappingService owncloudGrantedAuthoritiesMappingService;
+  private final OwncloudPipedStreamExecutor owncloudPipedStreamExecutor;
 
   @Bean
   public OwncloudRestUserServiceExtension owncloudUserRestService() {
-    return new OwncloudRestUserServiceImpl(restTemplateBuilder, owncloudRestProperties);
+    return new OwncloudRestUserServiceImpl(
+        ocsRestTemplateBuilder(),
+        owncloudRestProperties,
+        owncloudRestUserCache(),
+        owncloudRestAuthenticationCache(),
+        owncloudRestGroupMembershipCache(),
+        owncloudRestDirectoryReplica(),
+        owncloudRestOcsRequestExecutor());
   }
 
   @Bean
   public OwncloudGroupService owncloudGroupRestService() {
-    return new OwncloudRestGroupServiceImpl(restTemplateBuilder, owncloudRestProperties);
+    return new OwncloudRestGroupServiceImpl(
+        ocsRestTemplateBuilder(),
+        owncloudRestProperties,
+        owncloudRestUserCache(),
+        owncloudRestAuthenticationCache(),
+        owncloudRestGroupMembershipCache(),
+        owncloudRestDirectoryReplica());
   }
 
   @Bean
   @Qualifier("owncloudAuthenticationProvider")
   @ConditionalOnMissingBean(OwncloudRestAuthenticationProviderImpl.class)
   public OwncloudRestAuthenticationProviderImpl owncloudRestAuthenticationProvider() {
-    return new OwncloudRestAuthenticationProviderImpl(restTemplateBuilder, owncloudRestProperties, owncloudRestUserDetailsService(), owncloudGrantedAuthoritiesMappingService);
+    return new OwncloudRestAuthenticationProviderImpl(
+        ocsRestTemplateBuilder(),
+        owncloudRestProperties,
+        owncloudRestUserDetailsService(),
+        owncloudGrantedAuthoritiesMappingService,
+        owncloudRestAuthenticationCache(),
+        owncloudRestOcsRequestExecutor());
   }
 
   @Bean
   @Qualifier("owncloudUserDetailsService")
   @ConditionalOnMissingBean(OwncloudRestUserDetailsServiceImpl.class)
   public OwncloudRestUserDetailsService owncloudRestUserDetailsService() {
-    return new OwncloudRestUserDetailsServiceImpl(restTemplateBuilder, owncloudRestProperties);
+    return new OwncloudRestUserDetailsServiceImpl(ocsRestTemplateBuilder(), owncloudRestProperties, owncloudRestUserCache(), owncloudRestOcsRequestExecutor());
   }
 
   @Bean
-  public OwncloudResourceService owncloudResourceService() throws MalformedURLException {
-    return new OwncloudRestResourceServiceImpl(restTemplateBuilder, owncloudRestProperties, sardineCacheLoader(), owncloudUserRestService());
+  public OwncloudRestResourceServiceExtension owncloudResourceService() throws MalformedURLException {
+    return new OwncloudRestResourceServiceImpl(
+        restTemplateBuilder,
+        owncloudRestProperties,
+        sardineCacheLoader(),
+        owncloudUserRestService(),
+        owncloudPipedStreamExecutor,
+        owncloudRestConnectionPool());
   }
 
   @Bean
   @ConditionalOnMissingBean(SardineCacheLoader.class)
   public SardineCacheLoader sardineCacheLoader() {
-    return new SardineCacheLoader();
+    return new SardineCacheLoader(owncloudRestConnectionPool());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudRestOcsConnectionPool.class)
+  public OwncloudRestOcsConnectionPool owncloudRestOcsConnectionPool() {
+    return new OwncloudRestOcsConnectionPool(owncloudRestProperties, owncloudRestSessionCookies());
+  }
+
+  private RestTemplateBuilder ocsRestTemplateBuilder() {
+    OwncloudRestOcsConnectionPool ocsConnectionPool = owncloudRestOcsConnectionPool();
+    return restTemplateBuilder.requestFactory(ocsConnectionPool::getRequestFactory);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudRestConnectionPool.class)
+  public OwncloudRestConnectionPool owncloudRestConnectionPool() {
+    return new OwncloudRestConnectionPool(owncloudRestProperties, owncloudRestSessionCookies());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudRestUserCache.class)
+  public OwncloudRestUserCache owncloudRestUserCache() {
+    return new OwncloudRestUserCache(owncloudRestProperties);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudRestAuthenticationCache.class)
+  public OwncloudRestAuthenticationCache owncloudRestAuthenticationCache() {
+    return new OwncloudRestAuthenticationCache(owncloudRestProperties);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudRestGroupMembershipCache.class)
+  public OwncloudRestGroupMembershipCache owncloudRestGroupMembershipCache() {
+    return new OwncloudRestGroupMembershipCache(owncloudRestProperties);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudRestDirectoryReplica.class)
+  public OwncloudRestDirectoryReplica owncloudRestDirectoryReplica() {
+    return new OwncloudRestDirectoryReplica(ocsRestTemplateBuilder(), owncloudRestProperties, owncloudRestOcsRequestExecutor());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudRestOcsRequestExecutor.class)
+  public OwncloudRestOcsRequestExecutor owncloudRestOcsRequestExecutor() {
+    return new OwncloudRestOcsRequestExecutor(owncloudRestProperties);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(OwncloudRestSessionCookies.class)
+  public OwncloudRestSessionCookies owncloudRestSessionCookies() {
+    return new OwncloudRestSessionCookies(owncloudRestProperties);
   }
 }
@@ -0,0 +1,319 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.Sardine;
+import com.github.sardine.impl.SardineException;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpStatus;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudQuotaExceededException;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceException;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.ChunkedUploadProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * OutputStream which uploads the written Data in Chunks (ownCloud Chunking NG).
+ * <p/>
+ * As long as less than {@link ChunkedUploadProperties#getThreshold()} Bytes have been written
+ * the Data will be buffered and finally uploaded by one single PUT Request.
+ * The Threshold will be checked on every Write. Above the Threshold an Upload Collection will be created
+ * (<code>MKCOL remote.php/dav/uploads/{user}/{transferId}</code>) and every Chunk will be uploaded as a separate File
+ * of this Collection (up to {@link ChunkedUploadProperties#getParallelism()} Chunks in parallel by the shared Executor
+ * of the Background Workers). Failed Chunks will be retried. After the last Chunk has been uploaded the File will be assembled
+ * by a final <code>MOVE</code> of the Upload Collection to the Destination.
+ * <p/>
+ * A Chunk which hasn't been started by the Executor (all Workers busy or the Chunk has been rejected)
+ * will be uploaded by the writing Thread itself. So the Upload never waits for a queued Chunk.
+ * The parallel Chunks share the Sardine Implementation of the User. Therefore the Sardine Implementation
+ * must execute every Request with its own Context (see {@link OwncloudRestSardine}).
+ * <p/>
+ * The Upload is not resumable: when the Upload fails the Upload Collection will be removed
+ * and the File must be written again from the Beginning.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+class OwncloudRestChunkedUploadOutputStream extends OutputStream {
+
+  private static final String ASSEMBLED_FILE = ".file";
+  private static final String SLASH = "/";
+
+  private final Sardine sardine;
+  private final URI uri;
+  private final String username;
+  private final URI uploadUri;
+  private final URI destinationUri;
+  private final ChunkedUploadProperties properties;
+  private final Supplier<OutputStream> singleUploadSupplier;
+  private final Optional<Consumer<URI>> afterCloseCallback;
+  private final Executor executor;
+
+  private final List<byte[]> bufferedChunks = new ArrayList<>();
+  private final Deque<FutureTask<Void>> uploadingChunks = new ArrayDeque<>();
+  private ByteArrayOutputStream currentChunk;
+  private long bufferedBytes = 0;
+  private int chunkNumber = 0;
+  private boolean chunkedUploadStarted = false;
+  private boolean closed = false;
+
+  @Builder
+  private OwncloudRestChunkedUploadOutputStream(
+      final Sardine sardine,
+      final URI uri,
+      final String username,
+      final URI uploadUri,
+      final URI destinationUri,
+      final ChunkedUploadProperties properties,
+      final Supplier<OutputStream> singleUploadSupplier,
+      final Consumer<URI> afterCloseCallback,
+      final Executor executor) {
+    this.sardine = sardine;
+    this.uri = uri;
+    this.username = username;
+    this.uploadUri = uploadUri;
+    this.destinationUri = destinationUri;
+    this.properties = properties;
+    this.singleUploadSupplier = singleUploadSupplier;
+    this.afterCloseCallback = Optional.ofNullable(afterCloseCallback);
+    this.executor = Optional.ofNullable(executor).orElse(Runnable::run);
+    this.currentChunk = new ByteArrayOutputStream(Math.min(properties.getChunkSize(), 8192));
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(byte[] data, int offset, int length) throws IOException {
+    checkNotClosed();
+    try {
+      while (length > 0) {
+        int writable = Math.min(length, properties.getChunkSize() - currentChunk.size());
+        currentChunk.write(data, offset, writable);
+        offset += writable;
+        length -= writable;
+        if (currentChunk.size() == properties.getChunkSize()) {
+          completeCurrentChunk();
+        }
+      }
+      if (!chunkedUploadStarted && bufferedBytes + currentChunk.size() > properties.getThreshold()) {
+        startChunkedUpload();
+      }
+    } catch (RuntimeException e) {
+      closed = true;
+      try {
+        if (chunkedUploadStarted) {
+          abortChunkedUpload();
+        }
+      } finally {
+        afterCloseCallback.ifPresent(callback -> callback.accept(uri));
+      }
+      throw e;
+    }
+  }
+
+  private void checkNotClosed() throws IOException {
+    if (closed) {
+      throw new IOException("OutputStream has already been closed");
+    }
+  }
+
+  private void completeCurrentChunk() {
+    byte[] chunk = currentChunk.toByteArray();
+    currentChunk = new ByteArrayOutputStream(Math.min(properties.getChunkSize(), 8192));
+    if (chunkedUploadStarted) {
+      uploadChunk(chunk);
+      return;
+    }
+    bufferedChunks.add(chunk);
+    bufferedBytes += chunk.length;
+  }
+
+  private void startChunkedUpload() {
+    log.debug("More than {} Bytes have been written to {}. Upload the File in Chunks by Upload Collection {}", properties.getThreshold(), uri, uploadUri);
+    try {
+      sardine.createDirectory(uploadUri.toString());
+    } catch (IOException e) {
+      throw mapException(e);
+    }
+    chunkedUploadStarted = true;
+    bufferedChunks.forEach(this::uploadChunk);
+    bufferedChunks.clear();
+  }
+
+  private void uploadChunk(byte[] chunk) {
+    checkFailedChunks();
+    while (uploadingChunks.size() >= properties.getParallelism()) {
+      waitFor(uploadingChunks.poll());
+    }
+    String chunkUri = uploadUri + SLASH + String.format("%05d", ++chunkNumber);
+    FutureTask<Void> uploadingChunk = new FutureTask<>(() -> {
+      uploadChunkWithRetries(chunkUri, chunk);
+      return null;
+    });
+    uploadingChunks.add(uploadingChunk);
+    try {
+      executor.execute(uploadingChunk);
+    } catch (RejectedExecutionException e) {
+      log.debug("Upload of Chunk {} has been rejected by the Executor. Upload it by the writing Thread", chunkUri);
+      uploadingChunk.run();
+    }
+  }
+
+  private void checkFailedChunks() {
+    while (!uploadingChunks.isEmpty() && uploadingChunks.peek().isDone()) {
+      waitFor(uploadingChunks.poll());
+    }
+  }
+
+  private void uploadChunkWithRetries(String chunkUri, byte[] chunk) throws IOException, InterruptedException {
+    int retry = 0;
+    while (true) {
+      try {
+        log.debug("Upload Chunk {} ({} Bytes)", chunkUri, chunk.length);
+        sardine.put(chunkUri, chunk);
+        return;
+      } catch (IOException e) {
+        if (retry >= properties.getMaximumRetries() || !isRetryable(e)) {
+          throw e;
+        }
+        retry++;
+        log.warn("Upload of Chunk {} failed. Retry {} of {}", chunkUri, retry, properties.getMaximumRetries(), e);
+        properties.getRetryDelayTimeUnit().sleep(properties.getRetryDelay());
+      }
+    }
+  }
+
+  private boolean isRetryable(IOException exception) {
+    if (!(exception instanceof SardineException)) {
+      return true;
+    }
+    int statusCode = ((SardineException) exception).getStatusCode();
+    return statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR && statusCode != HttpStatus.SC_INSUFFICIENT_STORAGE;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      log.warn("OutputStream has already been marked as closed");
+      return;
+    }
+    closed = true;
+    try {
+      if (chunkedUploadStarted) {
+        finishChunkedUpload();
+      } else {
+        uploadAtOnce();
+      }
+    } finally {
+      afterCloseCallback.ifPresent(callback -> callback.accept(uri));
+    }
+  }
+
+  private void uploadAtOnce() throws IOException {
+    log.debug("Upload {} by one single Request", uri);
+    try (OutputStream output = singleUploadSupplier.get()) {
+      for (byte[] bufferedChunk : bufferedChunks) {
+        output.write(bufferedChunk);
+      }
+      currentChunk.writeTo(output);
+    }
+  }
+
+  private void finishChunkedUpload() {
+    try {
+      if (currentChunk.size() > 0) {
+        uploadChunk(currentChunk.toByteArray());
+      }
+      while (!uploadingChunks.isEmpty()) {
+        waitFor(uploadingChunks.poll());
+      }
+      String assembledFile = uploadUri + SLASH + ASSEMBLED_FILE;
+      log.debug("Assemble the {} uploaded Chunks of {} by moving {} to {}", chunkNumber, uri, assembledFile, destinationUri);
+      sardine.move(assembledFile, destinationUri.toString(), true);
+    } catch (IOException e) {
+      abortChunkedUpload();
+      throw mapException(e);
+    } catch (RuntimeException e) {
+      abortChunkedUpload();
+      throw e;
+    }
+  }
+
+  /**
+   * Wait for the Upload of the Chunk. A Chunk which is still queued by the Executor
+   * will be uploaded by the calling Thread (the queued Task won't do anything afterwards).
+   */
+  private void waitFor(FutureTask<Void> uploadingChunk) {
+    uploadingChunk.run();
+    try {
+      uploadingChunk.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OwncloudRestResourceException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw mapException((IOException) e.getCause());
+      }
+      throw new OwncloudRestResourceException(e.getCause());
+    }
+  }
+
+  private void abortChunkedUpload() {
+    log.debug("Remove the Upload Collection {} of the aborted chunked Upload of {}", uploadUri, uri);
+    uploadingChunks.forEach(uploadingChunk -> uploadingChunk.cancel(true));
+    uploadingChunks.clear();
+    try {
+      sardine.delete(uploadUri.toString());
+    } catch (IOException e) {
+      log.warn("Error while removing the Upload Collection {}", uploadUri, e);
+    }
+  }
+
+  private OwncloudResourceException mapException(IOException exception) {
+    if (exception instanceof SardineException) {
+      SardineException sardineException = (SardineException) exception;
+      if (sardineException.getStatusCode() == HttpStatus.SC_INSUFFICIENT_STORAGE) {
+        return new OwncloudQuotaExceededException(uri, username);
+      }
+      log.error("Unmapped HTTP-Status {}. Reason-Phrase: {}", sardineException.getStatusCode(), sardineException.getResponsePhrase());
+      return new OwncloudRestResourceException("Unmapped returned HTTP-Status " + sardineException.getStatusCode(), sardineException);
+    }
+    return new OwncloudRestResourceException(exception);
+  }
+}
@@ -0,0 +1,182 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.Sardine;
+import com.github.sardine.Version;
+import com.github.sardine.impl.SardineImpl;
+import com.github.sardine.impl.SardineRedirectStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.DisposableBean;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.ConnectionPoolProperties;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Optional;
+
+/**
+ * Connection Pool shared by all Users for all WebDAV Operations of the REST Resource Service.
+ * <p/>
+ * Both, the <code>RestTemplate</code> (GET, PUT, DELETE) and the Sardine Implementations
+ * of all Users (PROPFIND, MKCOL, MOVE, ...), lease their Connections from the same
+ * {@link PoolingHttpClientConnectionManager}. The Credentials will be supplied per Request
+ * (RestTemplate: <code>Authorization</code> Header, Sardine: Credentials of the per-User Context).
+ * Therefore the Number of Sockets depends on the Number of parallel Requests and not on the Number of Users.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudRestConnectionPool implements DisposableBean {
+
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final CloseableHttpClient restHttpClient;
+  private final CloseableHttpClient sardineHttpClient;
+  private final HttpClientBuilder sardineHttpClientBuilder;
+  private final Optional<URL> preemptiveAuthenticationLocation;
+
+  public OwncloudRestConnectionPool(OwncloudRestProperties properties) {
+    this(properties, new OwncloudRestSessionCookies(properties));
+  }
+
+  public OwncloudRestConnectionPool(OwncloudRestProperties properties, OwncloudRestSessionCookies sessionCookies) {
+    ConnectionPoolProperties connectionPoolProperties = properties.getResourceService().getConnectionPool();
+    int maximumConnectionsPerRoute = Math.max(
+        connectionPoolProperties.getMaximumConnectionsPerRoute(),
+        properties.getResourceService().getBatchTransferParallelism());
+    int maximumConnections = Math.max(connectionPoolProperties.getMaximumConnections(), maximumConnectionsPerRoute);
+    log.debug("Allow {} parallel Connections to the Owncloud Instance ({} Connections at all)", maximumConnectionsPerRoute, maximumConnections);
+    connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setDefaultMaxPerRoute(maximumConnectionsPerRoute);
+    connectionManager.setMaxTotal(maximumConnections);
+
+    restHttpClient = sessionCookies.configure(HttpClientBuilder.create().disableCookieManagement())
+                                      .useSystemProperties()
+                                      .setConnectionManager(connectionManager)
+                                      .setConnectionManagerShared(true)
+                                      .build();
+    sardineHttpClient = sessionCookies.configure(HttpClientBuilder.create().disableCookieManagement())
+                                         .useSystemProperties()
+                                         .setUserAgent("Sardine/" + Version.getSpecification())
+                                         .setRedirectStrategy(new SardineRedirectStrategy())
+                                         .setDefaultRequestConfig(RequestConfig.custom()
+                                                                               .setExpectContinueEnabled(true)
+                                                                               .build())
+                                         .setConnectionManager(connectionManager)
+                                         .setConnectionManagerShared(true)
+                                         .build();
+    sardineHttpClientBuilder = new SharedHttpClientBuilder(sardineHttpClient);
+    preemptiveAuthenticationLocation = getPreemptiveAuthenticationLocation(properties);
+  }
+
+  private static Optional<URL> getPreemptiveAuthenticationLocation(OwncloudRestProperties properties) {
+    if (!properties.getResourceService().isPreemptiveAuthentication() || StringUtils.isBlank(properties.getLocation())) {
+      return Optional.empty();
+    }
+    try {
+      URL location = OwncloudRestUtils.checkAndConvertLocation(properties.getLocation());
+      log.debug("Use preemptive Basic Authentication for all WebDAV Requests to {}", location.getHost());
+      return Optional.of(location);
+    } catch (MalformedURLException e) {
+      throw new IllegalArgumentException("Invalid Location " + properties.getLocation(), e);
+    }
+  }
+
+  /**
+   * HttpClient for the <code>RestTemplate</code> of the REST Resource Service
+   * @return shared HttpClient
+   */
+  public CloseableHttpClient getRestHttpClient() {
+    return restHttpClient;
+  }
+
+  /**
+   * Create a lightweight Sardine Implementation for the given User.
+   * <p/>
+   * The Sardine Implementation holds only the Credentials of the User. All Requests will be
+   * executed by the shared HttpClient. Closing the Sardine Implementation won't close the Connection Pool.
+   * Unless disabled the Credentials will be sent preemptively to the Host of <code>owncloud.location</code>.
+   * @param username Name of the User
+   * @param password Password of the User
+   * @return Sardine Implementation of the User
+   */
+  public Sardine createSardine(String username, String password) {
+    SardineImpl sardine = new OwncloudRestSardine(sardineHttpClientBuilder, username, password);
+    preemptiveAuthenticationLocation.ifPresent(sardine::enablePreemptiveAuthentication);
+    return sardine;
+  }
+
+  /** Number of Connections currently leased by a Request */
+  public int getLeasedConnections() {
+    return getTotalStats().getLeased();
+  }
+
+  /** Number of idle Connections ready to be reused */
+  public int getAvailableConnections() {
+    return getTotalStats().getAvailable();
+  }
+
+  /** Number of Requests waiting for a free Connection */
+  public int getPendingConnections() {
+    return getTotalStats().getPending();
+  }
+
+  private PoolStats getTotalStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    log.debug("Shutdown the Connection Pool of the REST Resource Service");
+    try {
+      restHttpClient.close();
+      sardineHttpClient.close();
+    } finally {
+      connectionManager.shutdown();
+    }
+  }
+
+  /**
+   * {@link SardineImpl} always builds its own HttpClient by the given {@link HttpClientBuilder}.
+   * This Builder hands out the shared HttpClient instead. Configuration Changes by the
+   * Sardine Implementation (i.E. <code>enableCompression()</code>) won't have any Effect.
+   */
+  private static class SharedHttpClientBuilder extends HttpClientBuilder {
+    private final CloseableHttpClient httpClient;
+
+    private SharedHttpClientBuilder(CloseableHttpClient httpClient) {
+      this.httpClient = httpClient;
+    }
+
+    @Override
+    public CloseableHttpClient build() {
+      return httpClient;
+    }
+  }
+}
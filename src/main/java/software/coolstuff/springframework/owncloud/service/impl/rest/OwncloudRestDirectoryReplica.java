@@ -0,0 +1,469 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.DirectoryReplicaProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local Replica of all Users, their Details and their Group Memberships.
+ * <p/>
+ * The Replica will be loaded by the configured Administrator (at Startup or by the first Refresh)
+ * and refreshed periodically in the Background. A Refresh reloads the Users, the Groups and the Members of every
+ * Group but only the Details of new Users. Every <code>owncloud.directory-replica.full-refresh-every</code>-th
+ * Refresh reloads the Details of all Users. So Changes of the Details of existing Users (i.e. a disabled User)
+ * will be visible by the Replica not later than <code>refresh-interval * full-refresh-every</code>.
+ * A failed Refresh keeps the current Replica.
+ * <p/>
+ * As long as the Replica has been loaded the User Service and the Group Service answer all Read Operations
+ * from the Replica. The Access Rules of the Owncloud Server will be applied by the Group Memberships of the Replica:
+ * Members of the Group <code>admin</code> may read everything, all other Users only their own Details and Groups.
+ * Sub-Admins will not be recognized by the Replica (the administrated Groups are not part of the Replica),
+ * so they can't read the Users and Groups they administrate as long as the Replica has been loaded.
+ * Modifications will be sent to the Owncloud Server and applied to the Replica afterwards. Modifications during a
+ * running Refresh will be applied to the refreshed Replica too.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudRestDirectoryReplica extends AbstractOwncloudRestServiceImpl implements DisposableBean {
+
+  private static final String ADMIN_GROUP = "admin";
+  private static final String THREAD_NAME_FORMAT = "owncloud-directory-replica-%d";
+
+  private final DirectoryReplicaProperties properties;
+  private final OwncloudRestOcsRequestExecutor ocsRequestExecutor;
+  private final int bulkUserDetailsParallelism;
+
+  private final Object lock = new Object();
+  /** Modifications since the Begin of the running Refresh (guarded by {@link #lock}) */
+  private final List<Consumer<Snapshot>> pendingModifications = new ArrayList<>();
+  /** guarded by {@link #lock} */
+  private boolean refreshInProgress;
+  /** Delta Refreshes since the last full Refresh (guarded by the Monitor of the Replica ({@link #refresh()})) */
+  private long deltaRefreshes;
+  private volatile Snapshot snapshot;
+  private ScheduledExecutorService scheduler;
+
+  public OwncloudRestDirectoryReplica(RestTemplateBuilder builder, OwncloudRestProperties properties, OwncloudRestOcsRequestExecutor ocsRequestExecutor) {
+    super(builder, properties);
+    this.properties = properties.getDirectoryReplica();
+    this.ocsRequestExecutor = ocsRequestExecutor;
+    this.bulkUserDetailsParallelism = properties.getParallelOcsRequests().getBulkUserDetailsParallelism();
+  }
+
+  @Override
+  public void afterPropertiesSet() throws Exception {
+    super.afterPropertiesSet();
+    if (!properties.isEnabled()) {
+      return;
+    }
+    Validate.notBlank(properties.getUsername(), "owncloud.directory-replica.username must be set when the Replica has been enabled");
+    Validate.notNull(properties.getPassword(), "owncloud.directory-replica.password must be set when the Replica has been enabled");
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat(THREAD_NAME_FORMAT)
+                                  .setDaemon(true)
+                                  .build());
+    if (properties.isLoadOnStartup()) {
+      refreshQuietly();
+    }
+    log.info("Refresh the Replica of Location {} every {} {}", getLocation(), properties.getRefreshInterval(), properties.getRefreshIntervalTimeUnit());
+    scheduler.scheduleWithFixedDelay(this::refreshQuietly, properties.getRefreshInterval(), properties.getRefreshInterval(), properties.getRefreshIntervalTimeUnit());
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (RuntimeException e) {
+      log.error("Error while refreshing the Replica of Location {}. The current Replica will be kept", getLocation(), e);
+    }
+  }
+
+  /**
+   * Refresh the Replica immediately.
+   * @throws IllegalStateException the Replica has not been enabled
+   * @throws RuntimeException Error while loading the Replica (the current Replica will be kept)
+   */
+  public synchronized void refresh() {
+    Validate.validState(properties.isEnabled(), "The Replica has not been enabled (owncloud.directory-replica.enabled)");
+    Snapshot currentSnapshot = snapshot;
+    boolean fullRefresh = currentSnapshot == null || deltaRefreshes + 1 >= properties.getFullRefreshEvery();
+    synchronized (lock) {
+      pendingModifications.clear();
+      refreshInProgress = true;
+    }
+    try {
+      log.debug("{} Refresh of the Replica of Location {}", fullRefresh ? "Full" : "Delta", getLocation());
+      Snapshot loadedSnapshot = load(fullRefresh ? null : currentSnapshot);
+      synchronized (lock) {
+        pendingModifications.forEach(modification -> modification.accept(loadedSnapshot));
+        snapshot = loadedSnapshot;
+      }
+      deltaRefreshes = fullRefresh ? 0 : deltaRefreshes + 1;
+      log.info("Replica of Location {} has been refreshed ({} Users, {} Groups)", getLocation(), loadedSnapshot.users.size(), loadedSnapshot.membersOfGroup.size());
+    } finally {
+      synchronized (lock) {
+        refreshInProgress = false;
+        pendingModifications.clear();
+      }
+    }
+  }
+
+  private Snapshot load(Snapshot previousSnapshot) {
+    HttpEntity<String> entity = emptyEntity(properties.getUsername(), properties.getPassword());
+    Snapshot loadedSnapshot = new Snapshot();
+
+    List<String> groups = exchangeGroups("/cloud/groups", HttpMethod.GET, entity);
+    try (Stream<Optional<GroupMembers>> members = ocsRequestExecutor.submitOrdered(groups, groupname -> loadMembers(groupname, entity), bulkUserDetailsParallelism)) {
+      members.filter(Optional::isPresent)
+             .map(Optional::get)
+             .forEach(groupMembers -> loadedSnapshot.putGroup(groupMembers.groupname, groupMembers.members));
+    }
+
+    List<String> users = exchangeUsers("/cloud/users", HttpMethod.GET, entity);
+    List<String> newUsers = new ArrayList<>();
+    for (String username : users) {
+      OwncloudUserDetails existingUser = previousSnapshot != null ? previousSnapshot.users.get(username) : null;
+      if (existingUser != null) {
+        loadedSnapshot.users.put(username, existingUser);
+      } else {
+        newUsers.add(username);
+      }
+    }
+    log.debug("Load the Details of {} Users from Location {}", newUsers.size(), getLocation());
+    try (Stream<Optional<OwncloudUserDetails>> details = ocsRequestExecutor.submitOrdered(newUsers, username -> loadUser(username, entity), bulkUserDetailsParallelism)) {
+      details.filter(Optional::isPresent)
+             .map(Optional::get)
+             .forEach(user -> loadedSnapshot.users.put(user.getUsername(), user));
+    }
+    // Group Members without Details have been removed in the Meantime
+    loadedSnapshot.groupsOfUser.keySet().retainAll(loadedSnapshot.users.keySet());
+    loadedSnapshot.membersOfGroup.values().forEach(members -> members.retainAll(loadedSnapshot.users.keySet()));
+    return loadedSnapshot;
+  }
+
+  private Optional<GroupMembers> loadMembers(String groupname, HttpEntity<String> entity) {
+    try {
+      return Optional.of(new GroupMembers(groupname, exchangeUsers("/cloud/groups/{group}", HttpMethod.GET, entity, groupname)));
+    } catch (UsernameNotFoundException e) {
+      log.debug("Group {} has been removed while loading the Replica", groupname);
+      return Optional.empty();
+    }
+  }
+
+  private Optional<OwncloudUserDetails> loadUser(String username, HttpEntity<String> entity) {
+    try {
+      Ocs.User user = exchange("/cloud/users/{user}", HttpMethod.GET, entity, Ocs.User.class, username);
+      return Optional.of(convert(username, user, null));
+    } catch (UsernameNotFoundException e) {
+      log.debug("User {} has been removed while loading the Replica", username);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Discard the Replica. All Read Operations will be delegated to the Owncloud Server until the next Refresh.
+   */
+  public void invalidate() {
+    synchronized (lock) {
+      log.debug("Discard the Replica of Location {}", getLocation());
+      snapshot = null;
+      pendingModifications.clear();
+    }
+  }
+
+  /**
+   * Has the Replica been loaded (and will be used by the User Service and the Group Service)
+   * @return <code>true</code> if the Replica has been loaded
+   */
+  public boolean isLoaded() {
+    return snapshot != null;
+  }
+
+  /**
+   * Number of Users within the Replica
+   * @return Number of Users (<code>0</code> if the Replica has not been loaded)
+   */
+  public int getNumberOfUsers() {
+    Snapshot currentSnapshot = snapshot;
+    return currentSnapshot != null ? currentSnapshot.users.size() : 0;
+  }
+
+  /**
+   * Number of Groups within the Replica
+   * @return Number of Groups (<code>0</code> if the Replica has not been loaded)
+   */
+  public int getNumberOfGroups() {
+    Snapshot currentSnapshot = snapshot;
+    return currentSnapshot != null ? currentSnapshot.membersOfGroup.size() : 0;
+  }
+
+  Optional<OwncloudUserDetails> findUser(String username, Authentication authentication) {
+    Snapshot currentSnapshot = snapshot;
+    checkOwnerOrAdministrator(currentSnapshot, authentication, username);
+    return Optional.ofNullable(currentSnapshot.users.get(username))
+                   .map(user -> currentSnapshot.withGroups(user));
+  }
+
+  /**
+   * Like the Owncloud Server the Filter Criterion will be matched against the Name, the Display Name
+   * and the eMail of the User (ignoring the Case)
+   */
+  List<String> findUsers(String filter, Authentication authentication) {
+    Snapshot currentSnapshot = snapshot;
+    checkAdministrator(currentSnapshot, authentication, "/cloud/users");
+    return currentSnapshot.users.values().stream()
+                                .filter(user -> StringUtils.isBlank(filter)
+                                    || StringUtils.containsIgnoreCase(user.getUsername(), filter)
+                                    || StringUtils.containsIgnoreCase(user.getDisplayname(), filter)
+                                    || StringUtils.containsIgnoreCase(user.getEmail(), filter))
+                                .map(OwncloudUserDetails::getUsername)
+                                .collect(Collectors.toList());
+  }
+
+  List<String> findGroups(String filter, Authentication authentication) {
+    Snapshot currentSnapshot = snapshot;
+    checkAdministrator(currentSnapshot, authentication, "/cloud/groups");
+    Predicate<String> matchesFilter = groupname -> StringUtils.isBlank(filter) || StringUtils.containsIgnoreCase(groupname, filter);
+    return currentSnapshot.membersOfGroup.keySet().stream()
+                                         .filter(matchesFilter)
+                                         .collect(Collectors.toList());
+  }
+
+  List<String> findMembersOfGroup(String groupname, Authentication authentication) {
+    Snapshot currentSnapshot = snapshot;
+    checkAdministrator(currentSnapshot, authentication, "/cloud/groups/" + groupname);
+    Set<String> members = currentSnapshot.membersOfGroup.get(groupname);
+    if (members == null) {
+      throw new OwncloudGroupNotFoundException(groupname);
+    }
+    return new ArrayList<>(members);
+  }
+
+  List<String> findGroupsOfUser(String username, Authentication authentication) {
+    Snapshot currentSnapshot = snapshot;
+    checkOwnerOrAdministrator(currentSnapshot, authentication, username);
+    if (!currentSnapshot.users.containsKey(username)) {
+      throw new UsernameNotFoundException(username);
+    }
+    return new ArrayList<>(currentSnapshot.getGroupsOfUser(username));
+  }
+
+  private void checkOwnerOrAdministrator(Snapshot currentSnapshot, Authentication authentication, String username) {
+    if (StringUtils.equals(authentication.getName(), username)) {
+      return;
+    }
+    checkAdministrator(currentSnapshot, authentication, "/cloud/users/" + username);
+  }
+
+  private void checkAdministrator(Snapshot currentSnapshot, Authentication authentication, String uri) {
+    if (currentSnapshot.getGroupsOfUser(authentication.getName()).contains(ADMIN_GROUP)) {
+      return;
+    }
+    String exceptionMessage = String.format("User %s is not authorized to access Resource %s", authentication.getName(), uri);
+    log.warn("Error 997: {}", exceptionMessage);
+    throw new AccessDeniedException(exceptionMessage);
+  }
+
+  /**
+   * Apply a saved User (with its Group Memberships) to the Replica
+   * @param user saved User
+   */
+  void putUser(OwncloudUserDetails user) {
+    modify(currentSnapshot -> currentSnapshot.putUser(user));
+  }
+
+  /**
+   * Apply a removed User to the Replica
+   * @param username Name of the removed User
+   */
+  void removeUser(String username) {
+    modify(currentSnapshot -> currentSnapshot.removeUser(username));
+  }
+
+  /**
+   * Reload the User (i.e. after a failed Modification) in the Background
+   * @param username Name of the User
+   */
+  void reloadUser(String username) {
+    if (snapshot == null) {
+      return;
+    }
+    scheduler.execute(() -> {
+      try {
+        HttpEntity<String> entity = emptyEntity(properties.getUsername(), properties.getPassword());
+        Optional<OwncloudUserDetails> user = loadUser(username, entity);
+        if (!user.isPresent()) {
+          removeUser(username);
+          return;
+        }
+        List<String> groups = exchangeGroups("/cloud/users/{user}/groups", HttpMethod.GET, entity, username);
+        OwncloudUserDetails reloadedUser = user.get();
+        reloadedUser.setAuthorities(groups.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList()));
+        putUser(reloadedUser);
+      } catch (RuntimeException e) {
+        log.error("Error while reloading User {} into the Replica of Location {}", username, getLocation(), e);
+      }
+    });
+  }
+
+  /**
+   * Apply a created Group to the Replica
+   * @param groupname Name of the created Group
+   */
+  void addGroup(String groupname) {
+    modify(currentSnapshot -> currentSnapshot.putGroup(groupname, Collections.emptyList()));
+  }
+
+  /**
+   * Apply a removed Group to the Replica
+   * @param groupname Name of the removed Group
+   */
+  void removeGroup(String groupname) {
+    modify(currentSnapshot -> currentSnapshot.removeGroup(groupname));
+  }
+
+  private void modify(Consumer<Snapshot> modification) {
+    synchronized (lock) {
+      if (snapshot != null) {
+        modification.accept(snapshot);
+      }
+      if (refreshInProgress) {
+        pendingModifications.add(modification);
+      }
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static class GroupMembers {
+    private final String groupname;
+    private final List<String> members;
+  }
+
+  /**
+   * Users and Groups of the Replica. The Details of the Users will be held without their Authorities
+   * because the Group Memberships are held by the Snapshot itself.
+   */
+  private static class Snapshot {
+    private final Map<String, OwncloudUserDetails> users = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> membersOfGroup = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> groupsOfUser = new ConcurrentHashMap<>();
+
+    private Set<String> getGroupsOfUser(String username) {
+      return groupsOfUser.getOrDefault(username, Collections.emptySet());
+    }
+
+    private OwncloudUserDetails withGroups(OwncloudUserDetails user) {
+      OwncloudUserDetails copy = OwncloudRestUtils.copyWithoutPassword(user);
+      List<GrantedAuthority> authorities = getGroupsOfUser(user.getUsername()).stream()
+                                                                               .map(SimpleGrantedAuthority::new)
+                                                                               .collect(Collectors.toList());
+      copy.setAuthorities(authorities);
+      return copy;
+    }
+
+    private void putGroup(String groupname, Collection<String> members) {
+      membersOfGroup.computeIfAbsent(groupname, ignored -> new ConcurrentSkipListSet<>()).addAll(members);
+      members.forEach(username -> groupsOfUser.computeIfAbsent(username, ignored -> new ConcurrentSkipListSet<>()).add(groupname));
+    }
+
+    private void removeGroup(String groupname) {
+      Set<String> members = membersOfGroup.remove(groupname);
+      if (members != null) {
+        members.forEach(username -> getGroupsOfUser(username).remove(groupname));
+      }
+    }
+
+    private void putUser(OwncloudUserDetails user) {
+      String username = user.getUsername();
+      OwncloudUserDetails copy = OwncloudRestUtils.copyWithoutPassword(user);
+      copy.setAuthorities(null);
+      users.put(username, copy);
+
+      Set<String> groups = CollectionUtils.emptyIfNull(user.getAuthorities()).stream()
+                                          .map(GrantedAuthority::getAuthority)
+                                          .collect(Collectors.toSet());
+      Set<String> previousGroups = groupsOfUser.put(username, new ConcurrentSkipListSet<>(groups));
+      if (previousGroups != null) {
+        previousGroups.stream()
+                      .filter(groupname -> !groups.contains(groupname))
+                      .map(membersOfGroup::get)
+                      .filter(Objects::nonNull)
+                      .forEach(members -> members.remove(username));
+      }
+      groups.forEach(groupname -> membersOfGroup.computeIfAbsent(groupname, ignored -> new ConcurrentSkipListSet<>()).add(username));
+    }
+
+    private void removeUser(String username) {
+      users.remove(username);
+      Set<String> groups = groupsOfUser.remove(username);
+      if (groups != null) {
+        groups.stream()
+              .map(membersOfGroup::get)
+              .filter(Objects::nonNull)
+              .forEach(members -> members.remove(username));
+      }
+    }
+  }
+}
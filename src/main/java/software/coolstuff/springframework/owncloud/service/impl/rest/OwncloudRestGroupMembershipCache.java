@@ -0,0 +1,260 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.security.core.Authentication;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.GroupMembershipCacheProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the Results of the Group Membership Queries of the REST Group Service.
+ * <p/>
+ * This is a per-Query Cache and not an Index of the Group Memberships: it consists of three independent Caches
+ * for the Names of all Groups, the Members of a Group and the Groups of a User. Every Entry holds the Result
+ * of exactly one OCS Request. Loading the Members of a Group doesn&apos;t update the cached Groups of these Users
+ * (and vice versa), so both Directions may be loaded at different Times and be inconsistent until their next Refresh.
+ * <p/>
+ * Every Entry will be loaded lazily on its first Access and reloaded on the first Access after the
+ * configured Refresh Interval. Like the {@link OwncloudRestUserCache} an Entry will only be returned to an
+ * authenticated User who already got the same Information from the Owncloud Server.
+ * <p/>
+ * Creating or deleting a Group and saving or deleting a User removes all affected Entries
+ * of all three Caches. If the Cache has been disabled every Request will be delegated to the Owncloud Server.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudRestGroupMembershipCache {
+
+  private static final String ALL_GROUPS = "";
+
+  /** estimated Size of a String Object (Object Header, Fields and Header of the Character Array) */
+  private static final long STRING_OVERHEAD = 40;
+  /** estimated Size of an Entry (Map Entry, Entry Object, List and Set of authorized Users) */
+  private static final long ENTRY_OVERHEAD = 160;
+  /** estimated Size of a Reference within a List or a Set */
+  private static final long REFERENCE_OVERHEAD = 32;
+
+  private final boolean enabled;
+  private final Cache<String, CachedNames> groups;
+  private final Cache<String, CachedNames> membersOfGroup;
+  private final Cache<String, CachedNames> groupsOfUser;
+  private final StatsCounter statsCounter = new SimpleStatsCounter();
+  private final AtomicLong generation = new AtomicLong();
+
+  public OwncloudRestGroupMembershipCache(OwncloudRestProperties properties) {
+    GroupMembershipCacheProperties groupMembershipCacheProperties = properties.getGroupMembershipCache();
+    enabled = groupMembershipCacheProperties.isEnabled();
+    groups = buildCache(groupMembershipCacheProperties, 1);
+    membersOfGroup = buildCache(groupMembershipCacheProperties, groupMembershipCacheProperties.getMaximumSize());
+    groupsOfUser = buildCache(groupMembershipCacheProperties, groupMembershipCacheProperties.getMaximumSize());
+  }
+
+  private Cache<String, CachedNames> buildCache(GroupMembershipCacheProperties groupMembershipCacheProperties, long maximumSize) {
+    return CacheBuilder.newBuilder()
+                       .<String, CachedNames>removalListener(this::onRemoval)
+                       .expireAfterWrite(groupMembershipCacheProperties.getRefreshInterval(), groupMembershipCacheProperties.getRefreshIntervalTimeUnit())
+                       .maximumSize(maximumSize)
+                       .build();
+  }
+
+  private void onRemoval(RemovalNotification<String, CachedNames> notification) {
+    if (notification.wasEvicted()) {
+      statsCounter.recordEviction();
+    }
+  }
+
+  /**
+   * Get the Names of all Groups from the Cache or load them from the Owncloud Server
+   * @param authentication authenticated User
+   * @param loader Request to the Owncloud Server
+   * @return Names of all Groups
+   */
+  List<String> getGroups(Authentication authentication, Supplier<List<String>> loader) {
+    return get(groups, ALL_GROUPS, "all Groups", authentication, loader);
+  }
+
+  /**
+   * Get the Members of the Group from the Cache or load them from the Owncloud Server
+   * @param groupname Name of the Group
+   * @param authentication authenticated User
+   * @param loader Request to the Owncloud Server
+   * @return Names of the Members of the Group
+   */
+  List<String> getMembersOfGroup(String groupname, Authentication authentication, Supplier<List<String>> loader) {
+    return get(membersOfGroup, groupname, "Members of Group " + groupname, authentication, loader);
+  }
+
+  /**
+   * Get the Groups of the User from the Cache or load them from the Owncloud Server
+   * @param username Name of the User
+   * @param authentication authenticated User
+   * @param loader Request to the Owncloud Server
+   * @return Names of the Groups of the User
+   */
+  List<String> getGroupsOfUser(String username, Authentication authentication, Supplier<List<String>> loader) {
+    return get(groupsOfUser, username, "Groups of User " + username, authentication, loader);
+  }
+
+  private List<String> get(Cache<String, CachedNames> cache, String key, String description, Authentication authentication, Supplier<List<String>> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+
+    CachedNames cachedNames = cache.getIfPresent(key);
+    if (cachedNames != null && cachedNames.authorizedUsers.contains(authentication.getName())) {
+      log.debug("Found the {} within the Cache", description);
+      statsCounter.recordHits(1);
+      return new ArrayList<>(cachedNames.names);
+    }
+    statsCounter.recordMisses(1);
+
+    long generationBeforeLoad = generation.get();
+    List<String> names = loader.get();
+    if (generationBeforeLoad == generation.get()) {
+      if (cachedNames != null && cachedNames.names.equals(names)) {
+        log.debug("Authorize User {} to get the cached {}", authentication.getName(), description);
+        cachedNames.authorizedUsers.add(authentication.getName());
+      } else {
+        log.debug("Put the {} read by User {} into the Cache", description, authentication.getName());
+        CachedNames loadedNames = new CachedNames(ImmutableList.copyOf(names));
+        loadedNames.authorizedUsers.add(authentication.getName());
+        cache.put(key, loadedNames);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Remove the Names of all Groups from the Cache (i.e. after a Group has been created)
+   */
+  public void invalidateGroups() {
+    log.debug("Remove the Names of all Groups from the Cache");
+    generation.incrementAndGet();
+    groups.invalidateAll();
+  }
+
+  /**
+   * Remove the Group from the Cache (i.e. after the Group has been removed).
+   * The Groups of all Users being Member of this Group will be removed too.
+   * @param groupname Name of the Group
+   */
+  public void invalidateGroup(String groupname) {
+    log.debug("Remove the Group {} and the Groups of its Members from the Cache", groupname);
+    generation.incrementAndGet();
+    groups.invalidateAll();
+    membersOfGroup.invalidate(groupname);
+    groupsOfUser.asMap().values().removeIf(cachedNames -> cachedNames.names.contains(groupname));
+  }
+
+  /**
+   * Remove the User from the Cache (i.e. after the User has been changed or removed).
+   * The Members of all Groups the User has been or will be assigned to will be removed too.
+   * @param username Name of the User
+   * @param groups new Groups of the User (<code>null</code> if the User has been removed)
+   */
+  public void invalidateUser(String username, Collection<String> groups) {
+    log.debug("Remove the User {} and the Members of its Groups from the Cache", username);
+    generation.incrementAndGet();
+    groupsOfUser.invalidate(username);
+    membersOfGroup.asMap().entrySet().removeIf(entry -> isAffectedGroup(entry, username, groups));
+  }
+
+  private boolean isAffectedGroup(Map.Entry<String, CachedNames> entry, String username, Collection<String> groups) {
+    return entry.getValue().names.contains(username) || CollectionUtils.emptyIfNull(groups).contains(entry.getKey());
+  }
+
+  /**
+   * Remove all Entries from the Cache
+   */
+  public void invalidateAll() {
+    log.debug("Remove all Group Memberships from the Cache");
+    generation.incrementAndGet();
+    groups.invalidateAll();
+    membersOfGroup.invalidateAll();
+    groupsOfUser.invalidateAll();
+  }
+
+  /**
+   * Statistics (Hits, Misses and Evictions) of the Cache
+   * @return Statistics of the Cache
+   */
+  public CacheStats getStats() {
+    return statsCounter.snapshot();
+  }
+
+  /**
+   * Estimated Memory (in Bytes) used by the Entries of the Cache.
+   * <p/>
+   * The Estimation is based on the Length of the cached Names and some fixed Overhead per Name and per Entry.
+   * It doesn't include Names shared with other Objects and doesn't depend on the JVM.
+   * @return estimated Memory used by the Cache
+   */
+  public long getEstimatedMemoryUsage() {
+    return getEstimatedMemoryUsage(groups) + getEstimatedMemoryUsage(membersOfGroup) + getEstimatedMemoryUsage(groupsOfUser);
+  }
+
+  private long getEstimatedMemoryUsage(Cache<String, CachedNames> cache) {
+    return cache.asMap().entrySet().stream()
+                .mapToLong(entry -> ENTRY_OVERHEAD + getEstimatedMemoryUsage(entry.getKey()) + entry.getValue().getEstimatedMemoryUsage())
+                .sum();
+  }
+
+  private static long getEstimatedMemoryUsage(String name) {
+    return STRING_OVERHEAD + 2L * name.length();
+  }
+
+  private static long getEstimatedMemoryUsage(Collection<String> names) {
+    return names.stream()
+                .mapToLong(name -> REFERENCE_OVERHEAD + getEstimatedMemoryUsage(name))
+                .sum();
+  }
+
+  @RequiredArgsConstructor
+  private static class CachedNames {
+    private final List<String> names;
+    private final Set<String> authorizedUsers = ConcurrentHashMap.newKeySet();
+
+    long getEstimatedMemoryUsage() {
+      return OwncloudRestGroupMembershipCache.getEstimatedMemoryUsage(names) + OwncloudRestGroupMembershipCache.getEstimatedMemoryUsage(authorizedUsers);
+    }
+  }
+}
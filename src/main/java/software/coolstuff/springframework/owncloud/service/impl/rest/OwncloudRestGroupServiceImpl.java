@@ -30,21 +30,37 @@ import org.springframework.http.HttpMethod;
 import org.springframework.security.access.AccessDeniedException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupAlreadyExistsException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudGroupService;
 import software.coolstuff.springframework.owncloud.service.impl.CheckOwncloudModification;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Slf4j
 public class OwncloudRestGroupServiceImpl extends AbstractOwncloudRestServiceImpl implements OwncloudGroupService {
 
   private static final String GROUP_PATH = "/cloud/groups/{group}";
 
-  OwncloudRestGroupServiceImpl(RestTemplateBuilder builder, OwncloudRestProperties properties) {
+  private final OwncloudRestUserCache userCache;
+  private final OwncloudRestAuthenticationCache authenticationCache;
+  private final OwncloudRestGroupMembershipCache groupMembershipCache;
+  private final OwncloudRestDirectoryReplica directoryReplica;
+
+  OwncloudRestGroupServiceImpl(
+      RestTemplateBuilder builder,
+      OwncloudRestProperties properties,
+      OwncloudRestUserCache userCache,
+      OwncloudRestAuthenticationCache authenticationCache,
+      OwncloudRestGroupMembershipCache groupMembershipCache,
+      OwncloudRestDirectoryReplica directoryReplica) {
     super(builder, properties);
+    this.userCache = userCache;
+    this.authenticationCache = authenticationCache;
+    this.groupMembershipCache = groupMembershipCache;
+    this.directoryReplica = directoryReplica;
   }
 
   @Override
@@ -54,22 +70,61 @@ public class OwncloudRestGroupServiceImpl extends AbstractOwncloudRestServiceImp
 
   @Override
   public List<String> findAll(String filter) {
-    Ocs.Groups ocsGroups = null;
+    if (directoryReplica.isLoaded()) {
+      return directoryReplica.findGroups(filter, getAuthentication());
+    }
+    if (StringUtils.isBlank(filter)) {
+      return groupMembershipCache.getGroups(getAuthentication(), () -> {
+        log.debug("Get all Groups from Location {}", getLocation());
+        return exchangeGroups("/cloud/groups", HttpMethod.GET, emptyEntity());
+      });
+    }
+    log.debug("Get all Groups by Filter Criteria {} from Location {}", filter, getLocation());
+    return exchangeGroups("/cloud/groups?search={filter}", HttpMethod.GET, emptyEntity(), filter);
+  }
+
+  @Override
+  public Stream<String> streamAll(String filter) {
+    if (directoryReplica.isLoaded()) {
+      return directoryReplica.findGroups(filter, getAuthentication()).stream();
+    }
+    if (StringUtils.isBlank(filter)) {
+      log.debug("Stream all Groups from Location {}", getLocation());
+      return streamGroups("/cloud/groups");
+    }
+    log.debug("Stream all Groups by Filter Criteria {} from Location {}", filter, getLocation());
+    return streamGroups("/cloud/groups?search={filter}", filter);
+  }
+
+  @Override
+  public OwncloudPage<String> findAll(String filter, int offset, int limit) {
+    OwncloudRestUtils.validatePageRequest(offset, limit);
+    if (directoryReplica.isLoaded()) {
+      return OwncloudPage.of(directoryReplica.findGroups(filter, getAuthentication()), offset, limit);
+    }
+    List<String> groups = null;
     if (StringUtils.isBlank(filter)) {
-      log.debug("Get all Groups by Filter Criteria {} from Location {}", filter, getLocation());
-      ocsGroups = exchange("/cloud/groups", HttpMethod.GET, emptyEntity(), Ocs.Groups.class);
+      log.debug("Get {} Groups starting at Offset {} from Location {}", limit, offset, getLocation());
+      groups = exchangeGroups("/cloud/groups?limit={limit}&offset={offset}", HttpMethod.GET, emptyEntity(), limit, offset);
     } else {
-      log.debug("Get all Groups from Location {}", getLocation());
-      ocsGroups = exchange("/cloud/groups?search={filter}", HttpMethod.GET, emptyEntity(), Ocs.Groups.class, filter);
+      log.debug("Get {} Groups by Filter Criteria {} starting at Offset {} from Location {}", limit, filter, offset, getLocation());
+      groups = exchangeGroups("/cloud/groups?search={filter}&limit={limit}&offset={offset}", HttpMethod.GET, emptyEntity(), filter, limit, offset);
     }
-    return OwncloudRestUtils.convertGroups(ocsGroups);
+    return OwncloudRestUtils.convertPage(groups, offset, limit);
   }
 
   @Override
   public List<String> findAllUsers(String groupname) {
     Validate.notBlank(groupname);
+    if (directoryReplica.isLoaded()) {
+      return directoryReplica.findMembersOfGroup(groupname, getAuthentication());
+    }
+    return groupMembershipCache.getMembersOfGroup(groupname, getAuthentication(), () -> getMembersOfGroup(groupname));
+  }
+
+  private List<String> getMembersOfGroup(String groupname) {
     log.debug("Get all Users assigned to Group {} from Location {}", groupname, getLocation());
-    Ocs.Users users = exchange("/cloud/groups/{group}", HttpMethod.GET, emptyEntity(), Ocs.Users.class, (authorizationUser, uri, meta) -> {
+    return exchangeUsers("/cloud/groups/{group}", HttpMethod.GET, emptyEntity(), (authorizationUser, uri, meta) -> {
       if ("ok".equals(meta.getStatus())) {
         return;
       }
@@ -89,30 +144,18 @@ public class OwncloudRestGroupServiceImpl extends AbstractOwncloudRestServiceImp
           throw new IllegalStateException(exceptionMessage);
       }
     }, groupname);
-    return convertUsers(users);
-  }
-
-  private List<String> convertUsers(Ocs.Users ocsUsers) {
-    List<String> users = new ArrayList<>();
-    if (isUsersNotNull(ocsUsers)) {
-      for (Ocs.Users.Data.Element element : ocsUsers.getData().getUsers()) {
-        log.trace("Add User {} to the Result List", element.getElement());
-        users.add(element.getElement());
-      }
-    }
-    return users;
-  }
-
-  private boolean isUsersNotNull(Ocs.Users ocsUsers) {
-    return ocsUsers != null && ocsUsers.getData() != null && ocsUsers.getData().getUsers() != null;
   }
 
   @Override
   public List<String> findAllGroups(String username) {
     Validate.notBlank(username);
-    log.debug("Get all Groups assigned to User {} from Location {}", username, getLocation());
-    Ocs.Groups ocsGroups = exchange("/cloud/users/{user}/groups", HttpMethod.GET, emptyEntity(), Ocs.Groups.class, username);
-    return OwncloudRestUtils.convertGroups(ocsGroups);
+    if (directoryReplica.isLoaded()) {
+      return directoryReplica.findGroupsOfUser(username, getAuthentication());
+    }
+    return groupMembershipCache.getGroupsOfUser(username, getAuthentication(), () -> {
+      log.debug("Get all Groups assigned to User {} from Location {}", username, getLocation());
+      return exchangeGroups("/cloud/users/{user}/groups", HttpMethod.GET, emptyEntity(), username);
+    });
   }
 
   @Override
@@ -132,6 +175,8 @@ public class OwncloudRestGroupServiceImpl extends AbstractOwncloudRestServiceImp
         Ocs.Void.class,
         (authenticatedUser, uri, meta) -> checkCreateGroup(authenticatedUser, uri, meta, groupname),
         groupname);
+    groupMembershipCache.invalidateGroups();
+    directoryReplica.addGroup(groupname);
     log.info("Group {} successfully created on Location {}", groupname, getLocation());
   }
 
@@ -180,6 +225,11 @@ public class OwncloudRestGroupServiceImpl extends AbstractOwncloudRestServiceImp
         Ocs.Void.class,
         (authenticatedUser, uri, meta) -> checkDeleteGroup(authenticatedUser, uri, meta, groupname),
         groupname);
+    // the removed Group has been unassigned from all Users
+    userCache.removeAllUsersFromCache();
+    authenticationCache.invalidateAll();
+    groupMembershipCache.invalidateGroup(groupname);
+    directoryReplica.removeGroup(groupname);
     log.info("Group {} successfully removed from Location {}", groupname, getLocation());
   }
 
@@ -0,0 +1,118 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.OcsConnectionPoolProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection Pool shared by the RestTemplates of the OCS Services
+ * (User Service, Group Service, UserDetails Service and Authentication Provider).
+ * <p/>
+ * Connections will be reused across all OCS Requests (one TLS Handshake per Connection, not per Login),
+ * validated after a Time of Inactivity and closed when they are idle too long.
+ * Every Request is limited by the Connect-, Read- and Pool-Acquire-Timeouts.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudRestOcsConnectionPool implements DisposableBean {
+
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final CloseableHttpClient httpClient;
+  private final HttpComponentsClientHttpRequestFactory requestFactory;
+
+  public OwncloudRestOcsConnectionPool(OwncloudRestProperties properties) {
+    this(properties, new OwncloudRestSessionCookies(properties));
+  }
+
+  public OwncloudRestOcsConnectionPool(OwncloudRestProperties properties, OwncloudRestSessionCookies sessionCookies) {
+    OcsConnectionPoolProperties poolProperties = properties.getOcsConnectionPool();
+    log.debug("Create the Connection Pool of the OCS Services with {} Connections ({} Connections per Route)",
+        poolProperties.getMaximumConnections(), poolProperties.getMaximumConnectionsPerRoute());
+    connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(poolProperties.getMaximumConnections());
+    connectionManager.setDefaultMaxPerRoute(poolProperties.getMaximumConnectionsPerRoute());
+    connectionManager.setValidateAfterInactivity(poolProperties.getValidateAfterInactivity());
+
+    httpClient = sessionCookies.configure(HttpClientBuilder.create().disableCookieManagement())
+                                  .useSystemProperties()
+                                  .setConnectionManager(connectionManager)
+                                  .evictExpiredConnections()
+                                  .evictIdleConnections(poolProperties.getEvictIdleConnectionsAfter(), TimeUnit.MILLISECONDS)
+                                  .build();
+
+    requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+    requestFactory.setConnectTimeout(poolProperties.getConnectTimeout());
+    requestFactory.setReadTimeout(poolProperties.getReadTimeout());
+    requestFactory.setConnectionRequestTimeout(poolProperties.getConnectionRequestTimeout());
+  }
+
+  /**
+   * Request Factory shared by the RestTemplates of the OCS Services
+   * @return shared Request Factory
+   */
+  public ClientHttpRequestFactory getRequestFactory() {
+    return requestFactory;
+  }
+
+  /** Number of Connections currently leased by a Request */
+  public int getLeasedConnections() {
+    return getTotalStats().getLeased();
+  }
+
+  /** Number of idle Connections ready to be reused */
+  public int getAvailableConnections() {
+    return getTotalStats().getAvailable();
+  }
+
+  /** Number of Requests waiting for a free Connection */
+  public int getPendingConnections() {
+    return getTotalStats().getPending();
+  }
+
+  /** maximum Number of Connections */
+  public int getMaximumConnections() {
+    return getTotalStats().getMax();
+  }
+
+  private PoolStats getTotalStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    log.debug("Shutdown the Connection Pool of the OCS Services");
+    // closes the HttpClient, the Idle Connection Evictor and the Connection Manager
+    requestFactory.destroy();
+  }
+}
@@ -0,0 +1,279 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ParallelOcsRequestsProperties;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Executor of independent OCS Requests (i.e. the Information about a User and its Group Memberships).
+ * <p/>
+ * If the parallel Execution has been enabled the Requests will be executed by a bounded Thread Pool.
+ * The {@link SecurityContext} of the calling Thread (or an explicit {@link Authentication}) will be propagated
+ * to the Worker. If all Workers are busy the Request will be executed by the calling Thread.
+ * <p/>
+ * If the parallel Execution has been disabled every Request will be executed immediately by the calling Thread.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudRestOcsRequestExecutor implements DisposableBean {
+
+  private static final String THREAD_NAME_FORMAT = "owncloud-ocs-request-%d";
+
+  private final Optional<ThreadPoolExecutor> threadPoolExecutor;
+
+  public OwncloudRestOcsRequestExecutor(OwncloudRestProperties properties) {
+    ParallelOcsRequestsProperties parallelOcsRequestsProperties = properties.getParallelOcsRequests();
+    if (!parallelOcsRequestsProperties.isEnabled()) {
+      log.debug("OCS Requests will be executed sequentially by the calling Thread");
+      threadPoolExecutor = Optional.empty();
+      return;
+    }
+    log.debug("Independent OCS Requests will be executed in parallel by {} Workers", parallelOcsRequestsProperties.getMaximumPoolSize());
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        parallelOcsRequestsProperties.getMaximumPoolSize(),
+        parallelOcsRequestsProperties.getMaximumPoolSize(),
+        parallelOcsRequestsProperties.getKeepAlive(),
+        parallelOcsRequestsProperties.getKeepAliveTimeUnit(),
+        new SynchronousQueue<>(),
+        new ThreadFactoryBuilder().setNameFormat(THREAD_NAME_FORMAT)
+                                  .setDaemon(true)
+                                  .build(),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    threadPoolExecutor = Optional.of(executor);
+  }
+
+  /**
+   * Execute the Request with the {@link SecurityContext} of the calling Thread
+   * @param request OCS Request
+   * @param <T> Type of the Result
+   * @return Result of the Request (already completed if the parallel Execution has been disabled)
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> request) {
+    return submit(request, SecurityContextHolder.getContext());
+  }
+
+  /**
+   * Execute the Request with the given Authentication
+   * @param request OCS Request
+   * @param authentication Authentication used by the Request
+   * @param <T> Type of the Result
+   * @return Result of the Request (already completed if the parallel Execution has been disabled)
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> request, Authentication authentication) {
+    SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+    securityContext.setAuthentication(authentication);
+    return submit(request, securityContext);
+  }
+
+  private <T> CompletableFuture<T> submit(Supplier<T> request, SecurityContext securityContext) {
+    if (!threadPoolExecutor.isPresent()) {
+      SecurityContext originalSecurityContext = SecurityContextHolder.getContext();
+      SecurityContextHolder.setContext(securityContext);
+      try {
+        return CompletableFuture.completedFuture(request.get());
+      } catch (RuntimeException e) {
+        CompletableFuture<T> failedRequest = new CompletableFuture<>();
+        failedRequest.completeExceptionally(e);
+        return failedRequest;
+      } finally {
+        SecurityContextHolder.setContext(originalSecurityContext);
+      }
+    }
+    Executor executor = new DelegatingSecurityContextExecutor(threadPoolExecutor.get(), securityContext);
+    return CompletableFuture.supplyAsync(request, executor);
+  }
+
+  /**
+   * Execute the Request for every Element with the {@link SecurityContext} of the calling Thread.
+   * <p/>
+   * The Results will be returned in the Order of the Elements. While the Stream is consumed
+   * at most <code>parallelism</code> Requests will be in Progress (only one if the parallel
+   * Execution has been disabled). Closing the Stream cancels all outstanding Requests.
+   * @param elements Elements to be requested
+   * @param request OCS Request of a single Element
+   * @param parallelism maximum Number of Requests in Progress
+   * @param <T> Type of the Elements
+   * @param <R> Type of the Results
+   * @return lazy Stream of the Results
+   */
+  public <T, R> Stream<R> submitOrdered(List<T> elements, Function<T, R> request, int parallelism) {
+    OrderedRequests<T, R> orderedRequests = createOrderedRequests(elements.iterator(), request, parallelism);
+    return StreamSupport.stream(Spliterators.spliterator(orderedRequests, elements.size(), Spliterator.ORDERED), false)
+                        .onClose(orderedRequests::cancel);
+  }
+
+  /**
+   * Execute the Request for every Element of the Stream with the {@link SecurityContext} of the calling Thread.
+   * <p/>
+   * The Elements will be consumed lazily. Otherwise the same as {@link #submitOrdered(List, Function, int)}.
+   * Closing the returned Stream closes the Stream of the Elements.
+   * @param elements Elements to be requested
+   * @param request OCS Request of a single Element
+   * @param parallelism maximum Number of Requests in Progress
+   * @param <T> Type of the Elements
+   * @param <R> Type of the Results
+   * @return lazy Stream of the Results
+   */
+  public <T, R> Stream<R> submitOrdered(Stream<T> elements, Function<T, R> request, int parallelism) {
+    OrderedRequests<T, R> orderedRequests = createOrderedRequests(elements.iterator(), request, parallelism);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(orderedRequests, Spliterator.ORDERED), false)
+                        .onClose(orderedRequests::cancel)
+                        .onClose(elements::close);
+  }
+
+  private <T, R> OrderedRequests<T, R> createOrderedRequests(Iterator<T> elements, Function<T, R> request, int parallelism) {
+    return new OrderedRequests<>(
+        elements,
+        request,
+        threadPoolExecutor.isPresent() ? Math.max(1, parallelism) : 1,
+        SecurityContextHolder.getContext());
+  }
+
+  /**
+   * Throw the Exception of an already failed Request (i.e. when the Requests will be executed sequentially).
+   * Dependent Requests don't have to be submitted in this Case.
+   * @param request submitted Request
+   * @param <T> Type of the Result
+   * @return the same Request
+   * @throws RuntimeException the Exception thrown by the Request
+   */
+  public static <T> CompletableFuture<T> throwIfFailed(CompletableFuture<T> request) {
+    if (request.isCompletedExceptionally()) {
+      join(request);
+    }
+    return request;
+  }
+
+  /**
+   * Wait for the Result of the Request.
+   * @param request submitted Request
+   * @param <T> Type of the Result
+   * @return Result of the Request
+   * @throws RuntimeException the Exception thrown by the Request
+   */
+  public static <T> T join(CompletableFuture<T> request) {
+    try {
+      return request.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Wait for the Results of all Requests.
+   * @param requests submitted Requests
+   * @throws RuntimeException the Exception thrown by the first failed Request (after all Requests have been finished)
+   */
+  public static void joinAll(Collection<? extends CompletableFuture<?>> requests) {
+    CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]))
+                     .exceptionally(ignored -> null)
+                     .join();
+    requests.forEach(OwncloudRestOcsRequestExecutor::join);
+  }
+
+  /** Number of Workers currently executing a Request */
+  public int getActiveRequests() {
+    return threadPoolExecutor.map(ThreadPoolExecutor::getActiveCount).orElse(0);
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    threadPoolExecutor.ifPresent(ThreadPoolExecutor::shutdown);
+  }
+
+  private class OrderedRequests<T, R> implements Iterator<R> {
+    private final Iterator<T> elements;
+    private final Function<T, R> request;
+    private final int parallelism;
+    private final SecurityContext securityContext;
+    private final Deque<CompletableFuture<R>> requestsInProgress = new ArrayDeque<>();
+
+    private OrderedRequests(Iterator<T> elements, Function<T, R> request, int parallelism, SecurityContext securityContext) {
+      this.elements = elements;
+      this.request = request;
+      this.parallelism = parallelism;
+      this.securityContext = securityContext;
+    }
+
+    @Override
+    public boolean hasNext() {
+      submitUpToParallelism();
+      return !requestsInProgress.isEmpty();
+    }
+
+    @Override
+    public R next() {
+      submitUpToParallelism();
+      if (requestsInProgress.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      return join(requestsInProgress.poll());
+    }
+
+    private void submitUpToParallelism() {
+      while (requestsInProgress.size() < parallelism && elements.hasNext()) {
+        T element = elements.next();
+        requestsInProgress.add(submit(() -> request.apply(element), securityContext));
+      }
+    }
+
+    private void cancel() {
+      requestsInProgress.forEach(requestInProgress -> requestInProgress.cancel(false));
+      requestsInProgress.clear();
+    }
+  }
+}
@@ -27,7 +27,10 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudProperties;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -89,11 +92,502 @@ public class OwncloudRestProperties extends OwncloudProperties {
       private TimeUnit refreshAfterWriteTimeUnit = TimeUnit.SECONDS;
     }
 
+    /**
+     * Properties for the Cache of the Metadata of WebDAV Resources (<code>find</code> and <code>list</code>)
+     *
+     * @author mufasa1976
+     * @since 1.5.0
+     */
+    @Validated
+    @Getter
+    @Setter
+    public static class MetadataCacheProperties {
+      /** Should the Metadata of WebDAV Resources be cached. Default: <code>false</code> */
+      private boolean enabled = false;
+      /** Time to live of a cached Entry. Default: <code>60</code> */
+      @Min(1)
+      private long timeToLive = 60;
+      /** Time Unit for {@link #timeToLive}. Default: <code>SECONDS</code> */
+      @NotNull
+      private TimeUnit timeToLiveTimeUnit = TimeUnit.SECONDS;
+      /** maximum Entries per User. Default: <code>1000</code> */
+      @Min(1)
+      private long maximumSizePerUser = 1000;
+      /**
+       * After this Time a cached Directory Listing will be revalidated by comparing the ETag of the Directory
+       * (Depth 0 PROPFIND) before the Directory will be listed again. Default: <code>5</code>
+       */
+      @Min(0)
+      private long revalidateAfter = 5;
+      /** Time Unit for {@link #revalidateAfter}. Default: <code>SECONDS</code> */
+      @NotNull
+      private TimeUnit revalidateAfterTimeUnit = TimeUnit.SECONDS;
+    }
+
+    /**
+     * Properties for walking the Tree of WebDAV Resources
+     *
+     * @author mufasa1976
+     * @since 1.5.0
+     */
+    @Validated
+    @Getter
+    @Setter
+    public static class WalkProperties {
+      /**
+       * Try to get the whole Tree by a PROPFIND with <code>Depth: infinity</code>
+       * before crawling the Tree Directory by Directory. Default: <code>true</code>
+       */
+      private boolean depthInfinityEnabled = true;
+      /** maximum parallel PROPFIND Requests while crawling the Tree Directory by Directory. Default: <code>4</code> */
+      @Min(1)
+      private int parallelism = 4;
+    }
+
+    /**
+     * Properties for the Cache of the Content of File Resources (<code>getInputStream</code>)
+     *
+     * @author mufasa1976
+     * @since 1.5.0
+     */
+    @Validated
+    @Getter
+    @Setter
+    public static class ContentCacheProperties {
+
+      /**
+       * Properties of the In-Memory Tier of the Content Cache (for small Files)
+       *
+       * @author mufasa1976
+       * @since 1.5.0
+       */
+      @Validated
+      @Getter
+      @Setter
+      public static class MemoryTierProperties {
+        /** maximum Bytes held in Memory. Default: <code>16777216</code> (16 MiB) */
+        @Min(0)
+        private long maximumSize = 16 * 1024 * 1024;
+        /** Files up to this Size (in Bytes) will be held in Memory. Default: <code>1048576</code> (1 MiB) */
+        @Min(0)
+        private long maximumEntrySize = 1024 * 1024;
+      }
+
+      /**
+       * Properties of the Disk Tier of the Content Cache (for large Files)
+       *
+       * @author mufasa1976
+       * @since 1.5.0
+       */
+      @Validated
+      @Getter
+      @Setter
+      public static class DiskTierProperties {
+        /** Should large Files be cached on Disk. Default: <code>true</code> */
+        private boolean enabled = true;
+        /** Directory of the cached Files. Default: a temporary Directory */
+        private Path directory;
+        /** maximum Bytes held on Disk. Default: <code>536870912</code> (512 MiB) */
+        @Min(0)
+        private long maximumSize = 512 * 1024 * 1024;
+        /** Files up to this Size (in Bytes) will be cached on Disk. Default: <code>67108864</code> (64 MiB) */
+        @Min(0)
+        @Max(Integer.MAX_VALUE)
+        private long maximumEntrySize = 64 * 1024 * 1024;
+      }
+
+      /** Should the Content of File Resources be cached. Default: <code>false</code> */
+      private boolean enabled = false;
+      /**
+       * Within this Time a cached Content will be returned without asking the Server when the ETag of the
+       * requested File Resource is equal to the ETag of the cached Content. After this Time the cached Content
+       * will be revalidated by a conditional GET (<code>If-None-Match</code>). Default: <code>5</code>
+       */
+      @Min(0)
+      private long revalidateAfter = 5;
+      /** Time Unit for {@link #revalidateAfter}. Default: <code>SECONDS</code> */
+      @NotNull
+      private TimeUnit revalidateAfterTimeUnit = TimeUnit.SECONDS;
+      /** In-Memory Tier for small Files */
+      private MemoryTierProperties memory = new MemoryTierProperties();
+      /** Disk Tier for large Files */
+      private DiskTierProperties disk = new DiskTierProperties();
+    }
+
+    /**
+     * Properties for the random Access Channel of File Resources (<code>openChannel</code>)
+     *
+     * @author mufasa1976
+     * @since 1.5.0
+     */
+    @Validated
+    @Getter
+    @Setter
+    public static class ChannelProperties {
+      /** Size (in Bytes) of the Blocks requested by ranged GET Requests. Default: <code>65536</code> (64 KiB) */
+      @Min(1)
+      private int blockSize = 64 * 1024;
+      /** maximum Number of Blocks cached by every opened Channel (least recently used Blocks will be evicted first). Default: <code>16</code> */
+      @Min(0)
+      private int maximumCachedBlocks = 16;
+    }
+
+    /**
+     * Properties for the chunked Upload of large Files (<code>getOutputStream</code>)
+     *
+     * @author mufasa1976
+     * @since 1.5.0
+     */
+    @Validated
+    @Getter
+    @Setter
+    public static class ChunkedUploadProperties {
+      /** Should Files larger than {@link #threshold} be uploaded in Chunks. Default: <code>false</code> */
+      private boolean enabled = false;
+      /** Files larger than this Size (in Bytes) will be uploaded in Chunks. Default: <code>10485760</code> (10 MiB) */
+      @Min(0)
+      private long threshold = 10 * 1024 * 1024;
+      /** Size (in Bytes) of one Chunk. Default: <code>10485760</code> (10 MiB) */
+      @Min(1)
+      private int chunkSize = 10 * 1024 * 1024;
+      /** maximum Number of Chunks uploaded in parallel. Default: <code>3</code> */
+      @Min(1)
+      private int parallelism = 3;
+      /** maximum Number of Retries of a failed Chunk. Default: <code>3</code> */
+      @Min(0)
+      private int maximumRetries = 3;
+      /** Delay between the Retries of a failed Chunk. Default: <code>1000</code> */
+      @Min(0)
+      private long retryDelay = 1000;
+      /** Time Unit for {@link #retryDelay}. Default: <code>MILLISECONDS</code> */
+      @NotNull
+      private TimeUnit retryDelayTimeUnit = TimeUnit.MILLISECONDS;
+    }
+
+    /**
+     * Properties of the Connection Pool shared by all Users for all WebDAV Operations
+     *
+     * @author mufasa1976
+     * @since 1.5.0
+     */
+    @Validated
+    @Getter
+    @Setter
+    public static class ConnectionPoolProperties {
+      /** maximum parallel Connections to the Owncloud Instance. Default: <code>50</code> */
+      @Min(1)
+      private int maximumConnectionsPerRoute = 50;
+      /** maximum Connections at all. Default: <code>100</code> */
+      @Min(1)
+      private int maximumConnections = 100;
+    }
+
     /** Google-Cache Properties for the Sardine Library Cache */
     private CacheProperties sardineCache = new CacheProperties();
+
+    /**
+     * Connection Pool shared by all Users
+     * @since 1.5.0
+     */
+    private ConnectionPoolProperties connectionPool = new ConnectionPoolProperties();
+
+    /**
+     * Cache of the Metadata of WebDAV Resources
+     * @since 1.5.0
+     */
+    private MetadataCacheProperties metadataCache = new MetadataCacheProperties();
+
+    /**
+     * Walking the Tree of WebDAV Resources
+     * @since 1.5.0
+     */
+    private WalkProperties walk = new WalkProperties();
+
+    /**
+     * Cache of the Content of File Resources
+     * @since 1.5.0
+     */
+    private ContentCacheProperties contentCache = new ContentCacheProperties();
+
+    /**
+     * random Access Channel of File Resources
+     * @since 1.5.0
+     */
+    private ChannelProperties channel = new ChannelProperties();
+
+    /**
+     * chunked Upload of large Files
+     * @since 1.5.0
+     */
+    private ChunkedUploadProperties chunkedUpload = new ChunkedUploadProperties();
+
+    /**
+     * Should <code>getInputStream</code> read directly from the Body of the HTTP Response
+     * (without a Background Worker and a Pipe). Default: <code>false</code>
+     * @since 1.5.0
+     */
+    private boolean directDownload = false;
+    /**
+     * Send the Credentials of the User with every WebDAV Request to the Host of <code>owncloud.location</code>
+     * (preemptive Basic Authentication) instead of waiting for a <code>401</code> Challenge. Default: <code>true</code>
+     * @since 1.5.0
+     */
+    private boolean preemptiveAuthentication = true;
+  }
+
+  /**
+   * Properties of the Connection Pool shared by the OCS Services
+   * (User Service, Group Service, UserDetails Service and Authentication Provider)
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Validated
+  @Getter
+  @Setter
+  public static class OcsConnectionPoolProperties {
+    /** maximum Connections at all. Default: <code>50</code> */
+    @Min(1)
+    private int maximumConnections = 50;
+    /** maximum parallel Connections to the Owncloud Instance. Default: <code>20</code> */
+    @Min(1)
+    private int maximumConnectionsPerRoute = 20;
+    /** idle Connections will be validated before Reuse after this Time (in Milliseconds). Default: <code>2000</code> */
+    @Min(0)
+    private int validateAfterInactivity = 2000;
+    /** idle Connections will be closed after this Time (in Milliseconds). Default: <code>30000</code> */
+    @Min(1)
+    private long evictIdleConnectionsAfter = 30000;
+    /** Timeout (in Milliseconds) for establishing a Connection. Default: <code>10000</code> */
+    @Min(0)
+    private int connectTimeout = 10000;
+    /** Timeout (in Milliseconds) for waiting on Data of an established Connection. Default: <code>30000</code> */
+    @Min(0)
+    private int readTimeout = 30000;
+    /** Timeout (in Milliseconds) for leasing a Connection from the Pool. Default: <code>5000</code> */
+    @Min(0)
+    private int connectionRequestTimeout = 5000;
+  }
+
+  /**
+   * Properties for the Transport Format of the OCS Services
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Getter
+  @Setter
+  public static class OcsJsonProperties {
+    /** Should the OCS Services use Version 2 of the OCS API with JSON instead of Version 1 with XML. Default: <code>false</code> */
+    private boolean enabled = false;
+  }
+
+  /**
+   * Properties for the Cache of the Users loaded by the User Service and the UserDetails Service
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Validated
+  @Getter
+  @Setter
+  public static class UserCacheProperties {
+    /** Should the Users loaded by the User Service and the UserDetails Service be cached. Default: <code>false</code> */
+    private boolean enabled = false;
+    /** Duration of Availability of a cached User. Default: <code>60</code> */
+    @Min(1)
+    private long timeToLive = 60;
+    /** Time Unit for {@link #timeToLive}. Default: <code>SECONDS</code> */
+    @NotNull
+    private TimeUnit timeToLiveTimeUnit = TimeUnit.SECONDS;
+    /** maximum Number of cached Users. Default: <code>1000</code> */
+    @Min(1)
+    private long maximumSize = 1000;
+  }
+
+  /**
+   * Properties for the Cache of successful Authentications of the Authentication Provider
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Validated
+  @Getter
+  @Setter
+  public static class AuthenticationCacheProperties {
+    /** Should successful Authentications be cached. Default: <code>false</code> */
+    private boolean enabled = false;
+    /** Duration of Availability of a cached Authentication. Default: <code>30</code> */
+    @Min(1)
+    private long timeToLive = 30;
+    /** Time Unit for {@link #timeToLive}. Default: <code>SECONDS</code> */
+    @NotNull
+    private TimeUnit timeToLiveTimeUnit = TimeUnit.SECONDS;
+    /** maximum Number of cached Authentications. Default: <code>1000</code> */
+    @Min(1)
+    private long maximumSize = 1000;
+  }
+
+  /**
+   * Properties for the per-Query Cache of the Group Memberships (Members of a Group and Groups of a User) of the Group Service
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Validated
+  @Getter
+  @Setter
+  public static class GroupMembershipCacheProperties {
+    /** Should the Group Memberships read by the Group Service be cached. Default: <code>false</code> */
+    private boolean enabled = false;
+    /** Interval after which a cached Entry will be reloaded from the Owncloud Server on its next Access. Default: <code>60</code> */
+    @Min(1)
+    private long refreshInterval = 60;
+    /** Time Unit for {@link #refreshInterval}. Default: <code>SECONDS</code> */
+    @NotNull
+    private TimeUnit refreshIntervalTimeUnit = TimeUnit.SECONDS;
+    /** maximum Number of cached Groups and maximum Number of cached Users. Default: <code>10000</code> */
+    @Min(1)
+    private long maximumSize = 10000;
+  }
+
+  /**
+   * Properties for the local Replica of all Users, their Details and their Group Memberships
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Validated
+  @Getter
+  @Setter
+  public static class DirectoryReplicaProperties {
+    /** Should all Read Operations of the User Service and the Group Service be answered by a local Replica. Default: <code>false</code> */
+    private boolean enabled = false;
+    /** Name of the Administrator loading the Replica */
+    private String username;
+    /** Password of the Administrator loading the Replica */
+    private String password;
+    /** Should the Replica be loaded at Startup (otherwise it will be loaded by the first Refresh). Default: <code>true</code> */
+    private boolean loadOnStartup = true;
+    /** Interval between two Refreshes of the Replica. Default: <code>5</code> */
+    @Min(1)
+    private long refreshInterval = 5;
+    /** Time Unit for {@link #refreshInterval}. Default: <code>MINUTES</code> */
+    @NotNull
+    private TimeUnit refreshIntervalTimeUnit = TimeUnit.MINUTES;
+    /**
+     * Every n-th Refresh reloads the Details of all Users. All other Refreshes reload the Users, the Groups
+     * and the Group Memberships but only the Details of new Users. Changed Details of existing Users
+     * (i.e. <code>enabled</code>) may lag by up to {@link #refreshInterval} * {@link #fullRefreshEvery}. Default: <code>12</code>
+     */
+    @Min(1)
+    private int fullRefreshEvery = 12;
+  }
+
+  /**
+   * Properties for the parallel Execution of independent OCS Requests
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Validated
+  @Getter
+  @Setter
+  public static class ParallelOcsRequestsProperties {
+    /** Should independent OCS Requests (Information about a User and its Group Memberships) be executed in parallel. Default: <code>false</code> */
+    private boolean enabled = false;
+    /** maximum Number of Workers. Default: <code>20</code> */
+    @Min(1)
+    private int maximumPoolSize = 20;
+    /** idle Workers will be terminated after this Time. Default: <code>60</code> */
+    @Min(1)
+    private long keepAlive = 60;
+    /** Time Unit for {@link #keepAlive}. Default: <code>SECONDS</code> */
+    @NotNull
+    private TimeUnit keepAliveTimeUnit = TimeUnit.SECONDS;
+    /** maximum Number of Users whose Details will be requested at the same Time by <code>OwncloudUserService#findAllDetails</code>. Default: <code>10</code> */
+    @Min(1)
+    private int bulkUserDetailsParallelism = 10;
+    /** maximum Number of Users which will be saved at the same Time by <code>OwncloudUserService#saveAll</code>. Default: <code>10</code> */
+    @Min(1)
+    private int batchSaveParallelism = 10;
+    /** maximum Number of Group Memberships of a User which will be changed at the same Time by <code>OwncloudUserService#save</code>. Default: <code>10</code> */
+    @Min(1)
+    private int groupMembershipParallelism = 10;
+  }
+
+  /**
+   * Properties for the Reuse of the Session Cookies of the Owncloud Server
+   *
+   * @author mufasa1976
+   * @since 1.5.0
+   */
+  @Validated
+  @Getter
+  @Setter
+  public static class SessionCookiesProperties {
+    /** Should the Session Cookies returned by the Owncloud Server be sent with further Requests of the same Credentials. Default: <code>false</code> */
+    private boolean enabled = false;
+    /** Session Cookies of Credentials not used for this Time will be removed. Default: <code>20</code> */
+    @Min(1)
+    private long timeToLive = 20;
+    /** Time Unit for {@link #timeToLive}. Default: <code>MINUTES</code> */
+    @NotNull
+    private TimeUnit timeToLiveTimeUnit = TimeUnit.MINUTES;
+    /** maximum Number of Credentials whose Session Cookies will be held. Default: <code>10000</code> */
+    @Min(1)
+    private long maximumSize = 10000;
   }
 
   /** advanced Properties for the REST Resource Service Implementation */
   private ResourceServiceProperties resourceService = new ResourceServiceProperties();
 
+  /**
+   * Connection Pool of the OCS Services
+   * @since 1.5.0
+   */
+  private OcsConnectionPoolProperties ocsConnectionPool = new OcsConnectionPoolProperties();
+
+  /**
+   * JSON Transport (OCS API Version 2) of the OCS Services
+   * @since 1.5.0
+   */
+  private OcsJsonProperties ocsJson = new OcsJsonProperties();
+
+  /**
+   * Reuse of the Session Cookies of the Owncloud Server
+   * @since 1.5.0
+   */
+  private SessionCookiesProperties sessionCookies = new SessionCookiesProperties();
+
+  /**
+   * Cache of the Users loaded by the User Service and the UserDetails Service
+   * @since 1.5.0
+   */
+  private UserCacheProperties userCache = new UserCacheProperties();
+
+  /**
+   * Cache of successful Authentications of the Authentication Provider
+   * @since 1.5.0
+   */
+  private AuthenticationCacheProperties authenticationCache = new AuthenticationCacheProperties();
+
+  /**
+   * per-Query Cache of the Group Memberships read by the Group Service
+   * @since 1.5.0
+   */
+  private GroupMembershipCacheProperties groupMembershipCache = new GroupMembershipCacheProperties();
+
+  /**
+   * parallel Execution of independent OCS Requests
+   * @since 1.5.0
+   */
+  private ParallelOcsRequestsProperties parallelOcsRequests = new ParallelOcsRequestsProperties();
+
+  /**
+   * local Replica of the Users and Groups
+   * @since 1.5.0
+   */
+  private DirectoryReplicaProperties directoryReplica = new DirectoryReplicaProperties();
+
 }
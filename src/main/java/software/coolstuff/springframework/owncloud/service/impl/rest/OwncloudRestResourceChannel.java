@@ -0,0 +1,300 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.io.ByteStreams;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.ChannelProperties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * read-only Channel of the Content of a WebDAV File Resource.
+ * <p/>
+ * The Content will be requested Block by Block by ranged GET Requests (<code>Range: bytes=...</code>).
+ * All missing Blocks of one {@link #read(ByteBuffer)} will be requested by one single Request.
+ * The last recently used Blocks will be cached by the Channel.
+ * <p/>
+ * When the Server ignores the <code>Range</code> Header (<code>200 OK</code> instead of
+ * <code>206 Partial Content</code>) the Read fails by an {@link OwncloudRestResourceException}.
+ * The Connection will be aborted instead of reading the whole (maybe very large) Content.
+ * <p/>
+ * When the ETag of the File Resource is known every Request will be conditional (<code>If-Match</code>)
+ * so that a Change of the File while reading will be recognized.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+class OwncloudRestResourceChannel implements SeekableByteChannel {
+
+  private static final String QUOTE = "\"";
+  private static final String BYTES_UNIT = "bytes";
+
+  private final RestOperations restOperations;
+  private final Authentication authentication;
+  private final OwncloudFileResource resource;
+  private final URI resolvedUri;
+  private final int blockSize;
+  private final Map<Long, byte[]> cachedBlocks;
+
+  private Long size;
+  private long position = 0;
+  private boolean open = true;
+
+  @Builder
+  private OwncloudRestResourceChannel(
+      final RestOperations restOperations,
+      final Authentication authentication,
+      final OwncloudFileResource resource,
+      final URI resolvedUri,
+      final ChannelProperties properties) {
+    this.restOperations = restOperations;
+    this.authentication = authentication;
+    this.resource = resource;
+    this.resolvedUri = resolvedUri;
+    this.blockSize = properties.getBlockSize();
+    this.size = resource.getContentLength();
+    int maximumCachedBlocks = properties.getMaximumCachedBlocks();
+    this.cachedBlocks = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+        return size() > maximumCachedBlocks;
+      }
+    };
+  }
+
+  @Override
+  public synchronized int read(ByteBuffer destination) throws IOException {
+    checkOpen();
+    if (!destination.hasRemaining()) {
+      return 0;
+    }
+    long size = size();
+    if (position >= size) {
+      return -1;
+    }
+    long end = Math.min(position + destination.remaining(), size);
+    long firstBlock = position / blockSize;
+    long lastBlock = (end - 1) / blockSize;
+    Map<Long, byte[]> blocks = getBlocks(firstBlock, lastBlock, size);
+    int read = 0;
+    for (long blockNumber = firstBlock; blockNumber <= lastBlock && destination.hasRemaining(); blockNumber++) {
+      byte[] block = blocks.get(blockNumber);
+      int offset = (int) (position - blockNumber * blockSize);
+      if (block == null || offset >= block.length) {
+        break;
+      }
+      int length = Math.min(block.length - offset, destination.remaining());
+      destination.put(block, offset, length);
+      position += length;
+      read += length;
+    }
+    return read > 0 ? read : -1;
+  }
+
+  private Map<Long, byte[]> getBlocks(long firstBlock, long lastBlock, long size) {
+    Map<Long, byte[]> blocks = new HashMap<>();
+    long firstMissingBlock = -1;
+    long lastMissingBlock = -1;
+    for (long blockNumber = firstBlock; blockNumber <= lastBlock; blockNumber++) {
+      byte[] block = cachedBlocks.get(blockNumber);
+      if (block != null) {
+        blocks.put(blockNumber, block);
+        continue;
+      }
+      if (firstMissingBlock < 0) {
+        firstMissingBlock = blockNumber;
+      }
+      lastMissingBlock = blockNumber;
+    }
+    if (firstMissingBlock < 0) {
+      log.trace("Blocks {} to {} of {} have been found within the Block Cache", firstBlock, lastBlock, resource.getHref());
+      return blocks;
+    }
+
+    long rangeStart = firstMissingBlock * blockSize;
+    long rangeEnd = Math.min((lastMissingBlock + 1) * blockSize, size) - 1;
+    byte[] content = getRange(rangeStart, rangeEnd);
+    for (long blockNumber = firstMissingBlock; blockNumber <= lastMissingBlock; blockNumber++) {
+      int offset = (int) ((blockNumber - firstMissingBlock) * blockSize);
+      if (offset >= content.length) {
+        break;
+      }
+      byte[] block = new byte[Math.min(blockSize, content.length - offset)];
+      System.arraycopy(content, offset, block, 0, block.length);
+      cachedBlocks.put(blockNumber, block);
+      blocks.put(blockNumber, block);
+    }
+    return blocks;
+  }
+
+  private byte[] getRange(long rangeStart, long rangeEnd) {
+    log.debug("Get Bytes {} to {} of {}", rangeStart, rangeEnd, resolvedUri);
+    try {
+      return restOperations.execute(
+          resolvedUri,
+          HttpMethod.GET,
+          clientHttpRequest -> {
+            addHeaders(clientHttpRequest);
+            clientHttpRequest.getHeaders().set(HttpHeaders.RANGE, BYTES_UNIT + "=" + rangeStart + "-" + rangeEnd);
+          },
+          response -> extractRange(response, rangeStart, rangeEnd));
+    } catch (RestClientException restClientException) {
+      handleRestClientException(restClientException);
+      return new byte[0];
+    }
+  }
+
+  private byte[] extractRange(ClientHttpResponse response, long rangeStart, long rangeEnd) throws IOException {
+    InputStream body = response.getBody();
+    if (response.getRawStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+      abortConnection(body);
+      final String exceptionMessage = String.format(
+          "Server doesn't support ranged GET Requests on %s (HTTP-Status %d instead of 206)", resource.getHref(), response.getRawStatusCode());
+      log.error(exceptionMessage);
+      throw new OwncloudRestResourceException(exceptionMessage);
+    }
+    return ByteStreams.toByteArray(ByteStreams.limit(body, rangeEnd - rangeStart + 1));
+  }
+
+  private void abortConnection(InputStream body) throws IOException {
+    if (body instanceof ConnectionReleaseTrigger) {
+      // don't drain the whole Content when the Response will be closed
+      ((ConnectionReleaseTrigger) body).abortConnection();
+    }
+  }
+
+  private void addHeaders(ClientHttpRequest clientHttpRequest) {
+    HttpHeaders headers = clientHttpRequest.getHeaders();
+    OwncloudRestUtils.addAuthorizationHeader(headers, authentication);
+    if (StringUtils.isNotBlank(resource.getETag())) {
+      headers.setIfMatch(QUOTE + resource.getETag() + QUOTE);
+    }
+  }
+
+  private void handleRestClientException(RestClientException restClientException) {
+    RestClientExceptionHandlerEnvironment exceptionHandlerEnvironment =
+        RestClientExceptionHandlerEnvironment.builder()
+                                             .restClientException(restClientException)
+                                             .requestURI(resource.getHref())
+                                             .username(authentication.getName())
+                                             .build();
+    OwncloudRestUtils.handleRestClientException(exceptionHandlerEnvironment);
+  }
+
+  @Override
+  public int write(ByteBuffer source) throws IOException {
+    checkOpen();
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized long position() throws IOException {
+    checkOpen();
+    return position;
+  }
+
+  @Override
+  public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+    checkOpen();
+    if (newPosition < 0) {
+      throw new IllegalArgumentException("Position must not be negative");
+    }
+    position = newPosition;
+    return this;
+  }
+
+  @Override
+  public synchronized long size() throws IOException {
+    checkOpen();
+    if (size == null) {
+      size = getContentLength();
+    }
+    return size;
+  }
+
+  private long getContentLength() {
+    log.debug("Get the Content Length of {}", resolvedUri);
+    try {
+      Long contentLength = restOperations.execute(
+          resolvedUri,
+          HttpMethod.HEAD,
+          this::addHeaders,
+          response -> response.getHeaders().getContentLength());
+      if (contentLength == null || contentLength < 0) {
+        throw new OwncloudRestResourceException("Server has not returned the Content Length of " + resource.getHref());
+      }
+      return contentLength;
+    } catch (RestClientException restClientException) {
+      handleRestClientException(restClientException);
+      return 0;
+    }
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) throws IOException {
+    checkOpen();
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public synchronized void close() {
+    open = false;
+    cachedBlocks.clear();
+  }
+
+  private void checkOpen() throws ClosedChannelException {
+    if (!isOpen()) {
+      throw new ClosedChannelException();
+    }
+  }
+}
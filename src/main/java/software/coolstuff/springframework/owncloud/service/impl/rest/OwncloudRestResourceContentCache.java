@@ -0,0 +1,462 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.primitives.Ints;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.ContentCacheProperties;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Tiered Cache of the Content of File Resources.
+ * <p/>
+ * Small Files will be held in Memory, large Files will be held on Disk. Both Tiers are bounded
+ * by a configurable Byte Budget and evict the least recently used Entries first.
+ * Entries are keyed by User and Path of the File Resource and remember the ETag of the Content.
+ * Stale Entries will be revalidated by a conditional GET (<code>If-None-Match</code>)
+ * so that an unchanged File only costs a <code>304 Not Modified</code>.
+ * <p/>
+ * Without the Disk Tier only Files with a known Content Length which fit into the In-Memory Tier
+ * will be cached. A temporary Directory of the Disk Tier will be removed on {@link #destroy()}.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+class OwncloudRestResourceContentCache implements DisposableBean {
+
+  private static final String SLASH = "/";
+  private static final String KEY_SEPARATOR = ":";
+
+  /**
+   * Loads the Content of a File Resource from the Server
+   */
+  @FunctionalInterface
+  interface ContentLoader {
+    /**
+     * Load the Content of a File Resource
+     * @param ifNoneMatch ETag of the cached Content (if any)
+     * @param receiver Receiver of the Content (will not be called when the Server answers with <code>304 Not Modified</code>)
+     * @return <code>false</code> if the Server has answered with <code>304 Not Modified</code>
+     */
+    boolean load(Optional<String> ifNoneMatch, ContentReceiver receiver);
+  }
+
+  /**
+   * Receives the Content of a File Resource loaded by the {@link ContentLoader}
+   */
+  @FunctionalInterface
+  interface ContentReceiver {
+    void receive(String eTag, InputStream content) throws IOException;
+  }
+
+  private final ContentCacheProperties properties;
+  private final Cache<String, CachedContent> memoryTier;
+  private final Optional<Cache<String, CachedContent>> diskTier;
+  private final Path directory;
+  private final boolean temporaryDirectory;
+  private final StatsCounter statsCounter = new SimpleStatsCounter();
+
+  OwncloudRestResourceContentCache(ContentCacheProperties properties) throws IOException {
+    this.properties = properties;
+    this.memoryTier = CacheBuilder.newBuilder()
+                                  .<String, CachedContent>weigher((key, content) -> Ints.saturatedCast(content.getSize()))
+                                  .maximumWeight(properties.getMemory().getMaximumSize())
+                                  .removalListener(this::onRemoval)
+                                  .build();
+    if (properties.getDisk().isEnabled()) {
+      this.temporaryDirectory = properties.getDisk().getDirectory() == null;
+      this.directory = createDirectory(properties.getDisk().getDirectory());
+      this.diskTier = Optional.of(
+          CacheBuilder.newBuilder()
+                      .<String, CachedContent>weigher((key, content) -> Ints.saturatedCast(content.getSize()))
+                      .maximumWeight(properties.getDisk().getMaximumSize())
+                      .removalListener(this::onRemoval)
+                      .build());
+    } else {
+      this.temporaryDirectory = false;
+      this.directory = null;
+      this.diskTier = Optional.empty();
+    }
+  }
+
+  private static Path createDirectory(Path directory) throws IOException {
+    if (directory == null) {
+      Path temporaryDirectory = Files.createTempDirectory("owncloud-content-cache");
+      log.debug("Cache large Files within the temporary Directory {}", temporaryDirectory);
+      return temporaryDirectory;
+    }
+    log.debug("Cache large Files within the Directory {}", directory);
+    return Files.createDirectories(directory);
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    invalidateAll();
+    if (temporaryDirectory) {
+      log.debug("Remove the temporary Directory {}", directory);
+      try (Stream<Path> paths = Files.walk(directory)) {
+        paths.sorted(Comparator.reverseOrder())
+             .forEach(this::deleteQuietly);
+      }
+    }
+  }
+
+  private void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("Error while removing {}", path, e);
+    }
+  }
+
+  private void onRemoval(RemovalNotification<String, CachedContent> notification) {
+    if (notification.wasEvicted()) {
+      statsCounter.recordEviction();
+    }
+    if (notification.getValue() != null) {
+      notification.getValue().discard();
+    }
+  }
+
+  /**
+   * Can the Content of the File Resource be cached at all (checked by its announced Content Length)
+   */
+  boolean isCacheable(OwncloudFileResource resource) {
+    Long contentLength = resource.getContentLength();
+    if (contentLength == null) {
+      // Content of unknown Size could only be cached when it can be spilled to Disk
+      return diskTier.isPresent();
+    }
+    return contentLength <= getMaximumEntrySize();
+  }
+
+  private long getMaximumEntrySize() {
+    if (diskTier.isPresent()) {
+      return Math.max(properties.getMemory().getMaximumEntrySize(), properties.getDisk().getMaximumEntrySize());
+    }
+    return properties.getMemory().getMaximumEntrySize();
+  }
+
+  /**
+   * Get the Content of the File Resource from the Cache or load it from the Server.
+   * <p/>
+   * Loaded Content will be read completely into the Cache before the InputStream will be returned.
+   * @param username Name of the User
+   * @param resource File Resource
+   * @param loader Loader of the Content
+   * @return InputStream of the cached Content or {@link Optional#empty()} when the loaded Content
+   * exceeds the In-Memory Tier and the Disk Tier is disabled (the Caller should download the File uncached)
+   */
+  Optional<InputStream> getInputStream(String username, OwncloudFileResource resource, ContentLoader loader) {
+    String key = keyOf(username, resource.getHref());
+    CachedContent cachedContent = getIfPresent(key);
+    if (cachedContent != null && isFresh(cachedContent, resource.getETag())) {
+      Optional<InputStream> inputStream = openCachedContent(key, cachedContent);
+      if (inputStream.isPresent()) {
+        log.debug("Found Content of File {} of User {} within the Cache", resource.getHref(), username);
+        statsCounter.recordHits(1);
+        return inputStream;
+      }
+      cachedContent = null;
+    }
+
+    Optional<String> ifNoneMatch = Optional.ofNullable(cachedContent)
+                                           .map(CachedContent::getETag)
+                                           .filter(StringUtils::isNotBlank);
+    AtomicReference<CachedContent> loadedContent = new AtomicReference<>();
+    long startTime = System.nanoTime();
+    boolean modified = loader.load(ifNoneMatch, (eTag, content) -> loadedContent.set(store(key, eTag, content)));
+    if (!modified && cachedContent != null) {
+      Optional<InputStream> inputStream = openCachedContent(key, cachedContent);
+      if (inputStream.isPresent()) {
+        log.debug("Content of File {} of User {} has been revalidated by ETag {}", resource.getHref(), username, cachedContent.getETag());
+        cachedContent.setValidatedAt(System.currentTimeMillis());
+        statsCounter.recordHits(1);
+        return inputStream;
+      }
+      log.debug("Cached Content of File {} of User {} has been removed after Revalidation. Load it again", resource.getHref(), username);
+      modified = loader.load(Optional.empty(), (eTag, content) -> loadedContent.set(store(key, eTag, content)));
+    }
+    if (!modified) {
+      throw new OwncloudRestResourceException("Server has not returned any Content for File " + resource.getHref());
+    }
+    statsCounter.recordMisses(1);
+    if (loadedContent.get() == null) {
+      log.debug("Content of File {} of User {} is too large to be cached", resource.getHref(), username);
+      return Optional.empty();
+    }
+    statsCounter.recordLoadSuccess(System.nanoTime() - startTime);
+    try {
+      return Optional.of(loadedContent.get().openInputStream());
+    } catch (IOException e) {
+      throw new OwncloudRestResourceException(e);
+    }
+  }
+
+  private CachedContent getIfPresent(String key) {
+    CachedContent cachedContent = memoryTier.getIfPresent(key);
+    if (cachedContent != null) {
+      return cachedContent;
+    }
+    return diskTier.map(cache -> cache.getIfPresent(key))
+                   .orElse(null);
+  }
+
+  private boolean isFresh(CachedContent cachedContent, String eTag) {
+    if (StringUtils.isBlank(eTag) || !StringUtils.equals(eTag, cachedContent.getETag())) {
+      return false;
+    }
+    long revalidateAfter = properties.getRevalidateAfterTimeUnit().toMillis(properties.getRevalidateAfter());
+    return System.currentTimeMillis() - cachedContent.getValidatedAt() < revalidateAfter;
+  }
+
+  private Optional<InputStream> openCachedContent(String key, CachedContent cachedContent) {
+    try {
+      return Optional.of(cachedContent.openInputStream());
+    } catch (NoSuchFileException e) {
+      log.warn("cached File {} has been removed from Disk", e.getFile());
+      invalidateKey(key);
+      return Optional.empty();
+    } catch (IOException e) {
+      throw new OwncloudRestResourceException(e);
+    }
+  }
+
+  /**
+   * Store the Content into the In-Memory Tier as long as it fits into {@link ContentCacheProperties.MemoryTierProperties#getMaximumEntrySize()}.
+   * Larger Content will be spilled to Disk. Without the Disk Tier the Content won't be read any further.
+   * @return cached Content or <code>null</code> if the Content is too large to be cached
+   */
+  private CachedContent store(String key, String eTag, InputStream content) throws IOException {
+    invalidateKey(key);
+    long maximumMemoryEntrySize = properties.getMemory().getMaximumEntrySize();
+    ByteArrayOutputStream memoryContent = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int length;
+    while ((length = content.read(buffer)) >= 0) {
+      if (memoryContent.size() + length > maximumMemoryEntrySize) {
+        if (!diskTier.isPresent()) {
+          return null;
+        }
+        return storeOnDisk(key, eTag, memoryContent.toByteArray(), buffer, length, content);
+      }
+      memoryContent.write(buffer, 0, length);
+    }
+    CachedContent cachedContent = new InMemoryContent(eTag, memoryContent.toByteArray());
+    log.debug("Put Content ({} Bytes) of {} into the In-Memory Tier", cachedContent.getSize(), key);
+    memoryTier.put(key, cachedContent);
+    return cachedContent;
+  }
+
+  private CachedContent storeOnDisk(String key, String eTag, byte[] head, byte[] buffer, int length, InputStream content) throws IOException {
+    Path file = Files.createTempFile(directory, "content-", ".cache");
+    long size;
+    try (OutputStream output = Files.newOutputStream(file)) {
+      output.write(head);
+      output.write(buffer, 0, length);
+      size = head.length + length + copy(content, output, buffer);
+    } catch (IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    CachedContent cachedContent = new OnDiskContent(eTag, file, size);
+    if (size <= properties.getDisk().getMaximumEntrySize()) {
+      log.debug("Put Content ({} Bytes) of {} into the Disk Tier", size, key);
+      diskTier.get().put(key, cachedContent);
+      return cachedContent;
+    }
+    log.debug("Content ({} Bytes) of {} is too large to be cached", size, key);
+    return new UncachedContent(cachedContent);
+  }
+
+  private static long copy(InputStream input, OutputStream output, byte[] buffer) throws IOException {
+    long size = 0;
+    int length;
+    while ((length = input.read(buffer)) >= 0) {
+      output.write(buffer, 0, length);
+      size += length;
+    }
+    return size;
+  }
+
+  /**
+   * Invalidate the cached Content of the Resource and of all Resources below
+   */
+  void invalidate(String username, URI path) {
+    String key = keyOf(username, path);
+    log.debug("Invalidate cached Content of {}", key);
+    String subPathPrefix = StringUtils.endsWith(key, SLASH) ? key : key + SLASH;
+    memoryTier.asMap().keySet().removeIf(cachedKey -> isSameOrChild(cachedKey, key, subPathPrefix));
+    diskTier.ifPresent(cache -> cache.asMap().keySet().removeIf(cachedKey -> isSameOrChild(cachedKey, key, subPathPrefix)));
+  }
+
+  private boolean isSameOrChild(String cachedKey, String key, String subPathPrefix) {
+    return StringUtils.equals(cachedKey, key) || StringUtils.startsWith(cachedKey, subPathPrefix);
+  }
+
+  private void invalidateKey(String key) {
+    memoryTier.invalidate(key);
+    diskTier.ifPresent(cache -> cache.invalidate(key));
+  }
+
+  void invalidateAll() {
+    memoryTier.invalidateAll();
+    diskTier.ifPresent(Cache::invalidateAll);
+  }
+
+  CacheStats getStats() {
+    return statsCounter.snapshot();
+  }
+
+  private static String keyOf(String username, URI path) {
+    String normalizedPath = path == null ? SLASH : SLASH + StringUtils.strip(path.normalize().getPath(), SLASH);
+    return username + KEY_SEPARATOR + normalizedPath;
+  }
+
+  private abstract static class CachedContent {
+    private final String eTag;
+    private volatile long validatedAt = System.currentTimeMillis();
+
+    CachedContent(String eTag) {
+      this.eTag = eTag;
+    }
+
+    String getETag() {
+      return eTag;
+    }
+
+    long getValidatedAt() {
+      return validatedAt;
+    }
+
+    void setValidatedAt(long validatedAt) {
+      this.validatedAt = validatedAt;
+    }
+
+    abstract long getSize();
+
+    abstract InputStream openInputStream() throws IOException;
+
+    void discard() {}
+  }
+
+  private static class InMemoryContent extends CachedContent {
+    private final byte[] content;
+
+    InMemoryContent(String eTag, byte[] content) {
+      super(eTag);
+      this.content = content;
+    }
+
+    @Override
+    long getSize() {
+      return content.length;
+    }
+
+    @Override
+    InputStream openInputStream() {
+      return new ByteArrayInputStream(content);
+    }
+  }
+
+  private static class OnDiskContent extends CachedContent {
+    private final Path file;
+    private final long size;
+
+    OnDiskContent(String eTag, Path file, long size) {
+      super(eTag);
+      this.file = file;
+      this.size = size;
+    }
+
+    @Override
+    long getSize() {
+      return size;
+    }
+
+    @Override
+    InputStream openInputStream() throws IOException {
+      return Files.newInputStream(file, StandardOpenOption.READ);
+    }
+
+    @Override
+    void discard() {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        log.warn("Error while removing the cached File {}", file, e);
+      }
+    }
+  }
+
+  /**
+   * Content which is too large to be cached. The temporary File will be removed after the InputStream has been closed
+   */
+  private static class UncachedContent extends CachedContent {
+    private final CachedContent delegate;
+
+    UncachedContent(CachedContent delegate) {
+      super(delegate.getETag());
+      this.delegate = delegate;
+    }
+
+    @Override
+    long getSize() {
+      return delegate.getSize();
+    }
+
+    @Override
+    InputStream openInputStream() throws IOException {
+      return new FilterInputStream(delegate.openInputStream()) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            delegate.discard();
+          }
+        }
+      };
+    }
+  }
+}
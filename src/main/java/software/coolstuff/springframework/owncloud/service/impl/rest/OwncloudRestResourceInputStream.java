@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * InputStream of the Content of a File Resource which reads directly from the Body of the HTTP Response.
+ * <p/>
+ * Unlike the {@link PipedInputStreamRestSynchronizer} no Background Worker and no Pipe will be used.
+ * The HTTP Connection will be released when this Stream will be closed.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+class OwncloudRestResourceInputStream extends FilterInputStream {
+
+  private final ClientHttpResponse response;
+  private boolean alreadyClosed = false;
+
+  private OwncloudRestResourceInputStream(ClientHttpResponse response) throws IOException {
+    super(response.getBody());
+    this.response = response;
+  }
+
+  @Builder
+  private static InputStream open(
+      final RestTemplate restTemplate,
+      final Authentication authentication,
+      final URI uri,
+      final URI resolvedUri) {
+    ClientHttpResponse response = null;
+    try {
+      log.debug("Execute GET on {}", resolvedUri);
+      ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(resolvedUri, HttpMethod.GET);
+      OwncloudRestUtils.addAuthorizationHeader(request.getHeaders(), authentication);
+      request.getHeaders().add(HttpHeaders.CONNECTION, "keep-alive");
+      response = request.execute();
+      ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+      if (errorHandler.hasError(response)) {
+        errorHandler.handleError(resolvedUri, HttpMethod.GET, response);
+      }
+      return new OwncloudRestResourceInputStream(response);
+    } catch (RestClientException restClientException) {
+      closeQuietly(response);
+      RestClientExceptionHandlerEnvironment exceptionHandlerEnvironment =
+          RestClientExceptionHandlerEnvironment.builder()
+                                               .restClientException(restClientException)
+                                               .requestURI(uri)
+                                               .username(authentication.getName())
+                                               .build();
+      OwncloudRestUtils.handleRestClientException(exceptionHandlerEnvironment);
+      throw restClientException;
+    } catch (IOException e) {
+      closeQuietly(response);
+      throw new OwncloudRestResourceException(e);
+    }
+  }
+
+  private static void closeQuietly(ClientHttpResponse response) {
+    if (response != null) {
+      response.close();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (alreadyClosed) {
+      log.warn("InputStream has already been marked as closed");
+      return;
+    }
+    try {
+      super.close();
+    } finally {
+      alreadyClosed = true;
+      response.close();
+    }
+  }
+}
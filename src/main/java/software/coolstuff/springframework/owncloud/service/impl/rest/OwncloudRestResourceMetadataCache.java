@@ -0,0 +1,212 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import software.coolstuff.springframework.owncloud.model.OwncloudResource;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.MetadataCacheProperties;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-User Cache of the Metadata (<code>find</code> and <code>list</code>) of WebDAV Resources.
+ * <p/>
+ * Entries are keyed by the normalized Path of the Resource relative to the Root of the User.
+ * Directory Listings will be revalidated by comparing the ETag of the Directory (Depth 0 PROPFIND)
+ * with the ETag of the cached Listing.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+class OwncloudRestResourceMetadataCache {
+
+  private static final String SLASH = "/";
+
+  private final MetadataCacheProperties properties;
+  private final LoadingCache<String, UserMetadataCache> userMetadataCaches;
+  private final StatsCounter statsCounter = new SimpleStatsCounter();
+
+  OwncloudRestResourceMetadataCache(MetadataCacheProperties properties) {
+    this.properties = properties;
+    this.userMetadataCaches = CacheBuilder.newBuilder()
+                                          .expireAfterAccess(properties.getTimeToLive(), properties.getTimeToLiveTimeUnit())
+                                          .build(CacheLoader.from(username -> new UserMetadataCache()));
+  }
+
+  Optional<OwncloudResource> find(String username, URI path, Supplier<Optional<OwncloudResource>> loader) {
+    String key = keyOf(path);
+    UserMetadataCache userMetadataCache = userMetadataCaches.getUnchecked(username);
+    Optional<OwncloudResource> cachedResource = userMetadataCache.resources.getIfPresent(key);
+    if (cachedResource != null) {
+      log.debug("Found Metadata of Resource {} of User {} within the Cache", key, username);
+      statsCounter.recordHits(1);
+      return cachedResource;
+    }
+    statsCounter.recordMisses(1);
+    long generation = userMetadataCache.generation.get();
+    Optional<OwncloudResource> resource = loader.get();
+    if (generation == userMetadataCache.generation.get()) {
+      log.debug("Put Metadata of Resource {} of User {} into the Cache", key, username);
+      userMetadataCache.resources.put(key, resource);
+    }
+    return resource;
+  }
+
+  List<OwncloudResource> list(String username, URI directory, Supplier<Optional<String>> eTagLoader, Supplier<List<OwncloudResource>> loader) {
+    String key = keyOf(directory);
+    UserMetadataCache userMetadataCache = userMetadataCaches.getUnchecked(username);
+    long generation = userMetadataCache.generation.get();
+    DirectoryListing cachedListing = userMetadataCache.listings.getIfPresent(key);
+    if (cachedListing != null) {
+      if (isFresh(cachedListing)) {
+        log.debug("Found Listing of Directory {} of User {} within the Cache", key, username);
+        statsCounter.recordHits(1);
+        return new ArrayList<>(cachedListing.getResources());
+      }
+      if (isRevalidatedByETag(cachedListing, eTagLoader)) {
+        log.debug("Listing of Directory {} of User {} has been revalidated by ETag {}", key, username, cachedListing.getETag());
+        statsCounter.recordHits(1);
+        if (generation == userMetadataCache.generation.get()) {
+          userMetadataCache.listings.put(key, new DirectoryListing(cachedListing.getETag(), cachedListing.getResources(), System.currentTimeMillis()));
+        }
+        return new ArrayList<>(cachedListing.getResources());
+      }
+    }
+    statsCounter.recordMisses(1);
+    List<OwncloudResource> resources = loader.get();
+    if (generation == userMetadataCache.generation.get()) {
+      log.debug("Put Listing of Directory {} of User {} into the Cache", key, username);
+      userMetadataCache.listings.put(key, new DirectoryListing(getETagOfDirectory(key, resources), new ArrayList<>(resources), System.currentTimeMillis()));
+    }
+    return resources;
+  }
+
+  private boolean isFresh(DirectoryListing listing) {
+    long revalidateAfter = properties.getRevalidateAfterTimeUnit().toMillis(properties.getRevalidateAfter());
+    return System.currentTimeMillis() - listing.getValidatedAt() < revalidateAfter;
+  }
+
+  private boolean isRevalidatedByETag(DirectoryListing listing, Supplier<Optional<String>> eTagLoader) {
+    if (StringUtils.isBlank(listing.getETag())) {
+      return false;
+    }
+    return eTagLoader.get()
+                     .filter(eTag -> StringUtils.equals(eTag, listing.getETag()))
+                     .isPresent();
+  }
+
+  private String getETagOfDirectory(String key, List<OwncloudResource> resources) {
+    return resources.stream()
+                    .filter(resource -> StringUtils.equals(keyOf(resource.getHref()), key))
+                    .map(OwncloudResource::getETag)
+                    .findFirst()
+                    .orElse(null);
+  }
+
+  /**
+   * Invalidate the Resource, all Resources below and all Parent Directories
+   * (because the ETag of all Parent Directories will be changed by the Server)
+   */
+  void invalidate(String username, URI path) {
+    UserMetadataCache userMetadataCache = userMetadataCaches.getIfPresent(username);
+    if (userMetadataCache == null) {
+      return;
+    }
+    String key = keyOf(path);
+    log.debug("Invalidate cached Metadata of Resource {} of User {}", key, username);
+    userMetadataCache.generation.incrementAndGet();
+    String subPathPrefix = SLASH.equals(key) ? SLASH : key + SLASH;
+    userMetadataCache.resources.asMap().keySet().removeIf(cachedKey -> isSameOrParentOrChild(cachedKey, key, subPathPrefix));
+    userMetadataCache.listings.asMap().keySet().removeIf(cachedKey -> isSameOrParentOrChild(cachedKey, key, subPathPrefix));
+  }
+
+  private boolean isSameOrParentOrChild(String cachedKey, String key, String subPathPrefix) {
+    return StringUtils.equals(cachedKey, key)
+        || StringUtils.startsWith(cachedKey, subPathPrefix)
+        || SLASH.equals(cachedKey)
+        || StringUtils.startsWith(key, cachedKey + SLASH);
+  }
+
+  void invalidateAll() {
+    userMetadataCaches.asMap().values().forEach(userMetadataCache -> {
+      userMetadataCache.generation.incrementAndGet();
+      userMetadataCache.resources.invalidateAll();
+      userMetadataCache.listings.invalidateAll();
+    });
+  }
+
+  CacheStats getStats() {
+    return statsCounter.snapshot();
+  }
+
+  private static String keyOf(URI path) {
+    if (path == null) {
+      return SLASH;
+    }
+    return SLASH + StringUtils.strip(path.normalize().getPath(), SLASH);
+  }
+
+  private class UserMetadataCache {
+    private final Cache<String, Optional<OwncloudResource>> resources = buildCache();
+    private final Cache<String, DirectoryListing> listings = buildCache();
+    private final AtomicLong generation = new AtomicLong();
+
+    private <V> Cache<String, V> buildCache() {
+      return CacheBuilder.newBuilder()
+                         .<String, V>removalListener(this::onRemoval)
+                         .expireAfterWrite(properties.getTimeToLive(), properties.getTimeToLiveTimeUnit())
+                         .maximumSize(properties.getMaximumSizePerUser())
+                         .build();
+    }
+
+    private void onRemoval(RemovalNotification<?, ?> notification) {
+      if (notification.wasEvicted()) {
+        statsCounter.recordEviction();
+      }
+    }
+  }
+
+  @RequiredArgsConstructor
+  @Getter
+  private static class DirectoryListing {
+    private final String eTag;
+    private final List<OwncloudResource> resources;
+    private final long validatedAt;
+  }
+}
@@ -0,0 +1,50 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.CacheStats;
+import software.coolstuff.springframework.owncloud.service.api.OwncloudResourceService;
+
+/**
+ * Extensions of {@link OwncloudResourceService} for the REST Service
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+public interface OwncloudRestResourceServiceExtension extends OwncloudResourceService {
+
+  /**
+   * Get the Hit/Miss Statistics of the Metadata Cache
+   * (configured by <code>owncloud.resource-service.metadata-cache.*</code>)
+   * @return Statistics of the Metadata Cache (all Values are <code>0</code> when the Cache is disabled)
+   */
+  CacheStats getMetadataCacheStats();
+
+  /**
+   * Get the Hit/Miss Statistics of the Content Cache
+   * (configured by <code>owncloud.resource-service.content-cache.*</code>).
+   * Revalidations answered by <code>304 Not Modified</code> count as Hits.
+   * @return Statistics of the Content Cache (all Values are <code>0</code> when the Cache is disabled)
+   */
+  CacheStats getContentCacheStats();
+
+}
@@ -25,6 +25,7 @@ import com.github.sardine.DavResource;
 import com.github.sardine.Sardine;
 import com.github.sardine.impl.SardineException;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 import lombok.Builder;
@@ -50,27 +51,36 @@ import software.coolstuff.springframework.owncloud.exception.resource.*;
 import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
 import software.coolstuff.springframework.owncloud.model.OwncloudQuota;
 import software.coolstuff.springframework.owncloud.model.OwncloudResource;
-import software.coolstuff.springframework.owncloud.service.api.OwncloudResourceService;
+import software.coolstuff.springframework.owncloud.model.OwncloudTransferResult;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudResourceBatchTransfer;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudUtils;
 import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.CacheProperties;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestResourceContentCache.ContentReceiver;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 @Slf4j
-public class OwncloudRestResourceServiceImpl implements OwncloudResourceService, OwncloudRestService, OwncloudResolveRootUriService {
+public class OwncloudRestResourceServiceImpl implements OwncloudRestResourceServiceExtension, OwncloudRestService, OwncloudResolveRootUriService {
 
   private static final String URI_SUFFIX = "/remote.php/dav/files/{username}/";
+  private static final String UPLOADS_URI_SUFFIX = "/remote.php/dav/uploads/{username}/";
   private static final String SLASH = "/";
   private static final String QUOTE = "\"";
 
@@ -78,24 +88,33 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
   private final OwncloudRestProperties properties;
   private final SardineCacheLoader sardineCacheLoader;
   private final OwncloudRestUserServiceExtension userService;
+  private final Executor pipedStreamExecutor;
   private final String rootUri;
+  private final String uploadsRootUri;
 
   private LoadingCache<String, Sardine> sardineCache;
+  private Optional<OwncloudRestResourceMetadataCache> metadataCache = Optional.empty();
+  private Optional<OwncloudRestResourceContentCache> contentCache = Optional.empty();
+  private final AtomicBoolean depthInfinityRejected = new AtomicBoolean();
 
   public OwncloudRestResourceServiceImpl(
       final RestTemplateBuilder builder,
       final OwncloudRestProperties properties,
       final SardineCacheLoader sardineCacheLoader,
-      final OwncloudRestUserServiceExtension userService) throws MalformedURLException {
+      final OwncloudRestUserServiceExtension userService,
+      final Executor pipedStreamExecutor,
+      final OwncloudRestConnectionPool connectionPool) throws MalformedURLException {
     this.properties = properties;
     this.sardineCacheLoader = sardineCacheLoader;
     this.userService = userService;
+    this.pipedStreamExecutor = pipedStreamExecutor;
 
     URL locationURL = OwncloudRestUtils.checkAndConvertLocation(properties.getLocation());
     this.rootUri = appendOptionalSuffix(locationURL, URI_SUFFIX);
+    this.uploadsRootUri = appendOptionalSuffix(locationURL, UPLOADS_URI_SUFFIX);
     log.debug("Build the RestTemplate based on Root URI {}", rootUri);
     restTemplate = builder
-        .requestFactory(HttpComponentsClientHttpRequestFactory.class)
+        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(connectionPool.getRestHttpClient()))
         .messageConverters(new ByteArrayHttpMessageConverter())
         .rootUri(rootUri)
         .build();
@@ -117,6 +136,24 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
   public void afterPropertiesSet() throws Exception {
     log.debug("Build the Sardine Cache");
     this.sardineCache = buildSardineCache();
+    val metadataCacheProperties = properties.getResourceService().getMetadataCache();
+    if (metadataCacheProperties.isEnabled()) {
+      log.debug("Build the Metadata Cache");
+      this.metadataCache = Optional.of(new OwncloudRestResourceMetadataCache(metadataCacheProperties));
+    }
+    val contentCacheProperties = properties.getResourceService().getContentCache();
+    if (contentCacheProperties.isEnabled()) {
+      log.debug("Build the Content Cache");
+      this.contentCache = Optional.of(new OwncloudRestResourceContentCache(contentCacheProperties));
+    }
+  }
+
+  @PreDestroy
+  public void destroy() throws Exception {
+    if (contentCache.isPresent()) {
+      log.debug("Remove the Content Cache");
+      contentCache.get().destroy();
+    }
   }
 
   protected LoadingCache<String, Sardine> buildSardineCache() {
@@ -146,9 +183,40 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
     return builder.build(sardineCacheLoader);
   }
 
+  @Override
+  public CacheStats getMetadataCacheStats() {
+    return metadataCache
+        .map(OwncloudRestResourceMetadataCache::getStats)
+        .orElseGet(() -> new CacheStats(0, 0, 0, 0, 0, 0));
+  }
+
+  @Override
+  public CacheStats getContentCacheStats() {
+    return contentCache
+        .map(OwncloudRestResourceContentCache::getStats)
+        .orElseGet(() -> new CacheStats(0, 0, 0, 0, 0, 0));
+  }
+
+  private void invalidateCaches(String username, URI path) {
+    metadataCache.ifPresent(cache -> cache.invalidate(username, path));
+    contentCache.ifPresent(cache -> cache.invalidate(username, path));
+  }
+
   @Override
   public List<OwncloudResource> list(URI relativeTo) {
     URI searchPath = resolveAsDirectoryURI(relativeTo);
+    if (metadataCache.isPresent()) {
+      Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+      return metadataCache.get().list(
+          authentication.getName(),
+          relativeTo,
+          () -> findOwncloudResource(relativeTo).map(OwncloudResource::getETag),
+          () -> listOwncloudResources(searchPath));
+    }
+    return listOwncloudResources(searchPath);
+  }
+
+  private List<OwncloudResource> listOwncloudResources(URI searchPath) {
     try {
       return listAllOwncloudResourcesOf(searchPath);
     } catch (SardineException e) {
@@ -377,8 +445,40 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
     throw new OwncloudRestResourceException("Unmapped returned HTTP-Status " + statusCode, sardineException);
   }
 
+  @Override
+  public Stream<OwncloudResource> walk(URI start, int maxDepth) {
+    Validate.isTrue(maxDepth >= 0, "maxDepth must not be negative");
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    URI searchPath = resolveAsDirectoryURI(start);
+    val conversionProperties =
+        OwncloudResourceConversionProperties.builder()
+                                            .rootPath(getUserRoot())
+                                            .searchPath(searchPath)
+                                            .build();
+    OwncloudRestResourceWalker walker =
+        OwncloudRestResourceWalker.builder()
+                                  .sardine(getSardine())
+                                  .start(start)
+                                  .searchPath(searchPath)
+                                  .username(authentication.getName())
+                                  .maxDepth(maxDepth)
+                                  .properties(properties.getResourceService().getWalk())
+                                  .depthInfinityRejected(depthInfinityRejected)
+                                  .converter(davResource -> createOwncloudResourceFrom(davResource, conversionProperties))
+                                  .build();
+    return walker.walk();
+  }
+
   @Override
   public Optional<OwncloudResource> find(URI path) {
+    if (metadataCache.isPresent()) {
+      Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+      return metadataCache.get().find(authentication.getName(), path, () -> findOwncloudResource(path));
+    }
+    return findOwncloudResource(path);
+  }
+
+  private Optional<OwncloudResource> findOwncloudResource(URI path) {
     URI searchPath = resolveAsDirectoryURI(path);
     try {
       return findOwncloudResourceOn(searchPath);
@@ -424,6 +524,8 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
     URI directoryURI = resolveAsDirectoryURI(directory);
     try {
       getSardine().createDirectory(directoryURI.toString());
+      Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+      invalidateCaches(authentication.getName(), directory);
       return find(directory).orElse(null);
     } catch (SardineException e) {
       SardineExceptionHandlerEnvironment handlerEnvironment =
@@ -455,6 +557,8 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
                                                .username(authentication.getName())
                                                .build();
       OwncloudRestUtils.handleRestClientException(exceptionHandlerEnvironment);
+    } finally {
+      invalidateCaches(authentication.getName(), resource.getHref());
     }
   }
 
@@ -477,6 +581,23 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
   @Override
   public InputStream getInputStream(OwncloudFileResource resource) {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (contentCache.isPresent() && contentCache.get().isCacheable(resource)) {
+      Optional<InputStream> cachedContent = contentCache.get().getInputStream(
+          authentication.getName(),
+          resource,
+          (ifNoneMatch, receiver) -> loadContent(authentication, resource, ifNoneMatch, receiver));
+      if (cachedContent.isPresent()) {
+        return cachedContent.get();
+      }
+    }
+    if (properties.getResourceService().isDirectDownload()) {
+      return OwncloudRestResourceInputStream.builder()
+                                            .restTemplate(restTemplate)
+                                            .authentication(authentication)
+                                            .uri(resource.getHref())
+                                            .resolvedUri(resolveAsFileURI(resource.getHref(), authentication.getName()))
+                                            .build();
+    }
     PipedInputStreamRestSynchronizer pipedInputStreamSynchronizer =
         PipedInputStreamRestSynchronizer.build()
                                         .authentication(authentication)
@@ -484,14 +605,75 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
                                         .restOperations(restTemplate)
                                         .uri(resource.getHref())
                                         .uriResolver(this::resolveAsFileURI)
+                                        .executor(pipedStreamExecutor)
                                         .build();
     return pipedInputStreamSynchronizer.getInputStream();
   }
 
+  @Override
+  public SeekableByteChannel openChannel(OwncloudFileResource resource) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return OwncloudRestResourceChannel.builder()
+                                      .restOperations(restTemplate)
+                                      .authentication(authentication)
+                                      .resource(resource)
+                                      .resolvedUri(resolveAsFileURI(resource.getHref(), authentication.getName()))
+                                      .properties(properties.getResourceService().getChannel())
+                                      .build();
+  }
+
+  private boolean loadContent(Authentication authentication, OwncloudFileResource resource, Optional<String> ifNoneMatch, ContentReceiver receiver) {
+    URI resolvedUri = resolveAsFileURI(resource.getHref(), authentication.getName());
+    try {
+      Boolean modified = restTemplate.execute(
+          resolvedUri,
+          HttpMethod.GET,
+          clientHttpRequest -> {
+            createRestCallback(clientHttpRequest, authentication);
+            ifNoneMatch.ifPresent(eTag -> clientHttpRequest.getHeaders().setIfNoneMatch(QUOTE + eTag + QUOTE));
+          },
+          response -> {
+            if (response.getRawStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+              return false;
+            }
+            receiver.receive(StringUtils.strip(response.getHeaders().getETag(), QUOTE), response.getBody());
+            return true;
+          });
+      return Boolean.TRUE.equals(modified);
+    } catch (RestClientException restClientException) {
+      RestClientExceptionHandlerEnvironment exceptionHandlerEnvironment =
+          RestClientExceptionHandlerEnvironment.builder()
+                                               .restClientException(restClientException)
+                                               .requestURI(resource.getHref())
+                                               .username(authentication.getName())
+                                               .build();
+      OwncloudRestUtils.handleRestClientException(exceptionHandlerEnvironment);
+      return false;
+    }
+  }
+
   @Override
   public OutputStream getOutputStream(OwncloudFileResource resource) {
     checkOwncloudFileResource(resource);
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    val chunkedUploadProperties = properties.getResourceService().getChunkedUpload();
+    if (chunkedUploadProperties.isEnabled()) {
+      return OwncloudRestChunkedUploadOutputStream.builder()
+                                                  .sardine(getSardine())
+                                                  .uri(resource.getHref())
+                                                  .username(authentication.getName())
+                                                  .uploadUri(getResolvedUploadUri(authentication.getName()))
+                                                  .destinationUri(resolveAsFileURI(resource.getHref(), authentication.getName()))
+                                                  .properties(chunkedUploadProperties)
+                                                  .singleUploadSupplier(() -> createPipedOutputStream(resource, authentication, null))
+                                                  .afterCloseCallback(uri -> invalidateCaches(authentication.getName(), uri))
+                                                  .executor(pipedStreamExecutor)
+                                                  .build();
+    }
+    return createPipedOutputStream(resource, authentication, uri -> invalidateCaches(authentication.getName(), uri));
+  }
+
+  private OutputStream createPipedOutputStream(OwncloudFileResource resource, Authentication authentication, Consumer<URI> afterCloseCallback) {
     PipedOutputStreamRestSynchronizer pipedOutputStreamSynchronizer =
         PipedOutputStreamRestSynchronizer.builder()
                                          .authentication(authentication)
@@ -500,10 +682,18 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
                                          .restOperations(restTemplate)
                                          .uri(resource.getHref())
                                          .uriResolver(this::resolveAsFileURI)
+                                         .afterCloseCallback(afterCloseCallback)
+                                         .executor(pipedStreamExecutor)
                                          .build();
     return pipedOutputStreamSynchronizer.getOutputStream();
   }
 
+  private URI getResolvedUploadUri(String username) {
+    String transferId = "owncloud-spring-" + UUID.randomUUID();
+    log.debug("Get URI of the Upload Collection {} of User {}", transferId, username);
+    return URI.create(StringUtils.replace(uploadsRootUri, "{username}", username) + transferId);
+  }
+
   private void checkOwncloudFileResource(OwncloudFileResource resource) {
     Validate.notNull(resource);
     Validate.notNull(resource.getHref());
@@ -534,6 +724,38 @@ public class OwncloudRestResourceServiceImpl implements OwncloudResourceService,
     return getOutputStream(resource);
   }
 
+  @Override
+  public List<OwncloudTransferResult> uploadAll(Map<URI, Path> files) {
+    return createBatchTransfer().uploadAll(files);
+  }
+
+  @Override
+  public List<OwncloudTransferResult> downloadAll(Collection<OwncloudFileResource> resources, Path targetDirectory) {
+    return createBatchTransfer().downloadAll(resources, targetDirectory);
+  }
+
+  private OwncloudResourceBatchTransfer createBatchTransfer() {
+    return OwncloudResourceBatchTransfer.builder()
+                                        .resourceService(this)
+                                        .properties(properties.getResourceService())
+                                        .downloader(this::openDirectInputStream)
+                                        .build();
+  }
+
+  /**
+   * Download the Content by the Thread of the Batch Transfer
+   * (without an additional Background Worker of the PipedStream-Synchronizer)
+   */
+  private InputStream openDirectInputStream(OwncloudFileResource resource) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return OwncloudRestResourceInputStream.builder()
+                                          .restTemplate(restTemplate)
+                                          .authentication(authentication)
+                                          .uri(resource.getHref())
+                                          .resolvedUri(resolveAsFileURI(resource.getHref(), authentication.getName()))
+                                          .build();
+  }
+
   @Override
   public OwncloudQuota getQuota() {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
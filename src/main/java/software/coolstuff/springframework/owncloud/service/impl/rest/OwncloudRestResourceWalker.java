@@ -0,0 +1,317 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.Sardine;
+import com.github.sardine.impl.SardineException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceNotFoundException;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+import software.coolstuff.springframework.owncloud.model.OwncloudResource;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.WalkProperties;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks the Tree of WebDAV Resources.
+ * <p/>
+ * First a PROPFIND with <code>Depth: infinity</code> will be tried. When the Server doesn't allow
+ * this (or silently downgrades the Depth to 1) the Tree will be crawled breadth-first
+ * by parallel PROPFIND Requests with <code>Depth: 1</code>.
+ * <p/>
+ * With a {@link OwncloudRestSardine} the Response of the PROPFIND with <code>Depth: infinity</code>
+ * will be read while the Stream is being consumed. Only the Resources up to the first Resource
+ * below the first Level will be buffered to decide whether the Server has returned the whole Tree.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+class OwncloudRestResourceWalker {
+
+  private static final int DEPTH_INFINITY = -1;
+  private static final String SLASH = "/";
+
+  private final Sardine sardine;
+  private final URI start;
+  private final URI searchPath;
+  private final String username;
+  private final int maxDepth;
+  private final WalkProperties properties;
+  private final AtomicBoolean depthInfinityRejected;
+  private final Function<DavResource, OwncloudResource> converter;
+
+  @Builder
+  private OwncloudRestResourceWalker(
+      final Sardine sardine,
+      final URI start,
+      final URI searchPath,
+      final String username,
+      final int maxDepth,
+      final WalkProperties properties,
+      final AtomicBoolean depthInfinityRejected,
+      final Function<DavResource, OwncloudResource> converter) {
+    this.sardine = sardine;
+    this.start = start;
+    this.searchPath = searchPath;
+    this.username = username;
+    this.maxDepth = maxDepth;
+    this.properties = properties;
+    this.depthInfinityRejected = depthInfinityRejected;
+    this.converter = converter;
+  }
+
+  Stream<OwncloudResource> walk() {
+    if (maxDepth == 0) {
+      return listStart(0).stream()
+                         .map(converter);
+    }
+    List<DavResource> davResources = null;
+    Iterator<DavResource> tree = isDepthInfinityAllowed() ? listStartWithDepthInfinity() : null;
+    if (tree != null) {
+      davResources = new ArrayList<>();
+      while (tree.hasNext()) {
+        DavResource davResource = tree.next();
+        davResources.add(davResource);
+        if (depthOf(davResource) > 1) {
+          log.debug("Get the whole Tree of {} by a PROPFIND with Depth infinity", searchPath);
+          return streamWholeTree(davResources, tree);
+        }
+      }
+      // the Server silently downgraded the Depth to 1
+      close(tree);
+    }
+    if (davResources == null) {
+      davResources = listStart(1);
+    }
+    log.debug("Crawl the Tree of {} Directory by Directory with a Parallelism of {}", searchPath, properties.getParallelism());
+    CrawlingIterator crawlingIterator = new CrawlingIterator(davResources);
+    Spliterator<OwncloudResource> spliterator = Spliterators.spliteratorUnknownSize(crawlingIterator, Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false)
+                        .onClose(crawlingIterator::close);
+  }
+
+  private boolean isDepthInfinityAllowed() {
+    return properties.isDepthInfinityEnabled() && !depthInfinityRejected.get() && maxDepth > 1;
+  }
+
+  private Iterator<DavResource> listStartWithDepthInfinity() {
+    try {
+      log.debug("Try to get the whole Tree of {} by a PROPFIND with Depth infinity", searchPath);
+      if (sardine instanceof OwncloudRestSardine) {
+        return ((OwncloudRestSardine) sardine).iterate(searchPath.toString(), DEPTH_INFINITY);
+      }
+      return sardine.list(searchPath.toString(), DEPTH_INFINITY).iterator();
+    } catch (SardineException e) {
+      if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+        throw new OwncloudResourceNotFoundException(start, username);
+      }
+      if (isDepthInfinityRejection(e.getStatusCode())) {
+        log.info("PROPFIND with Depth infinity has been rejected by the Server (HTTP-Status {}). Crawl the Tree Directory by Directory", e.getStatusCode());
+        depthInfinityRejected.set(true);
+        return null;
+      }
+      throw new OwncloudRestResourceException("Unmapped returned HTTP-Status " + e.getStatusCode(), e);
+    } catch (IOException e) {
+      throw new OwncloudRestResourceException(e);
+    }
+  }
+
+  /**
+   * RFC 4918 lets the Server reject <code>Depth: infinity</code> by <code>403 Forbidden</code>
+   * (Precondition <code>propfind-finite-depth</code>). Some Servers answer with <code>501 Not Implemented</code>.
+   * Any other Error (i.E. a temporary <code>503</code>) won't disable the PROPFIND with Depth infinity.
+   */
+  private static boolean isDepthInfinityRejection(int statusCode) {
+    return statusCode == HttpStatus.SC_FORBIDDEN || statusCode == HttpStatus.SC_NOT_IMPLEMENTED;
+  }
+
+  private Stream<OwncloudResource> streamWholeTree(List<DavResource> bufferedResources, Iterator<DavResource> tree) {
+    Spliterator<DavResource> spliterator = Spliterators.spliteratorUnknownSize(tree, Spliterator.NONNULL);
+    return Stream.concat(bufferedResources.stream(), StreamSupport.stream(spliterator, false))
+                 .filter(davResource -> depthOf(davResource) <= maxDepth)
+                 .map(converter)
+                 .onClose(() -> close(tree));
+  }
+
+  private static void close(Iterator<DavResource> tree) {
+    if (tree instanceof Closeable) {
+      try {
+        ((Closeable) tree).close();
+      } catch (IOException e) {
+        log.warn("Error while closing the PROPFIND Response", e);
+      }
+    }
+  }
+
+  private List<DavResource> listStart(int depth) {
+    try {
+      return sardine.list(searchPath.toString(), depth);
+    } catch (SardineException e) {
+      if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+        throw new OwncloudResourceNotFoundException(start, username);
+      }
+      throw new OwncloudRestResourceException("Unmapped returned HTTP-Status " + e.getStatusCode(), e);
+    } catch (IOException e) {
+      throw new OwncloudRestResourceException(e);
+    }
+  }
+
+  private int depthOf(DavResource davResource) {
+    return depthOf(davResource.getHref().getPath(), searchPath.getPath());
+  }
+
+  private static int depthOf(String path, String basePath) {
+    String relativePath = StringUtils.strip(StringUtils.removeStart(path, StringUtils.removeEnd(basePath, SLASH)), SLASH);
+    if (StringUtils.isEmpty(relativePath)) {
+      return 0;
+    }
+    return StringUtils.countMatches(relativePath, SLASH) + 1;
+  }
+
+  @RequiredArgsConstructor
+  private static class PendingDirectory {
+    private final URI uri;
+    private final int depth;
+  }
+
+  private class CrawlingIterator implements Iterator<OwncloudResource> {
+
+    private final Deque<DavResource> davResources = new ArrayDeque<>();
+    private final Deque<PendingDirectory> pendingDirectories = new ArrayDeque<>();
+    private final ExecutorService executorService;
+    private final CompletionService<List<DavResource>> completionService;
+    private int runningListings = 0;
+
+    private CrawlingIterator(List<DavResource> startResources) {
+      ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+          properties.getParallelism(),
+          properties.getParallelism(),
+          10,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(),
+          new ThreadFactoryBuilder().setNameFormat("owncloud-walk-" + username + "-%d")
+                                    .setDaemon(true)
+                                    .build());
+      threadPoolExecutor.allowCoreThreadTimeOut(true);
+      this.executorService = threadPoolExecutor;
+      this.completionService = new ExecutorCompletionService<>(executorService);
+      addListedResources(startResources);
+    }
+
+    private void addListedResources(List<DavResource> listedResources) {
+      for (DavResource davResource : listedResources) {
+        davResources.add(davResource);
+        int depth = depthOf(davResource);
+        if (davResource.isDirectory() && depth > 0 && depth < maxDepth) {
+          URI directory = searchPath.resolve(davResource.getHref());
+          pendingDirectories.add(new PendingDirectory(directory, depth));
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (davResources.isEmpty()) {
+        submitPendingDirectories();
+        if (runningListings == 0) {
+          close();
+          return false;
+        }
+        addListedResources(takeNextListing());
+      }
+      return true;
+    }
+
+    private void submitPendingDirectories() {
+      while (runningListings < properties.getParallelism() && !pendingDirectories.isEmpty()) {
+        PendingDirectory pendingDirectory = pendingDirectories.poll();
+        completionService.submit(() -> listChildrenOf(pendingDirectory));
+        runningListings++;
+      }
+    }
+
+    private List<DavResource> listChildrenOf(PendingDirectory directory) throws IOException {
+      log.debug("Get the List of WebDAV Resources based by URI {}", directory.uri);
+      try {
+        List<DavResource> children = new ArrayList<>();
+        for (DavResource davResource : sardine.list(directory.uri.toString(), 1)) {
+          if (depthOf(davResource.getHref().getPath(), directory.uri.getPath()) > 0) {
+            children.add(davResource);
+          }
+        }
+        return children;
+      } catch (SardineException e) {
+        if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+          log.debug("Directory {} has been removed while crawling the Tree", directory.uri);
+          return Collections.emptyList();
+        }
+        throw e;
+      }
+    }
+
+    private List<DavResource> takeNextListing() {
+      try {
+        Future<List<DavResource>> listing = completionService.take();
+        runningListings--;
+        return listing.get();
+      } catch (InterruptedException e) {
+        close();
+        Thread.currentThread().interrupt();
+        throw new OwncloudRestResourceException(e);
+      } catch (ExecutionException e) {
+        close();
+        if (e.getCause() instanceof SardineException) {
+          SardineException sardineException = (SardineException) e.getCause();
+          throw new OwncloudRestResourceException("Unmapped returned HTTP-Status " + sardineException.getStatusCode(), sardineException);
+        }
+        throw new OwncloudRestResourceException(e.getCause());
+      }
+    }
+
+    @Override
+    public OwncloudResource next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return converter.apply(davResources.poll());
+    }
+
+    private void close() {
+      executorService.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.impl.SardineException;
+import com.github.sardine.impl.SardineImpl;
+import com.github.sardine.impl.methods.HttpPropFind;
+import com.github.sardine.model.Allprop;
+import com.github.sardine.model.ObjectFactory;
+import com.github.sardine.model.Propfind;
+import com.github.sardine.model.Response;
+import com.github.sardine.util.SardineUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sardine Implementation which is able to read the Multistatus Response
+ * of a PROPFIND Request Resource by Resource.
+ * <p/>
+ * {@link SardineImpl#list(String, int)} unmarshals the whole Response into a List.
+ * For a PROPFIND with <code>Depth: infinity</code> this List may hold the whole Tree
+ * of the User. {@link #iterate(String, int)} parses one <code>&lt;d:response&gt;</code>
+ * Element after the other while the Caller consumes the Resources.
+ * <p/>
+ * The Sardine Implementation of a User will be used by concurrent Requests (i.e. the parallel Chunks
+ * of a chunked Upload). Because the {@link HttpClientContext} of {@link SardineImpl} isn&apos;t thread-safe
+ * every Request will be executed with its own Context. Only the Credentials and the Auth Cache
+ * of the preemptive Authentication will be shared.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+class OwncloudRestSardine extends SardineImpl {
+
+  private static final String DAV_NAMESPACE = "DAV:";
+  private static final String RESPONSE_ELEMENT = "response";
+  private static final int DEPTH_INFINITY = -1;
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+  private static final JAXBContext JAXB_CONTEXT = createJAXBContext();
+
+  OwncloudRestSardine(String username, String password) {
+    super(username, password);
+  }
+
+  OwncloudRestSardine(HttpClientBuilder builder, String username, String password) {
+    super(builder, username, password);
+  }
+
+  @Override
+  protected <T> T execute(HttpRequestBase request, ResponseHandler<T> responseHandler) throws IOException {
+    return execute(createRequestContext(), request, responseHandler);
+  }
+
+  @Override
+  protected HttpResponse execute(HttpRequestBase request) throws IOException {
+    return execute(createRequestContext(), request, null);
+  }
+
+  private HttpClientContext createRequestContext() {
+    HttpClientContext requestContext = HttpClientContext.create();
+    requestContext.setCredentialsProvider(context.getCredentialsProvider());
+    requestContext.setAuthCache(context.getAuthCache());
+    return requestContext;
+  }
+
+  private static XMLInputFactory createXMLInputFactory() {
+    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return xmlInputFactory;
+  }
+
+  private static JAXBContext createJAXBContext() {
+    try {
+      return JAXBContext.newInstance(ObjectFactory.class);
+    } catch (JAXBException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Execute a PROPFIND Request and read the Resources of the Multistatus Response lazily.
+   * <p/>
+   * The Connection will be held until the returned Iterator has been closed.
+   * @param url URL of the Resource
+   * @param depth Depth of the PROPFIND Request (<code>-1</code> for <code>Depth: infinity</code>)
+   * @return Iterator of the Resources (must be closed after Usage)
+   * @throws SardineException Server responded with a non-successful HTTP-Status
+   * @throws IOException Error while executing the Request
+   */
+  DavResourceIterator iterate(String url, int depth) throws IOException {
+    Propfind body = new Propfind();
+    body.setAllprop(new Allprop());
+    HttpPropFind propFind = new HttpPropFind(url);
+    propFind.setDepth(depth == DEPTH_INFINITY ? "infinity" : Integer.toString(depth));
+    propFind.setEntity(new StringEntity(SardineUtil.toXml(body), StandardCharsets.UTF_8));
+    HttpResponse response = execute(propFind);
+    StatusLine statusLine = response.getStatusLine();
+    if (statusLine.getStatusCode() < 200 || statusLine.getStatusCode() >= 300) {
+      release(response);
+      throw new SardineException("Unexpected response", statusLine.getStatusCode(), statusLine.getReasonPhrase());
+    }
+    try {
+      return new DavResourceIterator(response);
+    } catch (IOException | RuntimeException e) {
+      release(response);
+      throw e;
+    }
+  }
+
+  private static void release(HttpResponse response) {
+    EntityUtils.consumeQuietly(response.getEntity());
+    if (response instanceof Closeable) {
+      try {
+        ((Closeable) response).close();
+      } catch (IOException e) {
+        log.warn("Error while closing the Response", e);
+      }
+    }
+  }
+
+  /**
+   * Iterator over the <code>&lt;d:response&gt;</code> Elements of a Multistatus Response.
+   * <p/>
+   * Closing the Iterator before all Resources have been read will abort the Connection.
+   */
+  static class DavResourceIterator implements Iterator<DavResource>, Closeable {
+
+    private final HttpResponse response;
+    private final XMLStreamReader xmlStreamReader;
+    private final Unmarshaller unmarshaller;
+    private DavResource next;
+    private boolean closed;
+
+    private DavResourceIterator(HttpResponse response) throws IOException {
+      this.response = response;
+      HttpEntity entity = response.getEntity();
+      if (entity == null) {
+        throw new IOException("PROPFIND Response without Content");
+      }
+      try {
+        this.xmlStreamReader = XML_INPUT_FACTORY.createXMLStreamReader(entity.getContent());
+        this.unmarshaller = JAXB_CONTEXT.createUnmarshaller();
+      } catch (XMLStreamException | JAXBException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && !closed) {
+        Response davResponse = readNextResponse();
+        if (davResponse == null) {
+          // drain the Rest of the Response to let the Connection be reused
+          EntityUtils.consumeQuietly(response.getEntity());
+          close();
+          return false;
+        }
+        try {
+          next = new DavResource(davResponse);
+        } catch (URISyntaxException e) {
+          log.warn("Ignore Resource with invalid URI {}", davResponse.getHref());
+        }
+      }
+      return next != null;
+    }
+
+    private Response readNextResponse() {
+      try {
+        while (xmlStreamReader.hasNext()) {
+          if (xmlStreamReader.getEventType() == XMLStreamConstants.START_ELEMENT
+              && DAV_NAMESPACE.equals(xmlStreamReader.getNamespaceURI())
+              && RESPONSE_ELEMENT.equals(xmlStreamReader.getLocalName())) {
+            // the Unmarshaller leaves the Reader behind the End Element
+            return unmarshaller.unmarshal(xmlStreamReader, Response.class).getValue();
+          }
+          xmlStreamReader.next();
+        }
+        return null;
+      } catch (XMLStreamException | JAXBException e) {
+        close();
+        throw new OwncloudRestResourceException("Error while reading the PROPFIND Response", e);
+      }
+    }
+
+    @Override
+    public DavResource next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      DavResource davResource = next;
+      next = null;
+      return davResource;
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        xmlStreamReader.close();
+      } catch (XMLStreamException e) {
+        log.warn("Error while closing the XML Stream Reader", e);
+      }
+      if (response instanceof Closeable) {
+        try {
+          // an unconsumed Entity will abort the Connection instead of draining the Rest of the Tree
+          ((Closeable) response).close();
+        } catch (IOException e) {
+          log.warn("Error while closing the Response", e);
+        }
+      }
+    }
+  }
+}
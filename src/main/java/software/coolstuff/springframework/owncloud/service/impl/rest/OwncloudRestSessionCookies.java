@@ -0,0 +1,161 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpContext;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.SessionCookiesProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Reuse of the Session Cookies of the Owncloud Server.
+ * <p/>
+ * The Owncloud Server verifies the Password Hash of the <code>Authorization</code> Header only
+ * if the Request doesn't contain a valid Session Cookie of the same User. Therefore all Session Cookies
+ * will be held in one {@link CookieStore} per Credentials (identified by the SHA-256 Hash of the
+ * Basic Authorization and never by the Username alone) and sent with every further Request of the same Credentials.
+ * Because the <code>Authorization</code> Header will still be sent the Server transparently falls back
+ * to Basic Authentication when the Session has been expired.
+ * <p/>
+ * Requests without any Credentials get an empty Cookie Store, so no Cookies will be shared between different Users.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudRestSessionCookies implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+  private final boolean enabled;
+  private final LoadingCache<String, CookieStore> cookieStores;
+
+  public OwncloudRestSessionCookies(OwncloudRestProperties properties) {
+    SessionCookiesProperties sessionCookiesProperties = properties.getSessionCookies();
+    enabled = sessionCookiesProperties.isEnabled();
+    cookieStores = CacheBuilder.newBuilder()
+                               .expireAfterAccess(sessionCookiesProperties.getTimeToLive(), sessionCookiesProperties.getTimeToLiveTimeUnit())
+                               .maximumSize(sessionCookiesProperties.getMaximumSize())
+                               .build(CacheLoader.from(key -> new BasicCookieStore()));
+  }
+
+  /**
+   * Register the Session Cookie Handling on the HttpClient.
+   * <p/>
+   * The Builder must have been created with disabled Cookie Management
+   * (<code>HttpClientBuilder.create().disableCookieManagement()</code>), so the HttpClient
+   * has no default Cookie Handling which may share Cookies between different Users.
+   * Only if the Reuse of Session Cookies has been enabled the Cookies will be added and processed
+   * by the Cookie Store of the Credentials of the Request.
+   * @param httpClientBuilder Builder of the HttpClient (with disabled Cookie Management)
+   * @return the same Builder
+   */
+  public HttpClientBuilder configure(HttpClientBuilder httpClientBuilder) {
+    if (!enabled) {
+      log.debug("Reuse of Session Cookies has been disabled");
+      return httpClientBuilder;
+    }
+    return httpClientBuilder
+        .addInterceptorFirst((HttpRequestInterceptor) this)
+        .addInterceptorFirst((HttpResponseInterceptor) this)
+        .addInterceptorLast(new RequestAddCookies())
+        .addInterceptorLast(new ResponseProcessCookies());
+  }
+
+  @Override
+  public void process(HttpRequest request, HttpContext context) {
+    HttpClientContext clientContext = HttpClientContext.adapt(context);
+    CookieStore cookieStore = getKey(request, clientContext)
+        .map(cookieStores::getUnchecked)
+        .orElseGet(BasicCookieStore::new);
+    clientContext.setCookieStore(cookieStore);
+  }
+
+  private Optional<String> getKey(HttpRequest request, HttpClientContext clientContext) {
+    Header authorization = request.getFirstHeader(HttpHeaders.AUTHORIZATION);
+    if (authorization != null && StringUtils.isNotBlank(authorization.getValue())) {
+      return Optional.of(hash(authorization.getValue()));
+    }
+    return getBasicAuthorizationOfContext(clientContext).map(this::hash);
+  }
+
+  private Optional<String> getBasicAuthorizationOfContext(HttpClientContext clientContext) {
+    CredentialsProvider credentialsProvider = clientContext.getCredentialsProvider();
+    if (credentialsProvider == null) {
+      return Optional.empty();
+    }
+    Credentials credentials = credentialsProvider.getCredentials(AuthScope.ANY);
+    if (credentials == null || credentials.getUserPrincipal() == null || StringUtils.isBlank(credentials.getPassword())) {
+      return Optional.empty();
+    }
+    return Optional.of(OwncloudRestUtils.encodeCredentialsForBasicAuthorization(credentials.getUserPrincipal().getName(), credentials.getPassword()));
+  }
+
+  private String hash(String authorization) {
+    return Hashing.sha256()
+                  .hashString(authorization, StandardCharsets.UTF_8)
+                  .toString();
+  }
+
+  @Override
+  public void process(HttpResponse response, HttpContext context) {
+    if (response.getStatusLine().getStatusCode() != HttpStatus.SC_UNAUTHORIZED) {
+      return;
+    }
+    CookieStore cookieStore = HttpClientContext.adapt(context).getCookieStore();
+    if (cookieStore != null) {
+      log.debug("Remove the Session Cookies because the Owncloud Server rejected the Request");
+      cookieStore.clear();
+    }
+  }
+
+  /** Number of Credentials whose Session Cookies are currently held */
+  public long getNumberOfSessions() {
+    return cookieStores.size();
+  }
+
+  /** Remove all Session Cookies */
+  public void invalidateAll() {
+    cookieStores.invalidateAll();
+  }
+}
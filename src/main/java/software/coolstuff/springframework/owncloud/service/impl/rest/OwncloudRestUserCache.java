@@ -0,0 +1,151 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.UserCacheProperties;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the {@link OwncloudUserDetails} loaded by the REST User Service and the REST UserDetails Service.
+ * <p/>
+ * The Entries will be stored and returned as Copies without the Password, so a Modification
+ * of a returned Object (i.e. by the Authentication Provider) won't change the cached Entry.
+ * <p/>
+ * The REST Services get a cached User only if the Owncloud Server already returned this User
+ * to the same authenticated User (a non-administrative User is only allowed to read its own Information).
+ * If the Cache has been disabled no Entry will be stored.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@Slf4j
+public class OwncloudRestUserCache implements UserCache {
+
+  private final boolean enabled;
+  private final Cache<String, CachedUser> users;
+  private final StatsCounter statsCounter = new SimpleStatsCounter();
+
+  public OwncloudRestUserCache(OwncloudRestProperties properties) {
+    UserCacheProperties userCacheProperties = properties.getUserCache();
+    enabled = userCacheProperties.isEnabled();
+    users = CacheBuilder.newBuilder()
+                        .<String, CachedUser>removalListener(this::onRemoval)
+                        .expireAfterWrite(userCacheProperties.getTimeToLive(), userCacheProperties.getTimeToLiveTimeUnit())
+                        .maximumSize(userCacheProperties.getMaximumSize())
+                        .build();
+  }
+
+  private void onRemoval(RemovalNotification<String, CachedUser> notification) {
+    if (notification.wasEvicted()) {
+      statsCounter.recordEviction();
+    }
+  }
+
+  @Override
+  public OwncloudUserDetails getUserFromCache(String username) {
+    CachedUser cachedUser = enabled ? users.getIfPresent(username) : null;
+    return getUserFromCache(username, cachedUser);
+  }
+
+  OwncloudUserDetails getUserFromCache(String username, Authentication authentication) {
+    CachedUser cachedUser = enabled ? users.getIfPresent(username) : null;
+    if (cachedUser != null && !cachedUser.authorizedUsers.contains(authentication.getName())) {
+      log.debug("User {} has not been read by User {} yet", username, authentication.getName());
+      cachedUser = null;
+    }
+    return getUserFromCache(username, cachedUser);
+  }
+
+  private OwncloudUserDetails getUserFromCache(String username, CachedUser cachedUser) {
+    if (!enabled) {
+      return null;
+    }
+    if (cachedUser == null) {
+      statsCounter.recordMisses(1);
+      return null;
+    }
+    log.debug("Found Information about User {} within the Cache", username);
+    statsCounter.recordHits(1);
+    return OwncloudRestUtils.copyWithoutPassword(cachedUser.user);
+  }
+
+  @Override
+  public void putUserInCache(UserDetails user) {
+    if (!enabled || !(user instanceof OwncloudUserDetails)) {
+      return;
+    }
+    log.debug("Put Information about User {} into the Cache", user.getUsername());
+    users.put(user.getUsername(), new CachedUser(OwncloudRestUtils.copyWithoutPassword((OwncloudUserDetails) user)));
+  }
+
+  void putUserInCache(OwncloudUserDetails user, Authentication authentication) {
+    if (!enabled) {
+      return;
+    }
+    log.debug("Put Information about User {} read by User {} into the Cache", user.getUsername(), authentication.getName());
+    CachedUser cachedUser = new CachedUser(OwncloudRestUtils.copyWithoutPassword(user));
+    cachedUser.authorizedUsers.add(authentication.getName());
+    users.put(user.getUsername(), cachedUser);
+  }
+
+  @Override
+  public void removeUserFromCache(String username) {
+    log.debug("Remove Information about User {} from the Cache", username);
+    users.invalidate(username);
+  }
+
+  /**
+   * Remove all Users from the Cache (i.e. after a Group has been removed)
+   */
+  public void removeAllUsersFromCache() {
+    log.debug("Remove Information about all Users from the Cache");
+    users.invalidateAll();
+  }
+
+  /**
+   * Statistics (Hits, Misses and Evictions) of the Cache
+   * @return Statistics of the Cache
+   */
+  public CacheStats getStats() {
+    return statsCounter.snapshot();
+  }
+
+  @RequiredArgsConstructor
+  private static class CachedUser {
+    private final OwncloudUserDetails user;
+    private final Set<String> authorizedUsers = ConcurrentHashMap.newKeySet();
+  }
+}
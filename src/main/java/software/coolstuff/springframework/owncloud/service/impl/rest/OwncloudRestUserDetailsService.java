@@ -30,4 +30,8 @@ ignored by JavaDoc - must be public because of JDK-Proxy behaviour
  */
 public interface OwncloudRestUserDetailsService extends OwncloudUserDetailsService, OwncloudRestService {
   OwncloudUserDetails loadPreloadedUserByUsername(String username, Ocs.User preloadedUser) throws UsernameNotFoundException;
+
+  OwncloudUserDetails loadPreloadedUserByUsername(String username, Ocs.User preloadedUser, Ocs.Groups preloadedGroups);
+
+  Ocs.Groups loadGroupsByUsername(String username);
 }
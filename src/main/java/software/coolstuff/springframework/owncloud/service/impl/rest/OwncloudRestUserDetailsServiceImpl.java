@@ -29,27 +29,59 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 
+import java.util.concurrent.CompletableFuture;
+
+import static software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestOcsRequestExecutor.join;
+import static software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestOcsRequestExecutor.throwIfFailed;
+
 @Slf4j
 public class OwncloudRestUserDetailsServiceImpl extends AbstractOwncloudRestServiceImpl implements OwncloudRestUserDetailsService {
 
-  OwncloudRestUserDetailsServiceImpl(RestTemplateBuilder builder, OwncloudRestProperties properties) {
+  private final OwncloudRestUserCache userCache;
+  private final OwncloudRestOcsRequestExecutor ocsRequestExecutor;
+
+  OwncloudRestUserDetailsServiceImpl(
+      RestTemplateBuilder builder,
+      OwncloudRestProperties properties,
+      OwncloudRestUserCache userCache,
+      OwncloudRestOcsRequestExecutor ocsRequestExecutor) {
     super(builder, properties);
+    this.userCache = userCache;
+    this.ocsRequestExecutor = ocsRequestExecutor;
   }
 
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
     Validate.notBlank(username);
 
+    OwncloudUserDetails cachedUser = userCache.getUserFromCache(username, getAuthentication());
+    if (cachedUser != null) {
+      return cachedUser;
+    }
+
     log.debug("Get Information about User {} from the Location {}", username, getLocation());
-    Ocs.User user = exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(), Ocs.User.class, username);
-    return loadPreloadedUserByUsername(username, user);
+    CompletableFuture<Ocs.User> userRequest = throwIfFailed(ocsRequestExecutor.submit(
+        () -> exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(), Ocs.User.class, username)));
+    CompletableFuture<Ocs.Groups> groupsRequest = ocsRequestExecutor.submit(() -> loadGroupsByUsername(username));
+    return loadPreloadedUserByUsername(username, join(userRequest), join(groupsRequest));
   }
 
   @Override
   public OwncloudUserDetails loadPreloadedUserByUsername(String username, Ocs.User preloadedUser) throws UsernameNotFoundException {
+    return loadPreloadedUserByUsername(username, preloadedUser, loadGroupsByUsername(username));
+  }
+
+  @Override
+  public OwncloudUserDetails loadPreloadedUserByUsername(String username, Ocs.User preloadedUser, Ocs.Groups preloadedGroups) {
+    OwncloudUserDetails user = convert(username, preloadedUser, preloadedGroups);
+    userCache.putUserInCache(user, getAuthentication());
+    return user;
+  }
+
+  @Override
+  public Ocs.Groups loadGroupsByUsername(String username) {
     log.debug("Get Information about the Group Memberships of User {} from the Location {}", username, getLocation());
-    Ocs.Groups groups = exchange("/cloud/users/{user}/groups", HttpMethod.GET, emptyEntity(), Ocs.Groups.class, username);
-    return convert(username, preloadedUser, groups);
+    return exchange("/cloud/users/{user}/groups", HttpMethod.GET, emptyEntity(), Ocs.Groups.class, username);
   }
 
 }
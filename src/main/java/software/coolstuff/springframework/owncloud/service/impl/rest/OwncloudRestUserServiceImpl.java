@@ -24,6 +24,9 @@ package software.coolstuff.springframework.owncloud.service.impl.rest;
 import java.text.DecimalFormat;
 import java.text.Format;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.ObjectUtils;
@@ -32,26 +35,70 @@ import org.apache.commons.lang3.Validate;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudUsernameAlreadyExistsException;
 import software.coolstuff.springframework.owncloud.model.OwncloudModificationUser;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
+import software.coolstuff.springframework.owncloud.model.OwncloudSaveResult;
 import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 import software.coolstuff.springframework.owncloud.service.impl.CheckOwncloudModification;
 
+import static software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestOcsRequestExecutor.join;
+import static software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestOcsRequestExecutor.joinAll;
+import static software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestOcsRequestExecutor.throwIfFailed;
+
 @Slf4j
 public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl implements OwncloudRestUserServiceExtension {
 
-  OwncloudRestUserServiceImpl(RestTemplateBuilder builder, OwncloudRestProperties properties) {
+  private final OwncloudRestUserCache userCache;
+  private final OwncloudRestAuthenticationCache authenticationCache;
+  private final OwncloudRestGroupMembershipCache groupMembershipCache;
+  private final OwncloudRestDirectoryReplica directoryReplica;
+  private final OwncloudRestOcsRequestExecutor ocsRequestExecutor;
+  private final int bulkUserDetailsParallelism;
+  private final int batchSaveParallelism;
+  private final int groupMembershipParallelism;
+
+  OwncloudRestUserServiceImpl(
+      RestTemplateBuilder builder,
+      OwncloudRestProperties properties,
+      OwncloudRestUserCache userCache,
+      OwncloudRestAuthenticationCache authenticationCache,
+      OwncloudRestGroupMembershipCache groupMembershipCache,
+      OwncloudRestDirectoryReplica directoryReplica,
+      OwncloudRestOcsRequestExecutor ocsRequestExecutor) {
     super(builder, properties);
+    this.userCache = userCache;
+    this.authenticationCache = authenticationCache;
+    this.groupMembershipCache = groupMembershipCache;
+    this.directoryReplica = directoryReplica;
+    this.ocsRequestExecutor = ocsRequestExecutor;
+    this.bulkUserDetailsParallelism = properties.getParallelOcsRequests().getBulkUserDetailsParallelism();
+    this.batchSaveParallelism = properties.getParallelOcsRequests().getBatchSaveParallelism();
+    this.groupMembershipParallelism = properties.getParallelOcsRequests().getGroupMembershipParallelism();
   }
 
   @Override
   public Optional<OwncloudUserDetails> findOne(String username) {
+    Validate.notBlank(username);
+    if (directoryReplica.isLoaded()) {
+      return directoryReplica.findUser(username, getAuthentication());
+    }
+    OwncloudUserDetails cachedUser = userCache.getUserFromCache(username, getAuthentication());
+    if (cachedUser != null) {
+      return Optional.of(cachedUser);
+    }
     try {
       return Optional.of(findOneWithExceptionWhenNotFound(username));
     } catch (UsernameNotFoundException ignored) {
@@ -62,10 +109,14 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
   private OwncloudUserDetails findOneWithExceptionWhenNotFound(String username) {
     Validate.notBlank(username);
     log.debug("Get Information about User {} from Location {}", username, getLocation());
-    Ocs.User user = exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(), Ocs.User.class, username);
+    CompletableFuture<Ocs.User> userRequest = throwIfFailed(ocsRequestExecutor.submit(
+        () -> exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(), Ocs.User.class, username)));
     log.debug("Get all Groups assigned to User {} from Location {}", username, getLocation());
-    Ocs.Groups groups = exchange("/cloud/users/{user}/groups", HttpMethod.GET, emptyEntity(), Ocs.Groups.class, username);
-    return convert(username, user, groups);
+    CompletableFuture<Ocs.Groups> groupsRequest = ocsRequestExecutor.submit(
+        () -> exchange("/cloud/users/{user}/groups", HttpMethod.GET, emptyEntity(), Ocs.Groups.class, username));
+    OwncloudUserDetails owncloudUserDetails = convert(username, join(userRequest), join(groupsRequest));
+    userCache.putUserInCache(owncloudUserDetails, getAuthentication());
+    return owncloudUserDetails;
   }
 
   @Override
@@ -75,30 +126,61 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
 
   @Override
   public List<String> findAll(String filter) {
-    Ocs.Users users = null;
+    if (directoryReplica.isLoaded()) {
+      return directoryReplica.findUsers(filter, getAuthentication());
+    }
     if (StringUtils.isBlank(filter)) {
-      log.debug("Get all Users by Filter Criteria {} from Location {}", filter, getLocation());
-      users = exchange("/cloud/users", HttpMethod.GET, emptyEntity(), Ocs.Users.class);
-    } else {
       log.debug("Get all Users from Location {}", getLocation());
-      users = exchange("/cloud/users?search={filter}", HttpMethod.GET, emptyEntity(), Ocs.Users.class, filter);
+      return exchangeUsers("/cloud/users", HttpMethod.GET, emptyEntity());
     }
-    return convertUsers(users);
+    log.debug("Get all Users by Filter Criteria {} from Location {}", filter, getLocation());
+    return exchangeUsers("/cloud/users?search={filter}", HttpMethod.GET, emptyEntity(), filter);
   }
 
-  private List<String> convertUsers(Ocs.Users ocsUsers) {
-    List<String> users = new ArrayList<>();
-    if (isUsersNotNull(ocsUsers)) {
-      for (Ocs.Users.Data.Element element : ocsUsers.getData().getUsers()) {
-        log.trace("Add User {} to the Result List", element.getElement());
-        users.add(element.getElement());
-      }
+  @Override
+  public Stream<String> streamAll(String filter) {
+    if (directoryReplica.isLoaded()) {
+      return directoryReplica.findUsers(filter, getAuthentication()).stream();
+    }
+    if (StringUtils.isBlank(filter)) {
+      log.debug("Stream all Users from Location {}", getLocation());
+      return streamUsers("/cloud/users");
+    }
+    log.debug("Stream all Users by Filter Criteria {} from Location {}", filter, getLocation());
+    return streamUsers("/cloud/users?search={filter}", filter);
+  }
+
+  @Override
+  public OwncloudPage<String> findAll(String filter, int offset, int limit) {
+    OwncloudRestUtils.validatePageRequest(offset, limit);
+    if (directoryReplica.isLoaded()) {
+      return OwncloudPage.of(directoryReplica.findUsers(filter, getAuthentication()), offset, limit);
+    }
+    List<String> users = null;
+    if (StringUtils.isBlank(filter)) {
+      log.debug("Get {} Users starting at Offset {} from Location {}", limit, offset, getLocation());
+      users = exchangeUsers("/cloud/users?limit={limit}&offset={offset}", HttpMethod.GET, emptyEntity(), limit, offset);
+    } else {
+      log.debug("Get {} Users by Filter Criteria {} starting at Offset {} from Location {}", limit, filter, offset, getLocation());
+      users = exchangeUsers("/cloud/users?search={filter}&limit={limit}&offset={offset}", HttpMethod.GET, emptyEntity(), filter, limit, offset);
     }
-    return users;
+    return OwncloudRestUtils.convertPage(users, offset, limit);
   }
 
-  private boolean isUsersNotNull(Ocs.Users ocsUsers) {
-    return ocsUsers != null && ocsUsers.getData() != null && ocsUsers.getData().getUsers() != null;
+  @Override
+  public Stream<OwncloudUserDetails> findAllDetails(String filter) {
+    List<String> usernames = findAll(filter);
+    if (directoryReplica.isLoaded()) {
+      Authentication authentication = getAuthentication();
+      return usernames.stream()
+                      .map(username -> directoryReplica.findUser(username, authentication))
+                      .filter(Optional::isPresent)
+                      .map(Optional::get);
+    }
+    log.debug("Get the Details of {} Users from Location {} (at most {} Users at the same Time)", usernames.size(), getLocation(), bulkUserDetailsParallelism);
+    return ocsRequestExecutor.submitOrdered(usernames, this::findOne, bulkUserDetailsParallelism)
+                             .filter(Optional::isPresent)
+                             .map(Optional::get);
   }
 
   @Override
@@ -121,43 +203,164 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
     Validate.notNull(user);
     Validate.notBlank(user.getUsername());
 
+    return saveUser(user, true).getUser().get();
+  }
+
+  private OwncloudSaveResult saveUser(OwncloudModificationUser user, boolean userMayExist) {
+    userCache.removeUserFromCache(user.getUsername());
+    authenticationCache.invalidate(user.getUsername());
+    boolean modified = true;
     try {
-      // First check, if the User already exists within the Owncloud
-      log.debug("Check, if the User {} exists at Location {}", user.getUsername(), getLocation());
-      Ocs.User existingUser = exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(), Ocs.User.class, user.getUsername());
+      if (userMayExist) {
+        try {
+          // First check, if the User already exists within the Owncloud
+          log.debug("Check, if the User {} exists at Location {}", user.getUsername(), getLocation());
+          CompletableFuture<Ocs.User> existingUserRequest = throwIfFailed(ocsRequestExecutor.submit(
+              () -> exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(), Ocs.User.class, user.getUsername())));
+          log.debug("Get the existing Group Memberships of User {} from Location {}", user.getUsername(), getLocation());
+          CompletableFuture<List<String>> existingGroupsRequest = ocsRequestExecutor.submit(
+              () -> exchangeGroups("/cloud/users/{user}/groups", HttpMethod.GET, emptyEntity(), user.getUsername()));
+          Ocs.User existingUser = join(existingUserRequest);
+
+          // User exists --> update User
+          modified = updateUser(user, existingUser.getData(), join(existingGroupsRequest));
+        } catch (UsernameNotFoundException e) {
+          // User doesn't exist --> create User
+          createUser(user);
+        }
+      } else {
+        createUser(user);
+      }
+    } catch (RuntimeException e) {
+      // the User may have been modified partially
+      directoryReplica.reloadUser(user.getUsername());
+      throw e;
+    } finally {
+      // even a failed Save may have changed some Group Memberships
+      groupMembershipCache.invalidateUser(user.getUsername(), user.getGroups());
+    }
 
-      // User exists --> update User
-      updateUser(user, existingUser.getData());
-    } catch (UsernameNotFoundException e) {
-      // User doesn't exist --> create User
-      createUser(user);
+    // all Modifications have been successful --> no need to re-read the User
+    OwncloudUserDetails savedUser = convertSavedUser(user);
+    userCache.putUserInCache(savedUser, getAuthentication());
+    directoryReplica.putUser(savedUser);
+    return OwncloudSaveResult.builder()
+        .username(user.getUsername())
+        .user(savedUser)
+        .modified(modified)
+        .build();
+  }
+
+  @Override
+  @CheckOwncloudModification
+  public List<OwncloudSaveResult> saveAll(Stream<OwncloudModificationUser> users) {
+    Validate.notNull(users);
+
+    log.debug("Get all existing Users and Groups from Location {}", getLocation());
+    CompletableFuture<List<String>> existingUsersRequest = throwIfFailed(ocsRequestExecutor.submit(
+        () -> exchangeUsers("/cloud/users", HttpMethod.GET, emptyEntity())));
+    CompletableFuture<List<String>> existingGroupsRequest = ocsRequestExecutor.submit(
+        () -> exchangeGroups("/cloud/groups", HttpMethod.GET, emptyEntity()));
+    Set<String> existingUsers = new HashSet<>(join(existingUsersRequest));
+    Set<String> existingGroups = new HashSet<>(join(existingGroupsRequest));
+
+    log.debug("Save the Users ({} Users at the same Time)", batchSaveParallelism);
+    try (Stream<OwncloudSaveResult> results = ocsRequestExecutor.submitOrdered(
+        users,
+        user -> saveUserOfBatch(user, existingUsers, existingGroups),
+        batchSaveParallelism)) {
+      return results.collect(Collectors.toList());
     }
+  }
 
-    return findOneWithExceptionWhenNotFound(user.getUsername());
+  private OwncloudSaveResult saveUserOfBatch(OwncloudModificationUser user, Set<String> existingUsers, Set<String> existingGroups) {
+    String username = user != null ? user.getUsername() : null;
+    try {
+      Validate.notNull(user);
+      Validate.notBlank(username);
+      // Check the Group Memberships before any Modification
+      if (CollectionUtils.isNotEmpty(user.getGroups())) {
+        user.getGroups().stream()
+            .filter(groupname -> !existingGroups.contains(groupname))
+            .findFirst()
+            .ifPresent(groupname -> {
+              throw new OwncloudGroupNotFoundException(groupname);
+            });
+      }
+      return saveUser(user, existingUsers.contains(username));
+    } catch (RuntimeException e) {
+      log.error("Error while saving User {}", username, e);
+      return OwncloudSaveResult.builder()
+          .username(username)
+          .failure(e)
+          .build();
+    }
   }
 
-  private void updateUser(OwncloudModificationUser user, Ocs.User.Data existingUser) {
+  private boolean updateUser(OwncloudModificationUser user, Ocs.User.Data existingUser, List<String> actualGroups) {
+    List<CompletableFuture<Void>> modifications = new ArrayList<>();
+
     // change the Display Name
     if (isDisplaynameChanged(user, existingUser)) {
-      updateOwncloudUserField(user.getUsername(), UserUpdateField.DISPLAY_NAME, user.getDisplayname());
+      submitModification(modifications, () -> updateOwncloudUserField(user.getUsername(), UserUpdateField.DISPLAY_NAME, user.getDisplayname()));
     }
 
     // change the eMail
     if (isEmailChanged(user, existingUser)) {
-      updateOwncloudUserField(user.getUsername(), UserUpdateField.EMAIL, user.getEmail());
+      submitModification(modifications, () -> updateOwncloudUserField(user.getUsername(), UserUpdateField.EMAIL, user.getEmail()));
     }
 
     // change the Quota
     if (isQuotaChanged(user, existingUser)) {
-      updateOwncloudUserField(user.getUsername(), UserUpdateField.QUOTA, user.getQuota());
+      submitModification(modifications, () -> updateOwncloudUserField(user.getUsername(), UserUpdateField.QUOTA, user.getQuota()));
     }
 
     // change the availability Status
     if (user.isEnabled() != existingUser.isEnabled()) {
-      changeOwncloudUserAvailabilityStatus(user.getUsername(), user.isEnabled());
+      submitModification(modifications, () -> changeOwncloudUserAvailabilityStatus(user.getUsername(), user.isEnabled()));
     }
 
-    manageGroupMemberships(user.getUsername(), user.getGroups());
+    List<GroupMembershipChange> groupMembershipChanges = getGroupMembershipChanges(user.getUsername(), user.getGroups(), actualGroups);
+    Optional<RuntimeException> groupMembershipFailure = changeGroupMemberships(user.getUsername(), groupMembershipChanges);
+
+    try {
+      joinAll(modifications);
+    } catch (RuntimeException e) {
+      groupMembershipFailure.ifPresent(e::addSuppressed);
+      throw e;
+    }
+    if (groupMembershipFailure.isPresent()) {
+      throw groupMembershipFailure.get();
+    }
+    return !modifications.isEmpty() || !groupMembershipChanges.isEmpty();
+  }
+
+  /**
+   * The Modifications are independent from each other. If they will be executed sequentially
+   * the first failed Modification stops the Save Operation.
+   */
+  private void submitModification(List<CompletableFuture<Void>> modifications, Runnable modification) {
+    modifications.add(throwIfFailed(ocsRequestExecutor.submit(() -> {
+      modification.run();
+      return null;
+    })));
+  }
+
+  private OwncloudUserDetails convertSavedUser(OwncloudModificationUser user) {
+    List<GrantedAuthority> authorities = new ArrayList<>();
+    if (CollectionUtils.isNotEmpty(user.getGroups())) {
+      user.getGroups().stream()
+          .map(SimpleGrantedAuthority::new)
+          .forEach(authorities::add);
+    }
+    return OwncloudUserDetails.builder()
+        .username(user.getUsername())
+        .enabled(user.isEnabled())
+        .displayname(user.getDisplayname())
+        .email(user.getEmail())
+        .quota(user.getQuota())
+        .authorities(authorities)
+        .build();
   }
 
   private boolean isDisplaynameChanged(OwncloudModificationUser user, Ocs.User.Data existingUser) {
@@ -256,24 +459,63 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
     }
   }
 
-  private void manageGroupMemberships(String username, List<String> expectedGroups) {
-    log.debug("Get the existing Group Memberships of User {} from Location {}", username, getLocation());
-    Ocs.Groups ocsGroups = exchange("/cloud/users/{user}/groups", HttpMethod.GET, emptyEntity(), Ocs.Groups.class, username);
-    List<String> actualGroups = OwncloudRestUtils.convertGroups(ocsGroups);
+  private List<GroupMembershipChange> getGroupMembershipChanges(String username, List<String> expectedGroups, List<String> actualGroups) {
+    Set<String> expected = CollectionUtils.isEmpty(expectedGroups) ? Collections.emptySet() : new LinkedHashSet<>(expectedGroups);
+    Set<String> actual = new LinkedHashSet<>(actualGroups);
 
+    List<GroupMembershipChange> groupMembershipChanges = new ArrayList<>();
     // add new Group Memberships
-    if (CollectionUtils.isNotEmpty(expectedGroups)) {
-      for (String groupname : expectedGroups) {
-        if (actualGroups.contains(groupname)) {
-          log.trace("Group {} is already assigned to User {}", groupname, username);
-          actualGroups.remove(groupname);
-          continue;
-        }
+    Sets.difference(expected, actual)
+        .forEach(groupname -> groupMembershipChanges.add(new GroupMembershipChange(groupname, HttpMethod.POST)));
+    // remove Group Memberships
+    Sets.difference(actual, expected)
+        .forEach(groupname -> groupMembershipChanges.add(new GroupMembershipChange(groupname, HttpMethod.DELETE)));
+    log.trace("{} Group Memberships of User {} have to be changed", groupMembershipChanges.size(), username);
+    return groupMembershipChanges;
+  }
+
+  /**
+   * The Group Memberships are independent from each other. So every Group Membership will be changed
+   * even if another one fails. The first Failure will be returned with all further Failures attached
+   * as suppressed Exceptions.
+   */
+  private Optional<RuntimeException> changeGroupMemberships(String username, List<GroupMembershipChange> groupMembershipChanges) {
+    if (groupMembershipChanges.isEmpty()) {
+      return Optional.empty();
+    }
 
-        log.trace("Create Message Body for assign Group {} to User {}", groupname, username);
-        Map<String, List<String>> data = new HashMap<>();
-        data.put("groupid", Lists.newArrayList(groupname));
+    log.debug("Change {} Group Memberships of User {} on Location {} (at most {} Group Memberships at the same Time)",
+        groupMembershipChanges.size(), username, getLocation(), groupMembershipParallelism);
+    List<RuntimeException> failures;
+    try (Stream<Optional<RuntimeException>> results = ocsRequestExecutor.submitOrdered(
+        groupMembershipChanges,
+        groupMembershipChange -> changeGroupMembership(username, groupMembershipChange),
+        groupMembershipParallelism)) {
+      failures = results
+          .filter(Optional::isPresent)
+          .map(Optional::get)
+          .collect(Collectors.toList());
+    }
+
+    if (failures.isEmpty()) {
+      return Optional.empty();
+    }
+    log.error("{} of {} Group Membership Changes of User {} have failed", failures.size(), groupMembershipChanges.size(), username);
+    RuntimeException failure = failures.get(0);
+    failures.stream()
+        .skip(1)
+        .forEach(failure::addSuppressed);
+    return Optional.of(failure);
+  }
 
+  private Optional<RuntimeException> changeGroupMembership(String username, GroupMembershipChange groupMembershipChange) {
+    String groupname = groupMembershipChange.getGroupname();
+    log.trace("Create Message Body for changing the Membership of Group {} of User {}", groupname, username);
+    Map<String, List<String>> data = new HashMap<>();
+    data.put("groupid", Lists.newArrayList(groupname));
+
+    try {
+      if (groupMembershipChange.getMethod() == HttpMethod.POST) {
         log.debug("Assign Group {} to User {} on Location {}", groupname, username, getLocation());
         exchange(
             "/cloud/users/{user}/groups",
@@ -282,16 +524,7 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
             Ocs.Void.class,
             (authenticatedUser, uri, meta) -> checkAssignGroupMembership(authenticatedUser, uri, meta, username, groupname),
             username);
-      }
-    }
-
-    // remove Group Memberships
-    if (CollectionUtils.isNotEmpty(actualGroups)) {
-      for (String groupname : actualGroups) {
-        log.trace("Create Message Body for unassign Group {} from User {}", groupname, username);
-        Map<String, List<String>> data = new HashMap<>();
-        data.put("groupid", Lists.newArrayList(groupname));
-
+      } else {
         log.debug("Remove Group {} from User {} on Location {}", groupname, username, getLocation());
         exchange(
             "/cloud/users/{user}/groups",
@@ -301,6 +534,9 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
             (authenticatedUser, uri, meta) -> checkRemoveGroupMembership(authenticatedUser, uri, meta, username, groupname),
             username);
       }
+      return Optional.empty();
+    } catch (RuntimeException e) {
+      return Optional.of(e);
     }
   }
 
@@ -392,9 +628,11 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
         (authenticatedUser, uri, meta) -> checkCreateUser(authenticatedUser, uri, meta, user.getUsername()));
     log.info("User {} successfully created", user.getUsername());
 
-    log.debug("Re-Read the Information about User {} from Location {}", user.getUsername(), getLocation());
-    Ocs.User existingUser = exchange("/cloud/users/{user}", HttpMethod.GET, emptyEntity(), Ocs.User.class, user.getUsername());
-    updateUser(user, existingUser.getData());
+    // a new User has the Username as Display Name and neither an eMail, a Quota nor any Group Memberships
+    Ocs.User.Data newUser = Ocs.User.Data.builder()
+        .displayname(user.getUsername())
+        .build();
+    updateUser(user, newUser, new ArrayList<>());
   }
 
   private void checkCreateUser(String authenticatedUser, String uri, Ocs.Meta meta, String username) {
@@ -437,6 +675,10 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
         Ocs.Void.class,
         (authenticatedUser, uri, meta) -> checkDeleteUser(authenticatedUser, uri, meta, username),
         username);
+    userCache.removeUserFromCache(username);
+    authenticationCache.invalidate(username);
+    groupMembershipCache.invalidateUser(username, null);
+    directoryReplica.removeUser(username);
     log.info("User {} successfully removed from Location {}", username, getLocation());
   }
 
@@ -461,6 +703,13 @@ public class OwncloudRestUserServiceImpl extends AbstractOwncloudRestServiceImpl
     }
   }
 
+  @RequiredArgsConstructor
+  @Getter
+  private static class GroupMembershipChange {
+    private final String groupname;
+    private final HttpMethod method;
+  }
+
   private enum UserUpdateField {
     DISPLAY_NAME("display"),
     EMAIL("email"),
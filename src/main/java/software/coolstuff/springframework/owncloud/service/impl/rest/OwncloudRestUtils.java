@@ -34,6 +34,8 @@ import org.springframework.web.client.HttpStatusCodeException;
 import software.coolstuff.springframework.owncloud.exception.resource.OwncloudQuotaExceededException;
 import software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceNotFoundException;
 import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -47,6 +49,20 @@ import java.util.List;
 @Slf4j
 final class OwncloudRestUtils {
 
+  public static List<String> convertUsers(Ocs.Users ocsUsers) {
+    List<String> users = new ArrayList<>();
+    if (isUsersNotNull(ocsUsers)) {
+      for (Ocs.Users.Data.Element element : ocsUsers.getData().getUsers()) {
+        users.add(element.getElement());
+      }
+    }
+    return users;
+  }
+
+  private static boolean isUsersNotNull(Ocs.Users ocsUsers) {
+    return ocsUsers != null && ocsUsers.getData() != null && ocsUsers.getData().getUsers() != null;
+  }
+
   public static List<String> convertGroups(Ocs.Groups ocsGroups) {
     List<String> groups = new ArrayList<>();
     if (isGroupsNotNull(ocsGroups)) {
@@ -61,6 +77,34 @@ final class OwncloudRestUtils {
     return ocsGroups != null && ocsGroups.getData() != null && ocsGroups.getData().getGroups() != null;
   }
 
+  public static void validatePageRequest(int offset, int limit) {
+    Validate.isTrue(offset >= 0, "Offset must not be negative");
+    Validate.isTrue(limit > 0, "Limit must be positive");
+  }
+
+  /**
+   * The OCS API doesn't return the total Number of Elements. So a full Page
+   * is always followed by another (possibly empty) Page.
+   */
+  public static <T> OwncloudPage<T> convertPage(List<T> content, int offset, int limit) {
+    return OwncloudPage.<T>builder()
+        .content(content)
+        .offset(offset)
+        .nextOffset(content.size() < limit ? null : offset + content.size())
+        .build();
+  }
+
+  public static OwncloudUserDetails copyWithoutPassword(OwncloudUserDetails userDetails) {
+    return OwncloudUserDetails.builder()
+                              .username(userDetails.getUsername())
+                              .enabled(userDetails.isEnabled())
+                              .displayname(userDetails.getDisplayname())
+                              .email(userDetails.getEmail())
+                              .quota(userDetails.getQuota())
+                              .authorities(userDetails.getAuthorities() != null ? new ArrayList<>(userDetails.getAuthorities()) : null)
+                              .build();
+  }
+
   public static URL checkAndConvertLocation(String location) throws MalformedURLException {
     Validate.notBlank(location);
     log.debug("Check if the Location {} is a valid URL", location);
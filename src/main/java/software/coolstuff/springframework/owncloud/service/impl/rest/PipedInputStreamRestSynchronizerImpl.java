@@ -28,10 +28,13 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestOperations;
 import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+import software.coolstuff.springframework.owncloud.service.impl.RingBufferPipedInputStream;
+import software.coolstuff.springframework.owncloud.service.impl.RingBufferPipedOutputStream;
 
 import java.io.*;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 
 @Slf4j
@@ -44,13 +47,15 @@ class PipedInputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynchr
       final URI uri,
       final OwncloudRestProperties owncloudRestProperties,
       final RestOperations restOperations,
-      final BiFunction<URI, String, URI> uriResolver) {
+      final BiFunction<URI, String, URI> uriResolver,
+      final Executor executor) {
     super(
         authentication,
         uri,
         owncloudRestProperties,
         restOperations,
-        uriResolver);
+        uriResolver,
+        executor);
   }
 
   @Builder(builderClassName = "PipedInputStreamRestSynchronizerBuilder")
@@ -59,13 +64,15 @@ class PipedInputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynchr
       final URI uri,
       final OwncloudRestProperties owncloudRestProperties,
       final RestOperations restOperations,
-      final BiFunction<URI, String, URI> uriResolver) {
+      final BiFunction<URI, String, URI> uriResolver,
+      final Executor executor) {
     return new PipedInputStreamRestSynchronizerImpl(
         authentication,
         uri,
         owncloudRestProperties,
         restOperations,
-        uriResolver);
+        uriResolver,
+        executor);
   }
 
   @Override
@@ -75,7 +82,7 @@ class PipedInputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynchr
 
   @Override
   protected void createPipedStream() {
-    try (OutputStream output = new PipedOutputStream(pipedInputStream)) {
+    try (OutputStream output = new RingBufferPipedOutputStream(pipedInputStream)) {
       setPipeReady();
       ExecutionEnvironment executionEnvironment = ExecutionEnvironment.builder()
                                                                       .responseExtractor(response -> copy(response.getBody(), output))
@@ -93,12 +100,16 @@ class PipedInputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynchr
     return pipedInputStream;
   }
 
-  private class SynchronizedPipedInputStream extends PipedInputStream {
+  private class SynchronizedPipedInputStream extends RingBufferPipedInputStream {
 
     private Optional<RuntimeException> runtimeException = Optional.empty();
 
     private boolean alreadyClosed = false;
 
+    private SynchronizedPipedInputStream() {
+      super(getPipeCapacity());
+    }
+
     public void setRuntimeException(RuntimeException runtimeException) {
       this.runtimeException = Optional.ofNullable(runtimeException);
     }
@@ -31,16 +31,21 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestOperations;
 import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+import software.coolstuff.springframework.owncloud.service.impl.RingBufferPipedInputStream;
+import software.coolstuff.springframework.owncloud.service.impl.RingBufferPipedOutputStream;
 
 import java.io.*;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 @Slf4j
 class PipedOutputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynchronizerImpl implements PipedOutputStreamRestSynchronizer {
 
   private final Optional<MediaType> mediaType;
+  private final Optional<Consumer<URI>> afterCloseCallback;
   private final SynchronizedPipedOutputStream pipedOutputStream;
 
   private PipedOutputStreamRestSynchronizerImpl(
@@ -49,10 +54,13 @@ class PipedOutputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynch
       final MediaType mediaType,
       final OwncloudRestProperties owncloudRestProperties,
       final RestOperations restOperations,
-      final BiFunction<URI, String, URI> uriResolver) {
-    super(authentication, uri, owncloudRestProperties, restOperations, uriResolver);
+      final BiFunction<URI, String, URI> uriResolver,
+      final Consumer<URI> afterCloseCallback,
+      final Executor executor) {
+    super(authentication, uri, owncloudRestProperties, restOperations, uriResolver, executor);
     this.pipedOutputStream = new SynchronizedPipedOutputStream();
     this.mediaType = Optional.ofNullable(mediaType);
+    this.afterCloseCallback = Optional.ofNullable(afterCloseCallback);
   }
 
   @Builder
@@ -62,14 +70,18 @@ class PipedOutputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynch
       final MediaType mediaType,
       final OwncloudRestProperties owncloudRestProperties,
       final RestOperations restOperations,
-      final BiFunction<URI, String, URI> uriResolver) {
+      final BiFunction<URI, String, URI> uriResolver,
+      final Consumer<URI> afterCloseCallback,
+      final Executor executor) {
     return new PipedOutputStreamRestSynchronizerImpl(
         authentication,
         uri,
         mediaType,
         owncloudRestProperties,
         restOperations,
-        uriResolver);
+        uriResolver,
+        afterCloseCallback,
+        executor);
   }
 
   @Override
@@ -79,7 +91,7 @@ class PipedOutputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynch
 
   @Override
   protected void createPipedStream() {
-    try (InputStream input = new PipedInputStream(pipedOutputStream)) {
+    try (InputStream input = new RingBufferPipedInputStream(pipedOutputStream)) {
       setPipeReady();
       ExecutionEnvironment executionEnvironment = ExecutionEnvironment.builder()
                                                                       .requestCallback(clientHttpRequest -> setMediaTypeAndCopy(input, clientHttpRequest))
@@ -111,12 +123,16 @@ class PipedOutputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynch
     return pipedOutputStream;
   }
 
-  private class SynchronizedPipedOutputStream extends PipedOutputStream {
+  private class SynchronizedPipedOutputStream extends RingBufferPipedOutputStream {
 
     private Optional<RuntimeException> runtimeException = Optional.empty();
 
     private boolean alreadyClosed = false;
 
+    private SynchronizedPipedOutputStream() {
+      super(getPipeCapacity());
+    }
+
     public void setRuntimeException(RuntimeException runtimeException) {
       this.runtimeException = Optional.ofNullable(runtimeException);
     }
@@ -133,6 +149,7 @@ class PipedOutputStreamRestSynchronizerImpl extends AbstractPipedStreamRestSynch
       } finally {
         alreadyClosed = true;
         setPipeReady();
+        afterCloseCallback.ifPresent(callback -> callback.accept(getUri()));
         runtimeException.ifPresent(this::handleRuntimeException);
       }
     }
@@ -22,7 +22,6 @@
 package software.coolstuff.springframework.owncloud.service.impl.rest;
 
 import com.github.sardine.Sardine;
-import com.github.sardine.impl.SardineImpl;
 import com.google.common.cache.CacheLoader;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -31,9 +30,30 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.Optional;
+
 @Slf4j
 public class SardineCacheLoader extends CacheLoader<String, Sardine> {
 
+  private final Optional<OwncloudRestConnectionPool> connectionPool;
+
+  /**
+   * Every User gets a Sardine Implementation with its own HttpClient and Connection Pool
+   */
+  public SardineCacheLoader() {
+    this.connectionPool = Optional.empty();
+  }
+
+  /**
+   * Every User gets a lightweight Sardine Implementation which executes
+   * all Requests by the HttpClient of the shared Connection Pool
+   * @param connectionPool shared Connection Pool
+   * @since 1.5.0
+   */
+  public SardineCacheLoader(OwncloudRestConnectionPool connectionPool) {
+    this.connectionPool = Optional.ofNullable(connectionPool);
+  }
+
   @Override
   public Sardine load(String username) throws Exception {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -54,7 +74,9 @@ public class SardineCacheLoader extends CacheLoader<String, Sardine> {
     UserDetails userDetails = (UserDetails) authentication.getPrincipal();
     String username = userDetails.getUsername();
     log.debug("Create Sardine Implementation based on the UserDetails Object of User {}", username);
-    return new SardineImpl(username, userDetails.getPassword());
+    return connectionPool
+        .map(pool -> pool.createSardine(username, userDetails.getPassword()))
+        .orElseGet(() -> new OwncloudRestSardine(username, userDetails.getPassword()));
   }
 
 }
@@ -27,10 +27,13 @@ import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebCl
 import org.springframework.security.test.context.support.WithMockUser;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupAlreadyExistsException;
 import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudGroupService;
 import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -72,6 +75,53 @@ public abstract class AbstractOwncloudGroupServiceTest extends AbstractOwncloudS
   protected void prepareTestFindAllGroupsWithFilter(String filter, String... groups) throws Exception {
   }
 
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testStreamAllGroupsWithFilter() throws Exception {
+    prepareTestFindAllGroupsWithFilter("group", "group1", "group2");
+
+    List<String> groups;
+    try (Stream<String> stream = groupService.streamAll("group")) {
+      groups = stream.collect(Collectors.toList());
+    }
+    verifyServer();
+
+    assertThat(groups).containsExactly("group1", "group2");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllGroupsPaged() throws Exception {
+    prepareTestFindAllGroupsPaged(2, "group1", "group2", "group3");
+
+    OwncloudPage<String> firstPage = groupService.findAll(null, 0, 2);
+    OwncloudPage<String> secondPage = groupService.findAll(null, firstPage.getNextOffset().get(), 2);
+    verifyServer();
+
+    assertThat(firstPage.getContent()).hasSize(2);
+    assertThat(firstPage.hasNext()).isTrue();
+    assertThat(secondPage.getContent()).hasSize(1);
+    assertThat(secondPage.hasNext()).isFalse();
+    assertThat(Stream.concat(firstPage.getContent().stream(), secondPage.getContent().stream()))
+        .containsOnly("group1", "group2", "group3");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testStreamAllGroups() throws Exception {
+    prepareTestFindAllGroupsPaged(2, "group1", "group2", "group3");
+
+    List<String> groups;
+    try (Stream<String> stream = groupService.streamAll(null, 2)) {
+      groups = stream.collect(Collectors.toList());
+    }
+    verifyServer();
+
+    assertThat(groups).containsOnly("group1", "group2", "group3");
+  }
+
+  protected void prepareTestFindAllGroupsPaged(int limit, String... groups) throws Exception {}
+
   @Test
   @WithMockUser(username = "user1", password = "password")
   public void testFindAllMembersOfGroup_OK() throws Exception {
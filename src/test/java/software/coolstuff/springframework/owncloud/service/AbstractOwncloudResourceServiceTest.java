@@ -25,7 +25,10 @@ import com.google.common.collect.Lists;
 import lombok.*;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.SpringBootDependencyInjectionTestExecutionListener;
@@ -50,17 +53,26 @@ import software.coolstuff.springframework.owncloud.exception.resource.*;
 import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
 import software.coolstuff.springframework.owncloud.model.OwncloudQuota;
 import software.coolstuff.springframework.owncloud.model.OwncloudResource;
+import software.coolstuff.springframework.owncloud.model.OwncloudTransferResult;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudResourceService;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudUtils;
 
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
@@ -87,6 +99,9 @@ public abstract class AbstractOwncloudResourceServiceTest {
   @Autowired
   private OwncloudResourceService resourceService;
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void test_OwncloudTestResourceImpl_equalsTo_OwncloudResourceImpl() throws Exception {
     String eTag = UUID.randomUUID().toString();
@@ -254,6 +269,65 @@ public abstract class AbstractOwncloudResourceServiceTest {
   protected void prepare_list_NOK_FileNotFound(URI searchPath) throws Exception {
   }
 
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_walk_OK() throws Exception {
+    URI start = URI.create("/walk/");
+    List<OwncloudTestResourceImpl> expectedResources = Lists.newArrayList(
+        createTestDirectory(appendPath(start, "/"), "walk"),
+        createTestFile(appendPath(start, "/resource1"), "resource1"),
+        createTestDirectory(appendPath(start, "/directory/"), "directory"),
+        createTestFile(appendPath(start, "/directory/resource2"), "resource2"));
+    prepare_walk_OK(start, expectedResources);
+    try (Stream<OwncloudResource> resources = resourceService.walk(start)) {
+      assertThat(resources.collect(Collectors.toList())).containsOnlyElementsOf(expectedResources);
+    }
+  }
+
+  private OwncloudTestResourceImpl createTestDirectory(URI href, String name) {
+    String eTag = UUID.randomUUID().toString();
+    return OwncloudTestResourceImpl.builder()
+                                   .backendETag(eTag)
+                                   .backendName(name)
+                                   .eTag(eTag)
+                                   .href(href)
+                                   .lastModifiedAt(LocalDateTime.now())
+                                   .mediaType(OwncloudUtils.getDirectoryMediaType())
+                                   .name(name)
+                                   .build();
+  }
+
+  private OwncloudTestFileResourceImpl createTestFile(URI href, String name) {
+    String eTag = UUID.randomUUID().toString();
+    return OwncloudTestFileResourceImpl.fileBuilder()
+                                       .owncloudResource(OwncloudTestResourceImpl.builder()
+                                                                                 .backendETag(eTag)
+                                                                                 .backendName(name)
+                                                                                 .eTag(eTag)
+                                                                                 .href(href)
+                                                                                 .lastModifiedAt(LocalDateTime.now())
+                                                                                 .mediaType(MediaType.APPLICATION_OCTET_STREAM)
+                                                                                 .name(name)
+                                                                                 .build())
+                                       .testFileContent(TEST_FILE_CONTENT)
+                                       .build();
+  }
+
+  protected void prepare_walk_OK(URI start, List<OwncloudTestResourceImpl> expectedResources) throws Exception {
+  }
+
+  @Test(expected = OwncloudResourceNotFoundException.class)
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_walk_NOK_FileNotFound() throws Exception {
+    URI start = URI.create("/unknown");
+    prepare_walk_NOK_FileNotFound(start);
+    resourceService.walk(start);
+    fail("Expected Exception " + OwncloudResourceNotFoundException.class.getName() + " has not been thrown");
+  }
+
+  protected void prepare_walk_NOK_FileNotFound(URI start) throws Exception {
+  }
+
   @Test
   @WithMockUser(username = "user1", password = "s3cr3t")
   public void test_findFile_OK() throws Exception {
@@ -344,6 +418,57 @@ public abstract class AbstractOwncloudResourceServiceTest {
   protected void check_getInputStream_OK() throws Exception {
   }
 
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_openChannel_OK() throws Exception {
+    URI href = URI.create("/directory/fileInDirectory.txt");
+    OwncloudTestFileResourceImpl owncloudFileResource = OwncloudTestFileResourceImpl.fileBuilder()
+                                                                                    .owncloudResource(OwncloudTestResourceImpl.builder()
+                                                                                                                              .href(href)
+                                                                                                                              .mediaType(MediaType.TEXT_PLAIN)
+                                                                                                                              .build())
+                                                                                    .testFileContent(TEST_FILE_CONTENT)
+                                                                                    .build();
+    prepare_openChannel_OK(owncloudFileResource);
+    try (SeekableByteChannel channel = resourceService.openChannel(owncloudFileResource)) {
+      assertThat(channel.size()).isEqualTo(TEST_FILE_CONTENT.length());
+
+      ByteBuffer region = ByteBuffer.allocate(4);
+      channel.position(5);
+      assertThat(channel.read(region)).isEqualTo(4);
+      assertThat(new String(region.array())).isEqualTo(TEST_FILE_CONTENT.substring(5, 9));
+
+      ByteBuffer tail = ByteBuffer.allocate(TEST_FILE_CONTENT.length());
+      channel.position(TEST_FILE_CONTENT.length() - 4);
+      assertThat(channel.read(tail)).isEqualTo(4);
+      assertThat(new String(tail.array(), 0, tail.position())).isEqualTo(TEST_FILE_CONTENT.substring(TEST_FILE_CONTENT.length() - 4));
+      assertThat(channel.read(tail)).isEqualTo(-1);
+    }
+  }
+
+  protected void prepare_openChannel_OK(OwncloudTestFileResourceImpl owncloudFileResource) throws Exception {
+  }
+
+  @Test(expected = OwncloudResourceNotFoundException.class)
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_openChannel_NOK_FileNotFound() throws Exception {
+    URI href = URI.create("/directory/notExists.txt");
+    OwncloudTestFileResourceImpl owncloudFileResource = OwncloudTestFileResourceImpl.fileBuilder()
+                                                                                    .owncloudResource(OwncloudTestResourceImpl.builder()
+                                                                                                                              .href(href)
+                                                                                                                              .mediaType(MediaType.TEXT_PLAIN)
+                                                                                                                              .build())
+                                                                                    .testFileContent(TEST_FILE_CONTENT)
+                                                                                    .build();
+    prepare_openChannel_NOK_FileNotFound(owncloudFileResource);
+    try (SeekableByteChannel channel = resourceService.openChannel(owncloudFileResource)) {
+      channel.read(ByteBuffer.allocate(1)); // we have to read at least one byte
+    }
+  }
+
+  protected void prepare_openChannel_NOK_FileNotFound(OwncloudTestFileResourceImpl owncloudFileResource) throws Exception {
+  }
+
   @Test(expected = OwncloudResourceNotFoundException.class)
   @WithMockUser(username = "user1", password = "s3cr3t")
   public void test_getInputStream_NOK_FileNotFound() throws Exception {
@@ -370,6 +495,72 @@ public abstract class AbstractOwncloudResourceServiceTest {
     fail("OwncloudResourceNotFoundException should be thrown");
   }
 
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_uploadAll_OK() throws Exception {
+    Map<URI, String> contents = new HashMap<>();
+    contents.put(URI.create("/batchUpload1.txt"), "This is the first Test");
+    contents.put(URI.create("/batchUpload2.txt"), "This is the second Test");
+    Map<URI, Path> files = new HashMap<>();
+    for (Map.Entry<URI, String> content : contents.entrySet()) {
+      Path file = temporaryFolder.getRoot().toPath().resolve(StringUtils.stripStart(content.getKey().getPath(), "/"));
+      Files.write(file, content.getValue().getBytes());
+      files.put(content.getKey(), file);
+    }
+    prepare_uploadAll_OK(contents);
+
+    List<OwncloudTransferResult> results = resourceService.uploadAll(files);
+
+    assertThat(results).hasSize(contents.size());
+    for (OwncloudTransferResult result : results) {
+      assertThat(result.isSuccessful()).isTrue();
+      assertThat(result.getPath()).isEqualTo(files.get(result.getHref()));
+      assertThat(result.getTransferredBytes()).isEqualTo(contents.get(result.getHref()).length());
+    }
+    check_uploadAll_OK(contents);
+  }
+
+  protected void prepare_uploadAll_OK(Map<URI, String> contents) throws Exception {
+  }
+
+  protected void check_uploadAll_OK(Map<URI, String> contents) throws Exception {
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_downloadAll_OK_PartiallyNotFound() throws Exception {
+    OwncloudTestFileResourceImpl existingResource = OwncloudTestFileResourceImpl.fileBuilder()
+                                                                                .owncloudResource(OwncloudTestResourceImpl.builder()
+                                                                                                                          .href(URI.create("/directory/batchDownload.txt"))
+                                                                                                                          .mediaType(MediaType.TEXT_PLAIN)
+                                                                                                                          .build())
+                                                                                .testFileContent(TEST_FILE_CONTENT)
+                                                                                .build();
+    OwncloudTestFileResourceImpl notExistingResource = OwncloudTestFileResourceImpl.fileBuilder()
+                                                                                   .owncloudResource(OwncloudTestResourceImpl.builder()
+                                                                                                                             .href(URI.create("/directory/notExists.txt"))
+                                                                                                                             .mediaType(MediaType.TEXT_PLAIN)
+                                                                                                                             .build())
+                                                                                   .testFileContent(TEST_FILE_CONTENT)
+                                                                                   .build();
+    prepare_downloadAll_OK_PartiallyNotFound(existingResource, notExistingResource);
+    Path targetDirectory = temporaryFolder.newFolder().toPath();
+
+    List<OwncloudTransferResult> results = resourceService.downloadAll(Lists.newArrayList(existingResource, notExistingResource), targetDirectory);
+
+    assertThat(results).hasSize(2);
+    OwncloudTransferResult existingResult = results.get(0);
+    assertThat(existingResult.isSuccessful()).isTrue();
+    assertThat(existingResult.getPath()).isEqualTo(targetDirectory.resolve("directory/batchDownload.txt"));
+    assertThat(new String(Files.readAllBytes(existingResult.getPath()))).isEqualTo(TEST_FILE_CONTENT);
+    OwncloudTransferResult notExistingResult = results.get(1);
+    assertThat(notExistingResult.isSuccessful()).isFalse();
+    assertThat(notExistingResult.getFailure()).containsInstanceOf(OwncloudResourceNotFoundException.class);
+  }
+
+  protected void prepare_downloadAll_OK_PartiallyNotFound(OwncloudTestFileResourceImpl existingResource, OwncloudTestFileResourceImpl notExistingResource) throws Exception {
+  }
+
   @Test
   @WithMockUser(username = "user1", password = "s3cr3t")
   public void test_getOutputStream_OK() throws Exception {
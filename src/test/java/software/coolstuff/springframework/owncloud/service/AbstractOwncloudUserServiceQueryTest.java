@@ -25,12 +25,15 @@ import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
 import org.springframework.security.test.context.support.WithMockUser;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
 import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudUserService;
 import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -70,6 +73,82 @@ public abstract class AbstractOwncloudUserServiceQueryTest extends AbstractOwncl
 
   protected void prepareTestFindAllUsersWithFilter(String filter, String... users) throws Exception {}
 
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testStreamAllUsersWithFilter() throws Exception {
+    prepareTestFindAllUsersWithFilter("User 1", "user1");
+
+    List<String> users;
+    try (Stream<String> stream = userService.streamAll("User 1")) {
+      users = stream.collect(Collectors.toList());
+    }
+    verifyServer();
+
+    assertThat(users).containsOnly("user1");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllUsersPaged() throws Exception {
+    prepareTestFindAllUsersPaged(2, "user1", "user2", "user5");
+
+    OwncloudPage<String> firstPage = userService.findAll(null, 0, 2);
+    OwncloudPage<String> secondPage = userService.findAll(null, firstPage.getNextOffset().get(), 2);
+    verifyServer();
+
+    assertThat(firstPage.getContent()).hasSize(2);
+    assertThat(firstPage.hasNext()).isTrue();
+    assertThat(secondPage.getContent()).hasSize(1);
+    assertThat(secondPage.hasNext()).isFalse();
+    assertThat(Stream.concat(firstPage.getContent().stream(), secondPage.getContent().stream()))
+        .containsOnly("user1", "user2", "user5");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testStreamAllUsers() throws Exception {
+    prepareTestFindAllUsersPaged(2, "user1", "user2", "user5");
+
+    List<String> users;
+    try (Stream<String> stream = userService.streamAll(null, 2)) {
+      users = stream.collect(Collectors.toList());
+    }
+    verifyServer();
+
+    assertThat(users).containsOnly("user1", "user2", "user5");
+  }
+
+  protected void prepareTestFindAllUsersPaged(int limit, String... users) throws Exception {}
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllDetailsWithFilter() throws Exception {
+    OwncloudUserDetails expectedUser = OwncloudUserDetails.builder()
+                                                          .username("user1")
+                                                          .enabled(true)
+                                                          .email("user1@example.com")
+                                                          .displayname("Mr. User 1")
+                                                          .quota(1024L)
+                                                          .build();
+    prepareTestFindAllDetailsWithFilter("User 1", expectedUser, "group1", "group2");
+
+    List<OwncloudUserDetails> users;
+    try (Stream<OwncloudUserDetails> stream = userService.findAllDetails("User 1")) {
+      users = stream.collect(Collectors.toList());
+    }
+    verifyServer();
+
+    assertThat(users).hasSize(1);
+    OwncloudUserDetails actualUser = users.get(0);
+    assertThat(actualUser.getUsername()).isEqualTo(expectedUser.getUsername());
+    assertThat(actualUser.getPassword()).isNull();
+    assertThat(actualUser.getDisplayname()).isEqualTo(expectedUser.getDisplayname());
+    assertThat(actualUser.getEmail()).isEqualTo(expectedUser.getEmail());
+    checkAuthorities(actualUser.getUsername(), actualUser.getAuthorities(), "group1", "group2");
+  }
+
+  protected void prepareTestFindAllDetailsWithFilter(String filter, OwncloudUserDetails expectedUser, String... groups) throws Exception {}
+
   @Test
   @WithMockUser(username = "user1", password = "password")
   public void testFindOneUser_OK() throws Exception {
@@ -28,11 +28,16 @@ import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebCl
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.test.context.support.WithMockUser;
+import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
 import software.coolstuff.springframework.owncloud.model.OwncloudModificationUser;
+import software.coolstuff.springframework.owncloud.model.OwncloudSaveResult;
 import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudUserService;
 import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @AutoConfigureWebClient
@@ -233,6 +238,58 @@ public abstract class AbstractOwncloudUserServiceTest extends AbstractOwncloudSe
   protected void prepareTestSaveUser_UpdateUser_OK_WithGroups(OwncloudModificationUser existingUser, OwncloudModificationUser updateUser) throws Exception {
   }
 
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testSaveAllUsers() throws Exception {
+    OwncloudModificationUser unchangedUser = OwncloudModificationUser.builder()
+                                                                     .username("user5")
+                                                                     .enabled(true)
+                                                                     .displayname("Mr. User 5")
+                                                                     .email("user5@example.com")
+                                                                     .quota(1024L)
+                                                                     .group("group1")
+                                                                     .group("group2")
+                                                                     .build();
+    OwncloudModificationUser newUser = OwncloudModificationUser.builder()
+                                                               .username("user6")
+                                                               .password("password")
+                                                               .enabled(true)
+                                                               .displayname("Mr. User 6")
+                                                               .email("user6@example.com")
+                                                               .quota(2048L)
+                                                               .build();
+    OwncloudModificationUser userWithUnknownGroup = OwncloudModificationUser.builder()
+                                                                            .username("user7")
+                                                                            .password("password")
+                                                                            .enabled(true)
+                                                                            .displayname("Mr. User 7")
+                                                                            .group("group9")
+                                                                            .build();
+
+    prepareTestSaveAllUsers(unchangedUser, newUser);
+
+    List<OwncloudSaveResult> results = userService.saveAll(Stream.of(unchangedUser, newUser, userWithUnknownGroup));
+    verifyServer();
+
+    assertThat(results).hasSize(3);
+    assertThat(results.get(0).getUsername()).isEqualTo("user5");
+    assertThat(results.get(0).isSuccessful()).isTrue();
+    assertThat(results.get(0).isModified()).isFalse();
+    checkAuthorities("user5", results.get(0).getUser().get().getAuthorities(), "group1", "group2");
+    assertThat(results.get(1).getUsername()).isEqualTo("user6");
+    assertThat(results.get(1).isSuccessful()).isTrue();
+    assertThat(results.get(1).isModified()).isTrue();
+    assertThat(results.get(1).getUser().get().getDisplayname()).isEqualTo(newUser.getDisplayname());
+    assertThat(results.get(1).getUser().get().getQuota()).isEqualTo(newUser.getQuota());
+    assertThat(results.get(2).getUsername()).isEqualTo("user7");
+    assertThat(results.get(2).isSuccessful()).isFalse();
+    assertThat(results.get(2).getUser()).isNotPresent();
+    assertThat(results.get(2).getFailure()).containsInstanceOf(OwncloudGroupNotFoundException.class);
+  }
+
+  protected void prepareTestSaveAllUsers(OwncloudModificationUser unchangedUser, OwncloudModificationUser newUser) throws Exception {
+  }
+
   @Test
   @WithMockUser(username = "user1", password = "password")
   public void testDeleteUser_OK() throws Exception {
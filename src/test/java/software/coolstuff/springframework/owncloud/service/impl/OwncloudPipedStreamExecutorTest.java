@@ -0,0 +1,212 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceTransferRejectedException;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudProperties.PipedStreamExecutorProperties;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudProperties.PipedStreamExecutorType;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class OwncloudPipedStreamExecutorTest {
+
+  private OwncloudPipedStreamExecutor executor;
+
+  @After
+  public void tearDown() throws Exception {
+    if (executor != null) {
+      executor.destroy();
+    }
+  }
+
+  private OwncloudPipedStreamExecutor createExecutor(PipedStreamExecutorType type, int maximumPoolSize, int queueCapacity) {
+    return new OwncloudPipedStreamExecutor(createProperties(type, maximumPoolSize, queueCapacity));
+  }
+
+  private OwncloudRestProperties createProperties(PipedStreamExecutorType type, int maximumPoolSize, int queueCapacity) {
+    OwncloudRestProperties properties = new OwncloudRestProperties();
+    PipedStreamExecutorProperties executorProperties = properties.getResourceService().getPipedStreamExecutor();
+    executorProperties.setType(type);
+    executorProperties.setMaximumPoolSize(maximumPoolSize);
+    executorProperties.setQueueCapacity(queueCapacity);
+    return properties;
+  }
+
+  @Test
+  public void testBounded_QueueAndReject() throws Exception {
+    executor = createExecutor(PipedStreamExecutorType.BOUNDED, 1, 1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(2);
+    Runnable transfer = () -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      finished.countDown();
+    };
+
+    executor.execute(transfer);
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    executor.execute(transfer);
+    try {
+      executor.execute(transfer);
+      fail("Transfer should have been rejected");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+
+    assertThat(executor.getActiveTransfers()).isEqualTo(1);
+    assertThat(executor.getQueuedTransfers()).isEqualTo(1);
+    assertThat(executor.getRejectedTransfers()).isEqualTo(1);
+    assertThat(executor.getCompletedTransfers()).isEqualTo(0);
+
+    OwncloudPipedStreamExecutorStats stats = executor.getStats();
+    assertThat(stats.getActiveTransfers()).isEqualTo(1);
+    assertThat(stats.getQueuedTransfers()).isEqualTo(1);
+    assertThat(stats.getRejectedTransfers()).isEqualTo(1);
+    assertThat(stats.getCompletedTransfers()).isEqualTo(0);
+
+    release.countDown();
+    assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+    waitForCompletedTransfers(2);
+    assertThat(executor.getActiveTransfers()).isEqualTo(0);
+    assertThat(executor.getQueuedTransfers()).isEqualTo(0);
+    assertThat(executor.getCompletedTransfers()).isEqualTo(2);
+  }
+
+  @Test
+  public void testBounded_WithoutQueue() throws Exception {
+    executor = createExecutor(PipedStreamExecutorType.BOUNDED, 1, 0);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    try {
+      executor.execute(() -> {});
+      fail("Transfer should have been rejected");
+    } catch (RejectedExecutionException e) {
+      // expected
+    } finally {
+      release.countDown();
+    }
+    assertThat(executor.getRejectedTransfers()).isEqualTo(1);
+  }
+
+  @Test
+  public void testBounded_QueuedTransferExceedsStartTimeout() throws Exception {
+    OwncloudRestProperties properties = createProperties(PipedStreamExecutorType.BOUNDED, 1, 1);
+    PipedStreamExecutorProperties executorProperties = properties.getResourceService().getPipedStreamExecutor();
+    executorProperties.setStartTimeout(200);
+    executorProperties.setStartTimeoutTimeUnit(TimeUnit.MILLISECONDS);
+    executor = new OwncloudPipedStreamExecutor(properties);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    AtomicBoolean workerStarted = new AtomicBoolean();
+    AbstractPipedStreamSynchronizerImpl synchronizer = new AbstractPipedStreamSynchronizerImpl(
+        new TestingAuthenticationToken("user1", "s3cr3t"),
+        properties,
+        URI.create("/file.txt"),
+        executor) {
+      @Override
+      protected void createPipedStream() {
+        workerStarted.set(true);
+        setPipeReady();
+      }
+
+      @Override
+      protected String getThreadName() {
+        return "queued Transfer";
+      }
+    };
+    try {
+      synchronizer.startThreadAndWaitForConnectedPipe();
+      fail("Transfer should have been rejected");
+    } catch (OwncloudResourceTransferRejectedException e) {
+      // expected
+    } finally {
+      release.countDown();
+    }
+
+    waitForCompletedTransfers(2);
+    assertThat(executor.getCompletedTransfers()).isEqualTo(2);
+    assertThat(workerStarted).isFalse();
+  }
+
+  @Test
+  public void testUnbounded() throws Exception {
+    executor = createExecutor(PipedStreamExecutorType.UNBOUNDED, 1, 0);
+    CountDownLatch finished = new CountDownLatch(3);
+    for (int i = 0; i < 3; i++) {
+      executor.execute(finished::countDown);
+    }
+    assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+    waitForCompletedTransfers(3);
+    assertThat(executor.getRejectedTransfers()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testVirtualThreads_NotSupported() throws Exception {
+    Assume.assumeFalse(isVirtualThreadSupported());
+    createExecutor(PipedStreamExecutorType.VIRTUAL_THREADS, 1, 0);
+  }
+
+  private boolean isVirtualThreadSupported() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private void waitForCompletedTransfers(long expected) throws InterruptedException {
+    for (int i = 0; i < 100 && executor.getCompletedTransfers() < expected; i++) {
+      Thread.sleep(50);
+    }
+  }
+}
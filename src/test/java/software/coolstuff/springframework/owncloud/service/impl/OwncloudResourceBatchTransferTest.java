@@ -0,0 +1,184 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
+import software.coolstuff.springframework.owncloud.model.OwncloudTransferResult;
+import software.coolstuff.springframework.owncloud.service.api.OwncloudResourceService;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OwncloudResourceBatchTransferTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private OwncloudResourceBatchTransfer createBatchTransfer(Executor executor, Function<OwncloudFileResource, InputStream> downloader) {
+    OwncloudRestProperties properties = new OwncloudRestProperties();
+    properties.getResourceService().setBatchTransferParallelism(2);
+    return OwncloudResourceBatchTransfer.builder()
+                                        .resourceService(Mockito.mock(OwncloudResourceService.class))
+                                        .properties(properties.getResourceService())
+                                        .executor(executor)
+                                        .downloader(downloader)
+                                        .build();
+  }
+
+  private OwncloudFileResource createFileResource(String path) {
+    OwncloudFileResource resource = Mockito.mock(OwncloudFileResource.class);
+    Mockito.when(resource.getHref()).thenReturn(URI.create(path));
+    Mockito.when(resource.getMediaType()).thenReturn(MediaType.TEXT_PLAIN);
+    return resource;
+  }
+
+  private static InputStream failingAfter(String content) {
+    InputStream failure = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("Connection reset");
+      }
+    };
+    return new SequenceInputStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), failure);
+  }
+
+  private List<Path> filesOf(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.collect(Collectors.toList());
+    }
+  }
+
+  @Test
+  public void testDownloadAll_FailedDownloadKeepsExistingFile() throws Exception {
+    Path targetDirectory = temporaryFolder.newFolder().toPath();
+    Path existingFile = targetDirectory.resolve("file.txt");
+    Files.write(existingFile, "existing Content".getBytes(StandardCharsets.UTF_8));
+    OwncloudResourceBatchTransfer batchTransfer = createBatchTransfer(Runnable::run, resource -> failingAfter("partial"));
+
+    List<OwncloudTransferResult> results = batchTransfer.downloadAll(Collections.singletonList(createFileResource("/file.txt")), targetDirectory);
+
+    assertThat(results).hasSize(1);
+    assertThat(results.get(0).isSuccessful()).isFalse();
+    assertThat(new String(Files.readAllBytes(existingFile), StandardCharsets.UTF_8)).isEqualTo("existing Content");
+    assertThat(filesOf(targetDirectory)).containsExactly(existingFile);
+  }
+
+  @Test
+  public void testDownloadAll_SuccessfulDownloadReplacesExistingFile() throws Exception {
+    Path targetDirectory = temporaryFolder.newFolder().toPath();
+    Path existingFile = targetDirectory.resolve("file.txt");
+    Files.write(existingFile, "existing Content".getBytes(StandardCharsets.UTF_8));
+    OwncloudResourceBatchTransfer batchTransfer =
+        createBatchTransfer(Runnable::run, resource -> new ByteArrayInputStream("new Content".getBytes(StandardCharsets.UTF_8)));
+
+    List<OwncloudTransferResult> results = batchTransfer.downloadAll(Collections.singletonList(createFileResource("/file.txt")), targetDirectory);
+
+    assertThat(results.get(0).isSuccessful()).isTrue();
+    assertThat(results.get(0).getTransferredBytes()).isEqualTo("new Content".length());
+    assertThat(new String(Files.readAllBytes(existingFile), StandardCharsets.UTF_8)).isEqualTo("new Content");
+    assertThat(filesOf(targetDirectory)).containsExactly(existingFile);
+  }
+
+  @Test
+  public void testDownloadAll_QueuedTransfersExecutedByCallingThread() throws Exception {
+    Path targetDirectory = temporaryFolder.newFolder().toPath();
+    // an Executor which never starts any Transfer
+    Executor blockedExecutor = command -> {};
+    OwncloudResourceBatchTransfer batchTransfer =
+        createBatchTransfer(blockedExecutor, resource -> new ByteArrayInputStream(resource.getHref().getPath().getBytes(StandardCharsets.UTF_8)));
+    List<OwncloudFileResource> resources = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      resources.add(createFileResource("/file" + i + ".txt"));
+    }
+
+    List<OwncloudTransferResult> results = batchTransfer.downloadAll(resources, targetDirectory);
+
+    assertThat(results).hasSize(5)
+                       .allMatch(OwncloudTransferResult::isSuccessful);
+    assertThat(new String(Files.readAllBytes(targetDirectory.resolve("file3.txt")), StandardCharsets.UTF_8)).isEqualTo("/file3.txt");
+  }
+
+  @Test
+  public void testUploadAll_BackgroundWorkersNotStarvedByTransfers() throws Exception {
+    OwncloudRestProperties properties = new OwncloudRestProperties();
+    properties.getResourceService().setBatchTransferParallelism(2);
+    properties.getResourceService().getPipedStreamExecutor().setMaximumPoolSize(1);
+    OwncloudPipedStreamExecutor pipedStreamExecutor = new OwncloudPipedStreamExecutor(properties);
+    try {
+      // like the PipedStream-Synchronizer: every Upload needs a started Background Worker of the PipedStream Executor
+      OwncloudResourceService resourceService = Mockito.mock(OwncloudResourceService.class);
+      Mockito.when(resourceService.getOutputStream(Mockito.any(URI.class), Mockito.any(MediaType.class)))
+             .thenAnswer(invocation -> {
+               CountDownLatch workerStarted = new CountDownLatch(1);
+               pipedStreamExecutor.execute(workerStarted::countDown);
+               if (!workerStarted.await(5, TimeUnit.SECONDS)) {
+                 throw new IllegalStateException("Background Worker has not been started");
+               }
+               return new ByteArrayOutputStream();
+             });
+      OwncloudResourceBatchTransfer batchTransfer = OwncloudResourceBatchTransfer.builder()
+                                                                                 .resourceService(resourceService)
+                                                                                 .properties(properties.getResourceService())
+                                                                                 .build();
+      Map<URI, Path> files = new LinkedHashMap<>();
+      for (int i = 0; i < 4; i++) {
+        Path file = temporaryFolder.newFile("file" + i + ".txt").toPath();
+        Files.write(file, ("Content " + i).getBytes(StandardCharsets.UTF_8));
+        files.put(URI.create("/file" + i + ".txt"), file);
+      }
+
+      List<OwncloudTransferResult> results = batchTransfer.uploadAll(files);
+
+      assertThat(results).hasSize(4)
+                         .allMatch(OwncloudTransferResult::isSuccessful);
+      assertThat(pipedStreamExecutor.getRejectedTransfers()).isZero();
+    } finally {
+      pipedStreamExecutor.destroy();
+    }
+  }
+}
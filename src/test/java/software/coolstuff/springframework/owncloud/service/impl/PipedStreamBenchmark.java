@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the Transfer of Content between two Threads by {@link RingBufferPipedInputStream}/{@link RingBufferPipedOutputStream}
+ * and by {@link PipedInputStream}/{@link PipedOutputStream} of the JDK with the same Capacity and Buffer Size.
+ * <p/>
+ * This is not a Unit-Test and will not be executed by the Build. Run it by its <code>main</code>-Method
+ * (i.e. from the IDE) after <code>mvn test-compile</code> or by <code>org.openjdk.jmh.Main PipedStreamBenchmark</code>
+ * with the Test-Classpath.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PipedStreamBenchmark {
+
+  private static final int EOF = -1;
+
+  /** Size of the transferred Content (in Bytes) */
+  @Param("16777216")
+  private int contentSize;
+
+  /** Capacity of the Pipe (in Bytes), see <code>owncloud.resource-service.piped-stream-capacity</code> */
+  @Param({ "1024", "65536" })
+  private int pipeCapacity;
+
+  /** Buffer Size of the Copy Process (in Bytes), see <code>owncloud.resource-service.piped-stream-buffer-size</code> */
+  @Param("8192")
+  private int bufferSize;
+
+  private byte[] content;
+  private ExecutorService writerExecutor;
+
+  @Setup
+  public void setUp() {
+    content = new byte[contentSize];
+    new Random(4711).nextBytes(content);
+    writerExecutor = Executors.newSingleThreadExecutor();
+  }
+
+  @TearDown
+  public void tearDown() {
+    writerExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public long ringBufferPipe() throws Exception {
+    RingBufferPipedOutputStream output = new RingBufferPipedOutputStream(pipeCapacity);
+    return transfer(new RingBufferPipedInputStream(output), output);
+  }
+
+  @Benchmark
+  public long jdkPipe() throws Exception {
+    PipedInputStream input = new PipedInputStream(pipeCapacity);
+    return transfer(input, new PipedOutputStream(input));
+  }
+
+  private long transfer(InputStream input, OutputStream output) throws Exception {
+    Future<?> writer = writerExecutor.submit(() -> {
+      try (OutputStream out = output) {
+        for (int offset = 0; offset < content.length; offset += bufferSize) {
+          out.write(content, offset, Math.min(bufferSize, content.length - offset));
+        }
+      }
+      return null;
+    });
+    long transferred = read(input);
+    writer.get();
+    return transferred;
+  }
+
+  private long read(InputStream input) throws IOException {
+    long transferred = 0;
+    byte[] buffer = new byte[bufferSize];
+    try (InputStream in = input) {
+      for (int length = 0; (length = in.read(buffer)) != EOF; ) {
+        transferred += length;
+      }
+    }
+    return transferred;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(PipedStreamBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
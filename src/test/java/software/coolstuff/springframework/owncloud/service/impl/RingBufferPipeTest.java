@@ -0,0 +1,215 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class RingBufferPipeTest {
+
+  @Test(timeout = 10000)
+  public void testTransfer_LargerThanCapacity() throws Exception {
+    byte[] content = new byte[1024 * 1024 + 17];
+    new Random(4711).nextBytes(content);
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(1000);
+    CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+      try (OutputStream output = new RingBufferPipedOutputStream(input)) {
+        for (int offset = 0; offset < content.length; offset += 333) {
+          output.write(content, offset, Math.min(333, content.length - offset));
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    byte[] actual;
+    try (InputStream in = input) {
+      actual = IOUtils.toByteArray(in);
+    }
+    writer.get(5, TimeUnit.SECONDS);
+    assertThat(actual).isEqualTo(content);
+  }
+
+  @Test(timeout = 10000)
+  public void testSingleBytes() throws Exception {
+    RingBufferPipedOutputStream output = new RingBufferPipedOutputStream(2);
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(output);
+    CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+      try (OutputStream out = output) {
+        for (int i = 0; i < 256; i++) {
+          out.write(i);
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    for (int i = 0; i < 256; i++) {
+      assertThat(input.read()).isEqualTo(i);
+    }
+    assertThat(input.read()).isEqualTo(-1);
+    writer.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testAvailable() throws Exception {
+    RingBufferPipedOutputStream output = new RingBufferPipedOutputStream(16);
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(output);
+    output.write(new byte[10]);
+    assertThat(input.available()).isEqualTo(10);
+    assertThat(input.read(new byte[4])).isEqualTo(4);
+    assertThat(input.available()).isEqualTo(6);
+  }
+
+  @Test(timeout = 10000)
+  public void testWriteAfterReaderClosed() throws Exception {
+    RingBufferPipedOutputStream output = new RingBufferPipedOutputStream(4);
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(output);
+    output.write(new byte[4]);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    CountDownLatch finished = new CountDownLatch(1);
+    Thread writer = new Thread(() -> {
+      try {
+        output.write(new byte[4]);
+      } catch (Throwable t) {
+        failure.set(t);
+      } finally {
+        finished.countDown();
+      }
+    });
+    writer.start();
+    input.close();
+    assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(failure.get()).isInstanceOf(IOException.class);
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadAfterReaderClosed() throws Exception {
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(4);
+    input.close();
+    input.read();
+  }
+
+  @Test(timeout = 10000)
+  public void testWriterTerminatedWithoutClose() throws Exception {
+    RingBufferPipedOutputStream output = new RingBufferPipedOutputStream(16);
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(output);
+    Thread writer = new Thread(() -> {
+      try {
+        output.write(new byte[] { 1, 2, 3 });
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    writer.start();
+    writer.join();
+
+    byte[] buffer = new byte[16];
+    assertThat(input.read(buffer)).isEqualTo(3);
+    try {
+      input.read(buffer);
+      fail("Reader should recognize the terminated Writer");
+    } catch (IOException e) {
+      assertThat(e).hasMessageContaining("Writer has terminated");
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testWaitingReader_WriterTerminatedWithoutClose() throws Exception {
+    RingBufferPipedOutputStream output = new RingBufferPipedOutputStream(16);
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(output);
+    CountDownLatch readerWaits = new CountDownLatch(1);
+    Thread writer = new Thread(() -> {
+      try {
+        output.write(1);
+        readerWaits.await();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    writer.start();
+
+    assertThat(input.read()).isEqualTo(1);
+    readerWaits.countDown();
+    try {
+      input.read();
+      fail("Reader should recognize the terminated Writer");
+    } catch (IOException e) {
+      assertThat(e).hasMessageContaining("Writer has terminated");
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testWaitingWriter_ReaderTerminatedWithoutClose() throws Exception {
+    RingBufferPipedOutputStream output = new RingBufferPipedOutputStream(4);
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(output);
+    output.write(new byte[4]);
+    Thread reader = new Thread(() -> {
+      try {
+        input.read();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    reader.start();
+    reader.join();
+
+    try {
+      output.write(new byte[4]);
+      fail("Writer should recognize the terminated Reader");
+    } catch (IOException e) {
+      assertThat(e).hasMessageContaining("Reader has terminated");
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testInterruptWaitingReader() throws Exception {
+    RingBufferPipedInputStream input = new RingBufferPipedInputStream(4);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread reader = new Thread(() -> {
+      try {
+        input.read();
+      } catch (Throwable t) {
+        failure.set(t);
+      }
+    });
+    reader.start();
+    reader.interrupt();
+    reader.join();
+    assertThat(failure.get()).isInstanceOf(InterruptedIOException.class);
+  }
+}
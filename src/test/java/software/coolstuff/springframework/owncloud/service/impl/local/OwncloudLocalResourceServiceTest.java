@@ -53,6 +53,7 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -153,6 +154,12 @@ public class OwncloudLocalResourceServiceTest extends AbstractOwncloudResourceSe
     expectedResources.stream().forEach(this::modifyResourceInformationBasedOnPathInformation);
   }
 
+  @Override
+  protected void prepare_walk_OK(URI start, List<OwncloudTestResourceImpl> expectedResources) throws Exception {
+    expectedResources.stream().forEach(this::createResource);
+    expectedResources.stream().forEach(this::modifyResourceInformationBasedOnPathInformation);
+  }
+
   @Override
   protected void prepare_findFile_OK(URI searchPath, OwncloudTestFileResourceImpl expectedResource) throws Exception {
     createResource(expectedResource);
@@ -170,6 +177,25 @@ public class OwncloudLocalResourceServiceTest extends AbstractOwncloudResourceSe
     createResource(owncloudFileResource);
   }
 
+  @Override
+  protected void check_uploadAll_OK(Map<URI, String> contents) throws Exception {
+    for (Map.Entry<URI, String> content : contents.entrySet()) {
+      Path resourcePath = resolveRelativePath(Paths.get(content.getKey().getPath()));
+      assertThat(resourcePath).exists();
+      assertThat(new String(Files.readAllBytes(resourcePath))).isEqualTo(content.getValue());
+    }
+  }
+
+  @Override
+  protected void prepare_downloadAll_OK_PartiallyNotFound(OwncloudTestFileResourceImpl existingResource, OwncloudTestFileResourceImpl notExistingResource) throws Exception {
+    createResource(existingResource);
+  }
+
+  @Override
+  protected void prepare_openChannel_OK(OwncloudTestFileResourceImpl owncloudFileResource) throws Exception {
+    createResource(owncloudFileResource);
+  }
+
   @Override
   protected void check_getOutputStream_OK(OwncloudTestFileResourceImpl owncloudFileResource) throws Exception {
     Path resourcePath = resolveRelativePath(Paths.get(owncloudFileResource.getHref().getPath()));
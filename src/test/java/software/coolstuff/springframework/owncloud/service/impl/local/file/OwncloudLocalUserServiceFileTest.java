@@ -59,6 +59,11 @@ public class OwncloudLocalUserServiceFileTest extends AbstractLocalOwncloudUserS
     compareResources(getResourceOf(resourceLoader, "owncloud_afterSave_User1"), target);
   }
 
+  @CompareResourceAfter("testSaveAllUsers")
+  public void compareAfterTestSaveAllUsers(Resource target) throws Exception {
+    compareResources(getResourceOf(resourceLoader, "owncloud_afterSaveAll"), target);
+  }
+
   @CompareResourceAfter("testDeleteUser_OK")
   public void compareTestDeleteUser_OK(Resource target) throws Exception {
     compareResources(getResourceOf(resourceLoader, "owncloud_afterDelete_User1"), target);
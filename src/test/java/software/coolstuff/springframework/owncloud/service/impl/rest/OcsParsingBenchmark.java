@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the Deserialization of a List of Users by the XML Format (OCS API Version 1)
+ * and by the JSON Format (OCS API Version 2), either fully materialized or incrementally by {@link OcsNameReader}.
+ * <p/>
+ * This is not a Unit-Test and will not be executed by the Build. Run it by its <code>main</code>-Method
+ * (i.e. from the IDE) after <code>mvn test-compile</code> or by <code>org.openjdk.jmh.Main OcsParsingBenchmark -prof gc</code>
+ * with the Test-Classpath to compare the Allocation Rate of both Formats too.
+ *
+ * @author mufasa1976
+ * @since 1.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OcsParsingBenchmark {
+
+  @Param("100000")
+  private int numberOfUsers;
+
+  private byte[] xmlResponse;
+  private byte[] jsonResponse;
+
+  private XmlMapper xmlMapper;
+  private ObjectReader jsonReader;
+
+  @Setup
+  public void setUp() {
+    StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><ocs><meta><status>ok</status><statuscode>100</statuscode><message/></meta><data><users>");
+    StringBuilder json = new StringBuilder("{\"ocs\":{\"meta\":{\"status\":\"ok\",\"statuscode\":200,\"message\":\"OK\"},\"data\":{\"users\":[");
+    for (int i = 0; i < numberOfUsers; i++) {
+      xml.append("<element>user").append(i).append("</element>");
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("\"user").append(i).append('"');
+    }
+    xml.append("</users></data></ocs>");
+    json.append("]}}}");
+    xmlResponse = xml.toString().getBytes(StandardCharsets.UTF_8);
+    jsonResponse = json.toString().getBytes(StandardCharsets.UTF_8);
+
+    // same Configuration as the XML Message Converter of the RestTemplate
+    xmlMapper = new XmlMapper();
+    xmlMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    jsonReader = OcsJson.readerFor(OcsJson.Users.class);
+  }
+
+  @Benchmark
+  public List<String> xml() throws IOException {
+    Ocs.Users users = xmlMapper.readValue(new ByteArrayInputStream(xmlResponse), Ocs.Users.class);
+    return OwncloudRestUtils.convertUsers(users);
+  }
+
+  @Benchmark
+  public List<String> json() throws IOException {
+    OcsJson.Body<OcsJson.Users> users = OcsJson.read(jsonReader, new ByteArrayInputStream(jsonResponse));
+    return OcsJson.getUsers(users);
+  }
+
+  @Benchmark
+  public void xmlStreaming(Blackhole blackhole) throws IOException {
+    stream(OcsNameReader.xml(new ByteArrayInputStream(xmlResponse), "users"), blackhole);
+  }
+
+  @Benchmark
+  public void jsonStreaming(Blackhole blackhole) throws IOException {
+    stream(OcsNameReader.json(new ByteArrayInputStream(jsonResponse), "users"), blackhole);
+  }
+
+  private static void stream(OcsNameReader reader, Blackhole blackhole) throws IOException {
+    try (OcsNameReader names = reader) {
+      blackhole.consume(names.readMeta());
+      names.forEachRemaining(blackhole::consume);
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(OcsParsingBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,175 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class OwncloudRestAuthenticationCacheTest {
+
+  private OwncloudRestProperties properties;
+  private final AtomicInteger backendCalls = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    properties = new OwncloudRestProperties();
+    properties.getAuthenticationCache().setEnabled(true);
+  }
+
+  private Supplier<Authentication> backend(String username, String password) {
+    return () -> {
+      backendCalls.incrementAndGet();
+      OwncloudUserDetails userDetails = OwncloudUserDetails.builder()
+                                                           .username(username)
+                                                           .password(password)
+                                                           .enabled(true)
+                                                           .authorities(Lists.newArrayList(new SimpleGrantedAuthority("group1")))
+                                                           .build();
+      return new UsernamePasswordAuthenticationToken(userDetails, password, Lists.newArrayList(new SimpleGrantedAuthority("ROLE_GROUP1")));
+    };
+  }
+
+  private Supplier<Authentication> failingBackend() {
+    return () -> {
+      backendCalls.incrementAndGet();
+      throw new BadCredentialsException("Bad Credentials");
+    };
+  }
+
+  @Test
+  public void testAuthenticate_SecondCallFromCache() {
+    OwncloudRestAuthenticationCache authenticationCache = new OwncloudRestAuthenticationCache(properties);
+
+    authenticationCache.authenticate("user1", "s3cr3t", backend("user1", "s3cr3t"));
+    Authentication authentication = authenticationCache.authenticate("user1", "s3cr3t", backend("user1", "s3cr3t"));
+
+    assertThat(backendCalls.get()).isEqualTo(1);
+    assertThat(authentication.getCredentials()).isEqualTo("s3cr3t");
+    assertThat(((OwncloudUserDetails) authentication.getPrincipal()).getPassword()).isEqualTo("s3cr3t");
+    assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_GROUP1");
+    assertThat(authenticationCache.getStats().hitCount()).isEqualTo(1);
+    assertThat(authenticationCache.getStats().missCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testAuthenticate_WrongPasswordNotFromCache() {
+    OwncloudRestAuthenticationCache authenticationCache = new OwncloudRestAuthenticationCache(properties);
+    authenticationCache.authenticate("user1", "s3cr3t", backend("user1", "s3cr3t"));
+
+    try {
+      authenticationCache.authenticate("user1", "wrong", failingBackend());
+      fail("BadCredentialsException expected");
+    } catch (BadCredentialsException expected) {
+      // expected
+    }
+    assertThat(backendCalls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testAuthenticate_FailureNotCached() {
+    OwncloudRestAuthenticationCache authenticationCache = new OwncloudRestAuthenticationCache(properties);
+    for (int i = 0; i < 2; i++) {
+      try {
+        authenticationCache.authenticate("user1", "s3cr3t", failingBackend());
+        fail("BadCredentialsException expected");
+      } catch (BadCredentialsException expected) {
+        // expected
+      }
+    }
+    assertThat(backendCalls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testAuthenticate_Invalidated() {
+    OwncloudRestAuthenticationCache authenticationCache = new OwncloudRestAuthenticationCache(properties);
+    authenticationCache.authenticate("user1", "s3cr3t", backend("user1", "s3cr3t"));
+    authenticationCache.invalidate("user1");
+    authenticationCache.authenticate("user1", "s3cr3t", backend("user1", "s3cr3t"));
+
+    assertThat(backendCalls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testAuthenticate_Disabled() {
+    properties.getAuthenticationCache().setEnabled(false);
+    OwncloudRestAuthenticationCache authenticationCache = new OwncloudRestAuthenticationCache(properties);
+    authenticationCache.authenticate("user1", "s3cr3t", backend("user1", "s3cr3t"));
+    authenticationCache.authenticate("user1", "s3cr3t", backend("user1", "s3cr3t"));
+
+    assertThat(backendCalls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testAuthenticate_ConcurrentAuthenticationsCoalesced() throws Exception {
+    OwncloudRestAuthenticationCache authenticationCache = new OwncloudRestAuthenticationCache(properties);
+    CountDownLatch backendStarted = new CountDownLatch(1);
+    CountDownLatch releaseBackend = new CountDownLatch(1);
+    Supplier<Authentication> slowBackend = () -> {
+      backendStarted.countDown();
+      try {
+        releaseBackend.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return backend("user1", "s3cr3t").get();
+    };
+
+    int parallelism = 5;
+    ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+    try {
+      List<Future<Authentication>> authentications = new ArrayList<>();
+      authentications.add(executorService.submit(() -> authenticationCache.authenticate("user1", "s3cr3t", slowBackend)));
+      assertThat(backendStarted.await(10, TimeUnit.SECONDS)).isTrue();
+      for (int i = 1; i < parallelism; i++) {
+        authentications.add(executorService.submit(() -> authenticationCache.authenticate("user1", "s3cr3t", slowBackend)));
+      }
+      Thread.sleep(200);
+      releaseBackend.countDown();
+
+      for (Future<Authentication> authentication : authentications) {
+        assertThat(authentication.get(10, TimeUnit.SECONDS).getName()).isEqualTo("user1");
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    assertThat(backendCalls.get()).isEqualTo(1);
+  }
+}
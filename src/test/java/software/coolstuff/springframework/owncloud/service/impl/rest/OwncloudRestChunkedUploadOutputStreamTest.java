@@ -0,0 +1,250 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudQuotaExceededException;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.ChunkedUploadProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Uploads Files in Chunks to a local WebDAV Stub by the Sardine Implementation of the Connection Pool.
+ */
+public class OwncloudRestChunkedUploadOutputStreamTest {
+
+  private static final String UPLOAD_PATH = "/remote.php/dav/uploads/user1/transfer";
+  private static final String DESTINATION_PATH = "/remote.php/dav/files/user1/file.txt";
+
+  @RequiredArgsConstructor
+  private static class RecordedRequest {
+    private final String method;
+    private final String path;
+    private final String body;
+    private final String destination;
+    private final String authorization;
+
+    @Override
+    public String toString() {
+      return method + " " + path;
+    }
+  }
+
+  private final List<RecordedRequest> requests = Collections.synchronizedList(new ArrayList<>());
+  private final Map<String, Deque<Integer>> failures = new ConcurrentHashMap<>();
+  private final ByteArrayOutputStream singleUpload = new ByteArrayOutputStream();
+
+  private HttpServer server;
+  private OwncloudRestConnectionPool connectionPool;
+  private ExecutorService executorService;
+
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    OwncloudRestProperties properties = new OwncloudRestProperties();
+    properties.setLocation(getLocation());
+    connectionPool = new OwncloudRestConnectionPool(properties);
+    executorService = Executors.newFixedThreadPool(2);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    String body = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+    requests.add(new RecordedRequest(exchange.getRequestMethod(), path, body, exchange.getRequestHeaders().getFirst("Destination"),
+        exchange.getRequestHeaders().getFirst("Authorization")));
+    Integer failure = Optional.ofNullable(failures.get(path))
+                              .map(Deque::poll)
+                              .orElse(null);
+    exchange.sendResponseHeaders(failure != null ? failure : 201, -1);
+    exchange.close();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executorService.shutdownNow();
+    connectionPool.destroy();
+    server.stop(0);
+  }
+
+  private String getLocation() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  private OutputStream createOutputStream(long threshold, int chunkSize, Executor executor) {
+    ChunkedUploadProperties properties = new ChunkedUploadProperties();
+    properties.setEnabled(true);
+    properties.setThreshold(threshold);
+    properties.setChunkSize(chunkSize);
+    properties.setParallelism(2);
+    properties.setMaximumRetries(1);
+    properties.setRetryDelay(0);
+    return OwncloudRestChunkedUploadOutputStream.builder()
+                                                .sardine(connectionPool.createSardine("user1", "s3cr3t"))
+                                                .uri(URI.create("/file.txt"))
+                                                .username("user1")
+                                                .uploadUri(URI.create(getLocation() + UPLOAD_PATH))
+                                                .destinationUri(URI.create(getLocation() + DESTINATION_PATH))
+                                                .properties(properties)
+                                                .singleUploadSupplier(() -> singleUpload)
+                                                .executor(executor)
+                                                .build();
+  }
+
+  private List<String> requestsOf(String method) {
+    return requests.stream()
+                   .filter(request -> method.equals(request.method))
+                   .map(request -> request.path)
+                   .collect(Collectors.toList());
+  }
+
+  private String bodyOf(String path) {
+    return requests.stream()
+                   .filter(request -> "PUT".equals(request.method) && path.equals(request.path))
+                   .map(request -> request.body)
+                   .reduce((first, second) -> second)
+                   .orElse(null);
+  }
+
+  @Test
+  public void testBelowThreshold_SingleUpload() throws Exception {
+    try (OutputStream output = createOutputStream(8, 4, executorService)) {
+      output.write("small".getBytes());
+    }
+    assertThat(singleUpload.toString("UTF-8")).isEqualTo("small");
+    assertThat(requests).isEmpty();
+  }
+
+  @Test
+  public void testThresholdCheckedOnEveryWrite() throws Exception {
+    try (OutputStream output = createOutputStream(8, 1024, executorService)) {
+      output.write("more than 8 Bytes".getBytes());
+      // the Chunk (1024 Bytes) hasn't been completed yet
+      assertThat(requestsOf("MKCOL")).containsExactly(UPLOAD_PATH);
+    }
+    assertThat(requestsOf("PUT")).containsExactly(UPLOAD_PATH + "/00001");
+    assertThat(bodyOf(UPLOAD_PATH + "/00001")).isEqualTo("more than 8 Bytes");
+    assertThat(requestsOf("MOVE")).containsExactly(UPLOAD_PATH + "/.file");
+    assertThat(requests.get(requests.size() - 1).destination).isEqualTo(getLocation() + DESTINATION_PATH);
+    assertThat(singleUpload.size()).isZero();
+  }
+
+  @Test
+  public void testChunked_FailedChunkRetried() throws Exception {
+    failures.put(UPLOAD_PATH + "/00002", new ConcurrentLinkedDeque<>(Collections.singletonList(503)));
+    try (OutputStream output = createOutputStream(8, 4, executorService)) {
+      output.write("This is a large Test".getBytes());
+    }
+    assertThat(requestsOf("PUT")).containsOnly(
+        UPLOAD_PATH + "/00001",
+        UPLOAD_PATH + "/00002",
+        UPLOAD_PATH + "/00003",
+        UPLOAD_PATH + "/00004",
+        UPLOAD_PATH + "/00005");
+    assertThat(requestsOf("PUT")).filteredOn((UPLOAD_PATH + "/00002")::equals).hasSize(2);
+    assertThat(bodyOf(UPLOAD_PATH + "/00001")).isEqualTo("This");
+    assertThat(bodyOf(UPLOAD_PATH + "/00002")).isEqualTo(" is ");
+    assertThat(bodyOf(UPLOAD_PATH + "/00005")).isEqualTo("Test");
+    assertThat(requestsOf("MOVE")).containsExactly(UPLOAD_PATH + "/.file");
+  }
+
+  @Test
+  public void testChunked_ParallelChunksAuthenticated() throws Exception {
+    StringBuilder content = new StringBuilder();
+    for (int chunk = 0; chunk < 32; chunk++) {
+      content.append(String.format("%04d", chunk));
+    }
+    try (OutputStream output = createOutputStream(8, 4, executorService)) {
+      output.write(content.toString().getBytes());
+    }
+    String basicAuthentication = OwncloudRestUtils.encodeCredentialsForBasicAuthorization("user1", "s3cr3t");
+    List<RecordedRequest> chunkRequests = requests.stream()
+                                                  .filter(request -> "PUT".equals(request.method))
+                                                  .collect(Collectors.toList());
+    assertThat(chunkRequests).hasSize(32)
+                             .allMatch(request -> basicAuthentication.equals(request.authorization));
+    assertThat(bodyOf(UPLOAD_PATH + "/00017")).isEqualTo("0016");
+    assertThat(requestsOf("MOVE")).containsExactly(UPLOAD_PATH + "/.file");
+  }
+
+  @Test
+  public void testChunked_RejectedChunksUploadedByWritingThread() throws Exception {
+    Executor rejectingExecutor = command -> {
+      throw new RejectedExecutionException("exhausted");
+    };
+    try (OutputStream output = createOutputStream(8, 4, rejectingExecutor)) {
+      output.write("This is a large Test".getBytes());
+    }
+    assertThat(requestsOf("PUT")).containsExactly(
+        UPLOAD_PATH + "/00001",
+        UPLOAD_PATH + "/00002",
+        UPLOAD_PATH + "/00003",
+        UPLOAD_PATH + "/00004",
+        UPLOAD_PATH + "/00005");
+    assertThat(requestsOf("MOVE")).containsExactly(UPLOAD_PATH + "/.file");
+  }
+
+  @Test
+  public void testChunked_QueuedChunksUploadedByWritingThread() throws Exception {
+    // an Executor which never starts any Task
+    Executor blockedExecutor = command -> {};
+    try (OutputStream output = createOutputStream(8, 4, blockedExecutor)) {
+      output.write("This is a large Test".getBytes());
+    }
+    assertThat(requestsOf("PUT")).hasSize(5);
+    assertThat(requestsOf("MOVE")).containsExactly(UPLOAD_PATH + "/.file");
+  }
+
+  @Test
+  public void testChunked_NOK_QuotaExceeded() throws Exception {
+    for (int chunk = 1; chunk <= 6; chunk++) {
+      failures.put(UPLOAD_PATH + String.format("/%05d", chunk), new ConcurrentLinkedDeque<>(Collections.singletonList(507)));
+    }
+    try (OutputStream output = createOutputStream(8, 4, executorService)) {
+      output.write("This exceeds the Quota".getBytes());
+      fail("OwncloudQuotaExceededException expected");
+    } catch (OwncloudQuotaExceededException e) {
+      assertThat(requestsOf("DELETE")).containsExactly(UPLOAD_PATH);
+      assertThat(requestsOf("MOVE")).isEmpty();
+    }
+  }
+}
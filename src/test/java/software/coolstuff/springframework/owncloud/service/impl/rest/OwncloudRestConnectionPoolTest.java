@@ -0,0 +1,101 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.Sardine;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OwncloudRestConnectionPoolTest {
+
+  private OwncloudRestProperties properties;
+  private OwncloudRestConnectionPool connectionPool;
+
+  @Before
+  public void setUp() throws Exception {
+    properties = new OwncloudRestProperties();
+    properties.getResourceService().getConnectionPool().setMaximumConnectionsPerRoute(5);
+    properties.getResourceService().getConnectionPool().setMaximumConnections(7);
+    connectionPool = new OwncloudRestConnectionPool(properties);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    connectionPool.destroy();
+  }
+
+  @Test
+  public void testSardine_SharedHttpClientWithOwnCredentials() throws Exception {
+    Sardine sardineOfUser1 = connectionPool.createSardine("user1", "password1");
+    Sardine sardineOfUser2 = connectionPool.createSardine("user2", "password2");
+
+    assertThat(sardineOfUser1).isNotSameAs(sardineOfUser2);
+    assertThat(ReflectionTestUtils.getField(sardineOfUser1, "client"))
+        .isSameAs(ReflectionTestUtils.getField(sardineOfUser2, "client"));
+    assertThat(getUsernameOf(sardineOfUser1)).isEqualTo("user1");
+    assertThat(getUsernameOf(sardineOfUser2)).isEqualTo("user2");
+  }
+
+  private String getUsernameOf(Sardine sardine) {
+    HttpClientContext context = (HttpClientContext) ReflectionTestUtils.getField(sardine, "context");
+    return context.getCredentialsProvider()
+                  .getCredentials(AuthScope.ANY)
+                  .getUserPrincipal()
+                  .getName();
+  }
+
+  @Test
+  public void testConnectionManager_SharedBetweenRestTemplateAndSardine() throws Exception {
+    Object restConnectionManager = ReflectionTestUtils.getField(connectionPool.getRestHttpClient(), "connManager");
+    Object sardineConnectionManager = ReflectionTestUtils.getField(
+        ReflectionTestUtils.getField(connectionPool.createSardine("user1", "password1"), "client"),
+        "connManager");
+
+    assertThat(restConnectionManager).isSameAs(sardineConnectionManager);
+    PoolingHttpClientConnectionManager connectionManager = (PoolingHttpClientConnectionManager) restConnectionManager;
+    assertThat(connectionManager.getDefaultMaxPerRoute()).isEqualTo(5);
+    assertThat(connectionManager.getMaxTotal()).isEqualTo(7);
+    assertThat(connectionPool.getLeasedConnections()).isEqualTo(0);
+  }
+
+  @Test
+  public void testConnectionManager_AtLeastBatchTransferParallelism() throws Exception {
+    properties.getResourceService().setBatchTransferParallelism(10);
+    OwncloudRestConnectionPool pool = new OwncloudRestConnectionPool(properties);
+    try {
+      HttpClientConnectionManager connectionManager =
+          (HttpClientConnectionManager) ReflectionTestUtils.getField(pool.getRestHttpClient(), "connManager");
+      assertThat(((PoolingHttpClientConnectionManager) connectionManager).getDefaultMaxPerRoute()).isEqualTo(10);
+      assertThat(((PoolingHttpClientConnectionManager) connectionManager).getMaxTotal()).isEqualTo(10);
+    } finally {
+      pool.destroy();
+    }
+  }
+}
@@ -0,0 +1,276 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
+import software.coolstuff.springframework.owncloud.model.OwncloudPage;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+import software.coolstuff.springframework.owncloud.service.api.OwncloudGroupService;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+
+@AutoConfigureWebClient
+@ActiveProfiles("REST-DIRECTORY-REPLICA")
+public class OwncloudRestDirectoryReplicaTest extends AbstractOwncloudServiceTest implements OwncloudRestServiceTest {
+
+  private static final String REPLICA_AUTHENTICATION = "Basic " + Base64.getEncoder().encodeToString("admin:secret".getBytes());
+
+  @Autowired
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudGroupService groupService;
+
+  @Autowired
+  private OwncloudRestDirectoryReplica directoryReplica;
+
+  @Autowired
+  private OwncloudRestProperties properties;
+
+  private MockRestServiceServer replicaServer;
+
+  @Override
+  public final OwncloudRestService owncloudService() {
+    return (OwncloudRestService) userService;
+  }
+
+  @Before
+  public void setUpDirectoryReplica() {
+    directoryReplica.invalidate();
+    replicaServer = createServer(directoryReplica);
+  }
+
+  private void loadReplica() throws Exception {
+    respondGroups(replicaRequest("/cloud/groups"), "admin", "group1");
+    respondUsers(replicaRequest("/cloud/groups/admin"), "user1");
+    respondUsers(replicaRequest("/cloud/groups/group1"), "user1", "user2");
+    respondUsers(replicaRequest("/cloud/users"), "user1", "user2", "user3");
+    respondReplicaUser("user1");
+    respondReplicaUser("user2");
+    respondReplicaUser("user3");
+
+    directoryReplica.refresh();
+    replicaServer.verify();
+    replicaServer.reset();
+  }
+
+  private RestRequest replicaRequest(String url) {
+    return RestRequest.builder()
+                      .server(replicaServer)
+                      .method(GET)
+                      .url(url)
+                      .basicAuthentication(REPLICA_AUTHENTICATION)
+                      .build();
+  }
+
+  private void respondReplicaUser(String username) throws Exception {
+    respondReplicaUser(username, true);
+  }
+
+  private void respondReplicaUser(String username, boolean enabled) throws Exception {
+    respondUser(
+        replicaRequest("/cloud/users/" + username),
+        UserResponse.builder()
+                    .enabled(enabled)
+                    .email(username + "@example.com")
+                    .displayname("Mr. " + username)
+                    .quota(1024L)
+                    .build());
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testReadFromReplica() throws Exception {
+    loadReplica();
+
+    Optional<OwncloudUserDetails> user = userService.findOne("user2");
+    verifyServer();
+
+    assertThat(directoryReplica.isLoaded()).isTrue();
+    assertThat(directoryReplica.getNumberOfUsers()).isEqualTo(3);
+    assertThat(directoryReplica.getNumberOfGroups()).isEqualTo(2);
+    assertThat(user).isPresent();
+    assertThat(user.get().getEmail()).isEqualTo("user2@example.com");
+    assertThat(user.get().getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("group1");
+    assertThat(userService.findOne("user9")).isNotPresent();
+    assertThat(userService.findAll()).containsExactly("user1", "user2", "user3");
+    assertThat(userService.findAll("USER3@example")).containsExactly("user3");
+    assertThat(groupService.findAll()).containsExactly("admin", "group1");
+    assertThat(groupService.findAllUsers("group1")).containsExactly("user1", "user2");
+    assertThat(groupService.findAllGroups("user1")).containsExactly("admin", "group1");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllPaged() throws Exception {
+    loadReplica();
+
+    OwncloudPage<String> firstPage = userService.findAll(null, 0, 2);
+    OwncloudPage<String> secondPage = userService.findAll(null, firstPage.getNextOffset().get(), 2);
+
+    assertThat(firstPage.getContent()).containsExactly("user1", "user2");
+    assertThat(secondPage.getContent()).containsExactly("user3");
+    assertThat(secondPage.hasNext()).isFalse();
+  }
+
+  @Test(expected = AccessDeniedException.class)
+  @WithMockUser(username = "user2", password = "password")
+  public void testFindAll_NOK_NoAdministrator() throws Exception {
+    loadReplica();
+
+    assertThat(userService.findOne("user2")).isPresent();
+    assertThat(groupService.findAllGroups("user2")).containsExactly("group1");
+    userService.findAll();
+  }
+
+  @Test(expected = OwncloudGroupNotFoundException.class)
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllUsers_NOK_GroupNotFound() throws Exception {
+    loadReplica();
+
+    groupService.findAllUsers("group9");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testModificationsAppliedToReplica() throws Exception {
+    loadReplica();
+    respondSuccess(
+        RestRequest.builder()
+                   .method(DELETE)
+                   .url("/cloud/users/user2")
+                   .build());
+    MockRestServiceServer groupServer = createServer((OwncloudRestService) groupService);
+    respondSuccess(
+        RestRequest.builder()
+                   .server(groupServer)
+                   .method(POST)
+                   .url("/cloud/groups/group2")
+                   .build());
+    respondSuccess(
+        RestRequest.builder()
+                   .server(groupServer)
+                   .method(DELETE)
+                   .url("/cloud/groups/group1")
+                   .build());
+
+    userService.delete("user2");
+    groupService.create("group2");
+    groupService.delete("group1");
+    verifyServer();
+    groupServer.verify();
+
+    assertThat(userService.findAll()).containsExactly("user1", "user3");
+    assertThat(groupService.findAll()).containsExactly("admin", "group2");
+    assertThat(groupService.findAllUsers("group2")).isEmpty();
+    assertThat(groupService.findAllGroups("user1")).containsExactly("admin");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testDeltaRefresh_OnlyNewUsersLoaded() throws Exception {
+    loadReplica();
+    respondGroups(replicaRequest("/cloud/groups"), "admin", "group1");
+    respondUsers(replicaRequest("/cloud/groups/admin"), "user1");
+    respondUsers(replicaRequest("/cloud/groups/group1"), "user2", "user4");
+    respondUsers(replicaRequest("/cloud/users"), "user1", "user2", "user4");
+    respondReplicaUser("user4");
+
+    directoryReplica.refresh();
+    replicaServer.verify();
+
+    assertThat(userService.findAll()).containsExactly("user1", "user2", "user4");
+    assertThat(groupService.findAllUsers("group1")).containsExactly("user2", "user4");
+    assertThat(groupService.findAllGroups("user1")).containsExactly("admin");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testDeltaRefresh_ChangedUserStaleUntilFullRefresh() throws Exception {
+    int fullRefreshEvery = properties.getDirectoryReplica().getFullRefreshEvery();
+    properties.getDirectoryReplica().setFullRefreshEvery(3);
+    try {
+      loadReplica();
+      // user2 has been disabled on the Owncloud Server but the Delta Refreshes don't reload existing Users
+      for (int deltaRefresh = 1; deltaRefresh < 3; deltaRefresh++) {
+        respondGroups(replicaRequest("/cloud/groups"), "admin", "group1");
+        respondUsers(replicaRequest("/cloud/groups/admin"), "user1");
+        respondUsers(replicaRequest("/cloud/groups/group1"), "user1", "user2");
+        respondUsers(replicaRequest("/cloud/users"), "user1", "user2", "user3");
+
+        directoryReplica.refresh();
+        replicaServer.verify();
+        replicaServer.reset();
+
+        assertThat(userService.findOne("user2").get().isEnabled()).isTrue();
+      }
+
+      // the 3rd Refresh reloads the Details of all Users
+      respondGroups(replicaRequest("/cloud/groups"), "admin", "group1");
+      respondUsers(replicaRequest("/cloud/groups/admin"), "user1");
+      respondUsers(replicaRequest("/cloud/groups/group1"), "user1", "user2");
+      respondUsers(replicaRequest("/cloud/users"), "user1", "user2", "user3");
+      respondReplicaUser("user1");
+      respondReplicaUser("user2", false);
+      respondReplicaUser("user3");
+
+      directoryReplica.refresh();
+      replicaServer.verify();
+
+      assertThat(userService.findOne("user2").get().isEnabled()).isFalse();
+    } finally {
+      properties.getDirectoryReplica().setFullRefreshEvery(fullRefreshEvery);
+    }
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testRefresh_NOK_ReplicaKept() throws Exception {
+    loadReplica();
+    respondHttpStatus(replicaRequest("/cloud/groups"), HttpStatus.INTERNAL_SERVER_ERROR);
+
+    assertThatThrownBy(directoryReplica::refresh).isInstanceOf(HttpServerErrorException.class);
+    replicaServer.verify();
+
+    assertThat(directoryReplica.isLoaded()).isTrue();
+    assertThat(userService.findAll()).containsExactly("user1", "user2", "user3");
+  }
+}
@@ -0,0 +1,218 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.CacheStats;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.MockRestServiceServer;
+import software.coolstuff.springframework.owncloud.service.api.OwncloudGroupService;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+
+@AutoConfigureWebClient
+@ActiveProfiles("REST-GROUP-MEMBERSHIP-CACHE")
+public class OwncloudRestGroupMembershipCacheTest extends AbstractOwncloudServiceTest implements OwncloudRestServiceTest {
+
+  @Autowired
+  private OwncloudGroupService groupService;
+
+  @Autowired
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudRestGroupMembershipCache groupMembershipCache;
+
+  @Override
+  public final OwncloudRestService owncloudService() {
+    return (OwncloudRestService) groupService;
+  }
+
+  @Before
+  public void setUpGroupMembershipCache() {
+    groupMembershipCache.invalidateAll();
+  }
+
+  private void prepareFindAllUsers(String groupname, String... users) throws Exception {
+    respondUsers(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/groups/" + groupname)
+                   .build(),
+        users);
+  }
+
+  private void prepareFindAllGroups(String username, String... groups) throws Exception {
+    respondGroups(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/users/" + username + "/groups")
+                   .build(),
+        groups);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllUsers_SecondCallFromCache() throws Exception {
+    prepareFindAllUsers("group1", "user1", "user2");
+    CacheStats statsBefore = groupMembershipCache.getStats();
+
+    List<String> users = groupService.findAllUsers("group1");
+    List<String> cachedUsers = groupService.findAllUsers("group1");
+    verifyServer();
+
+    assertThat(users).containsExactly("user1", "user2");
+    assertThat(cachedUsers).containsExactly("user1", "user2");
+    CacheStats stats = groupMembershipCache.getStats().minus(statsBefore);
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.missCount()).isEqualTo(1);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAll_ModificationOfResultDoesntChangeCache() throws Exception {
+    respondGroups(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/groups")
+                   .build(),
+        "group1",
+        "group2");
+
+    groupService.findAll().clear();
+    List<String> cachedGroups = groupService.findAll();
+    verifyServer();
+
+    assertThat(cachedGroups).containsExactly("group1", "group2");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllGroups_CachedGroupsOnlyForAuthorizedUser() throws Exception {
+    Authentication user1 = SecurityContextHolder.getContext().getAuthentication();
+    Authentication user2 = new UsernamePasswordAuthenticationToken("user2", "password");
+    prepareFindAllGroups("user1", "group1");
+    SecurityContextHolder.getContext().setAuthentication(user2);
+    prepareFindAllGroups("user1", "group1");
+
+    SecurityContextHolder.getContext().setAuthentication(user1);
+    groupService.findAllGroups("user1");
+    SecurityContextHolder.getContext().setAuthentication(user2);
+    groupService.findAllGroups("user1");
+    groupService.findAllGroups("user1");
+    SecurityContextHolder.getContext().setAuthentication(user1);
+    groupService.findAllGroups("user1");
+    verifyServer();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testDeleteUser_InvalidateMembersOfGroups() throws Exception {
+    MockRestServiceServer userServer = createServer((OwncloudRestService) userService);
+    prepareFindAllUsers("group1", "user1", "user2");
+    prepareFindAllUsers("group2", "user1");
+    respondSuccess(
+        RestRequest.builder()
+                   .server(userServer)
+                   .method(DELETE)
+                   .url("/cloud/users/user2")
+                   .build());
+    prepareFindAllUsers("group1", "user1");
+
+    groupService.findAllUsers("group1");
+    groupService.findAllUsers("group2");
+    userService.delete("user2");
+    assertThat(groupService.findAllUsers("group1")).containsExactly("user1");
+    assertThat(groupService.findAllUsers("group2")).containsExactly("user1");
+    verifyServer();
+    userServer.verify();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testCreateAndDeleteGroup_InvalidateGroups() throws Exception {
+    respondGroups(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/groups")
+                   .build(),
+        "group1");
+    prepareFindAllGroups("user1", "group1");
+    prepareFindAllGroups("user2", "group2");
+    respondSuccess(
+        RestRequest.builder()
+                   .method(POST)
+                   .url("/cloud/groups/group3")
+                   .build());
+    respondGroups(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/groups")
+                   .build(),
+        "group1",
+        "group3");
+    respondSuccess(
+        RestRequest.builder()
+                   .method(DELETE)
+                   .url("/cloud/groups/group1")
+                   .build());
+    prepareFindAllGroups("user1");
+
+    groupService.findAll();
+    groupService.findAllGroups("user1");
+    groupService.findAllGroups("user2");
+    groupService.create("group3");
+    assertThat(groupService.findAll()).containsExactly("group1", "group3");
+    groupService.delete("group1");
+    assertThat(groupService.findAllGroups("user1")).isEmpty();
+    assertThat(groupService.findAllGroups("user2")).containsExactly("group2");
+    verifyServer();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testEstimatedMemoryUsage() throws Exception {
+    prepareFindAllUsers("group1", "user1", "user2");
+    assertThat(groupMembershipCache.getEstimatedMemoryUsage()).isZero();
+
+    groupService.findAllUsers("group1");
+    verifyServer();
+    long estimatedMemoryUsage = groupMembershipCache.getEstimatedMemoryUsage();
+    assertThat(estimatedMemoryUsage).isPositive();
+
+    groupMembershipCache.invalidateAll();
+    assertThat(groupMembershipCache.getEstimatedMemoryUsage()).isZero();
+  }
+}
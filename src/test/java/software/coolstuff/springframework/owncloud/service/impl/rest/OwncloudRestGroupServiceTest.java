@@ -33,6 +33,8 @@ import org.springframework.web.util.UriUtils;
 import software.coolstuff.springframework.owncloud.service.AbstractOwncloudGroupServiceTest;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudGroupService;
 
+import java.util.Arrays;
+
 import static org.springframework.http.HttpMethod.*;
 
 @ActiveProfiles("REST-USER-SERVICE")
@@ -56,6 +58,21 @@ public class OwncloudRestGroupServiceTest extends AbstractOwncloudGroupServiceTe
         groups);
   }
 
+  @Override
+  protected void prepareTestFindAllGroupsPaged(int limit, String... groups) throws Exception {
+    for (int offset = 0; offset <= groups.length; offset += limit) {
+      respondGroups(
+          RestRequest.builder()
+              .method(GET)
+              .url("/cloud/groups?limit=" + limit + "&offset=" + offset)
+              .build(),
+          Arrays.copyOfRange(groups, offset, Math.min(offset + limit, groups.length)));
+      if (offset + limit > groups.length) {
+        break;
+      }
+    }
+  }
+
   @Override
   protected void prepareTestFindAllGroupsWithFilter(String filter, String... groups) throws Exception {
     respondGroups(
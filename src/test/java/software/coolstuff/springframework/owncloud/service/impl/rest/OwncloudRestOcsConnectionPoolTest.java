@@ -0,0 +1,76 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.OcsConnectionPoolProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OwncloudRestOcsConnectionPoolTest {
+
+  private OwncloudRestOcsConnectionPool connectionPool;
+
+  @Before
+  public void setUp() throws Exception {
+    OwncloudRestProperties properties = new OwncloudRestProperties();
+    OcsConnectionPoolProperties poolProperties = properties.getOcsConnectionPool();
+    poolProperties.setMaximumConnections(12);
+    poolProperties.setMaximumConnectionsPerRoute(6);
+    poolProperties.setValidateAfterInactivity(1500);
+    poolProperties.setConnectTimeout(1000);
+    poolProperties.setReadTimeout(2000);
+    poolProperties.setConnectionRequestTimeout(3000);
+    connectionPool = new OwncloudRestOcsConnectionPool(properties);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    connectionPool.destroy();
+  }
+
+  @Test
+  public void testConnectionManager() throws Exception {
+    PoolingHttpClientConnectionManager connectionManager =
+        (PoolingHttpClientConnectionManager) ReflectionTestUtils.getField(connectionPool, "connectionManager");
+    assertThat(connectionManager.getMaxTotal()).isEqualTo(12);
+    assertThat(connectionManager.getDefaultMaxPerRoute()).isEqualTo(6);
+    assertThat(connectionManager.getValidateAfterInactivity()).isEqualTo(1500);
+    assertThat(connectionPool.getMaximumConnections()).isEqualTo(12);
+    assertThat(connectionPool.getLeasedConnections()).isEqualTo(0);
+    assertThat(connectionPool.getAvailableConnections()).isEqualTo(0);
+    assertThat(connectionPool.getPendingConnections()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTimeouts() throws Exception {
+    RequestConfig requestConfig = (RequestConfig) ReflectionTestUtils.getField(connectionPool.getRequestFactory(), "requestConfig");
+    assertThat(requestConfig.getConnectTimeout()).isEqualTo(1000);
+    assertThat(requestConfig.getSocketTimeout()).isEqualTo(2000);
+    assertThat(requestConfig.getConnectionRequestTimeout()).isEqualTo(3000);
+  }
+}
@@ -0,0 +1,268 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseActions;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
+import software.coolstuff.springframework.owncloud.exception.auth.OwncloudUsernameAlreadyExistsException;
+import software.coolstuff.springframework.owncloud.model.OwncloudModificationUser;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+import software.coolstuff.springframework.owncloud.service.api.OwncloudGroupService;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@AutoConfigureWebClient
+@ActiveProfiles("REST-OCS-JSON")
+public class OwncloudRestOcsJsonTest extends AbstractOwncloudServiceTest {
+
+  private static final String JSON_PATH = "https://owncloud.example.com/ocs/v2.php";
+  private static final String SUCCESS_META = "\"meta\":{\"status\":\"ok\",\"statuscode\":200,\"message\":\"OK\",\"totalitems\":\"\",\"itemsperpage\":\"\"}";
+
+  @Autowired
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudGroupService groupService;
+
+  private MockRestServiceServer userServer;
+  private MockRestServiceServer groupServer;
+
+  @Before
+  public void setUpServers() {
+    userServer = createServer((OwncloudRestService) userService);
+    groupServer = createServer((OwncloudRestService) groupService);
+  }
+
+  private ResponseActions expect(MockRestServiceServer server, HttpMethod httpMethod, String url) {
+    return server.expect(requestTo(JSON_PATH + url))
+                 .andExpect(method(httpMethod))
+                 .andExpect(header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE))
+                 .andExpect(header("OCS-APIRequest", "true"))
+                 .andExpect(header(HttpHeaders.AUTHORIZATION, getSecurityContextBasicAuthorizationHeader()));
+  }
+
+  private static String success(String data) {
+    return "{\"ocs\":{" + SUCCESS_META + ",\"data\":" + data + "}}";
+  }
+
+  private static String failure(int statuscode, String message) {
+    return "{\"ocs\":{\"meta\":{\"status\":\"failure\",\"statuscode\":" + statuscode + ",\"message\":\"" + message + "\"},\"data\":[]}}";
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllUsers() throws Exception {
+    expect(userServer, GET, "/cloud/users?format=json")
+        .andRespond(withSuccess(success("{\"users\":[\"user1\",\"user2\",\"user3\"]}"), MediaType.APPLICATION_JSON));
+
+    List<String> users = userService.findAll();
+    userServer.verify();
+
+    assertThat(users).containsExactly("user1", "user2", "user3");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllUsersWithFilter() throws Exception {
+    expect(userServer, GET, "/cloud/users?search=user&format=json")
+        .andRespond(withSuccess(success("{\"users\":[]}"), MediaType.APPLICATION_JSON));
+
+    List<String> users = userService.findAll("user");
+    userServer.verify();
+
+    assertThat(users).isEmpty();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testStreamAllUsers() throws Exception {
+    expect(userServer, GET, "/cloud/users?format=json")
+        .andRespond(withSuccess(success("{\"users\":[\"user1\",\"user2\",\"user3\"]}"), MediaType.APPLICATION_JSON));
+
+    List<String> users;
+    try (Stream<String> stream = userService.streamAll(null)) {
+      users = stream.collect(Collectors.toList());
+    }
+    userServer.verify();
+
+    assertThat(users).containsExactly("user1", "user2", "user3");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindOne() throws Exception {
+    expect(userServer, GET, "/cloud/users/user1?format=json")
+        .andRespond(withSuccess(
+            success("{\"enabled\":\"true\",\"quota\":{\"free\":512,\"used\":512,\"total\":1024,\"relative\":50,\"definition\":\"1 KB\"}," +
+                "\"email\":\"user1@example.com\",\"displayname\":\"Mr. User 1\"}"),
+            MediaType.APPLICATION_JSON));
+    expect(userServer, GET, "/cloud/users/user1/groups?format=json")
+        .andRespond(withSuccess(success("{\"groups\":[\"group1\",\"group2\"]}"), MediaType.APPLICATION_JSON));
+
+    Optional<OwncloudUserDetails> user = userService.findOne("user1");
+    userServer.verify();
+
+    assertThat(user).isPresent();
+    assertThat(user.get().isEnabled()).isTrue();
+    assertThat(user.get().getDisplayname()).isEqualTo("Mr. User 1");
+    assertThat(user.get().getEmail()).isEqualTo("user1@example.com");
+    assertThat(user.get().getQuota()).isEqualTo(1024L);
+    checkAuthorities("user1", user.get().getAuthorities(), "group1", "group2");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testDeleteUser() throws Exception {
+    expect(userServer, DELETE, "/cloud/users/user2?format=json")
+        .andRespond(withSuccess(success("[]"), MediaType.APPLICATION_JSON));
+
+    userService.delete("user2");
+    userServer.verify();
+  }
+
+  @Test(expected = OwncloudGroupNotFoundException.class)
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllUsersOfGroup_NOK_GroupNotFound() throws Exception {
+    expect(groupServer, GET, "/cloud/groups/group9?format=json")
+        .andRespond(withStatus(HttpStatus.NOT_FOUND)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(failure(404, "The requested group could not be found")));
+
+    groupService.findAllUsers("group9");
+  }
+
+  @Test(expected = AccessDeniedException.class)
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllGroups_NOK_AccessDenied() throws Exception {
+    expect(groupServer, GET, "/cloud/groups?format=json")
+        .andRespond(withStatus(HttpStatus.FORBIDDEN)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(failure(403, "Logged in user must be an admin")));
+
+    groupService.findAll();
+  }
+
+  @Test(expected = AccessDeniedException.class)
+  @WithMockUser(username = "user1", password = "password")
+  public void testStreamAllGroups_NOK_AccessDenied() throws Exception {
+    expect(groupServer, GET, "/cloud/groups?search=group&format=json")
+        .andRespond(withStatus(HttpStatus.FORBIDDEN)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(failure(403, "Logged in user must be an admin")));
+
+    groupService.streamAll("group");
+  }
+
+  @Test(expected = BadCredentialsException.class)
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllGroups_NOK_Unauthorized() throws Exception {
+    expect(groupServer, GET, "/cloud/groups?format=json")
+        .andRespond(withStatus(HttpStatus.UNAUTHORIZED)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(failure(997, "Unauthorised")));
+
+    groupService.findAll();
+  }
+
+  @Test(expected = OwncloudUsernameAlreadyExistsException.class)
+  @WithMockUser(username = "user1", password = "password")
+  public void testSaveUser_CreateUser_NOK_UsernameAlreadyExists() throws Exception {
+    expect(userServer, GET, "/cloud/users/user5?format=json")
+        .andRespond(withStatus(HttpStatus.NOT_FOUND)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(failure(404, "The requested user could not be found")));
+    expect(userServer, POST, "/cloud/users?format=json")
+        .andExpect(content().formData(toMultiValueMap("userid", "user5", "password", "password")))
+        .andRespond(withStatus(HttpStatus.BAD_REQUEST)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(failure(102, "User already exists")));
+
+    userService.save(OwncloudModificationUser.builder()
+                                             .username("user5")
+                                             .password("password")
+                                             .enabled(true)
+                                             .build());
+  }
+
+  @Test(expected = OwncloudGroupNotFoundException.class)
+  @WithMockUser(username = "user1", password = "password")
+  public void testSaveUser_UpdateUser_NOK_AssignUnknownGroup() throws Exception {
+    expect(userServer, GET, "/cloud/users/user5?format=json")
+        .andRespond(withSuccess(
+            success("{\"enabled\":\"true\",\"email\":\"user5@example.com\",\"displayname\":\"Mrs. User 5\"}"),
+            MediaType.APPLICATION_JSON));
+    expect(userServer, GET, "/cloud/users/user5/groups?format=json")
+        .andRespond(withSuccess(success("{\"groups\":[\"group1\"]}"), MediaType.APPLICATION_JSON));
+    expect(userServer, POST, "/cloud/users/user5/groups?format=json")
+        .andExpect(content().formData(toMultiValueMap("groupid", "group9")))
+        .andRespond(withStatus(HttpStatus.BAD_REQUEST)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(failure(102, "Group does not exist")));
+
+    userService.save(OwncloudModificationUser.builder()
+                                             .username("user5")
+                                             .enabled(true)
+                                             .displayname("Mrs. User 5")
+                                             .email("user5@example.com")
+                                             .group("group1")
+                                             .group("group9")
+                                             .build());
+  }
+
+  private static MultiValueMap<String, String> toMultiValueMap(String... keysAndValues) {
+    MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      map.add(keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,212 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class OwncloudRestOcsRequestExecutorTest {
+
+  private OwncloudRestProperties properties;
+  private OwncloudRestOcsRequestExecutor executor;
+
+  @Before
+  public void setUp() {
+    properties = new OwncloudRestProperties();
+    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("user1", "password"));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    SecurityContextHolder.clearContext();
+    if (executor != null) {
+      executor.destroy();
+    }
+  }
+
+  @Test
+  public void testSequential_ExecutedByCallingThread() {
+    executor = new OwncloudRestOcsRequestExecutor(properties);
+    Thread callingThread = Thread.currentThread();
+
+    CompletableFuture<Thread> request = executor.submit(Thread::currentThread);
+
+    assertThat(request).isCompleted();
+    assertThat(OwncloudRestOcsRequestExecutor.join(request)).isSameAs(callingThread);
+  }
+
+  @Test
+  public void testSequential_ExplicitAuthenticationOnlyWithinRequest() {
+    executor = new OwncloudRestOcsRequestExecutor(properties);
+    Authentication user2 = new UsernamePasswordAuthenticationToken("user2", "password");
+
+    CompletableFuture<String> request = executor.submit(() -> SecurityContextHolder.getContext().getAuthentication().getName(), user2);
+
+    assertThat(OwncloudRestOcsRequestExecutor.join(request)).isEqualTo("user2");
+    assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("user1");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSequential_FailedRequest() {
+    executor = new OwncloudRestOcsRequestExecutor(properties);
+
+    CompletableFuture<String> request = executor.submit(() -> {
+      throw new IllegalStateException("failed");
+    });
+
+    assertThat(request).isCompletedExceptionally();
+    OwncloudRestOcsRequestExecutor.throwIfFailed(request);
+  }
+
+  @Test
+  public void testParallel_SecurityContextPropagated() {
+    properties.getParallelOcsRequests().setEnabled(true);
+    executor = new OwncloudRestOcsRequestExecutor(properties);
+    Thread callingThread = Thread.currentThread();
+
+    CompletableFuture<Thread> thread = executor.submit(Thread::currentThread);
+    CompletableFuture<String> username = executor.submit(() -> SecurityContextHolder.getContext().getAuthentication().getName());
+    CompletableFuture<String> explicitUsername = executor.submit(
+        () -> SecurityContextHolder.getContext().getAuthentication().getName(),
+        new UsernamePasswordAuthenticationToken("user2", "password"));
+
+    assertThat(OwncloudRestOcsRequestExecutor.join(thread)).isNotSameAs(callingThread);
+    assertThat(OwncloudRestOcsRequestExecutor.join(username)).isEqualTo("user1");
+    assertThat(OwncloudRestOcsRequestExecutor.join(explicitUsername)).isEqualTo("user2");
+  }
+
+  @Test
+  public void testParallel_ExecutedByCallingThreadWhenAllWorkersBusy() throws Exception {
+    properties.getParallelOcsRequests().setEnabled(true);
+    properties.getParallelOcsRequests().setMaximumPoolSize(1);
+    executor = new OwncloudRestOcsRequestExecutor(properties);
+    CountDownLatch workerStarted = new CountDownLatch(1);
+    CountDownLatch releaseWorker = new CountDownLatch(1);
+
+    CompletableFuture<Boolean> blockingRequest = executor.submit(() -> {
+      workerStarted.countDown();
+      try {
+        return releaseWorker.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    });
+    assertThat(workerStarted.await(10, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<Thread> request = executor.submit(Thread::currentThread);
+    releaseWorker.countDown();
+
+    assertThat(OwncloudRestOcsRequestExecutor.join(request)).isSameAs(Thread.currentThread());
+    assertThat(OwncloudRestOcsRequestExecutor.join(blockingRequest)).isTrue();
+  }
+
+  @Test
+  public void testSequential_SubmitOrderedLazy() {
+    executor = new OwncloudRestOcsRequestExecutor(properties);
+    AtomicInteger executedRequests = new AtomicInteger();
+
+    try (Stream<String> results = executor.submitOrdered(Arrays.asList("a", "b", "c"), element -> {
+      executedRequests.incrementAndGet();
+      return element.toUpperCase();
+    }, 10)) {
+      assertThat(results.findFirst()).hasValue("A");
+    }
+    assertThat(executedRequests).hasValue(1);
+  }
+
+  @Test
+  public void testParallel_SubmitOrdered() {
+    properties.getParallelOcsRequests().setEnabled(true);
+    executor = new OwncloudRestOcsRequestExecutor(properties);
+    List<Integer> elements = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16);
+    AtomicInteger requestsInProgress = new AtomicInteger();
+    AtomicInteger maximumRequestsInProgress = new AtomicInteger();
+
+    List<String> results;
+    try (Stream<String> stream = executor.submitOrdered(elements, element -> {
+      maximumRequestsInProgress.accumulateAndGet(requestsInProgress.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(ThreadLocalRandom.current().nextInt(5, 20));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        requestsInProgress.decrementAndGet();
+      }
+      return SecurityContextHolder.getContext().getAuthentication().getName() + "-" + element;
+    }, 4)) {
+      results = stream.collect(Collectors.toList());
+    }
+
+    assertThat(results).containsExactlyElementsOf(elements.stream()
+                                                          .map(element -> "user1-" + element)
+                                                          .collect(Collectors.toList()));
+    assertThat(maximumRequestsInProgress.get()).isBetween(1, 4);
+  }
+
+  @Test
+  public void testParallel_JoinAllWaitsForAllRequests() throws Exception {
+    properties.getParallelOcsRequests().setEnabled(true);
+    executor = new OwncloudRestOcsRequestExecutor(properties);
+    CountDownLatch releaseWorker = new CountDownLatch(1);
+    AtomicInteger finishedRequests = new AtomicInteger();
+
+    CompletableFuture<String> failedRequest = executor.submit(() -> {
+      throw new IllegalStateException("failed");
+    });
+    CompletableFuture<String> slowRequest = executor.submit(() -> {
+      try {
+        releaseWorker.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      finishedRequests.incrementAndGet();
+      return "slow";
+    });
+    releaseWorker.countDown();
+
+    try {
+      OwncloudRestOcsRequestExecutor.joinAll(Arrays.asList(failedRequest, slowRequest));
+      fail("IllegalStateException expected");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("failed");
+    }
+    assertThat(slowRequest).isCompleted();
+    assertThat(finishedRequests).hasValue(1);
+  }
+}
@@ -0,0 +1,286 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import software.coolstuff.springframework.owncloud.exception.auth.OwncloudGroupNotFoundException;
+import software.coolstuff.springframework.owncloud.model.OwncloudModificationUser;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.HttpMethod.PUT;
+
+@AutoConfigureWebClient
+@ActiveProfiles("REST-PARALLEL-OCS-REQUESTS")
+public class OwncloudRestParallelOcsRequestsTest extends AbstractOwncloudServiceTest implements OwncloudRestServiceTest {
+
+  @Autowired
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudRestUserDetailsService userDetailsService;
+
+  @Autowired
+  private AuthenticationProvider authenticationProvider;
+
+  @Override
+  public final OwncloudRestService owncloudService() {
+    return (OwncloudRestService) userService;
+  }
+
+  private MockRestServiceServer createUnorderedServer(OwncloudRestService owncloudService) {
+    return MockRestServiceServer.bindTo(owncloudService.getRestTemplate())
+                                .ignoreExpectOrder(true)
+                                .build();
+  }
+
+  private void prepareUser(MockRestServiceServer userServer, MockRestServiceServer groupsServer, String basicAuthentication, boolean enabled) throws Exception {
+    respondUser(
+        RestRequest.builder()
+                   .server(userServer)
+                   .method(GET)
+                   .url("/cloud/users/user1")
+                   .basicAuthentication(basicAuthentication)
+                   .build(),
+        UserResponse.builder()
+                    .enabled(enabled)
+                    .email("user1@example.com")
+                    .displayname("Mr. User 1")
+                    .quota(1024L)
+                    .build());
+    respondGroups(
+        RestRequest.builder()
+                   .server(groupsServer)
+                   .method(GET)
+                   .url("/cloud/users/user1/groups")
+                   .basicAuthentication(basicAuthentication)
+                   .build(),
+        "group1",
+        "group2");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindOne() throws Exception {
+    MockRestServiceServer server = createUnorderedServer((OwncloudRestService) userService);
+    prepareUser(server, server, null, true);
+
+    OwncloudUserDetails user = userService.findOne("user1").get();
+    server.verify();
+
+    assertThat(user.getDisplayname()).isEqualTo("Mr. User 1");
+    checkAuthorities("user1", user.getAuthorities(), "group1", "group2");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindAllDetails_OrderPreserved() throws Exception {
+    MockRestServiceServer server = createUnorderedServer((OwncloudRestService) userService);
+    respondUsers(
+        RestRequest.builder()
+                   .server(server)
+                   .method(GET)
+                   .url("/cloud/users")
+                   .build(),
+        "user3", "user1", "user2");
+    for (String username : new String[] { "user1", "user2", "user3" }) {
+      respondUser(
+          RestRequest.builder()
+                     .server(server)
+                     .method(GET)
+                     .url("/cloud/users/" + username)
+                     .build(),
+          UserResponse.builder()
+                      .enabled(true)
+                      .email(username + "@example.com")
+                      .displayname("Mr. " + username)
+                      .build());
+      respondGroups(
+          RestRequest.builder()
+                     .server(server)
+                     .method(GET)
+                     .url("/cloud/users/" + username + "/groups")
+                     .build(),
+          "group1");
+    }
+
+    List<String> usernames;
+    try (Stream<OwncloudUserDetails> users = userService.findAllDetails()) {
+      usernames = users.map(OwncloudUserDetails::getUsername).collect(Collectors.toList());
+    }
+    server.verify();
+
+    assertThat(usernames).containsExactly("user3", "user1", "user2");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testSave_UpdateUser() throws Exception {
+    MockRestServiceServer server = createUnorderedServer((OwncloudRestService) userService);
+    prepareUser(server, server, null, true);
+    MultiValueMap<String, String> displaynameData = new LinkedMultiValueMap<>();
+    displaynameData.put("key", Lists.newArrayList("display"));
+    displaynameData.put("value", Lists.newArrayList("Mr. User 1 changed"));
+    respondSuccess(RestRequest.builder().server(server).method(PUT).url("/cloud/users/user1").build(), displaynameData);
+    respondSuccess(RestRequest.builder().server(server).method(PUT).url("/cloud/users/user1/disable").build());
+    MultiValueMap<String, String> addGroupData = new LinkedMultiValueMap<>();
+    addGroupData.put("groupid", Lists.newArrayList("group3"));
+    respondSuccess(RestRequest.builder().server(server).method(POST).url("/cloud/users/user1/groups").build(), addGroupData);
+    MultiValueMap<String, String> removeGroupData = new LinkedMultiValueMap<>();
+    removeGroupData.put("groupid", Lists.newArrayList("group2"));
+    respondSuccess(RestRequest.builder().server(server).method(DELETE).url("/cloud/users/user1/groups").build(), removeGroupData);
+
+    OwncloudUserDetails savedUser = userService.save(OwncloudModificationUser.builder()
+                                                                             .username("user1")
+                                                                             .enabled(false)
+                                                                             .displayname("Mr. User 1 changed")
+                                                                             .email("user1@example.com")
+                                                                             .quota(1024L)
+                                                                             .group("group1")
+                                                                             .group("group3")
+                                                                             .build());
+    server.verify();
+
+    assertThat(savedUser.isEnabled()).isFalse();
+    assertThat(savedUser.getDisplayname()).isEqualTo("Mr. User 1 changed");
+    assertThat(savedUser.getEmail()).isEqualTo("user1@example.com");
+    assertThat(savedUser.getQuota()).isEqualTo(1024L);
+    checkAuthorities("user1", savedUser.getAuthorities(), "group1", "group3");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testSave_UpdateUser_NOK_GroupMembershipFailuresAggregated() throws Exception {
+    MockRestServiceServer server = createUnorderedServer((OwncloudRestService) userService);
+    prepareUser(server, server, null, true);
+    respondFailure(RestRequest.builder().server(server).method(POST).url("/cloud/users/user1/groups").build(), 102);
+    respondFailure(RestRequest.builder().server(server).method(DELETE).url("/cloud/users/user1/groups").build(), 105);
+
+    Throwable thrown = catchThrowable(() -> userService.save(OwncloudModificationUser.builder()
+                                                                                     .username("user1")
+                                                                                     .enabled(true)
+                                                                                     .displayname("Mr. User 1")
+                                                                                     .email("user1@example.com")
+                                                                                     .quota(1024L)
+                                                                                     .group("group1")
+                                                                                     .group("group3")
+                                                                                     .build()));
+    server.verify();
+
+    assertThat(thrown).isInstanceOf(OwncloudGroupNotFoundException.class);
+    assertThat(thrown.getSuppressed())
+        .hasSize(1)
+        .hasOnlyElementsOfType(IllegalStateException.class);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testLoadUserByUsername() throws Exception {
+    MockRestServiceServer server = createUnorderedServer(userDetailsService);
+    prepareUser(server, server, null, true);
+
+    UserDetails user = userDetailsService.loadUserByUsername("user1");
+    server.verify();
+
+    checkAuthorities("user1", user.getAuthorities(), "group1", "group2");
+  }
+
+  @Test
+  public void testAuthenticate() throws Exception {
+    String basicAuthentication = "Basic " + Base64.getEncoder().encodeToString("user1:s3cr3t".getBytes());
+    MockRestServiceServer userServer = createUnorderedServer((OwncloudRestService) authenticationProvider);
+    MockRestServiceServer groupsServer = createUnorderedServer(userDetailsService);
+    prepareUser(userServer, groupsServer, basicAuthentication, true);
+
+    // both Requests have to be in Progress at the same Time
+    CountDownLatch requestsInProgress = new CountDownLatch(2);
+    AtomicBoolean parallelRequests = new AtomicBoolean(true);
+    ClientHttpRequestInterceptor awaitOtherRequest = (request, body, execution) -> {
+      requestsInProgress.countDown();
+      try {
+        if (!requestsInProgress.await(5, TimeUnit.SECONDS)) {
+          parallelRequests.set(false);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return execution.execute(request, body);
+    };
+    List<ClientHttpRequestInterceptor> userInterceptors = ((OwncloudRestService) authenticationProvider).getRestTemplate().getInterceptors();
+    List<ClientHttpRequestInterceptor> groupsInterceptors = userDetailsService.getRestTemplate().getInterceptors();
+    userInterceptors.add(awaitOtherRequest);
+    groupsInterceptors.add(awaitOtherRequest);
+    Authentication authentication;
+    try {
+      authentication = authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("user1", "s3cr3t"));
+    } finally {
+      userInterceptors.remove(awaitOtherRequest);
+      groupsInterceptors.remove(awaitOtherRequest);
+    }
+    userServer.verify();
+    groupsServer.verify();
+
+    assertThat(parallelRequests).isTrue();
+
+    assertThat(authentication.getName()).isEqualTo("user1");
+    assertThat(authentication.getCredentials()).isEqualTo("s3cr3t");
+    checkAuthorities("user1", ((OwncloudUserDetails) authentication.getPrincipal()).getAuthorities(), "group1", "group2");
+  }
+
+  @Test(expected = DisabledException.class)
+  public void testAuthenticate_DisabledUser() throws Exception {
+    String basicAuthentication = "Basic " + Base64.getEncoder().encodeToString("user1:s3cr3t".getBytes());
+    MockRestServiceServer userServer = createUnorderedServer((OwncloudRestService) authenticationProvider);
+    MockRestServiceServer groupsServer = createUnorderedServer(userDetailsService);
+    // the Group Memberships may have been requested in parallel but will be discarded
+    prepareUser(userServer, groupsServer, basicAuthentication, false);
+
+    authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("user1", "s3cr3t"));
+  }
+}
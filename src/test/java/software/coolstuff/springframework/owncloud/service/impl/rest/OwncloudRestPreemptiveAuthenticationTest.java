@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.Sardine;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the HTTP Requests a Sardine Handle of the Connection Pool needs for
+ * <code>list</code> (Depth 1) and <code>find</code> (Depth 0) against a local WebDAV Stub
+ * which challenges every unauthenticated Request with <code>401</code>.
+ */
+public class OwncloudRestPreemptiveAuthenticationTest {
+
+  private static final String PATH = "/remote.php/dav/files/user1/";
+  private static final String MULTISTATUS =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+      "<d:multistatus xmlns:d=\"DAV:\">" +
+      "<d:response>" +
+      "<d:href>" + PATH + "</d:href>" +
+      "<d:propstat><d:prop><d:resourcetype><d:collection/></d:resourcetype></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat>" +
+      "</d:response>" +
+      "</d:multistatus>";
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger challenges = new AtomicInteger();
+
+  private HttpServer server;
+  private OwncloudRestConnectionPool connectionPool;
+
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    exchange.getRequestBody().close();
+    if (!StringUtils.startsWith(exchange.getRequestHeaders().getFirst("Authorization"), "Basic ")) {
+      challenges.incrementAndGet();
+      exchange.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"owncloud\"");
+      exchange.sendResponseHeaders(401, -1);
+      exchange.close();
+      return;
+    }
+    byte[] body = MULTISTATUS.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml; charset=utf-8");
+    exchange.sendResponseHeaders(207, body.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(body);
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (connectionPool != null) {
+      connectionPool.destroy();
+    }
+    server.stop(0);
+  }
+
+  private Sardine createSardine(boolean preemptiveAuthentication) {
+    OwncloudRestProperties properties = new OwncloudRestProperties();
+    properties.setLocation(getLocation());
+    properties.getResourceService().setPreemptiveAuthentication(preemptiveAuthentication);
+    connectionPool = new OwncloudRestConnectionPool(properties);
+    return connectionPool.createSardine("user1", "s3cr3t");
+  }
+
+  private String getLocation() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @Test
+  public void testList_PreemptiveAuthentication_OneRequestPerCall() throws Exception {
+    Sardine sardine = createSardine(true);
+
+    List<DavResource> resources = sardine.list(getLocation() + PATH);
+    assertThat(resources).hasSize(1);
+    assertThat(requests.get()).isEqualTo(1);
+
+    sardine.list(getLocation() + PATH, 0);
+    assertThat(requests.get()).isEqualTo(2);
+    assertThat(challenges.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void testList_WithoutPreemptiveAuthentication_ChallengedFirst() throws Exception {
+    Sardine sardine = createSardine(false);
+
+    List<DavResource> resources = sardine.list(getLocation() + PATH);
+    assertThat(resources).hasSize(1);
+    assertThat(requests.get()).isEqualTo(2);
+    assertThat(challenges.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testFind_PreemptiveAuthenticationForEveryNewHandle() throws Exception {
+    Sardine sardine = createSardine(true);
+    sardine.list(getLocation() + PATH, 0);
+    connectionPool.createSardine("user1", "s3cr3t").list(getLocation() + PATH, 0);
+
+    assertThat(requests.get()).isEqualTo(2);
+    assertThat(challenges.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void testFind_WithoutPreemptiveAuthentication_EveryNewHandleChallenged() throws Exception {
+    Sardine sardine = createSardine(false);
+    sardine.list(getLocation() + PATH, 0);
+    connectionPool.createSardine("user1", "s3cr3t").list(getLocation() + PATH, 0);
+
+    assertThat(requests.get()).isEqualTo(4);
+    assertThat(challenges.get()).isEqualTo(2);
+  }
+}
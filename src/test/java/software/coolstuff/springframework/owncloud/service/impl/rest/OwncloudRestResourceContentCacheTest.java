@@ -0,0 +1,133 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.ContentCacheProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OwncloudRestResourceContentCacheTest {
+
+  private static final String CONTENT = "This Content doesn't fit into the In-Memory Tier";
+
+  private ContentCacheProperties createProperties(boolean diskTierEnabled) {
+    ContentCacheProperties properties = new ContentCacheProperties();
+    properties.setEnabled(true);
+    properties.getMemory().setMaximumEntrySize(10);
+    properties.getDisk().setEnabled(diskTierEnabled);
+    return properties;
+  }
+
+  private OwncloudFileResource createFileResource(Long contentLength) {
+    return OwncloudRestFileResourceImpl.fileBuilder()
+                                       .owncloudResource(
+                                           OwncloudRestResourceImpl.builder()
+                                                                   .href(URI.create("/file.txt"))
+                                                                   .mediaType(MediaType.TEXT_PLAIN)
+                                                                   .eTag("etag1")
+                                                                   .build())
+                                       .contentLength(contentLength)
+                                       .build();
+  }
+
+  private Optional<InputStream> getInputStream(OwncloudRestResourceContentCache contentCache, OwncloudFileResource resource) {
+    return contentCache.getInputStream("user1", resource, (ifNoneMatch, receiver) -> {
+      try {
+        receiver.receive("etag1", new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)));
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+      return true;
+    });
+  }
+
+  @Test
+  public void testDestroy_RemovesTemporaryDirectory() throws Exception {
+    OwncloudRestResourceContentCache contentCache = new OwncloudRestResourceContentCache(createProperties(true));
+    Path directory = (Path) ReflectionTestUtils.getField(contentCache, "directory");
+    Optional<InputStream> inputStream = getInputStream(contentCache, createFileResource((long) CONTENT.length()));
+    assertThat(inputStream).isPresent();
+    inputStream.get().close();
+    assertThat(Files.list(directory).count()).isEqualTo(1);
+
+    contentCache.destroy();
+
+    assertThat(Files.exists(directory)).isFalse();
+  }
+
+  @Test
+  public void testDestroy_KeepsConfiguredDirectory() throws Exception {
+    Path directory = Files.createTempDirectory("owncloud-content-cache-test");
+    try {
+      ContentCacheProperties properties = createProperties(true);
+      properties.getDisk().setDirectory(directory);
+      OwncloudRestResourceContentCache contentCache = new OwncloudRestResourceContentCache(properties);
+      getInputStream(contentCache, createFileResource((long) CONTENT.length())).get().close();
+
+      contentCache.destroy();
+
+      assertThat(Files.exists(directory)).isTrue();
+      assertThat(Files.list(directory).count()).isZero();
+    } finally {
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  @Test
+  public void testWithoutDiskTier_UnknownContentLengthNotCacheable() throws Exception {
+    OwncloudRestResourceContentCache contentCache = new OwncloudRestResourceContentCache(createProperties(false));
+    assertThat(contentCache.isCacheable(createFileResource(null))).isFalse();
+    assertThat(contentCache.isCacheable(createFileResource(5L))).isTrue();
+    assertThat(contentCache.isCacheable(createFileResource((long) CONTENT.length()))).isFalse();
+  }
+
+  @Test
+  public void testWithoutDiskTier_OversizedContentNotCached() throws Exception {
+    OwncloudRestResourceContentCache contentCache = new OwncloudRestResourceContentCache(createProperties(false));
+    // the announced Content Length is smaller than the Content returned by the Server
+    assertThat(getInputStream(contentCache, createFileResource(5L))).isEmpty();
+    assertThat(contentCache.getStats().missCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testInMemory_ContentReturned() throws Exception {
+    ContentCacheProperties properties = createProperties(false);
+    properties.getMemory().setMaximumEntrySize(1024);
+    OwncloudRestResourceContentCache contentCache = new OwncloudRestResourceContentCache(properties);
+    try (InputStream input = getInputStream(contentCache, createFileResource((long) CONTENT.length())).get()) {
+      assertThat(IOUtils.toString(input, StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+    }
+  }
+}
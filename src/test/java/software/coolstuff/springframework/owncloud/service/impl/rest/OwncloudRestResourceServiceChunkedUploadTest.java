@@ -0,0 +1,176 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.Sardine;
+import com.github.sardine.impl.SardineException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockitoTestExecutionListener;
+import org.springframework.boot.test.mock.mockito.ResetMocksTestExecutionListener;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.web.client.MockRestServiceServer;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudQuotaExceededException;
+import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+
+import java.io.OutputStream;
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@TestExecutionListeners({
+    MockitoTestExecutionListener.class,
+    ResetMocksTestExecutionListener.class
+})
+@AutoConfigureWebClient
+@ActiveProfiles("REST-RESOURCE-SERVICE-CHUNKED-UPLOAD")
+public class OwncloudRestResourceServiceChunkedUploadTest extends AbstractOwncloudServiceTest {
+
+  private final static String ROOT_PATH = "https://owncloud.example.com/remote.php/dav/files/user1";
+  private final static String UPLOADS_PATH = "https://owncloud.example.com/remote.php/dav/uploads/user1/";
+
+  @MockBean
+  private SardineCacheLoader sardineCacheLoader;
+
+  @MockBean
+  private Sardine sardine;
+
+  @MockBean
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudRestResourceServiceExtension resourceService;
+
+  private MockRestServiceServer mockServer;
+
+  @Before
+  public void setUpMocks() throws Exception {
+    Mockito
+        .when(sardineCacheLoader.load(Mockito.anyString()))
+        .thenReturn(sardine);
+    mockServer = MockRestServiceServer.createServer(((OwncloudRestService) resourceService).getRestTemplate());
+  }
+
+  @After
+  public void verifyMockServer() throws Exception {
+    mockServer.verify();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testUpload_BelowThreshold_SingleRequest() throws Exception {
+    mockServer
+        .expect(requestTo(ROOT_PATH + "/small/file.txt"))
+        .andExpect(method(HttpMethod.PUT))
+        .andExpect(content().string("small"))
+        .andRespond(withSuccess());
+
+    try (OutputStream output = resourceService.getOutputStream(createFileResource("/small/file.txt"))) {
+      output.write("small".getBytes());
+    }
+
+    Mockito.verify(sardine, Mockito.never()).createDirectory(Mockito.anyString());
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testUpload_AboveThreshold_Chunked() throws Exception {
+    try (OutputStream output = resourceService.getOutputStream(createFileResource("/chunked/file.txt"))) {
+      output.write("This is a large Test".getBytes());
+    }
+
+    String uploadUri = getUploadUri();
+    assertThat(uploadUri).startsWith(UPLOADS_PATH);
+    Mockito.verify(sardine).put(uploadUri + "/00001", "This".getBytes());
+    Mockito.verify(sardine).put(uploadUri + "/00002", " is ".getBytes());
+    Mockito.verify(sardine).put(uploadUri + "/00003", "a la".getBytes());
+    Mockito.verify(sardine).put(uploadUri + "/00004", "rge ".getBytes());
+    Mockito.verify(sardine).put(uploadUri + "/00005", "Test".getBytes());
+    Mockito.verify(sardine).move(uploadUri + "/.file", ROOT_PATH + "/chunked/file.txt", true);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testUpload_FailedChunkRetried() throws Exception {
+    Mockito
+        .doThrow(new SardineException("Service unavailable", HttpStatus.SERVICE_UNAVAILABLE.value(), "Service unavailable"))
+        .doNothing()
+        .when(sardine).put(Mockito.endsWith("/00002"), Mockito.any(byte[].class));
+
+    try (OutputStream output = resourceService.getOutputStream(createFileResource("/retry/file.txt"))) {
+      output.write("This is a Retry".getBytes());
+    }
+
+    String uploadUri = getUploadUri();
+    Mockito.verify(sardine, Mockito.times(2)).put(uploadUri + "/00002", " is ".getBytes());
+    Mockito.verify(sardine).put(uploadUri + "/00004", "try".getBytes());
+    Mockito.verify(sardine).move(uploadUri + "/.file", ROOT_PATH + "/retry/file.txt", true);
+  }
+
+  @Test(expected = OwncloudQuotaExceededException.class)
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testUpload_NOK_QuotaExceeded() throws Exception {
+    Mockito
+        .doThrow(new SardineException("Insufficient Storage", HttpStatus.INSUFFICIENT_STORAGE.value(), "Insufficient Storage"))
+        .when(sardine).put(Mockito.anyString(), Mockito.any(byte[].class));
+
+    try (OutputStream output = resourceService.getOutputStream(createFileResource("/quota/file.txt"))) {
+      output.write("This exceeds the Quota".getBytes());
+    } finally {
+      String uploadUri = getUploadUri();
+      Mockito.verify(sardine).delete(uploadUri);
+      Mockito.verify(sardine, Mockito.never()).move(Mockito.anyString(), Mockito.anyString(), Mockito.anyBoolean());
+    }
+  }
+
+  private String getUploadUri() throws Exception {
+    ArgumentCaptor<String> uploadUri = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(sardine).createDirectory(uploadUri.capture());
+    return uploadUri.getValue();
+  }
+
+  private OwncloudFileResource createFileResource(String path) {
+    return OwncloudRestFileResourceImpl.fileBuilder()
+                                       .owncloudResource(
+                                           OwncloudRestResourceImpl.builder()
+                                                                   .href(URI.create(path))
+                                                                   .mediaType(MediaType.TEXT_PLAIN)
+                                                                   .build())
+                                       .build();
+  }
+}
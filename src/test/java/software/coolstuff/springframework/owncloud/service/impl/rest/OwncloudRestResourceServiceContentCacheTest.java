@@ -0,0 +1,203 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.Sardine;
+import com.google.common.cache.CacheStats;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockitoTestExecutionListener;
+import org.springframework.boot.test.mock.mockito.ResetMocksTestExecutionListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.web.client.MockRestServiceServer;
+import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withNoContent;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@TestExecutionListeners({
+    MockitoTestExecutionListener.class,
+    ResetMocksTestExecutionListener.class
+})
+@AutoConfigureWebClient
+@ActiveProfiles("REST-RESOURCE-SERVICE-CONTENT-CACHE")
+public class OwncloudRestResourceServiceContentCacheTest extends AbstractOwncloudServiceTest {
+
+  private final static String ROOT_PATH = "https://owncloud.example.com/remote.php/dav/files/user1";
+
+  @MockBean
+  private SardineCacheLoader sardineCacheLoader;
+
+  @MockBean
+  private Sardine sardine;
+
+  @MockBean
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudRestResourceServiceExtension resourceService;
+
+  private MockRestServiceServer mockServer;
+
+  @Before
+  public void setUpMocks() throws Exception {
+    Mockito
+        .when(sardineCacheLoader.load(Mockito.anyString()))
+        .thenReturn(sardine);
+    mockServer = MockRestServiceServer.createServer(((OwncloudRestService) resourceService).getRestTemplate());
+  }
+
+  @After
+  public void verifyMockServer() throws Exception {
+    mockServer.verify();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testGetInputStream_InMemory_RevalidatedByIfNoneMatch() throws Exception {
+    OwncloudFileResource resource = createFileResource("/memory/file.txt", "etag1", "small");
+    expectGet("/memory/file.txt", "etag1", "small");
+    expectNotModified("/memory/file.txt", "etag1");
+    CacheStats before = resourceService.getContentCacheStats();
+
+    assertThat(readContentOf(resource)).isEqualTo("small");
+    assertThat(readContentOf(resource)).isEqualTo("small");
+
+    CacheStats stats = resourceService.getContentCacheStats().minus(before);
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.missCount()).isEqualTo(1);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testGetInputStream_OnDisk_RevalidatedByIfNoneMatch() throws Exception {
+    String content = "This Content doesn't fit into the In-Memory Tier";
+    OwncloudFileResource resource = createFileResource("/disk/file.txt", "etag1", content);
+    expectGet("/disk/file.txt", "etag1", content);
+    expectNotModified("/disk/file.txt", "etag1");
+    CacheStats before = resourceService.getContentCacheStats();
+
+    assertThat(readContentOf(resource)).isEqualTo(content);
+    assertThat(readContentOf(resource)).isEqualTo(content);
+
+    CacheStats stats = resourceService.getContentCacheStats().minus(before);
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.missCount()).isEqualTo(1);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testGetInputStream_ReloadedWhenModified() throws Exception {
+    OwncloudFileResource resource = createFileResource("/modified/file.txt", "etag1", "first");
+    expectGet("/modified/file.txt", "etag1", "first");
+    mockServer
+        .expect(requestTo(ROOT_PATH + "/modified/file.txt"))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"etag1\""))
+        .andRespond(withSuccess("second", MediaType.TEXT_PLAIN).headers(eTagHeader("etag2")));
+
+    assertThat(readContentOf(resource)).isEqualTo("first");
+    assertThat(readContentOf(resource)).isEqualTo("second");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testDelete_InvalidatesCache() throws Exception {
+    OwncloudFileResource resource = createFileResource("/delete/file.txt", "etag1", "content");
+    expectGet("/delete/file.txt", "etag1", "content");
+    mockServer
+        .expect(requestTo(ROOT_PATH + "/delete/file.txt"))
+        .andExpect(method(HttpMethod.DELETE))
+        .andRespond(withNoContent());
+    mockServer
+        .expect(requestTo(ROOT_PATH + "/delete/file.txt"))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(request -> assertThat(request.getHeaders().getIfNoneMatch()).isEmpty())
+        .andRespond(withSuccess("content", MediaType.TEXT_PLAIN).headers(eTagHeader("etag1")));
+
+    readContentOf(resource);
+    resourceService.delete(resource);
+    readContentOf(resource);
+  }
+
+  private OwncloudFileResource createFileResource(String path, String eTag, String content) {
+    return OwncloudRestFileResourceImpl.fileBuilder()
+                                       .owncloudResource(
+                                           OwncloudRestResourceImpl.builder()
+                                                                   .href(URI.create(path))
+                                                                   .mediaType(MediaType.TEXT_PLAIN)
+                                                                   .eTag(eTag)
+                                                                   .build())
+                                       .contentLength((long) content.length())
+                                       .build();
+  }
+
+  private void expectGet(String path, String eTag, String content) {
+    mockServer
+        .expect(requestTo(ROOT_PATH + path))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withSuccess(content, MediaType.TEXT_PLAIN).headers(eTagHeader(eTag)));
+  }
+
+  private void expectNotModified(String path, String eTag) {
+    mockServer
+        .expect(requestTo(ROOT_PATH + path))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"" + eTag + "\""))
+        .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+  }
+
+  private HttpHeaders eTagHeader(String eTag) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag("\"" + eTag + "\"");
+    return headers;
+  }
+
+  private String readContentOf(OwncloudFileResource resource) throws IOException {
+    try (InputStream input = resourceService.getInputStream(resource)) {
+      return IOUtils.toString(input, StandardCharsets.UTF_8);
+    }
+  }
+}
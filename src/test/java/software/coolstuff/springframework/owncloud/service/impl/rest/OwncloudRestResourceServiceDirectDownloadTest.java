@@ -0,0 +1,131 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.Sardine;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockitoTestExecutionListener;
+import org.springframework.boot.test.mock.mockito.ResetMocksTestExecutionListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.web.client.MockRestServiceServer;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudResourceNotFoundException;
+import software.coolstuff.springframework.owncloud.model.OwncloudFileResource;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@TestExecutionListeners({
+    MockitoTestExecutionListener.class,
+    ResetMocksTestExecutionListener.class
+})
+@AutoConfigureWebClient
+@ActiveProfiles("REST-RESOURCE-SERVICE-DIRECT-DOWNLOAD")
+public class OwncloudRestResourceServiceDirectDownloadTest extends AbstractOwncloudServiceTest {
+
+  private final static String ROOT_PATH = "https://owncloud.example.com/remote.php/dav/files/user1";
+
+  @MockBean
+  private SardineCacheLoader sardineCacheLoader;
+
+  @MockBean
+  private Sardine sardine;
+
+  @MockBean
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudRestResourceServiceExtension resourceService;
+
+  private MockRestServiceServer mockServer;
+
+  @Before
+  public void setUpMocks() throws Exception {
+    Mockito
+        .when(sardineCacheLoader.load(Mockito.anyString()))
+        .thenReturn(sardine);
+    mockServer = MockRestServiceServer.createServer(((OwncloudRestService) resourceService).getRestTemplate());
+  }
+
+  @After
+  public void verifyMockServer() throws Exception {
+    mockServer.verify();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testGetInputStream_OK() throws Exception {
+    mockServer
+        .expect(requestTo(ROOT_PATH + "/direct/file.txt"))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.AUTHORIZATION, "Basic dXNlcjE6czNjcjN0"))
+        .andRespond(withSuccess("This is the Content of the File", MediaType.TEXT_PLAIN));
+
+    try (InputStream input = resourceService.getInputStream(createFileResource("/direct/file.txt"))) {
+      assertThat(input).isInstanceOf(OwncloudRestResourceInputStream.class);
+      assertThat(IOUtils.toString(input, StandardCharsets.UTF_8)).isEqualTo("This is the Content of the File");
+      input.close(); // Call Close twice to check, that the Response will be closed only once
+    }
+  }
+
+  @Test(expected = OwncloudResourceNotFoundException.class)
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testGetInputStream_NOK_FileNotFound() throws Exception {
+    mockServer
+        .expect(requestTo(ROOT_PATH + "/direct/notExisting.txt"))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+    resourceService.getInputStream(createFileResource("/direct/notExisting.txt"));
+  }
+
+  private OwncloudFileResource createFileResource(String path) {
+    return OwncloudRestFileResourceImpl.fileBuilder()
+                                       .owncloudResource(
+                                           OwncloudRestResourceImpl.builder()
+                                                                   .href(URI.create(path))
+                                                                   .mediaType(MediaType.TEXT_PLAIN)
+                                                                   .build())
+                                       .build();
+  }
+}
@@ -0,0 +1,200 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.Sardine;
+import com.github.sardine.impl.SardineException;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockitoTestExecutionListener;
+import org.springframework.boot.test.mock.mockito.ResetMocksTestExecutionListener;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.web.client.MockRestServiceServer;
+import software.coolstuff.springframework.owncloud.model.OwncloudResource;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+import software.coolstuff.springframework.owncloud.service.impl.OwncloudUtils;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withNoContent;
+
+@TestExecutionListeners({
+    MockitoTestExecutionListener.class,
+    ResetMocksTestExecutionListener.class
+})
+@AutoConfigureWebClient
+@ActiveProfiles("REST-RESOURCE-SERVICE-METADATA-CACHE")
+public class OwncloudRestResourceServiceMetadataCacheTest extends AbstractOwncloudServiceTest {
+
+  private final static String ROOT_PATH = "https://owncloud.example.com/remote.php/dav/files/user1";
+
+  @MockBean
+  private SardineCacheLoader sardineCacheLoader;
+
+  @MockBean
+  private Sardine sardine;
+
+  @MockBean
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudRestResourceServiceExtension resourceService;
+
+  private MockRestServiceServer mockServer;
+
+  @Before
+  public void setUpMocks() throws Exception {
+    Mockito
+        .when(sardineCacheLoader.load(Mockito.anyString()))
+        .thenReturn(sardine);
+    mockServer = MockRestServiceServer.createServer(((OwncloudRestService) resourceService).getRestTemplate());
+  }
+
+  @After
+  public void verifyMockServer() throws Exception {
+    mockServer.verify();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testFind_CachedAfterFirstCall() throws Exception {
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/find/file.txt/", 0))
+        .thenReturn(Lists.newArrayList(createDavResource("/find/file.txt", "text/plain", "etag1")));
+    CacheStats before = resourceService.getMetadataCacheStats();
+
+    Optional<OwncloudResource> first = resourceService.find(URI.create("/find/file.txt"));
+    Optional<OwncloudResource> second = resourceService.find(URI.create("/find/file.txt"));
+
+    assertThat(first).isPresent();
+    assertThat(second).isEqualTo(first);
+    Mockito.verify(sardine, Mockito.times(1)).list(ROOT_PATH + "/find/file.txt/", 0);
+    CacheStats stats = resourceService.getMetadataCacheStats().minus(before);
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.missCount()).isEqualTo(1);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testFind_NegativeLookupCached() throws Exception {
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/notExisting/file.txt/", 0))
+        .thenThrow(new SardineException("Resource not found", HttpStatus.NOT_FOUND.value(), "Resource not found"));
+
+    assertThat(resourceService.find(URI.create("/notExisting/file.txt"))).isNotPresent();
+    assertThat(resourceService.find(URI.create("/notExisting/file.txt"))).isNotPresent();
+
+    Mockito.verify(sardine, Mockito.times(1)).list(ROOT_PATH + "/notExisting/file.txt/", 0);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testList_RevalidatedByETag() throws Exception {
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/revalidate/"))
+        .thenReturn(Lists.newArrayList(
+            createDavResource("/revalidate/", OwncloudUtils.getDirectoryMediaType().toString(), "directoryETag"),
+            createDavResource("/revalidate/file.txt", "text/plain", "fileETag")));
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/", 0))
+        .thenReturn(Lists.newArrayList(createDavResource("/", OwncloudUtils.getDirectoryMediaType().toString(), "rootETag")));
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/revalidate/", 0))
+        .thenReturn(Lists.newArrayList(createDavResource("/revalidate/", OwncloudUtils.getDirectoryMediaType().toString(), "directoryETag")));
+
+    List<OwncloudResource> first = resourceService.list(URI.create("/revalidate"));
+    List<OwncloudResource> second = resourceService.list(URI.create("/revalidate"));
+
+    assertThat(second).containsExactlyElementsOf(first);
+    Mockito.verify(sardine, Mockito.times(1)).list(ROOT_PATH + "/revalidate/");
+    Mockito.verify(sardine, Mockito.times(1)).list(ROOT_PATH + "/revalidate/", 0);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testList_ReloadedWhenETagChanged() throws Exception {
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/changed/"))
+        .thenReturn(Lists.newArrayList(
+            createDavResource("/changed/", OwncloudUtils.getDirectoryMediaType().toString(), "directoryETag"),
+            createDavResource("/changed/file.txt", "text/plain", "fileETag")));
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/", 0))
+        .thenReturn(Lists.newArrayList(createDavResource("/", OwncloudUtils.getDirectoryMediaType().toString(), "rootETag")));
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/changed/", 0))
+        .thenReturn(Lists.newArrayList(createDavResource("/changed/", OwncloudUtils.getDirectoryMediaType().toString(), "changedETag")));
+
+    resourceService.list(URI.create("/changed"));
+    resourceService.list(URI.create("/changed"));
+
+    Mockito.verify(sardine, Mockito.times(2)).list(ROOT_PATH + "/changed/");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void testDelete_InvalidatesCache() throws Exception {
+    Mockito
+        .when(sardine.list(ROOT_PATH + "/delete/file.txt/", 0))
+        .thenReturn(Lists.newArrayList(createDavResource("/delete/file.txt", "text/plain", "etag1")));
+    mockServer
+        .expect(requestTo(ROOT_PATH + "/delete/file.txt"))
+        .andExpect(method(HttpMethod.DELETE))
+        .andRespond(withNoContent());
+
+    OwncloudResource resource = resourceService.find(URI.create("/delete/file.txt")).get();
+    resourceService.delete(resource);
+    resourceService.find(URI.create("/delete/file.txt"));
+
+    Mockito.verify(sardine, Mockito.times(2)).list(ROOT_PATH + "/delete/file.txt/", 0);
+  }
+
+  private DavResource createDavResource(String path, String contentType, String eTag) throws URISyntaxException {
+    Long contentLength = OwncloudUtils.getDirectoryMediaType().toString().equals(contentType) ? null : 10L;
+    return new OwncloudDavResource("/remote.php/dav/files/user1" + path, new Date(), contentType, contentLength, "\"" + eTag + "\"");
+  }
+
+  private static class OwncloudDavResource extends DavResource {
+    OwncloudDavResource(String href, Date modified, String contentType, Long contentLength, String eTag) throws URISyntaxException {
+      super(href, modified, modified, contentType, contentLength, eTag, null, null, null, null, null);
+    }
+  }
+}
@@ -42,6 +42,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.test.web.client.RequestMatcher;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -52,16 +54,22 @@ import software.coolstuff.springframework.owncloud.model.OwncloudResource;
 import software.coolstuff.springframework.owncloud.service.AbstractOwncloudResourceServiceTest;
 import software.coolstuff.springframework.owncloud.service.api.OwncloudResourceService;
 import software.coolstuff.springframework.owncloud.service.impl.OwncloudUtils;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.ChannelProperties;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.Base64.Encoder;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
@@ -94,6 +102,10 @@ public class OwncloudRestResourceServiceTest extends AbstractOwncloudResourceSer
         .when(sardineCacheLoader.load(Mockito.anyString()))
         .thenReturn(sardine);
     mockServer = MockRestServiceServer.createServer(owncloudService().getRestTemplate());
+    // every Test starts with a Service which hasn't seen a Rejection of Depth infinity
+    Object resourceServiceImpl = AopTestUtils.getUltimateTargetObject(resourceService);
+    AtomicBoolean depthInfinityRejected = (AtomicBoolean) ReflectionTestUtils.getField(resourceServiceImpl, "depthInfinityRejected");
+    depthInfinityRejected.set(false);
   }
 
   @After
@@ -258,6 +270,185 @@ public class OwncloudRestResourceServiceTest extends AbstractOwncloudResourceSer
         .thenThrow(new SardineException("Resource not found", HttpStatus.NOT_FOUND.value(), "Resource not found"));
   }
 
+  @Override
+  protected void prepare_walk_OK(URI start, List<OwncloudTestResourceImpl> expectedResources) throws Exception {
+    List<DavResource> expectedDavResources = expectedResources.stream()
+                                                              .map(owncloudResource -> createDavResourceFrom(owncloudResource, Locale.GERMAN))
+                                                              .collect(Collectors.toList());
+    Mockito
+        .when(sardine.list(getResourcePath(start), -1))
+        .thenReturn(expectedDavResources);
+  }
+
+  @Override
+  protected void prepare_walk_NOK_FileNotFound(URI start) throws Exception {
+    Mockito
+        .when(sardine.list(getResourcePath(start), -1))
+        .thenThrow(new SardineException("Resource not found", HttpStatus.NOT_FOUND.value(), "Resource not found"));
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_walk_OK_DepthInfinityNotSupported() throws Exception {
+    URI start = URI.create("/crawl/");
+    List<DavResource> startDirectory = Lists.newArrayList(
+        createDavResourceFrom(createTestResource("/crawl/", OwncloudUtils.getDirectoryMediaType()), Locale.GERMAN),
+        createDavResourceFrom(createTestResource("/crawl/directory1/", OwncloudUtils.getDirectoryMediaType()), Locale.GERMAN),
+        createDavResourceFrom(createTestResource("/crawl/directory2/", OwncloudUtils.getDirectoryMediaType()), Locale.GERMAN));
+    List<DavResource> directory1 = Lists.newArrayList(
+        createDavResourceFrom(createTestResource("/crawl/directory1/", OwncloudUtils.getDirectoryMediaType()), Locale.GERMAN),
+        createDavResourceFrom(createTestResource("/crawl/directory1/file1", MediaType.TEXT_PLAIN), Locale.GERMAN));
+    List<DavResource> directory2 = Lists.newArrayList(
+        createDavResourceFrom(createTestResource("/crawl/directory2/", OwncloudUtils.getDirectoryMediaType()), Locale.GERMAN),
+        createDavResourceFrom(createTestResource("/crawl/directory2/file2", MediaType.TEXT_PLAIN), Locale.GERMAN));
+    Mockito
+        .when(sardine.list(getResourcePath(start), -1))
+        .thenThrow(new SardineException("Forbidden", HttpStatus.FORBIDDEN.value(), "Forbidden"));
+    Mockito
+        .when(sardine.list(getResourcePath(start), 1))
+        .thenReturn(startDirectory);
+    Mockito
+        .when(sardine.list(getResourcePath(URI.create("/crawl/directory1/")), 1))
+        .thenReturn(directory1);
+    Mockito
+        .when(sardine.list(getResourcePath(URI.create("/crawl/directory2/")), 1))
+        .thenReturn(directory2);
+
+    try (Stream<OwncloudResource> resources = resourceService.walk(start)) {
+      assertThat(resources.map(OwncloudResource::getHref).collect(Collectors.toList()))
+          .containsOnly(
+              URI.create("/crawl/"),
+              URI.create("/crawl/directory1/"),
+              URI.create("/crawl/directory2/"),
+              URI.create("/crawl/directory1/file1"),
+              URI.create("/crawl/directory2/file2"));
+    }
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_walk_NOK_DepthInfinityServerError() throws Exception {
+    URI start = URI.create("/crawl/");
+    Mockito
+        .when(sardine.list(getResourcePath(start), -1))
+        .thenThrow(new SardineException("Service Unavailable", HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable"));
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        resourceService.walk(start);
+        fail("OwncloudRestResourceException expected");
+      } catch (OwncloudRestResourceException e) {
+        // a temporary Error of the Server doesn't disable the PROPFIND with Depth infinity
+      }
+    }
+    Mockito.verify(sardine, Mockito.times(2)).list(getResourcePath(start), -1);
+    Mockito.verify(sardine, Mockito.never()).list(getResourcePath(start), 1);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_openChannel_OK_LargerThanBlockCache() throws Exception {
+    String content = "0123456789abcdefghijklmnopqrstuvwxyzABCD";
+    OwncloudTestFileResourceImpl owncloudFileResource =
+        OwncloudTestFileResourceImpl.fileBuilder()
+                                    .owncloudResource(OwncloudTestResourceImpl.builder()
+                                                                              .href(URI.create("/directory/large.txt"))
+                                                                              .mediaType(MediaType.TEXT_PLAIN)
+                                                                              .build())
+                                    .testFileContent(content)
+                                    .build();
+    // Blocks of 4 Bytes, only 2 Blocks will be cached
+    expectRange(owncloudFileResource, 0, 3, content);
+    expectRange(owncloudFileResource, 36, 39, content);
+    expectRange(owncloudFileResource, 16, 23, content);
+    // Block 0 has been evicted by Blocks 4 and 5
+    expectRange(owncloudFileResource, 0, 3, content);
+
+    ChannelProperties channelProperties = properties.getResourceService().getChannel();
+    int blockSize = channelProperties.getBlockSize();
+    int maximumCachedBlocks = channelProperties.getMaximumCachedBlocks();
+    channelProperties.setBlockSize(4);
+    channelProperties.setMaximumCachedBlocks(2);
+    try (SeekableByteChannel channel = resourceService.openChannel(owncloudFileResource)) {
+      assertThat(readRegion(channel, 0, 4)).isEqualTo(content.substring(0, 4));
+      assertThat(readRegion(channel, 36, 4)).isEqualTo(content.substring(36));
+      // still cached
+      assertThat(readRegion(channel, 1, 2)).isEqualTo(content.substring(1, 3));
+      assertThat(readRegion(channel, 16, 8)).isEqualTo(content.substring(16, 24));
+      assertThat(readRegion(channel, 0, 4)).isEqualTo(content.substring(0, 4));
+    } finally {
+      channelProperties.setBlockSize(blockSize);
+      channelProperties.setMaximumCachedBlocks(maximumCachedBlocks);
+    }
+    mockServer.verify();
+  }
+
+  private void expectRange(OwncloudTestFileResourceImpl owncloudFileResource, int rangeStart, int rangeEnd, String content) throws Exception {
+    mockServer
+        .expect(requestToWithPrefix(owncloudFileResource.getHref()))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.RANGE, "bytes=" + rangeStart + "-" + rangeEnd))
+        .andRespond(withStatus(HttpStatus.PARTIAL_CONTENT)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(content.substring(rangeStart, rangeEnd + 1)));
+  }
+
+  private String readRegion(SeekableByteChannel channel, long position, int length) throws IOException {
+    ByteBuffer region = ByteBuffer.allocate(length);
+    channel.position(position);
+    while (region.hasRemaining() && channel.read(region) >= 0) {
+      // read until the Region is filled
+    }
+    return new String(region.array(), 0, region.position());
+  }
+
+  @Test(expected = OwncloudRestResourceException.class)
+  @WithMockUser(username = "user1", password = "s3cr3t")
+  public void test_openChannel_NOK_RangeIgnoredByServer() throws Exception {
+    String content = "0123456789abcdefghijklmnopqrstuvwxyzABCD";
+    OwncloudTestFileResourceImpl owncloudFileResource =
+        OwncloudTestFileResourceImpl.fileBuilder()
+                                    .owncloudResource(OwncloudTestResourceImpl.builder()
+                                                                              .href(URI.create("/directory/rangeIgnored.txt"))
+                                                                              .mediaType(MediaType.TEXT_PLAIN)
+                                                                              .build())
+                                    .testFileContent(content)
+                                    .build();
+    // the Server answers the ranged GET with the whole Content
+    mockServer
+        .expect(requestToWithPrefix(owncloudFileResource.getHref()))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.RANGE, "bytes=4-11"))
+        .andRespond(withSuccess(content, MediaType.TEXT_PLAIN));
+
+    ChannelProperties channelProperties = properties.getResourceService().getChannel();
+    int blockSize = channelProperties.getBlockSize();
+    int maximumCachedBlocks = channelProperties.getMaximumCachedBlocks();
+    channelProperties.setBlockSize(4);
+    channelProperties.setMaximumCachedBlocks(2);
+    try (SeekableByteChannel channel = resourceService.openChannel(owncloudFileResource)) {
+      readRegion(channel, 5, 4);
+    } finally {
+      channelProperties.setBlockSize(blockSize);
+      channelProperties.setMaximumCachedBlocks(maximumCachedBlocks);
+    }
+  }
+
+  private OwncloudTestResourceImpl createTestResource(String href, MediaType mediaType) {
+    OwncloudTestResourceImpl resource = OwncloudTestResourceImpl.builder()
+                                                                .href(URI.create(href))
+                                                                .mediaType(mediaType)
+                                                                .backendETag(UUID.randomUUID().toString())
+                                                                .build();
+    if (OwncloudUtils.getDirectoryMediaType().equals(mediaType)) {
+      return resource;
+    }
+    return OwncloudTestFileResourceImpl.fileBuilder()
+                                       .owncloudResource(resource)
+                                       .testFileContent("")
+                                       .build();
+  }
+
   @Override
   protected void prepare_findFile_OK(URI searchPath, OwncloudTestFileResourceImpl expectedResource) throws Exception {
     List<DavResource> davResources = Lists.newArrayList(
@@ -293,6 +484,62 @@ public class OwncloudRestResourceServiceTest extends AbstractOwncloudResourceSer
         .andRespond(withSuccess(owncloudFileResource.getTestFileContent(), owncloudFileResource.getMediaType()));
   }
 
+  @Override
+  protected void prepare_uploadAll_OK(Map<URI, String> contents) throws Exception {
+    // parallel Transfers: the Order of the Requests is not predictable
+    mockServer = MockRestServiceServer.bindTo(owncloudService().getRestTemplate())
+                                      .ignoreExpectOrder(true)
+                                      .build();
+    for (Map.Entry<URI, String> content : contents.entrySet()) {
+      mockServer
+          .expect(requestToWithPrefix(content.getKey()))
+          .andExpect(method(HttpMethod.PUT))
+          .andExpect(header(HttpHeaders.AUTHORIZATION, getBasicAuthorizationHeader()))
+          .andExpect(content().contentType(MediaType.TEXT_PLAIN))
+          .andExpect(content().string(content.getValue()))
+          .andRespond(withSuccess());
+    }
+  }
+
+  @Override
+  protected void prepare_downloadAll_OK_PartiallyNotFound(OwncloudTestFileResourceImpl existingResource, OwncloudTestFileResourceImpl notExistingResource) throws Exception {
+    // parallel Transfers: the Order of the Requests is not predictable
+    mockServer = MockRestServiceServer.bindTo(owncloudService().getRestTemplate())
+                                      .ignoreExpectOrder(true)
+                                      .build();
+    mockServer
+        .expect(requestToWithPrefix(existingResource.getHref()))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.AUTHORIZATION, getBasicAuthorizationHeader()))
+        .andRespond(withSuccess(existingResource.getTestFileContent(), existingResource.getMediaType()));
+    mockServer
+        .expect(requestToWithPrefix(notExistingResource.getHref()))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.AUTHORIZATION, getBasicAuthorizationHeader()))
+        .andRespond(withStatus(HttpStatus.NOT_FOUND));
+  }
+
+  @Override
+  protected void prepare_openChannel_OK(OwncloudTestFileResourceImpl owncloudFileResource) throws Exception {
+    mockServer
+        .expect(requestToWithPrefix(owncloudFileResource.getHref()))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.AUTHORIZATION, getBasicAuthorizationHeader()))
+        .andExpect(header(HttpHeaders.RANGE, "bytes=0-" + (owncloudFileResource.getContentLength() - 1)))
+        .andRespond(withStatus(HttpStatus.PARTIAL_CONTENT)
+                        .contentType(owncloudFileResource.getMediaType())
+                        .body(owncloudFileResource.getTestFileContent()));
+  }
+
+  @Override
+  protected void prepare_openChannel_NOK_FileNotFound(OwncloudTestFileResourceImpl owncloudFileResource) throws Exception {
+    mockServer
+        .expect(requestToWithPrefix(owncloudFileResource.getHref()))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.AUTHORIZATION, getBasicAuthorizationHeader()))
+        .andRespond(withStatus(HttpStatus.NOT_FOUND));
+  }
+
   private RequestMatcher requestToWithPrefix(URI href) throws MalformedURLException {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     checkRestLocation();
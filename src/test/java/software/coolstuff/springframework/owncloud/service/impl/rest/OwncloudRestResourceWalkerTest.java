@@ -0,0 +1,208 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.coolstuff.springframework.owncloud.exception.resource.OwncloudRestResourceException;
+import software.coolstuff.springframework.owncloud.model.OwncloudResource;
+import software.coolstuff.springframework.owncloud.service.impl.rest.OwncloudRestProperties.ResourceServiceProperties.WalkProperties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Walks the Tree of a local WebDAV Stub by the Sardine Implementation of the Connection Pool.
+ */
+public class OwncloudRestResourceWalkerTest {
+
+  private static final String PATH = "/remote.php/dav/files/user1/walk/";
+
+  private final CountDownLatch consumedFirstResources = new CountDownLatch(1);
+  private final AtomicBoolean responseSentLazily = new AtomicBoolean();
+  private final AtomicBoolean depthInfinityRejected = new AtomicBoolean();
+
+  private HttpServer server;
+  private OwncloudRestConnectionPool connectionPool;
+  private int depthInfinityStatus = 207;
+
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+    OwncloudRestProperties properties = new OwncloudRestProperties();
+    properties.setLocation("http://localhost:" + server.getAddress().getPort());
+    connectionPool = new OwncloudRestConnectionPool(properties);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    exchange.getRequestBody().close();
+    boolean depthInfinity = "infinity".equals(exchange.getRequestHeaders().getFirst("Depth"));
+    if (depthInfinity && depthInfinityStatus != 207) {
+      exchange.sendResponseHeaders(depthInfinityStatus, -1);
+      exchange.close();
+      return;
+    }
+    exchange.getResponseHeaders().add("Content-Type", "application/xml; charset=utf-8");
+    exchange.sendResponseHeaders(207, 0);
+    try (OutputStream output = exchange.getResponseBody()) {
+      if (!depthInfinity) {
+        write(output, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><d:multistatus xmlns:d=\"DAV:\">");
+        write(output, directory(exchange.getRequestURI().getPath()));
+        if (PATH.equals(exchange.getRequestURI().getPath())) {
+          write(output, directory(PATH + "directory/"));
+        } else {
+          write(output, file(PATH + "directory/file"));
+        }
+        write(output, "</d:multistatus>");
+        return;
+      }
+      write(output, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><d:multistatus xmlns:d=\"DAV:\">");
+      write(output, directory(PATH));
+      write(output, directory(PATH + "directory/"));
+      write(output, file(PATH + "directory/file"));
+      write(output, "<d:response>");
+      output.flush();
+      // the Rest of the Tree will only be sent after the Client consumed the first Resources
+      try {
+        responseSentLazily.set(consumedFirstResources.await(5, TimeUnit.SECONDS));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      write(output, "<d:href>" + PATH + "directory/file2</d:href>" + fileProperties() + "</d:response>");
+      write(output, "</d:multistatus>");
+    }
+  }
+
+  private static void write(OutputStream output, String content) throws IOException {
+    output.write(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String directory(String href) {
+    return "<d:response><d:href>" + href + "</d:href>" +
+        "<d:propstat><d:prop><d:resourcetype><d:collection/></d:resourcetype></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat>" +
+        "</d:response>";
+  }
+
+  private static String file(String href) {
+    return "<d:response><d:href>" + href + "</d:href>" + fileProperties() + "</d:response>";
+  }
+
+  private static String fileProperties() {
+    return "<d:propstat><d:prop><d:resourcetype/><d:getcontenttype>text/plain</d:getcontenttype></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat>";
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    consumedFirstResources.countDown();
+    connectionPool.destroy();
+    server.stop(0);
+  }
+
+  private Stream<OwncloudResource> walk() {
+    return OwncloudRestResourceWalker.builder()
+                                     .sardine(connectionPool.createSardine("user1", "s3cr3t"))
+                                     .start(URI.create("/walk/"))
+                                     .searchPath(URI.create("http://localhost:" + server.getAddress().getPort() + PATH))
+                                     .username("user1")
+                                     .maxDepth(Integer.MAX_VALUE)
+                                     .properties(new WalkProperties())
+                                     .depthInfinityRejected(depthInfinityRejected)
+                                     .converter(davResource -> OwncloudRestResourceImpl.builder()
+                                                                                       .href(davResource.getHref())
+                                                                                       .build())
+                                     .build()
+                                     .walk();
+  }
+
+  @Test
+  public void testWalk_DepthInfinity_ReadWhileConsuming() throws Exception {
+    List<URI> hrefs = new ArrayList<>();
+    try (Stream<OwncloudResource> resources = walk()) {
+      Iterator<OwncloudResource> iterator = resources.iterator();
+      for (int i = 0; i < 3; i++) {
+        hrefs.add(iterator.next().getHref());
+      }
+      consumedFirstResources.countDown();
+      iterator.forEachRemaining(resource -> hrefs.add(resource.getHref()));
+    }
+    assertThat(responseSentLazily).isTrue();
+    assertThat(hrefs).containsExactly(
+        URI.create(PATH),
+        URI.create(PATH + "directory/"),
+        URI.create(PATH + "directory/file"),
+        URI.create(PATH + "directory/file2"));
+    assertThat(depthInfinityRejected).isFalse();
+  }
+
+  @Test
+  public void testWalk_DepthInfinity_CloseBeforeEnd() throws Exception {
+    try (Stream<OwncloudResource> resources = walk()) {
+      assertThat(resources.findFirst()).isPresent();
+    }
+    consumedFirstResources.countDown();
+    assertThat(connectionPool.getLeasedConnections()).isZero();
+  }
+
+  @Test
+  public void testWalk_DepthInfinity_Rejected() throws Exception {
+    depthInfinityStatus = 403;
+    try (Stream<OwncloudResource> resources = walk()) {
+      assertThat(resources.map(OwncloudResource::getHref).collect(Collectors.toList()))
+          .containsOnly(
+              URI.create(PATH),
+              URI.create(PATH + "directory/"),
+              URI.create(PATH + "directory/file"));
+    }
+    assertThat(depthInfinityRejected).isTrue();
+  }
+
+  @Test
+  public void testWalk_DepthInfinity_ServerErrorDoesntDisableDepthInfinity() throws Exception {
+    depthInfinityStatus = 503;
+    try {
+      walk();
+      fail("OwncloudRestResourceException expected");
+    } catch (OwncloudRestResourceException e) {
+      assertThat(depthInfinityRejected).isFalse();
+    }
+  }
+}
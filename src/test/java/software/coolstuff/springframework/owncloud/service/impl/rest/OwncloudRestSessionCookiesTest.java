@@ -0,0 +1,247 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.github.sardine.Sardine;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the Password Verifications of a local Stub which (like the Owncloud Server) verifies
+ * the Basic Authorization only when the Request doesn't contain a valid Session Cookie.
+ */
+public class OwncloudRestSessionCookiesTest {
+
+  private static final String PATH = "/remote.php/dav/files/user1/";
+  private static final String SESSION_COOKIE = "oc_session";
+  private static final String MULTISTATUS =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+      "<d:multistatus xmlns:d=\"DAV:\">" +
+      "<d:response>" +
+      "<d:href>" + PATH + "</d:href>" +
+      "<d:propstat><d:prop><d:resourcetype><d:collection/></d:resourcetype></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat>" +
+      "</d:response>" +
+      "</d:multistatus>";
+
+  private final Map<String, String> sessions = new ConcurrentHashMap<>();
+  private final AtomicInteger sessionIds = new AtomicInteger();
+  private final AtomicInteger passwordVerifications = new AtomicInteger();
+  private final AtomicInteger anonymousRequestsWithCookie = new AtomicInteger();
+
+  private HttpServer server;
+  private OwncloudRestProperties properties;
+  private OwncloudRestConnectionPool connectionPool;
+
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.createContext("/anonymous", this::handleAnonymous);
+    server.start();
+    properties = new OwncloudRestProperties();
+    properties.setLocation(getLocation());
+    properties.getSessionCookies().setEnabled(true);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    exchange.getRequestBody().close();
+    String authorization = exchange.getRequestHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+    String sessionId = getSessionId(exchange.getRequestHeaders().getFirst("Cookie"));
+    if (sessionId == null || !StringUtils.equals(sessions.get(sessionId), authorization)) {
+      passwordVerifications.incrementAndGet();
+      if (!StringUtils.startsWith(authorization, "Basic ") || StringUtils.contains(authorization, "d3Jvbmc")) {
+        exchange.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"owncloud\"");
+        exchange.sendResponseHeaders(401, -1);
+        exchange.close();
+        return;
+      }
+      sessionId = "session" + sessionIds.incrementAndGet();
+      sessions.put(sessionId, authorization);
+      exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + sessionId + "; Path=/");
+    }
+    byte[] body = MULTISTATUS.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml; charset=utf-8");
+    exchange.sendResponseHeaders(207, body.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(body);
+    }
+  }
+
+  private void handleAnonymous(HttpExchange exchange) throws IOException {
+    exchange.getRequestBody().close();
+    if (exchange.getRequestHeaders().containsKey("Cookie")) {
+      anonymousRequestsWithCookie.incrementAndGet();
+    }
+    exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=anonymous; Path=/");
+    exchange.sendResponseHeaders(204, -1);
+    exchange.close();
+  }
+
+  private String getSessionId(String cookieHeader) {
+    if (cookieHeader == null) {
+      return null;
+    }
+    for (String cookie : StringUtils.split(cookieHeader, ';')) {
+      String[] nameAndValue = StringUtils.split(StringUtils.trim(cookie), '=');
+      if (nameAndValue.length == 2 && SESSION_COOKIE.equals(nameAndValue[0])) {
+        return nameAndValue[1];
+      }
+    }
+    return null;
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (connectionPool != null) {
+      connectionPool.destroy();
+    }
+    server.stop(0);
+  }
+
+  private String getLocation() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  private OwncloudRestConnectionPool createConnectionPool() {
+    connectionPool = new OwncloudRestConnectionPool(properties);
+    return connectionPool;
+  }
+
+  @Test
+  public void testSessionCookie_ReusedBySameCredentials() throws Exception {
+    OwncloudRestConnectionPool pool = createConnectionPool();
+    Sardine sardine = pool.createSardine("user1", "s3cr3t");
+
+    for (int i = 0; i < 10; i++) {
+      sardine.list(getLocation() + PATH, 0);
+    }
+    pool.createSardine("user1", "s3cr3t").list(getLocation() + PATH, 0);
+
+    assertThat(passwordVerifications.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testSessionCookie_SharedBetweenRestTemplateAndSardine() throws Exception {
+    OwncloudRestConnectionPool pool = createConnectionPool();
+    pool.createSardine("user1", "s3cr3t").list(getLocation() + PATH, 0);
+
+    HttpGet request = new HttpGet(getLocation() + PATH + "file.txt");
+    request.addHeader(HttpHeaders.AUTHORIZATION, OwncloudRestUtils.encodeCredentialsForBasicAuthorization("user1", "s3cr3t"));
+    try (CloseableHttpResponse response = pool.getRestHttpClient().execute(request)) {
+      assertThat(response.getStatusLine().getStatusCode()).isEqualTo(207);
+    }
+
+    assertThat(passwordVerifications.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testSessionCookie_NotSharedBetweenDifferentCredentials() throws Exception {
+    OwncloudRestConnectionPool pool = createConnectionPool();
+    pool.createSardine("user1", "s3cr3t").list(getLocation() + PATH, 0);
+    pool.createSardine("user2", "s3cr3t").list(getLocation() + PATH, 0);
+
+    assertThat(passwordVerifications.get()).isEqualTo(2);
+    assertThat(sessions).hasSize(2);
+  }
+
+  @Test(expected = IOException.class)
+  public void testSessionCookie_WrongPasswordOfSameUser() throws Exception {
+    OwncloudRestConnectionPool pool = createConnectionPool();
+    pool.createSardine("user1", "s3cr3t").list(getLocation() + PATH, 0);
+    pool.createSardine("user1", "wrong").list(getLocation() + PATH, 0);
+  }
+
+  @Test
+  public void testSessionCookie_FallbackToBasicAuthenticationAfterExpiredSession() throws Exception {
+    OwncloudRestConnectionPool pool = createConnectionPool();
+    Sardine sardine = pool.createSardine("user1", "s3cr3t");
+    sardine.list(getLocation() + PATH, 0);
+    sessions.clear();
+
+    sardine.list(getLocation() + PATH, 0);
+    sardine.list(getLocation() + PATH, 0);
+
+    assertThat(passwordVerifications.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testSessionCookie_DisabledByDefault() throws Exception {
+    assertThat(new OwncloudRestProperties().getSessionCookies().isEnabled()).isFalse();
+  }
+
+  @Test
+  public void testSessionCookie_Disabled() throws Exception {
+    properties.getSessionCookies().setEnabled(false);
+    OwncloudRestConnectionPool pool = createConnectionPool();
+    Sardine sardine = pool.createSardine("user1", "s3cr3t");
+
+    sardine.list(getLocation() + PATH, 0);
+    sardine.list(getLocation() + PATH, 0);
+
+    assertThat(passwordVerifications.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testSessionCookie_NotSharedBetweenAnonymousRequests() throws Exception {
+    OwncloudRestConnectionPool pool = createConnectionPool();
+    for (int i = 0; i < 3; i++) {
+      try (CloseableHttpResponse response = pool.getRestHttpClient().execute(new HttpGet(getLocation() + "/anonymous"))) {
+        assertThat(response.getStatusLine().getStatusCode()).isEqualTo(204);
+      }
+    }
+
+    assertThat(anonymousRequestsWithCookie.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void testSessionCookie_DisabledIgnoresCookiesOfServer() throws Exception {
+    properties.getSessionCookies().setEnabled(false);
+    OwncloudRestConnectionPool pool = createConnectionPool();
+    HttpGet request = new HttpGet(getLocation() + "/anonymous");
+    request.addHeader(HttpHeaders.AUTHORIZATION, OwncloudRestUtils.encodeCredentialsForBasicAuthorization("user1", "s3cr3t"));
+    for (int i = 0; i < 3; i++) {
+      try (CloseableHttpResponse response = pool.getRestHttpClient().execute(request)) {
+        assertThat(response.getStatusLine().getStatusCode()).isEqualTo(204);
+      }
+    }
+
+    assertThat(anonymousRequestsWithCookie.get()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,150 @@
+/*-
+ * #%L
+ * owncloud-spring-boot-starter
+ * %%
+ * Copyright (C) 2016 - 2017 by the original Authors
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package software.coolstuff.springframework.owncloud.service.impl.rest;
+
+import com.google.common.cache.CacheStats;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.client.AutoConfigureWebClient;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
+import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.GET;
+
+@AutoConfigureWebClient
+@ActiveProfiles("REST-USER-CACHE")
+public class OwncloudRestUserCacheTest extends AbstractOwncloudServiceTest implements OwncloudRestServiceTest {
+
+  @Autowired
+  private OwncloudRestUserServiceExtension userService;
+
+  @Autowired
+  private OwncloudRestUserCache userCache;
+
+  @Override
+  public final OwncloudRestService owncloudService() {
+    return (OwncloudRestService) userService;
+  }
+
+  @Before
+  public void setUpUserCache() {
+    userCache.removeAllUsersFromCache();
+  }
+
+  private void prepareFindOne(String username) throws Exception {
+    respondUser(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/users/" + username)
+                   .build(),
+        UserResponse.builder()
+                    .enabled(true)
+                    .email(username + "@example.com")
+                    .displayname("Mr. User 1")
+                    .quota(1024L)
+                    .build());
+    respondGroups(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/users/" + username + "/groups")
+                   .build(),
+        "group1");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindOne_SecondCallFromCache() throws Exception {
+    prepareFindOne("user1");
+    CacheStats statsBefore = userCache.getStats();
+
+    Optional<OwncloudUserDetails> user = userService.findOne("user1");
+    Optional<OwncloudUserDetails> cachedUser = userService.findOne("user1");
+    verifyServer();
+
+    assertThat(user).isPresent();
+    assertThat(cachedUser).isPresent();
+    assertThat(cachedUser.get()).isNotSameAs(user.get());
+    assertThat(cachedUser.get().getEmail()).isEqualTo("user1@example.com");
+    checkAuthorities("user1", cachedUser.get().getAuthorities(), "group1");
+    CacheStats stats = userCache.getStats().minus(statsBefore);
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.missCount()).isEqualTo(1);
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindOne_ModificationOfResultDoesntChangeCache() throws Exception {
+    prepareFindOne("user1");
+
+    OwncloudUserDetails user = userService.findOne("user1").get();
+    user.setPassword("s3cr3t");
+    user.setEmail("changed@example.com");
+    OwncloudUserDetails cachedUser = userService.findOne("user1").get();
+    verifyServer();
+
+    assertThat(cachedUser.getPassword()).isNull();
+    assertThat(cachedUser.getEmail()).isEqualTo("user1@example.com");
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testFindOne_CachedUserOnlyForAuthorizedUser() throws Exception {
+    Authentication user1 = SecurityContextHolder.getContext().getAuthentication();
+    Authentication user2 = new UsernamePasswordAuthenticationToken("user2", "password");
+    prepareFindOne("user1");
+    SecurityContextHolder.getContext().setAuthentication(user2);
+    prepareFindOne("user1");
+
+    SecurityContextHolder.getContext().setAuthentication(user1);
+    userService.findOne("user1");
+    SecurityContextHolder.getContext().setAuthentication(user2);
+    userService.findOne("user1");
+    verifyServer();
+  }
+
+  @Test
+  @WithMockUser(username = "user1", password = "password")
+  public void testDelete_InvalidateCachedUser() throws Exception {
+    prepareFindOne("user2");
+    respondSuccess(
+        RestRequest.builder()
+                   .method(DELETE)
+                   .url("/cloud/users/user2")
+                   .build());
+    prepareFindOne("user2");
+
+    userService.findOne("user2");
+    userService.delete("user2");
+    userService.findOne("user2");
+    verifyServer();
+  }
+}
@@ -31,6 +31,8 @@ import software.coolstuff.springframework.owncloud.model.OwncloudModificationUse
 import software.coolstuff.springframework.owncloud.service.api.OwncloudUserService;
 import software.coolstuff.springframework.owncloud.service.impl.AbstractOwncloudServiceTest;
 
+import java.util.stream.Stream;
+
 @AutoConfigureWebClient
 @ActiveProfiles("REST-NO-MODIFICATION-USER-SERVICE")
 public class OwncloudRestUserModificationServiceNoModificationTest extends AbstractOwncloudServiceTest implements OwncloudRestServiceTest {
@@ -49,6 +51,12 @@ public class OwncloudRestUserModificationServiceNoModificationTest extends Abstr
     userModificationService.save(new OwncloudModificationUser("user99"));
   }
 
+  @Test(expected = AccessDeniedException.class)
+  @WithMockUser(username = "user", password = "s3cr3t")
+  public void testSaveAllUsers() {
+    userModificationService.saveAll(Stream.of(new OwncloudModificationUser("user99")));
+  }
+
   @Test(expected = AccessDeniedException.class)
   @WithMockUser(username = "user", password = "s3cr3t")
   public void testDeleteUser() {
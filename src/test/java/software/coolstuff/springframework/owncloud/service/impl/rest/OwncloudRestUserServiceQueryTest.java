@@ -25,6 +25,7 @@ import lombok.Builder;
 import lombok.Data;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -34,6 +35,8 @@ import software.coolstuff.springframework.owncloud.model.OwncloudQuota;
 import software.coolstuff.springframework.owncloud.model.OwncloudUserDetails;
 import software.coolstuff.springframework.owncloud.service.AbstractOwncloudUserServiceQueryTest;
 
+import java.util.Arrays;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.HttpMethod.GET;
 
@@ -67,6 +70,27 @@ public class OwncloudRestUserServiceQueryTest extends AbstractOwncloudUserServic
         users);
   }
 
+  @Override
+  protected void prepareTestFindAllUsersPaged(int limit, String... users) throws Exception {
+    for (int offset = 0; offset <= users.length; offset += limit) {
+      respondUsers(
+          RestRequest.builder()
+              .method(GET)
+              .url("/cloud/users?limit=" + limit + "&offset=" + offset)
+              .build(),
+          Arrays.copyOfRange(users, offset, Math.min(offset + limit, users.length)));
+      if (offset + limit > users.length) {
+        break;
+      }
+    }
+  }
+
+  @Override
+  protected void prepareTestFindAllDetailsWithFilter(String filter, OwncloudUserDetails expectedUser, String... groups) throws Exception {
+    prepareTestFindAllUsersWithFilter(filter, expectedUser.getUsername());
+    prepareTestFindOneUser_OK(expectedUser, groups);
+  }
+
   @Override
   protected void prepareTestFindOneUser_OK(OwncloudUserDetails expectedUser, String... groups) throws Exception {
     respondUser(
@@ -99,6 +123,19 @@ public class OwncloudRestUserServiceQueryTest extends AbstractOwncloudUserServic
         "The requested user could not be found");
   }
 
+  @Test(expected = AccessDeniedException.class)
+  @WithMockUser(username = "user1", password = "password")
+  public void testStreamAllUsers_NOK_AccessDenied() throws Exception {
+    respondFailure(
+        RestRequest.builder()
+            .method(GET)
+            .url("/cloud/users")
+            .build(),
+        997);
+
+    userService.streamAll(null);
+  }
+
   @Test
   @WithMockUser(username = "user1", password = "password")
   public void test_getQuota_OK() throws Exception {
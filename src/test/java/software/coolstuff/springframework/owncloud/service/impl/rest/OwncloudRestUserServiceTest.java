@@ -75,6 +75,12 @@ public class OwncloudRestUserServiceTest extends AbstractOwncloudUserServiceTest
                       .displayname(userModification.getExistingUser().getDisplayname())
                       .quota(userModification.getExistingUser().getQuota())
                       .build());
+      respondGroups(
+          RestRequest.builder()
+                     .method(GET)
+                     .url("/cloud/users/" + userModification.getExistingUser().getUsername() + "/groups")
+                     .build(),
+          CollectionUtils.isEmpty(userModification.getExistingUser().getGroups()) ? new String[] {} : userModification.getExistingUser().getGroups().toArray(new String[] {}));
     } else {
       respondFailure(
           RestRequest.builder()
@@ -96,16 +102,6 @@ public class OwncloudRestUserServiceTest extends AbstractOwncloudUserServiceTest
         postData.put("password", Lists.newArrayList(userModification.getNewUser().getPassword()));
         respondSuccess(RestRequest.builder().method(POST).url("/cloud/users").build(), postData);
       }
-
-      respondUser(
-          RestRequest.builder()
-                     .method(GET)
-                     .url("/cloud/users/" + userModification.getNewUser().getUsername())
-                     .build(),
-          UserResponse.builder()
-                      .enabled(true)
-                      .displayname(userModification.getNewUser().getUsername())
-                      .build());
     }
 
     // change the Displayname
@@ -201,20 +197,9 @@ public class OwncloudRestUserServiceTest extends AbstractOwncloudUserServiceTest
     List<String> addedGroups = new ArrayList<>();
     List<String> removedGroups = new ArrayList<>();
     if (userModification.getExistingUser() != null && CollectionUtils.isNotEmpty(userModification.getExistingUser().getGroups())) {
-      respondGroups(
-          RestRequest.builder()
-                     .method(GET)
-                     .url("/cloud/users/" + userModification.getNewUser().getUsername() + "/groups")
-                     .build(),
-          userModification.getExistingUser().getGroups().toArray(new String[] {}));
       addedGroups.addAll(CollectionUtils.subtract(userModification.getNewUser().getGroups(), userModification.getExistingUser().getGroups()));
       removedGroups.addAll(CollectionUtils.subtract(userModification.getExistingUser().getGroups(), userModification.getNewUser().getGroups()));
     } else {
-      respondGroups(
-          RestRequest.builder()
-                     .method(GET)
-                     .url("/cloud/users/" + userModification.getNewUser().getUsername() + "/groups")
-                     .build());
       addedGroups.addAll(userModification.getNewUser().getGroups());
     }
 
@@ -259,24 +244,6 @@ public class OwncloudRestUserServiceTest extends AbstractOwncloudUserServiceTest
             postData);
       }
     }
-
-    respondUser(
-        RestRequest.builder()
-                   .method(GET)
-                   .url("/cloud/users/" + userModification.getNewUser().getUsername())
-                   .build(),
-        UserResponse.builder()
-                    .enabled(userModification.getNewUser().isEnabled())
-                    .email(userModification.getNewUser().getEmail())
-                    .displayname(userModification.getNewUser().getDisplayname())
-                    .quota(userModification.getNewUser().getQuota())
-                    .build());
-    respondGroups(
-        RestRequest.builder()
-                   .method(GET)
-                   .url("/cloud/users/" + userModification.getNewUser().getUsername() + "/groups")
-                   .build(),
-        CollectionUtils.isEmpty(userModification.getNewUser().getGroups()) ? new String[] {} : userModification.getNewUser().getGroups().toArray(new String[] {}));
   }
 
   @Override
@@ -305,6 +272,57 @@ public class OwncloudRestUserServiceTest extends AbstractOwncloudUserServiceTest
                         .build());
   }
 
+  @Override
+  protected void prepareTestSaveAllUsers(OwncloudModificationUser unchangedUser, OwncloudModificationUser newUser) throws Exception {
+    respondUsers(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/users")
+                   .build(),
+        "user1", "user2", unchangedUser.getUsername());
+    respondGroups(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/groups")
+                   .build(),
+        "group1", "group2", "group3");
+
+    respondUser(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/users/" + unchangedUser.getUsername())
+                   .build(),
+        UserResponse.builder()
+                    .enabled(unchangedUser.isEnabled())
+                    .email(unchangedUser.getEmail())
+                    .displayname(unchangedUser.getDisplayname())
+                    .quota(unchangedUser.getQuota())
+                    .build());
+    respondGroups(
+        RestRequest.builder()
+                   .method(GET)
+                   .url("/cloud/users/" + unchangedUser.getUsername() + "/groups")
+                   .build(),
+        unchangedUser.getGroups().toArray(new String[] {}));
+
+    MultiValueMap<String, String> postData = new LinkedMultiValueMap<>();
+    postData.put("userid", Lists.newArrayList(newUser.getUsername()));
+    postData.put("password", Lists.newArrayList(newUser.getPassword()));
+    respondSuccess(RestRequest.builder().method(POST).url("/cloud/users").build(), postData);
+    MultiValueMap<String, String> displaynameData = new LinkedMultiValueMap<>();
+    displaynameData.put("key", Lists.newArrayList("display"));
+    displaynameData.put("value", Lists.newArrayList(newUser.getDisplayname()));
+    respondSuccess(RestRequest.builder().method(PUT).url("/cloud/users/" + newUser.getUsername()).build(), displaynameData);
+    MultiValueMap<String, String> emailData = new LinkedMultiValueMap<>();
+    emailData.put("key", Lists.newArrayList("email"));
+    emailData.put("value", Lists.newArrayList(newUser.getEmail()));
+    respondSuccess(RestRequest.builder().method(PUT).url("/cloud/users/" + newUser.getUsername()).build(), emailData);
+    MultiValueMap<String, String> quotaData = new LinkedMultiValueMap<>();
+    quotaData.put("key", Lists.newArrayList("quota"));
+    quotaData.put("value", Lists.newArrayList(getQuotaFormat().format(newUser.getQuota())));
+    respondSuccess(RestRequest.builder().method(PUT).url("/cloud/users/" + newUser.getUsername()).build(), quotaData);
+  }
+
   @Override
   protected void prepareTestDeleteUser_OK(String username) throws Exception {
     respondSuccess(